@@ -0,0 +1,173 @@
+package projects.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import projects.dao.ConnectionPool;
+import projects.dao.ConnectionPoolConfig;
+import projects.dao.DbConnection;
+import projects.dao.SchemaMigrator;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/*
+ * An in-process H2 database (MySQL mode) installed behind DbConnection for the benchmarks. Every
+ * statement execution, commit, rollback and auto-commit switch on it is counted, which is how the
+ * benchmarks report database round trips.
+ */
+public class BenchmarkDatabase {
+	private static final AtomicLong ROUND_TRIPS = new AtomicLong();
+
+	public static String url(String name) {
+		return "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	}
+
+	/* Creates the latest schema in the named database and makes it the pool behind DbConnection. */
+	public static ConnectionPool install(String name) throws SQLException {
+		return install(name, new SchemaMigrator().latestVersion());
+	}
+
+	/* Same as install(name), with the schema migrated only as far as schemaVersion. */
+	public static ConnectionPool install(String name, int schemaVersion) throws SQLException {
+		return install(name, schemaVersion, poolConfig());
+	}
+
+	/* Same as install(name, schemaVersion), with the pool built from the given configuration. */
+	public static ConnectionPool install(String name, int schemaVersion, ConnectionPoolConfig config)
+			throws SQLException {
+		String url = url(name);
+
+		try(Connection conn = DriverManager.getConnection(url)) {
+			try(Statement stmt = conn.createStatement()) {
+				stmt.execute("DROP ALL OBJECTS");
+			}
+
+			new SchemaMigrator().migrate(conn, schemaVersion);
+		}
+
+		ConnectionPool pool = new ConnectionPool(() -> counting(DriverManager.getConnection(url)), config);
+		DbConnection.setPool(pool);
+		return pool;
+	}
+
+	/* The pool settings install() uses unless given others. */
+	public static ConnectionPoolConfig poolConfig() {
+		ConnectionPoolConfig config = new ConnectionPoolConfig();
+		config.setMinSize(1);
+		config.setMaxSize(8);
+		return config;
+	}
+
+	/* Round trips (see the class comment) since the process started. */
+	public static long roundTrips() {
+		return ROUND_TRIPS.get();
+	}
+
+	/* Builds projects with the given number of children, not yet inserted. */
+	public static List<Project> newProjects(int count, int materials, int steps, int categories) {
+		List<Project> projects = new ArrayList<>(count);
+
+		for(int p = 0; p < count; p++) {
+			Project project = new Project();
+			project.setProjectName("Project " + p);
+			project.setEstimatedHours(new BigDecimal("4.00"));
+			project.setActualHours(new BigDecimal("3.50"));
+			project.setDifficulty(1 + p % 5);
+			project.setNotes("Notes for project " + p);
+
+			for(int m = 0; m < materials; m++) {
+				Material material = new Material();
+				material.setMaterialName("Material " + m);
+				material.setNumRequired(m + 1);
+				material.setCost(new BigDecimal("1.25"));
+				project.getMaterials().add(material);
+			}
+
+			for(int s = 0; s < steps; s++) {
+				Step step = new Step();
+				step.setStepText("Step " + s + " of project " + p);
+				project.getSteps().add(step);
+			}
+
+			for(int c = 0; c < categories; c++) {
+				Category category = new Category();
+				category.setCategoryName("Category " + (p + c) % 10);
+				project.getCategories().add(category);
+			}
+
+			projects.add(project);
+		}
+
+		return projects;
+	}
+
+	private static Connection counting(Connection conn) {
+		return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+					/* Ending a transaction and switching auto-commit are server calls too. */
+					switch(method.getName()) {
+						case "commit":
+						case "rollback":
+						case "setAutoCommit":
+							ROUND_TRIPS.incrementAndGet();
+							break;
+
+						default:
+							break;
+					}
+
+					Object result = invoke(conn, method, args);
+
+					if(result instanceof Statement) {
+						return countingStatement((Statement)result);
+					}
+
+					return result;
+				});
+	}
+
+	private static Statement countingStatement(Statement stmt) {
+		return (Statement)Proxy.newProxyInstance(Statement.class.getClassLoader(), interfacesOf(stmt),
+				(proxy, method, args) -> {
+					if(method.getName().startsWith("execute")) {
+						ROUND_TRIPS.incrementAndGet();
+					}
+
+					return invoke(stmt, method, args);
+				});
+	}
+
+	private static Class<?>[] interfacesOf(Statement stmt) {
+		if(stmt instanceof CallableStatement) {
+			return new Class<?>[] {CallableStatement.class};
+		}
+
+		if(stmt instanceof PreparedStatement) {
+			return new Class<?>[] {PreparedStatement.class};
+		}
+
+		return new Class<?>[] {Statement.class};
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args)
+			throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch(InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
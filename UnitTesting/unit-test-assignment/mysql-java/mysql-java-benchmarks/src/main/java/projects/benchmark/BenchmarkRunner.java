@@ -0,0 +1,40 @@
+package projects.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Runs the benchmarks matching the given regular expressions (all of them by default) in both
+ * throughput and average-time modes with the GC profiler attached, so every result comes with its
+ * allocation rate and bytes allocated per operation:
+ *
+ *   java -cp target/benchmarks.jar projects.benchmark.BenchmarkRunner [regex...]
+ *
+ * For anything more specific use the JMH command line: java -jar target/benchmarks.jar -h
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		OptionsBuilder builder = new OptionsBuilder();
+
+		if(args.length == 0) {
+			builder.include("projects\\.benchmark\\..*");
+		}
+
+		for(String include : args) {
+			builder.include(include);
+		}
+
+		Options options = builder
+				.mode(Mode.Throughput)
+				.mode(Mode.AverageTime)
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		new Runner(options).run();
+	}
+}
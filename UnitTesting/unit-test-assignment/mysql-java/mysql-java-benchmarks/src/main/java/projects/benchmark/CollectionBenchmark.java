@@ -0,0 +1,143 @@
+package projects.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.entity.Project;
+
+/*
+ * The collections used for DAO results and ID lookups: LinkedList against a presized ArrayList for
+ * building and iterating large project lists, and a boxed HashSet<Integer> against a sorted int[]
+ * for project ID membership. Run with "-prof gc" to see the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionBenchmark {
+
+	@Param({"10000", "100000"})
+	public int size;
+
+	private Project[] source;
+	private List<Project> linkedList;
+	private List<Project> arrayList;
+	private Set<Integer> boxedIds;
+	private int[] sortedIds;
+	private int[] probes;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		source = new Project[size];
+		sortedIds = new int[size];
+		boxedIds = new HashSet<>();
+
+		for(int index = 0; index < size; index++) {
+			Project project = new Project();
+			project.setProjectId(index * 2 + 1);
+			project.setProjectName("Project " + index);
+			source[index] = project;
+
+			sortedIds[index] = project.getProjectId();
+			boxedIds.add(project.getProjectId());
+		}
+
+		linkedList = new LinkedList<>(Arrays.asList(source));
+		arrayList = new ArrayList<>(Arrays.asList(source));
+
+		/* Half of the probes hit, half miss. */
+		probes = new int[1024];
+
+		for(int index = 0; index < probes.length; index++) {
+			probes[index] = (index * 7919) % (size * 2);
+		}
+	}
+
+	@Benchmark
+	public List<Project> buildLinkedList() {
+		List<Project> projects = new LinkedList<>();
+
+		for(Project project : source) {
+			projects.add(project);
+		}
+
+		return projects;
+	}
+
+	@Benchmark
+	public List<Project> buildPresizedArrayList() {
+		List<Project> projects = new ArrayList<>(source.length);
+
+		for(Project project : source) {
+			projects.add(project);
+		}
+
+		return projects;
+	}
+
+	@Benchmark
+	public long iterateLinkedList() {
+		long sum = 0;
+
+		for(Project project : linkedList) {
+			sum += project.getProjectId();
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public long iterateArrayList() {
+		long sum = 0;
+
+		for(Project project : arrayList) {
+			sum += project.getProjectId();
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public int lookupBoxedIdSet() {
+		int hits = 0;
+
+		for(int probe : probes) {
+			if(boxedIds.contains(probe)) {
+				hits++;
+			}
+		}
+
+		return hits;
+	}
+
+	@Benchmark
+	public int lookupSortedIdArray() {
+		int hits = 0;
+
+		for(int probe : probes) {
+			if(Arrays.binarySearch(sortedIds, probe) >= 0) {
+				hits++;
+			}
+		}
+
+		return hits;
+	}
+}
@@ -0,0 +1,209 @@
+package projects.benchmark;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import provided.util.DaoBase;
+import provided.util.RowMapper;
+
+/*
+ * The per-row and per-parameter helpers in DaoBase, plus Project.toString(). Rows come from an
+ * in-memory SimpleResultSet so the numbers measure the mapping code, not a database.
+ *
+ * legacyReflectionExtract is the reflection loop DaoBase.extract() ran before RowMapper, kept
+ * here as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoBaseBenchmark {
+	private static final int ROWS = 1000;
+
+	private ExposedDao dao;
+	private SimpleResultSet rows;
+	private Connection conn;
+	private PreparedStatement stmt;
+	private Project project;
+
+	/* Makes the protected DaoBase helpers callable from the benchmark. */
+	static class ExposedDao extends DaoBase {
+		<T> T callExtract(ResultSet rs, Class<T> classType) {
+			return extract(rs, classType);
+		}
+
+		<T> RowMapper<T> callRowMapper(ResultSet rs, Class<T> classType) {
+			return rowMapper(rs, classType);
+		}
+
+		void callSetParameter(PreparedStatement stmt, int index, Object value, Class<?> classType)
+				throws SQLException {
+			setParameter(stmt, index, value, classType);
+		}
+
+		static String callCamelCaseToSnakeCase(String identifier) {
+			return camelCaseToSnakeCase(identifier);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		dao = new ExposedDao();
+
+		rows = new SimpleResultSet();
+		rows.setAutoClose(false);
+		rows.addColumn("project_id", Types.INTEGER, 10, 0);
+		rows.addColumn("project_name", Types.VARCHAR, 128, 0);
+		rows.addColumn("estimated_hours", Types.DECIMAL, 7, 2);
+		rows.addColumn("actual_hours", Types.DECIMAL, 7, 2);
+		rows.addColumn("difficulty", Types.INTEGER, 10, 0);
+		rows.addColumn("notes", Types.VARCHAR, 65535, 0);
+
+		for(int index = 0; index < ROWS; index++) {
+			rows.addRow(index, "Project " + index, new BigDecimal("4.50"), new BigDecimal("3.25"), index % 5,
+					"Some notes about project " + index);
+		}
+
+		conn = DriverManager.getConnection(BenchmarkDatabase.url("dao_base"));
+		conn.createStatement().execute("CREATE TABLE IF NOT EXISTS params "
+				+ "(a VARCHAR(128), b DECIMAL(7,2), c DECIMAL(7,2), d INT, e TEXT)");
+		stmt = conn.prepareStatement("INSERT INTO params VALUES (?, ?, ?, ?, ?)");
+
+		project = BenchmarkDatabase.newProjects(1, 5, 10, 3).get(0);
+		project.setProjectId(42);
+		numberChildren(project);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		stmt.close();
+		conn.close();
+	}
+
+	@Benchmark
+	public List<Project> extractPerRow() throws SQLException {
+		List<Project> projects = new ArrayList<>(ROWS);
+		rows.beforeFirst();
+
+		while(rows.next()) {
+			projects.add(dao.callExtract(rows, Project.class));
+		}
+
+		return projects;
+	}
+
+	@Benchmark
+	public List<Project> rowMapperPerResultSet() throws SQLException {
+		List<Project> projects = new ArrayList<>(ROWS);
+		rows.beforeFirst();
+
+		RowMapper<Project> mapper = dao.callRowMapper(rows, Project.class);
+
+		while(rows.next()) {
+			projects.add(mapper.map(rows));
+		}
+
+		return projects;
+	}
+
+	@Benchmark
+	public List<Project> legacyReflectionExtract() throws Exception {
+		List<Project> projects = new ArrayList<>(ROWS);
+		rows.beforeFirst();
+
+		while(rows.next()) {
+			projects.add(legacyExtract(rows, Project.class));
+		}
+
+		return projects;
+	}
+
+	@Benchmark
+	public String camelCaseToSnakeCase() {
+		return ExposedDao.callCamelCaseToSnakeCase("estimatedHours");
+	}
+
+	@Benchmark
+	public PreparedStatement setParameter() throws SQLException {
+		dao.callSetParameter(stmt, 1, "Bookshelf", String.class);
+		dao.callSetParameter(stmt, 2, new BigDecimal("4.50"), BigDecimal.class);
+		dao.callSetParameter(stmt, 3, null, BigDecimal.class);
+		dao.callSetParameter(stmt, 4, 3, Integer.class);
+		dao.callSetParameter(stmt, 5, "Pine boards", String.class);
+		return stmt;
+	}
+
+	@Benchmark
+	public String projectToString() {
+		return project.toString();
+	}
+
+	private static void numberChildren(Project project) {
+		int id = 1;
+
+		for(Material material : project.getMaterials()) {
+			material.setMaterialId(id++);
+		}
+
+		for(Step step : project.getSteps()) {
+			step.setStepId(id++);
+		}
+
+		for(Category category : project.getCategories()) {
+			category.setCategoryId(id++);
+		}
+	}
+
+	/* The pre-RowMapper implementation of DaoBase.extract(). */
+	private static <T> T legacyExtract(ResultSet rs, Class<T> classType) throws Exception {
+		Constructor<T> con = classType.getConstructor();
+		T obj = con.newInstance();
+
+		for(Field field : classType.getDeclaredFields()) {
+			String colName = ExposedDao.callCamelCaseToSnakeCase(field.getName());
+			field.setAccessible(true);
+			Object fieldValue = null;
+
+			try {
+				fieldValue = rs.getObject(colName);
+			}
+			catch(SQLException e) {
+				/* Column not in the result set. */
+			}
+
+			if(fieldValue != null) {
+				field.set(obj, fieldValue);
+			}
+		}
+
+		return obj;
+	}
+}
@@ -0,0 +1,92 @@
+package projects.benchmark;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.ConnectionPool;
+import projects.dao.JdbcProjectDao;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+/*
+ * Loading the detail of a list of projects: one fetchProjectById per project (four queries each)
+ * against one fetchProjectsWithDetails call (four queries per chunk of IDs).
+ *
+ * The roundTrips counter is reported as a rate next to the primary score; dividing it by the
+ * score gives statements executed per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphFetchBenchmark {
+
+	@Param({"10", "100"})
+	public int projectCount;
+
+	private ConnectionPool pool;
+	private ProjectDao projectDao;
+	private List<Integer> projectIds;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class RoundTrips {
+		public long roundTrips;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		pool = BenchmarkDatabase.install("graph_fetch_" + projectCount);
+		projectDao = new JdbcProjectDao();
+
+		List<Project> projects =
+				projectDao.insertProjects(BenchmarkDatabase.newProjects(projectCount, 3, 5, 2), 500);
+
+		projectIds = new ArrayList<>(projects.size());
+		projects.forEach(project -> projectIds.add(project.getProjectId()));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.close();
+	}
+
+	@Benchmark
+	public List<Project> perProjectFetch(RoundTrips counter) {
+		long before = BenchmarkDatabase.roundTrips();
+		List<Project> projects = new ArrayList<>(projectIds.size());
+
+		for(Integer projectId : projectIds) {
+			projects.add(projectDao.fetchProjectById(projectId).orElseThrow());
+		}
+
+		counter.roundTrips += BenchmarkDatabase.roundTrips() - before;
+		return projects;
+	}
+
+	@Benchmark
+	public List<Project> batchedGraphFetch(RoundTrips counter) {
+		long before = BenchmarkDatabase.roundTrips();
+		List<Project> projects = projectDao.fetchProjectsWithDetails(projectIds);
+
+		counter.roundTrips += BenchmarkDatabase.roundTrips() - before;
+		return projects;
+	}
+}
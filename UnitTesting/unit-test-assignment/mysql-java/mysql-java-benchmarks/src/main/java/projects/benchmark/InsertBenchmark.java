@@ -0,0 +1,157 @@
+package projects.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.ConnectionPool;
+import projects.dao.DbConnection;
+import projects.dao.JdbcProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import provided.util.DaoBase;
+
+/*
+ * Single-row inserts. legacyInsertProject is JdbcProjectDao.insertProject() as it was written
+ * before generated keys: a transaction around the INSERT and a SELECT LAST_INSERT_ID() FROM project
+ * afterwards, which returns one row per row of the table. The other benchmarks are the current DAO
+ * methods.
+ *
+ * The roundTrips counter is reported as a rate next to the primary score; dividing it by the
+ * score gives round trips per insert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertBenchmark {
+	private ConnectionPool pool;
+	private JdbcProjectDao projectDao;
+	private LegacyProjectDao legacyDao;
+	private Integer projectId;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class RoundTrips {
+		public long roundTrips;
+	}
+
+	/* The old insert path, on the protected DaoBase helpers. */
+	static class LegacyProjectDao extends DaoBase {
+		Project insertProject(Project project) throws SQLException {
+			try(Connection conn = DbConnection.getConnection()) {
+				startTransaction(conn);
+
+				try {
+					try(PreparedStatement stmt = conn.prepareStatement(""
+							+ "INSERT INTO project (project_name, estimated_hours, actual_hours, difficulty, notes) "
+							+ "VALUES (?, ?, ?, ?, ?)")) {
+						setParameter(stmt, 1, project.getProjectName(), String.class);
+						setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
+						setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
+						setParameter(stmt, 4, project.getDifficulty(), Integer.class);
+						setParameter(stmt, 5, project.getNotes(), String.class);
+						stmt.executeUpdate();
+					}
+
+					try(PreparedStatement stmt = conn.prepareStatement("SELECT LAST_INSERT_ID() FROM project");
+							ResultSet rs = stmt.executeQuery()) {
+						rs.next();
+						project.setProjectId(rs.getInt(1));
+					}
+
+					commitTransaction(conn);
+					return project;
+				}
+				catch(SQLException e) {
+					rollbackTransaction(conn);
+					throw e;
+				}
+			}
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		pool = BenchmarkDatabase.install("insert");
+		projectDao = new JdbcProjectDao();
+		legacyDao = new LegacyProjectDao();
+		projectId = projectDao.insertProject(newProject()).getProjectId();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.close();
+	}
+
+	@Benchmark
+	public Project legacyInsertProject(RoundTrips counter) throws SQLException {
+		long before = BenchmarkDatabase.roundTrips();
+		Project project = legacyDao.insertProject(newProject());
+
+		counter.roundTrips += BenchmarkDatabase.roundTrips() - before;
+		return project;
+	}
+
+	@Benchmark
+	public Project insertProject(RoundTrips counter) {
+		long before = BenchmarkDatabase.roundTrips();
+		Project project = projectDao.insertProject(newProject());
+
+		counter.roundTrips += BenchmarkDatabase.roundTrips() - before;
+		return project;
+	}
+
+	@Benchmark
+	public Material insertMaterial(RoundTrips counter) {
+		Material material = new Material();
+		material.setProjectId(projectId);
+		material.setMaterialName("Screws");
+		material.setNumRequired(12);
+		material.setCost(new BigDecimal("3.40"));
+
+		long before = BenchmarkDatabase.roundTrips();
+		projectDao.insertMaterial(material);
+
+		counter.roundTrips += BenchmarkDatabase.roundTrips() - before;
+		return material;
+	}
+
+	@Benchmark
+	public Category insertCategory(RoundTrips counter) {
+		Category category = new Category();
+		category.setCategoryName("Benchmark category");
+
+		long before = BenchmarkDatabase.roundTrips();
+		projectDao.insertCategory(category);
+
+		counter.roundTrips += BenchmarkDatabase.roundTrips() - before;
+		return category;
+	}
+
+	private static Project newProject() {
+		Project project = new Project();
+		project.setProjectName("Inserted project");
+		project.setEstimatedHours(new BigDecimal("2.00"));
+		project.setDifficulty(2);
+		return project;
+	}
+}
@@ -0,0 +1,80 @@
+package projects.benchmark;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.ConnectionPool;
+import projects.dao.InstrumentedProjectDao;
+import projects.dao.JdbcProjectDao;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+import projects.metrics.ProjectMetrics;
+
+/*
+ * The cost of the metrics on the hot path: fetchProjectById (four queries, a dozen rows mapped)
+ * through the bare JdbcProjectDao and through InstrumentedProjectDao, with metrics switched off
+ * and on. With metrics on, the bare DAO still records connection waits, extract() and rows mapped;
+ * the instrumented one adds the per-method call timing. Four threads share the DAO, so contention
+ * on the counters shows up too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+	@Param({"false", "true"})
+	public boolean metrics;
+
+	private ConnectionPool pool;
+	private ProjectDao plainDao;
+	private ProjectDao instrumentedDao;
+	private Integer projectId;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		pool = BenchmarkDatabase.install("metrics_overhead");
+		plainDao = new JdbcProjectDao();
+		instrumentedDao = new InstrumentedProjectDao(plainDao);
+
+		List<Project> projects = plainDao.insertProjects(BenchmarkDatabase.newProjects(1, 3, 5, 2), 500);
+		projectId = projects.get(0).getProjectId();
+
+		ProjectMetrics.reset();
+		ProjectMetrics.setEnabled(metrics);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		ProjectMetrics.setEnabled(false);
+		pool.close();
+	}
+
+	@Benchmark
+	public Optional<Project> plainDao() {
+		return plainDao.fetchProjectById(projectId);
+	}
+
+	@Benchmark
+	public Optional<Project> instrumentedDao() {
+		return instrumentedDao.fetchProjectById(projectId);
+	}
+}
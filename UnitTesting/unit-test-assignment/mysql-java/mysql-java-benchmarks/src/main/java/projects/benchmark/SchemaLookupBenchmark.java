@@ -0,0 +1,155 @@
+package projects.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.ConnectionPool;
+import projects.dao.DbConnection;
+import projects.dao.JdbcProjectDao;
+import projects.entity.Project;
+import provided.util.DaoBase;
+
+/*
+ * Lookups by project ID on the baseline schema (schemaVersion 1: no keys, no indexes on the child
+ * tables) against the migrated one (schemaVersion 2). The same rows are loaded with explicit IDs
+ * in both cases, since the baseline has no AUTO_INCREMENT.
+ *
+ * fetchProjectById runs the four queries of a project detail load; nextStepNumber is the COUNT(*)
+ * behind DaoBase.getNextSequenceNumber().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaLookupBenchmark {
+	private static final int MATERIALS = 3;
+	private static final int STEPS = 5;
+	private static final int CATEGORIES = 10;
+
+	@Param({"1", "2"})
+	public int schemaVersion;
+
+	@Param({"5000"})
+	public int projectCount;
+
+	private ConnectionPool pool;
+	private JdbcProjectDao projectDao;
+	private SequenceDao sequenceDao;
+
+	/* Makes the protected sequence helper callable from the benchmark. */
+	static class SequenceDao extends DaoBase {
+		Integer nextStepNumber(Integer projectId) throws SQLException {
+			try(Connection conn = DbConnection.getConnection()) {
+				return getNextSequenceNumber(conn, projectId, "step", "project_id");
+			}
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		pool = BenchmarkDatabase.install("schema_lookup_" + schemaVersion, schemaVersion);
+		projectDao = new JdbcProjectDao();
+		sequenceDao = new SequenceDao();
+
+		try(Connection conn = DbConnection.getConnection()) {
+			conn.setAutoCommit(false);
+			load(conn);
+			conn.commit();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.close();
+	}
+
+	@Benchmark
+	public Optional<Project> fetchProjectById() {
+		return projectDao.fetchProjectById(randomProjectId());
+	}
+
+	@Benchmark
+	public Integer nextStepNumber() throws SQLException {
+		return sequenceDao.nextStepNumber(randomProjectId());
+	}
+
+	private int randomProjectId() {
+		return 1 + ThreadLocalRandom.current().nextInt(projectCount);
+	}
+
+	private void load(Connection conn) throws SQLException {
+		try(PreparedStatement stmt = conn.prepareStatement(
+				"INSERT INTO category (category_id, category_name) VALUES (?, ?)")) {
+			for(int c = 1; c <= CATEGORIES; c++) {
+				stmt.setInt(1, c);
+				stmt.setString(2, "Category " + c);
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+		}
+
+		try(PreparedStatement project = conn.prepareStatement(
+				"INSERT INTO project (project_id, project_name, estimated_hours, difficulty) VALUES (?, ?, ?, ?)");
+				PreparedStatement material = conn.prepareStatement(
+						"INSERT INTO material (material_id, project_id, material_name, num_required, cost) "
+								+ "VALUES (?, ?, ?, ?, ?)");
+				PreparedStatement step = conn.prepareStatement(
+						"INSERT INTO step (step_id, project_id, step_text, step_order) VALUES (?, ?, ?, ?)");
+				PreparedStatement link = conn.prepareStatement(
+						"INSERT INTO project_category (project_id, category_id) VALUES (?, ?)")) {
+			for(int p = 1; p <= projectCount; p++) {
+				project.setInt(1, p);
+				project.setString(2, "Project " + p);
+				project.setBigDecimal(3, new BigDecimal("4.00"));
+				project.setInt(4, 1 + p % 5);
+				project.addBatch();
+
+				for(int m = 1; m <= MATERIALS; m++) {
+					material.setInt(1, (p - 1) * MATERIALS + m);
+					material.setInt(2, p);
+					material.setString(3, "Material " + m);
+					material.setInt(4, m);
+					material.setBigDecimal(5, new BigDecimal("1.25"));
+					material.addBatch();
+				}
+
+				for(int s = 1; s <= STEPS; s++) {
+					step.setInt(1, (p - 1) * STEPS + s);
+					step.setInt(2, p);
+					step.setString(3, "Step " + s);
+					step.setInt(4, s);
+					step.addBatch();
+				}
+
+				link.setInt(1, p);
+				link.setInt(2, 1 + p % CATEGORIES);
+				link.addBatch();
+			}
+
+			project.executeBatch();
+			material.executeBatch();
+			step.executeBatch();
+			link.executeBatch();
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package projects.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.ConnectionPool;
+import projects.entity.Project;
+import projects.service.ProjectCache;
+import projects.service.ProjectService;
+
+/*
+ * The ProjectService CRUD paths end to end - service, DAO, pool and JDBC - against in-process H2.
+ * The project cache is disabled so every read reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceCrudBenchmark {
+	private static final int STORED_PROJECTS = 1000;
+
+	private ConnectionPool pool;
+	private ProjectService projectService;
+	private List<Integer> projectIds;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		pool = BenchmarkDatabase.install("service_crud");
+		projectService = new ProjectService(ProjectCache.disabled());
+
+		List<Project> projects =
+				projectService.addProjects(BenchmarkDatabase.newProjects(STORED_PROJECTS, 3, 5, 2));
+
+		projectIds = new ArrayList<>(projects.size());
+		projects.forEach(project -> projectIds.add(project.getProjectId()));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.close();
+	}
+
+	private Integer nextProjectId() {
+		next = (next + 1) % projectIds.size();
+		return projectIds.get(next);
+	}
+
+	@Benchmark
+	public Project addAndDeleteProject() {
+		Project project = new Project();
+		project.setProjectName("Benchmark project");
+		project.setEstimatedHours(new BigDecimal("1.00"));
+
+		projectService.addProject(project);
+		projectService.deleteProject(project.getProjectId());
+		return project;
+	}
+
+	@Benchmark
+	public Project fetchProjectById() {
+		return projectService.fetchProjectById(nextProjectId());
+	}
+
+	@Benchmark
+	public Project modifyProjectDetails() {
+		Project project = new Project();
+		project.setProjectId(nextProjectId());
+		project.setProjectName("Renamed project");
+		project.setActualHours(new BigDecimal("2.75"));
+
+		projectService.modifyProjectDetails(project);
+		return project;
+	}
+
+	@Benchmark
+	public List<Project> fetchAllProjects() {
+		return projectService.fetchAllProjects();
+	}
+}
@@ -0,0 +1,82 @@
+package projects.benchmark;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.ConnectionPool;
+import projects.dao.ConnectionPoolConfig;
+import projects.dao.JdbcProjectDao;
+import projects.dao.SchemaMigrator;
+import projects.entity.Project;
+
+/*
+ * Hot DAO lookups with the pool's prepared statement cache off (statementCacheSize 0) and on. Each
+ * fetchProjectById prepares four statements; fetchProjectsWithDetails prepares four per chunk.
+ * The hit rate of the cache is printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementCacheBenchmark {
+	private static final int PROJECTS = 200;
+
+	@Param({"0", "64"})
+	public int statementCacheSize;
+
+	private ConnectionPool pool;
+	private JdbcProjectDao projectDao;
+	private List<Integer> projectIds;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		ConnectionPoolConfig config = BenchmarkDatabase.poolConfig();
+		config.setStatementCacheSize(statementCacheSize);
+
+		pool = BenchmarkDatabase.install("statement_cache_" + statementCacheSize,
+				new SchemaMigrator().latestVersion(), config);
+		projectDao = new JdbcProjectDao();
+
+		projectIds = new ArrayList<>(PROJECTS);
+
+		for(Project project : projectDao.insertProjects(BenchmarkDatabase.newProjects(PROJECTS, 3, 5, 2), 500)) {
+			projectIds.add(project.getProjectId());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.println();
+		System.out.println("Statement cache: " + pool.getStats());
+		pool.close();
+	}
+
+	@Benchmark
+	public Optional<Project> fetchProjectById() {
+		return projectDao.fetchProjectById(projectIds.get(ThreadLocalRandom.current().nextInt(PROJECTS)));
+	}
+
+	@Benchmark
+	public List<Project> fetchProjectsWithDetails() {
+		int from = ThreadLocalRandom.current().nextInt(PROJECTS - 20);
+		return projectDao.fetchProjectsWithDetails(projectIds.subList(from, from + 20));
+	}
+}
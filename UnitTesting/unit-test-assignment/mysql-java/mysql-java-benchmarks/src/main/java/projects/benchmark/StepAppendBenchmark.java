@@ -0,0 +1,125 @@
+package projects.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.ConnectionPool;
+import projects.dao.DbConnection;
+import projects.dao.JdbcProjectDao;
+import projects.dao.SchemaMigrator;
+import projects.entity.Project;
+import projects.entity.Step;
+import provided.util.DaoBase;
+
+/*
+ * Four threads appending steps to a few projects. countThenInsert numbers each step with the
+ * COUNT(*) of DaoBase.getNextSequenceNumber(), which costs more as a project grows and lets two
+ * concurrent appends pick the same order; insertStep takes its order from JdbcProjectDao's
+ * SequenceAllocator. The number of step orders used twice is printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class StepAppendBenchmark {
+	private static final int PROJECTS = 8;
+
+	private static final String DUPLICATE_ORDERS_SQL = ""
+			+ "SELECT COUNT(*) FROM (SELECT project_id, step_order FROM step "
+			+ "GROUP BY project_id, step_order HAVING COUNT(*) > 1) d";
+
+	private ConnectionPool pool;
+	private JdbcProjectDao projectDao;
+	private CountingStepDao countingDao;
+	private List<Integer> projectIds;
+
+	/* The step append as it would be written with the protected COUNT(*) helper. */
+	static class CountingStepDao extends DaoBase {
+		void appendStep(Integer projectId, String text) throws SQLException {
+			try(Connection conn = DbConnection.getConnection()) {
+				startTransaction(conn);
+
+				try {
+					Integer order = getNextSequenceNumber(conn, projectId, "step", "project_id");
+
+					try(PreparedStatement stmt = conn.prepareStatement(
+							"INSERT INTO step (project_id, step_text, step_order) VALUES (?, ?, ?)")) {
+						setParameter(stmt, 1, projectId, Integer.class);
+						setParameter(stmt, 2, text, String.class);
+						setParameter(stmt, 3, order, Integer.class);
+						stmt.executeUpdate();
+					}
+
+					commitTransaction(conn);
+				}
+				catch(SQLException e) {
+					rollbackTransaction(conn);
+					throw e;
+				}
+			}
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		pool = BenchmarkDatabase.install("step_append", new SchemaMigrator().latestVersion());
+		projectDao = new JdbcProjectDao();
+		countingDao = new CountingStepDao();
+		projectIds = new ArrayList<>(PROJECTS);
+
+		for(Project project : projectDao.insertProjects(BenchmarkDatabase.newProjects(PROJECTS, 0, 5, 0), 500)) {
+			projectIds.add(project.getProjectId());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		try(Connection conn = DbConnection.getConnection();
+				PreparedStatement stmt = conn.prepareStatement(DUPLICATE_ORDERS_SQL);
+				ResultSet rs = stmt.executeQuery()) {
+			rs.next();
+			System.out.println();
+			System.out.println("Step orders used more than once: " + rs.getInt(1));
+		}
+
+		pool.close();
+	}
+
+	@Benchmark
+	public void countThenInsert() throws SQLException {
+		countingDao.appendStep(randomProjectId(), "Counted step");
+	}
+
+	@Benchmark
+	public Step insertStep() {
+		Step step = new Step();
+		step.setProjectId(randomProjectId());
+		step.setStepText("Allocated step");
+		return projectDao.insertStep(step);
+	}
+
+	private Integer randomProjectId() {
+		return projectIds.get(ThreadLocalRandom.current().nextInt(PROJECTS));
+	}
+}
@@ -9,7 +9,7 @@ import java.math.BigDecimal;
  * @author Promineo
  *
  */
-public class Material {
+public class Material extends TrackedEntity {
   private Integer materialId;
   private Integer projectId;
   private String materialName;
@@ -37,6 +37,7 @@ public class Material {
   }
 
   public void setMaterialName(String materialName) {
+    changed("materialName", this.materialName, materialName);
     this.materialName = materialName;
   }
 
@@ -45,6 +46,7 @@ public class Material {
   }
 
   public void setNumRequired(Integer numRequired) {
+    changed("numRequired", this.numRequired, numRequired);
     this.numRequired = numRequired;
   }
 
@@ -53,6 +55,7 @@ public class Material {
   }
 
   public void setCost(BigDecimal cost) {
+    changed("cost", this.cost, cost);
     this.cost = cost;
   }
 
@@ -4,14 +4,14 @@
 package projects.entity;
 
 import java.math.BigDecimal;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * @author Promineo
  *
  */
-public class Project {
+public class Project extends TrackedEntity {
   private Integer projectId;
   private String projectName;
   private BigDecimal estimatedHours;
@@ -19,9 +19,9 @@ public class Project {
   private Integer difficulty;
   private String notes;
 
-  private List<Material> materials = new LinkedList<>();
-  private List<Step> steps = new LinkedList<>();
-  private List<Category> categories = new LinkedList<>();
+  private List<Material> materials = new ArrayList<>();
+  private List<Step> steps = new ArrayList<>();
+  private List<Category> categories = new ArrayList<>();
 
   public Integer getProjectId() {
     return projectId;
@@ -36,6 +36,7 @@ public class Project {
   }
 
   public void setProjectName(String projectName) {
+    changed("projectName", this.projectName, projectName);
     this.projectName = projectName;
   }
 
@@ -44,6 +45,7 @@ public class Project {
   }
 
   public void setEstimatedHours(BigDecimal estimatedHours) {
+    changed("estimatedHours", this.estimatedHours, estimatedHours);
     this.estimatedHours = estimatedHours;
   }
 
@@ -52,6 +54,7 @@ public class Project {
   }
 
   public void setActualHours(BigDecimal actualHours) {
+    changed("actualHours", this.actualHours, actualHours);
     this.actualHours = actualHours;
   }
 
@@ -60,6 +63,7 @@ public class Project {
   }
 
   public void setDifficulty(Integer difficulty) {
+    changed("difficulty", this.difficulty, difficulty);
     this.difficulty = difficulty;
   }
 
@@ -68,6 +72,7 @@ public class Project {
   }
 
   public void setNotes(String notes) {
+    changed("notes", this.notes, notes);
     this.notes = notes;
   }
 
@@ -7,7 +7,7 @@ package projects.entity;
  * @author Promineo
  *
  */
-public class Step {
+public class Step extends TrackedEntity {
   private Integer stepId;
   private Integer projectId;
   private String stepText;
@@ -34,6 +34,7 @@ public class Step {
   }
 
   public void setStepText(String stepText) {
+    changed("stepText", this.stepText, stepText);
     this.stepText = stepText;
   }
 
@@ -42,6 +43,7 @@ public class Step {
   }
 
   public void setStepOrder(Integer stepOrder) {
+    changed("stepOrder", this.stepOrder, stepOrder);
     this.stepOrder = stepOrder;
   }
 
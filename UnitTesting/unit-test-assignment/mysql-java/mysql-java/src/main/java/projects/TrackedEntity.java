@@ -0,0 +1,75 @@
+/**
+ * 
+ */
+package projects.entity;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Remembers which fields of an entity have been set to a new value since it was loaded or last
+ * written, so an update can write those columns only. The setters of the column fields report
+ * here; IDs are not tracked. Rows mapped from a result set start with no changes, because the
+ * mapper writes the fields directly rather than through the setters.
+ *
+ * @author Promineo
+ *
+ */
+public abstract class TrackedEntity {
+  /* Created on the first change, so clean entities cost no more than before. */
+  private transient Set<String> changedFields;
+
+  /**
+   * Returns the names of the fields changed since the entity was loaded or last written, in the
+   * order they were first changed.
+   */
+  public Set<String> getChangedFields() {
+    return Objects.isNull(changedFields) ? Set.of() : Collections.unmodifiableSet(changedFields);
+  }
+
+  public boolean isChanged(String field) {
+    return Objects.nonNull(changedFields) && changedFields.contains(field);
+  }
+
+  /**
+   * Records the field as changed whatever its value, for an entity built to carry changes made to
+   * another one.
+   */
+  public void markChanged(String field) {
+    if(Objects.isNull(changedFields)) {
+      changedFields = new LinkedHashSet<>();
+    }
+
+    changedFields.add(field);
+  }
+
+  /**
+   * Forgets the changes, as after the entity has been written. DAOs call this once the row
+   * matches the entity.
+   */
+  public void clearChanges() {
+    changedFields = null;
+  }
+
+  /**
+   * Records the field as changed unless the new value equals the old one. Decimals are compared by
+   * value, so 2.5 and 2.50 are the same.
+   */
+  protected void changed(String field, Object oldValue, Object newValue) {
+    boolean same;
+
+    if(oldValue instanceof BigDecimal && newValue instanceof BigDecimal) {
+      same = ((BigDecimal)oldValue).compareTo((BigDecimal)newValue) == 0;
+    }
+    else {
+      same = Objects.equals(oldValue, newValue);
+    }
+
+    if(!same) {
+      markChanged(field);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package projects.catalog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.stream.Stream;
+import projects.entity.Project;
+import projects.service.ProjectService;
+
+/*
+ * Writes the whole project catalog to a file that CatalogImporter can read back. Projects come from
+ * ProjectService.streamProjectsWithDetails(), which merges the child rows in with the project rows
+ * as it goes, and are encoded straight into a buffered FileChannel, so memory stays at one project
+ * and one buffer however large the catalog.
+ *
+ * Every checkpointInterval projects the file is flushed to disk and <file>.checkpoint records the
+ * last project ID written and the file length at that point. If the export stops part way, the
+ * next export to the same file cuts the file back to the checkpoint and carries on after that
+ * project. The checkpoint is deleted when an export completes, so the following export starts
+ * afresh.
+ */
+public class CatalogExporter {
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+
+	private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+	private static final String PROJECT_ID = "projectId";
+	private static final String OFFSET = "offset";
+
+	private final ProjectService projectService;
+	private final int checkpointInterval;
+
+	public CatalogExporter(ProjectService projectService) {
+		this(projectService, DEFAULT_CHECKPOINT_INTERVAL);
+	}
+
+	public CatalogExporter(ProjectService projectService, int checkpointInterval) {
+		if(checkpointInterval < 1) {
+			throw new IllegalArgumentException("Checkpoint interval must be positive, got " + checkpointInterval);
+		}
+
+		this.projectService = projectService;
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/* Exports to a UTF-8 file whose format is given by its extension; see CatalogFormat.forFile(). */
+	public ExportReport exportFile(Path file) throws IOException {
+		CatalogFormat format = CatalogFormat.forFile(file);
+		Path checkpointFile = checkpointFor(file);
+		Properties checkpoint = readCheckpoint(checkpointFile);
+		long startNanos = System.nanoTime();
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			Integer afterProjectId = null;
+			long offset = 0;
+
+			if(Objects.nonNull(checkpoint)) {
+				afterProjectId = Integer.valueOf(checkpoint.getProperty(PROJECT_ID));
+				offset = Long.parseLong(checkpoint.getProperty(OFFSET));
+
+				if(channel.size() < offset) {
+					throw new IOException("Cannot resume: " + file + " is shorter than its checkpoint at byte "
+							+ offset + ". Delete " + checkpointFile + " to export afresh.");
+				}
+			}
+
+			/* Drop anything written after the checkpoint, or the whole file when starting afresh. */
+			channel.truncate(offset);
+			channel.position(offset);
+
+			ChannelWriter out = new ChannelWriter(channel);
+			CatalogWriter writer = format.newWriter(out);
+			long projects = 0;
+			long materials = 0;
+			long steps = 0;
+			long categoryLinks = 0;
+
+			if(Objects.isNull(afterProjectId)) {
+				writer.writeHeader();
+			}
+
+			try(Stream<Project> stream = projectService.streamProjectsWithDetails(afterProjectId)) {
+				Iterator<Project> iterator = stream.iterator();
+
+				while(iterator.hasNext()) {
+					Project project = iterator.next();
+
+					writer.write(project);
+					materials += project.getMaterials().size();
+					steps += project.getSteps().size();
+					categoryLinks += project.getCategories().size();
+
+					if(++projects % checkpointInterval == 0) {
+						out.flush();
+						channel.force(false);
+						writeCheckpoint(checkpointFile, project.getProjectId(), offset + out.getBytesWritten());
+					}
+				}
+			}
+
+			out.close();
+			channel.force(false);
+			Files.deleteIfExists(checkpointFile);
+
+			return new ExportReport(projects, materials, steps, categoryLinks, out.getBytesWritten(),
+					System.nanoTime() - startNanos, afterProjectId);
+		}
+	}
+
+	static Path checkpointFor(Path file) {
+		return file.resolveSibling(file.getFileName() + CHECKPOINT_SUFFIX);
+	}
+
+	/* The saved checkpoint, or null if there is none. */
+	private static Properties readCheckpoint(Path checkpointFile) throws IOException {
+		Properties checkpoint = new Properties();
+
+		try(Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+			checkpoint.load(reader);
+		}
+		catch(NoSuchFileException e) {
+			return null;
+		}
+
+		if(Objects.isNull(checkpoint.getProperty(PROJECT_ID)) || Objects.isNull(checkpoint.getProperty(OFFSET))) {
+			throw new IOException("Invalid checkpoint " + checkpointFile);
+		}
+
+		return checkpoint;
+	}
+
+	/* Writes a temporary file and moves it over the old checkpoint, so a crash leaves one or the other. */
+	private static void writeCheckpoint(Path checkpointFile, int projectId, long offset) throws IOException {
+		Properties checkpoint = new Properties();
+		Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+
+		checkpoint.setProperty(PROJECT_ID, Integer.toString(projectId));
+		checkpoint.setProperty(OFFSET, Long.toString(offset));
+
+		try(Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+			checkpoint.store(writer, "Catalog export checkpoint");
+		}
+
+		Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,39 @@
+package projects.catalog;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/* The file formats of a project catalog. */
+public enum CatalogFormat {
+	/* Typed rows: a project row followed by its material, step and category rows; see CsvCatalogReader. */
+	CSV,
+
+	/* One JSON object per project per line; see JsonLinesCatalogReader. */
+	JSON_LINES;
+
+	/* The format named by the file extension: .csv, or .jsonl, .ndjson or .json. */
+	public static CatalogFormat forFile(Path file) {
+		String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+
+		if(name.endsWith(".csv")) {
+			return CSV;
+		}
+
+		if(name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+			return JSON_LINES;
+		}
+
+		throw new IllegalArgumentException("Cannot tell the catalog format of " + file
+				+ "; use a .csv or .jsonl file.");
+	}
+
+	public CatalogReader newReader(Reader reader) {
+		return this == CSV ? new CsvCatalogReader(reader) : new JsonLinesCatalogReader(reader);
+	}
+
+	public CatalogWriter newWriter(Writer writer) {
+		return this == CSV ? new CsvCatalogWriter(writer) : new JsonLinesCatalogWriter(writer);
+	}
+}
@@ -0,0 +1,283 @@
+package projects.catalog;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Project;
+import projects.service.ProjectService;
+
+/*
+ * Loads a project catalog into the database as a two-stage pipeline:
+ * - The calling thread reads and validates the records (see CatalogReader) and groups the valid
+ *   projects into batches. Records that fail are counted and skipped.
+ * - Writer threads take the batches from a bounded queue and write each one with
+ *   ProjectService.addProjects(), in one transaction per batch.
+ *
+ * The queue holds two batches per writer. When the writers fall behind, the reader blocks on the
+ * queue instead of buffering the file, so memory stays at a few batches however large the catalog.
+ *
+ * Categories are matched by name across the whole import. Each new name is inserted once, by the
+ * first batch that needs it, and every later project links to that row. Names are not matched
+ * against categories already in the database.
+ *
+ * A batch that fails to write is counted in the report and the import goes on. If reading fails
+ * with an IOException, the batches already queued are still written before the exception is
+ * thrown.
+ */
+public class CatalogImporter {
+	public static final int DEFAULT_WRITERS = 4;
+
+	/* Errors kept for the report; the counts cover all of them. */
+	public static final int MAX_REPORTED_ERRORS = 100;
+
+	/* Tells a writer to stop. Compared by identity. */
+	private static final List<Project> END = new ArrayList<>();
+
+	private final ProjectService projectService;
+	private final int writers;
+	private final int batchSize;
+
+	public CatalogImporter(ProjectService projectService) {
+		this(projectService, DEFAULT_WRITERS, ProjectDao.DEFAULT_BATCH_SIZE);
+	}
+
+	/* Each writer holds one pooled connection while it writes, so keep writers below the pool size. */
+	public CatalogImporter(ProjectService projectService, int writers, int batchSize) {
+		if(writers < 1 || batchSize < 1) {
+			throw new IllegalArgumentException(
+					"Writers and batch size must be positive, got " + writers + " and " + batchSize);
+		}
+
+		this.projectService = projectService;
+		this.writers = writers;
+		this.batchSize = batchSize;
+	}
+
+	/* Imports a UTF-8 file whose format is given by its extension; see CatalogFormat.forFile(). */
+	public ImportReport importFile(Path file) throws IOException {
+		CatalogFormat format = CatalogFormat.forFile(file);
+
+		try(CatalogReader reader = format.newReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+			return importFrom(reader);
+		}
+	}
+
+	/* Imports every project the reader yields. The caller closes the reader. */
+	public ImportReport importFrom(CatalogReader reader) throws IOException {
+		Run run = new Run();
+		BlockingQueue<List<Project>> queue = new ArrayBlockingQueue<>(writers * 2);
+		ExecutorService executor = Executors.newFixedThreadPool(writers, writerThreads());
+
+		for(int writer = 0; writer < writers; writer++) {
+			executor.execute(() -> write(queue, run));
+		}
+
+		try {
+			read(reader, queue, run);
+		}
+		finally {
+			stopWriters(queue, executor);
+		}
+
+		return run.report();
+	}
+
+	private void read(CatalogReader reader, BlockingQueue<List<Project>> queue, Run run) throws IOException {
+		/* One Category per name, so every project naming it shares the row inserted for it. */
+		Map<String, Category> categories = new HashMap<>();
+		List<Project> batch = new ArrayList<>(batchSize);
+
+		while(true) {
+			Project project;
+
+			try {
+				project = reader.next();
+			}
+			catch(CatalogRecordException e) {
+				run.rejected(e);
+				continue;
+			}
+
+			if(Objects.isNull(project)) {
+				break;
+			}
+
+			project.getCategories()
+					.replaceAll(category -> categories.computeIfAbsent(category.getCategoryName(), name -> category));
+
+			batch.add(project);
+			run.projectsRead.incrementAndGet();
+
+			if(batch.size() == batchSize) {
+				put(queue, batch);
+				batch = new ArrayList<>(batchSize);
+			}
+		}
+
+		if(!batch.isEmpty()) {
+			put(queue, batch);
+		}
+	}
+
+	private void write(BlockingQueue<List<Project>> queue, Run run) {
+		while(true) {
+			List<Project> batch;
+
+			try {
+				batch = queue.take();
+			}
+			catch(InterruptedException e) {
+				return;
+			}
+
+			if(batch == END) {
+				return;
+			}
+
+			try {
+				insertNewCategories(batch);
+				projectService.addProjects(batch, batch.size());
+				run.written(batch);
+			}
+			catch(RuntimeException e) {
+				run.failed(batch, e);
+			}
+		}
+	}
+
+	/*
+	 * Inserts the categories of the batch that have no row yet. A shared Category is locked while it
+	 * is inserted, so two writers needing the same new name insert it once.
+	 */
+	private void insertNewCategories(List<Project> batch) {
+		for(Project project : batch) {
+			for(Category category : project.getCategories()) {
+				synchronized(category) {
+					if(Objects.isNull(category.getCategoryId())) {
+						projectService.addCategory(category);
+					}
+				}
+			}
+		}
+	}
+
+	private static void put(BlockingQueue<List<Project>> queue, List<Project> batch) throws IOException {
+		try {
+			queue.put(batch);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while queueing a batch for writing");
+		}
+	}
+
+	/*
+	 * Lets the writers finish the queued batches, then stops them. An interrupt does not cut this
+	 * short, since the batches are already read; it is passed on afterwards.
+	 */
+	private void stopWriters(BlockingQueue<List<Project>> queue, ExecutorService executor) {
+		boolean interrupted = Thread.interrupted();
+
+		for(int writer = 0; writer < writers; writer++) {
+			while(true) {
+				try {
+					queue.put(END);
+					break;
+				}
+				catch(InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+
+		executor.shutdown();
+
+		while(true) {
+			try {
+				if(executor.awaitTermination(1, TimeUnit.MINUTES)) {
+					break;
+				}
+			}
+			catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static ThreadFactory writerThreads() {
+		AtomicInteger count = new AtomicInteger();
+
+		return task -> {
+			Thread thread = new Thread(task, "catalog-writer-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/* The counters of one import, shared by the reader and the writers. */
+	private static class Run {
+		private final long startNanos = System.nanoTime();
+		private final AtomicLong projectsRead = new AtomicLong();
+		private final AtomicLong projectsImported = new AtomicLong();
+		private final AtomicLong projectsRejected = new AtomicLong();
+		private final AtomicLong projectsFailed = new AtomicLong();
+		private final AtomicLong materials = new AtomicLong();
+		private final AtomicLong steps = new AtomicLong();
+		private final AtomicLong categoryLinks = new AtomicLong();
+		private final List<String> errors = new ArrayList<>();
+
+		void rejected(CatalogRecordException e) {
+			projectsRejected.incrementAndGet();
+			error(e.getMessage());
+		}
+
+		void written(List<Project> batch) {
+			projectsImported.addAndGet(batch.size());
+
+			for(Project project : batch) {
+				materials.addAndGet(project.getMaterials().size());
+				steps.addAndGet(project.getSteps().size());
+				categoryLinks.addAndGet(project.getCategories().stream().distinct().count());
+			}
+		}
+
+		void failed(List<Project> batch, RuntimeException e) {
+			projectsFailed.addAndGet(batch.size());
+			error("Batch of " + batch.size() + " projects starting with '" + batch.get(0).getProjectName()
+					+ "' failed: " + e);
+		}
+
+		synchronized void error(String message) {
+			if(errors.size() < MAX_REPORTED_ERRORS) {
+				errors.add(message);
+			}
+		}
+
+		synchronized ImportReport report() {
+			return new ImportReport(projectsRead.get(), projectsImported.get(), projectsRejected.get(),
+					projectsFailed.get(), materials.get(), steps.get(), categoryLinks.get(),
+					System.nanoTime() - startNanos, errors);
+		}
+	}
+}
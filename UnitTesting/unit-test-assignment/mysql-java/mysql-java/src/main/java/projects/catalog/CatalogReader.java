@@ -0,0 +1,18 @@
+package projects.catalog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import projects.entity.Project;
+
+/*
+ * Reads project graphs - a project with its materials, steps and categories - one at a time from
+ * a catalog file, without loading the file into memory. See CatalogFormat for the formats.
+ */
+public interface CatalogReader extends Closeable {
+
+	/*
+	 * The next project, or null at the end of the input. Throws CatalogRecordException for a record
+	 * that cannot be used; the record has been consumed, so the caller may skip it and read on.
+	 */
+	Project next() throws IOException;
+}
@@ -0,0 +1,20 @@
+package projects.catalog;
+
+/*
+ * A catalog record that cannot be turned into a project: malformed, or failing validation. The
+ * reader has already moved past it, so reading can go on with the next record.
+ */
+@SuppressWarnings("serial")
+public class CatalogRecordException extends RuntimeException {
+	private final long lineNumber;
+
+	public CatalogRecordException(long lineNumber, String message) {
+		super("Line " + lineNumber + ": " + message);
+		this.lineNumber = lineNumber;
+	}
+
+	/* The line on which the record starts. */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+}
@@ -0,0 +1,166 @@
+package projects.catalog;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/*
+ * Builds and validates the entities of a catalog record against the limits of the schema, so a bad
+ * record is rejected on its own instead of failing the whole batch it would be written in. Every
+ * check throws IllegalArgumentException, which the readers report with the line number.
+ */
+final class CatalogRecords {
+	static final int MAX_NAME_LENGTH = 128;
+
+	/* Hours and costs are DECIMAL(7,2). */
+	private static final BigDecimal MAX_DECIMAL = new BigDecimal("99999.99");
+
+	private CatalogRecords() {
+	}
+
+	static Project project(String name, BigDecimal estimatedHours, BigDecimal actualHours, Integer difficulty,
+			String notes) {
+		if(Objects.nonNull(difficulty) && (difficulty < 1 || difficulty > 5)) {
+			throw new IllegalArgumentException("difficulty must be between 1 and 5, was " + difficulty);
+		}
+
+		Project project = new Project();
+
+		project.setProjectName(name("projectName", name));
+		project.setEstimatedHours(amount("estimatedHours", estimatedHours));
+		project.setActualHours(amount("actualHours", actualHours));
+		project.setDifficulty(difficulty);
+		project.setNotes(notes);
+
+		return project;
+	}
+
+	static Material material(String name, Integer numRequired, BigDecimal cost) {
+		if(Objects.nonNull(numRequired) && numRequired < 0) {
+			throw new IllegalArgumentException("numRequired must not be negative, was " + numRequired);
+		}
+
+		Material material = new Material();
+
+		material.setMaterialName(name("materialName", name));
+		material.setNumRequired(numRequired);
+		material.setCost(amount("cost", cost));
+
+		return material;
+	}
+
+	static Step step(String text) {
+		if(Objects.isNull(text) || text.isBlank()) {
+			throw new IllegalArgumentException("stepText is required");
+		}
+
+		Step step = new Step();
+		step.setStepText(text);
+
+		return step;
+	}
+
+	static Category category(String name) {
+		Category category = new Category();
+		category.setCategoryName(name("categoryName", name));
+
+		return category;
+	}
+
+	/* A decimal field of a CSV row; blank means null. */
+	static BigDecimal decimal(String field, String value) {
+		if(Objects.isNull(value) || value.isBlank()) {
+			return null;
+		}
+
+		try {
+			return new BigDecimal(value.trim());
+		}
+		catch(NumberFormatException e) {
+			throw new IllegalArgumentException(field + " is not a number: " + value);
+		}
+	}
+
+	/* An integer field of a CSV row; blank means null. */
+	static Integer integer(String field, String value) {
+		if(Objects.isNull(value) || value.isBlank()) {
+			return null;
+		}
+
+		try {
+			return Integer.valueOf(value.trim());
+		}
+		catch(NumberFormatException e) {
+			throw new IllegalArgumentException(field + " is not a whole number: " + value);
+		}
+	}
+
+	/* A text field of a CSV row; empty means null. */
+	static String text(String value) {
+		return Objects.isNull(value) || value.isEmpty() ? null : value;
+	}
+
+	/* A string member of a JSON object. */
+	static String text(String field, Object value) {
+		if(Objects.nonNull(value) && !(value instanceof String)) {
+			throw new IllegalArgumentException(field + " must be a string");
+		}
+
+		return (String)value;
+	}
+
+	/* A number member of a JSON object. */
+	static BigDecimal decimal(String field, Object value) {
+		if(Objects.nonNull(value) && !(value instanceof BigDecimal)) {
+			throw new IllegalArgumentException(field + " must be a number");
+		}
+
+		return (BigDecimal)value;
+	}
+
+	/* A whole-number member of a JSON object. */
+	static Integer integer(String field, Object value) {
+		BigDecimal number = decimal(field, value);
+
+		if(Objects.isNull(number)) {
+			return null;
+		}
+
+		try {
+			return number.intValueExact();
+		}
+		catch(ArithmeticException e) {
+			throw new IllegalArgumentException(field + " is not a whole number: " + number);
+		}
+	}
+
+	private static String name(String field, String value) {
+		if(Objects.isNull(value) || value.isBlank()) {
+			throw new IllegalArgumentException(field + " is required");
+		}
+
+		if(value.length() > MAX_NAME_LENGTH) {
+			throw new IllegalArgumentException(field + " is longer than " + MAX_NAME_LENGTH + " characters");
+		}
+
+		return value;
+	}
+
+	private static BigDecimal amount(String field, BigDecimal value) {
+		if(Objects.isNull(value)) {
+			return null;
+		}
+
+		BigDecimal rounded = value.setScale(2, RoundingMode.HALF_UP);
+
+		if(rounded.signum() < 0 || rounded.compareTo(MAX_DECIMAL) > 0) {
+			throw new IllegalArgumentException(field + " must be between 0 and " + MAX_DECIMAL + ", was " + value);
+		}
+
+		return rounded;
+	}
+}
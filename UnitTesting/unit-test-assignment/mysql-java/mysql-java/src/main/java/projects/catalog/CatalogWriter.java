@@ -0,0 +1,17 @@
+package projects.catalog;
+
+import java.io.IOException;
+import projects.entity.Project;
+
+/*
+ * Writes project graphs in a catalog format that the matching CatalogReader reads back. Each
+ * project is written as one piece, so the output can be cut between any two projects.
+ */
+public interface CatalogWriter {
+
+	/* Writes whatever the format puts at the start of a file. */
+	default void writeHeader() throws IOException {
+	}
+
+	void write(Project project) throws IOException;
+}
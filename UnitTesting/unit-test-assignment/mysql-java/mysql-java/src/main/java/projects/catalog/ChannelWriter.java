@@ -0,0 +1,119 @@
+package projects.catalog;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * A Writer that encodes UTF-8 into one direct buffer and writes it to a channel when it is full or
+ * flushed, so a large export costs one channel write per buffer rather than per record. It counts
+ * the bytes it has written, which is where the output ends after a flush.
+ *
+ * Closing flushes but leaves the channel open. Not thread safe.
+ */
+class ChannelWriter extends Writer {
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	private final WritableByteChannel channel;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/* A high surrogate at the end of one write, kept for the low surrogate that starts the next. */
+	private final CharBuffer carry = CharBuffer.allocate(2);
+	private long written;
+
+	ChannelWriter(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	public void write(char[] chars, int offset, int length) throws IOException {
+		encode(CharBuffer.wrap(chars, offset, length));
+	}
+
+	@Override
+	public void write(String text, int offset, int length) throws IOException {
+		encode(CharBuffer.wrap(text, offset, offset + length));
+	}
+
+	@Override
+	public Writer append(CharSequence text) throws IOException {
+		encode(CharBuffer.wrap(text));
+		return this;
+	}
+
+	/* Bytes handed to the channel so far. */
+	long getBytesWritten() {
+		return written;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		drain();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(carry.position() > 0) {
+			carry.flip();
+			encode(carry, true);
+			carry.clear();
+		}
+
+		encoder.encode(CharBuffer.allocate(0), bytes, true);
+
+		while(encoder.flush(bytes).isOverflow()) {
+			drain();
+		}
+
+		drain();
+		encoder.reset();
+	}
+
+	private void encode(CharBuffer chars) throws IOException {
+		if(carry.position() > 0 && chars.hasRemaining()) {
+			carry.put(chars.get()).flip();
+			encode(carry, false);
+			carry.clear();
+		}
+
+		encode(chars, false);
+
+		if(chars.hasRemaining()) {
+			carry.put(chars.get());
+		}
+	}
+
+	private void encode(CharBuffer chars, boolean endOfInput) throws IOException {
+		while(true) {
+			CoderResult result = encoder.encode(chars, bytes, endOfInput);
+
+			if(result.isOverflow()) {
+				drain();
+			}
+			else if(result.isUnderflow()) {
+				return;
+			}
+			else {
+				result.throwException();
+			}
+		}
+	}
+
+	private void drain() throws IOException {
+		bytes.flip();
+
+		while(bytes.hasRemaining()) {
+			written += channel.write(bytes);
+		}
+
+		bytes.clear();
+	}
+}
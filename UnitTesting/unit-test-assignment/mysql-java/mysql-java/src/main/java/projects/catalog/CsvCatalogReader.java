@@ -0,0 +1,214 @@
+package projects.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import projects.entity.Project;
+
+/*
+ * Reads a CSV catalog (RFC 4180: comma separated, fields with commas, quotes or line breaks in
+ * double quotes). The first field of each row names what the row holds, and the rows after a
+ * project row belong to that project:
+ *
+ * project,<project name>,<estimated hours>,<actual hours>,<difficulty>,<notes>
+ * material,<material name>,<number required>,<cost>
+ * step,<step text>
+ * category,<category name>
+ *
+ * Empty fields are null and trailing fields may be left off; fields past the last one are ignored,
+ * such as the project ID CsvCatalogWriter adds. Steps are numbered in file order. A
+ * header row whose first field is "type" is skipped, as are blank lines.
+ *
+ * If any row of a project is invalid, the whole project - up to the next project row - is
+ * rejected.
+ */
+public class CsvCatalogReader implements CatalogReader {
+	private static final String HEADER = "type";
+
+	private final BufferedReader reader;
+	private long lineNumber;
+
+	/* The project row read ahead while collecting the previous project's rows. */
+	private List<String> pending;
+	private long pendingLine;
+
+	public CsvCatalogReader(Reader reader) {
+		this.reader = reader instanceof BufferedReader ? (BufferedReader)reader : new BufferedReader(reader);
+	}
+
+	@Override
+	public Project next() throws IOException {
+		List<String> row;
+		long startLine;
+
+		if(Objects.nonNull(pending)) {
+			row = pending;
+			startLine = pendingLine;
+			pending = null;
+		}
+		else {
+			do {
+				startLine = lineNumber + 1;
+				row = readRow();
+			} while(Objects.nonNull(row) && isSkipped(row));
+
+			if(Objects.isNull(row)) {
+				return null;
+			}
+		}
+
+		Project project = null;
+		String error = null;
+
+		try {
+			project = project(row);
+		}
+		catch(IllegalArgumentException e) {
+			error = e.getMessage();
+		}
+
+		/* Read the project's rows even after an error, so the next call starts at the next project. */
+		while(true) {
+			long rowLine = lineNumber + 1;
+			List<String> child = readRow();
+
+			if(Objects.isNull(child)) {
+				break;
+			}
+
+			if(isSkipped(child)) {
+				continue;
+			}
+
+			if(child.get(0).equals("project")) {
+				pending = child;
+				pendingLine = rowLine;
+				break;
+			}
+
+			if(Objects.isNull(error)) {
+				try {
+					addChild(project, child);
+				}
+				catch(IllegalArgumentException e) {
+					error = "line " + rowLine + ": " + e.getMessage();
+				}
+			}
+		}
+
+		if(Objects.nonNull(error)) {
+			throw new CatalogRecordException(startLine, error);
+		}
+
+		return project;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private static boolean isSkipped(List<String> row) {
+		return (row.size() == 1 && row.get(0).isBlank()) || row.get(0).equals(HEADER);
+	}
+
+	private static Project project(List<String> row) {
+		if(!row.get(0).equals("project")) {
+			throw new IllegalArgumentException("Expected a project row, found '" + row.get(0) + "'");
+		}
+
+		return CatalogRecords.project(field(row, 1), CatalogRecords.decimal("estimatedHours", field(row, 2)),
+				CatalogRecords.decimal("actualHours", field(row, 3)),
+				CatalogRecords.integer("difficulty", field(row, 4)), CatalogRecords.text(field(row, 5)));
+	}
+
+	private static void addChild(Project project, List<String> row) {
+		switch(row.get(0)) {
+			case "material":
+				project.getMaterials().add(CatalogRecords.material(field(row, 1),
+						CatalogRecords.integer("numRequired", field(row, 2)), CatalogRecords.decimal("cost", field(row, 3))));
+				break;
+
+			case "step":
+				project.getSteps().add(CatalogRecords.step(field(row, 1)));
+				break;
+
+			case "category":
+				project.getCategories().add(CatalogRecords.category(field(row, 1)));
+				break;
+
+			default:
+				throw new IllegalArgumentException("Unknown row type '" + row.get(0) + "'");
+		}
+	}
+
+	/* The field at the index, or null if it is missing or empty. */
+	private static String field(List<String> row, int index) {
+		return index < row.size() ? CatalogRecords.text(row.get(index)) : null;
+	}
+
+	/* Reads the fields of the next row, or null at the end of the input. */
+	private List<String> readRow() throws IOException {
+		String line = reader.readLine();
+
+		if(Objects.isNull(line)) {
+			return null;
+		}
+
+		lineNumber++;
+
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		int pos = 0;
+
+		while(true) {
+			if(pos == line.length()) {
+				if(!quoted) {
+					fields.add(field.toString());
+					return fields;
+				}
+
+				/* A quoted field runs on to the next line. */
+				line = reader.readLine();
+
+				if(Objects.isNull(line)) {
+					throw new CatalogRecordException(lineNumber, "Unterminated quoted field");
+				}
+
+				lineNumber++;
+				field.append('\n');
+				pos = 0;
+				continue;
+			}
+
+			char ch = line.charAt(pos++);
+
+			if(quoted) {
+				if(ch != '"') {
+					field.append(ch);
+				}
+				else if(pos < line.length() && line.charAt(pos) == '"') {
+					field.append('"');
+					pos++;
+				}
+				else {
+					quoted = false;
+				}
+			}
+			else if(ch == '"') {
+				quoted = true;
+			}
+			else if(ch == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			}
+			else {
+				field.append(ch);
+			}
+		}
+	}
+}
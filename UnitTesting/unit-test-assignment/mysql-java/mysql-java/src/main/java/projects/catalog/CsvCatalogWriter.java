@@ -0,0 +1,97 @@
+package projects.catalog;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Objects;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/*
+ * Writes the CSV format of CsvCatalogReader: a project row followed by its material, step and
+ * category rows. Project rows carry the project ID as a seventh field, which the reader ignores.
+ * Null values are written as empty fields.
+ */
+public class CsvCatalogWriter implements CatalogWriter {
+	static final String HEADER = "type,name,estimated hours / number required,actual hours / cost,difficulty,notes,id\n";
+
+	private final Writer out;
+	private final StringBuilder rows = new StringBuilder(512);
+
+	public CsvCatalogWriter(Writer out) {
+		this.out = out;
+	}
+
+	@Override
+	public void writeHeader() throws IOException {
+		out.write(HEADER);
+	}
+
+	@Override
+	public void write(Project project) throws IOException {
+		rows.setLength(0);
+
+		row("project", project.getProjectName(), project.getEstimatedHours(), project.getActualHours(),
+				project.getDifficulty(), project.getNotes(), project.getProjectId());
+
+		for(Material material : project.getMaterials()) {
+			row("material", material.getMaterialName(), material.getNumRequired(), material.getCost());
+		}
+
+		for(Step step : project.getSteps()) {
+			row("step", step.getStepText());
+		}
+
+		for(Category category : project.getCategories()) {
+			row("category", category.getCategoryName());
+		}
+
+		out.append(rows);
+	}
+
+	private void row(String type, Object... fields) {
+		rows.append(type);
+
+		for(Object field : fields) {
+			rows.append(',');
+
+			if(Objects.nonNull(field)) {
+				quote(field instanceof BigDecimal ? ((BigDecimal)field).toPlainString()
+						: field.toString());
+			}
+		}
+
+		rows.append('\n');
+	}
+
+	/* Quotes the field if it holds a comma, a quote or a line break. */
+	private void quote(String field) {
+		boolean quoted = false;
+
+		for(int index = 0; index < field.length() && !quoted; index++) {
+			char ch = field.charAt(index);
+			quoted = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+		}
+
+		if(!quoted) {
+			rows.append(field);
+			return;
+		}
+
+		rows.append('"');
+
+		for(int index = 0; index < field.length(); index++) {
+			char ch = field.charAt(index);
+
+			if(ch == '"') {
+				rows.append('"');
+			}
+
+			rows.append(ch);
+		}
+
+		rows.append('"');
+	}
+}
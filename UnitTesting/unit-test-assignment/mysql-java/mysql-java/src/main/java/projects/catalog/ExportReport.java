@@ -0,0 +1,79 @@
+package projects.catalog;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The outcome of a CatalogExporter run: how many projects and child rows were written, how many
+ * bytes that came to, and where the run started if it resumed from a checkpoint. The counts cover
+ * this run only.
+ */
+public class ExportReport {
+	private final long projects;
+	private final long materials;
+	private final long steps;
+	private final long categoryLinks;
+	private final long bytesWritten;
+	private final long elapsedNanos;
+	private final Integer resumedAfterProjectId;
+
+	ExportReport(long projects, long materials, long steps, long categoryLinks, long bytesWritten,
+			long elapsedNanos, Integer resumedAfterProjectId) {
+		this.projects = projects;
+		this.materials = materials;
+		this.steps = steps;
+		this.categoryLinks = categoryLinks;
+		this.bytesWritten = bytesWritten;
+		this.elapsedNanos = elapsedNanos;
+		this.resumedAfterProjectId = resumedAfterProjectId;
+	}
+
+	public long getProjects() {
+		return projects;
+	}
+
+	public long getMaterials() {
+		return materials;
+	}
+
+	public long getSteps() {
+		return steps;
+	}
+
+	public long getCategoryLinks() {
+		return categoryLinks;
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+	}
+
+	public double getProjectsPerSecond() {
+		return elapsedNanos == 0 ? 0 : projects * 1e9 / elapsedNanos;
+	}
+
+	/* The last project ID of the checkpoint this run resumed from, or null if it started afresh. */
+	public Integer getResumedAfterProjectId() {
+		return resumedAfterProjectId;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+
+		report.append(String.format("Exported %d projects (%d bytes) in %.1f s (%.0f projects/s)", projects,
+				bytesWritten, elapsedNanos / 1e9, getProjectsPerSecond()));
+		report.append(String.format("%n  rows: %d materials, %d steps, %d category links", materials, steps,
+				categoryLinks));
+
+		if(Objects.nonNull(resumedAfterProjectId)) {
+			report.append(String.format("%n  resumed after project %d", resumedAfterProjectId));
+		}
+
+		return report.toString();
+	}
+}
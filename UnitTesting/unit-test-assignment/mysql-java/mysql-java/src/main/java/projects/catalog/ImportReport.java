@@ -0,0 +1,112 @@
+package projects.catalog;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The outcome of a CatalogImporter run: how many projects were read, imported, rejected by
+ * validation or lost to a failed batch, how many child rows were written, and the throughput.
+ */
+public class ImportReport {
+	private final long projectsRead;
+	private final long projectsImported;
+	private final long projectsRejected;
+	private final long projectsFailed;
+	private final long materials;
+	private final long steps;
+	private final long categoryLinks;
+	private final long elapsedNanos;
+	private final List<String> errors;
+
+	ImportReport(long projectsRead, long projectsImported, long projectsRejected, long projectsFailed,
+			long materials, long steps, long categoryLinks, long elapsedNanos, List<String> errors) {
+		this.projectsRead = projectsRead;
+		this.projectsImported = projectsImported;
+		this.projectsRejected = projectsRejected;
+		this.projectsFailed = projectsFailed;
+		this.materials = materials;
+		this.steps = steps;
+		this.categoryLinks = categoryLinks;
+		this.elapsedNanos = elapsedNanos;
+		this.errors = List.copyOf(errors);
+	}
+
+	/* Valid project records read from the input. */
+	public long getProjectsRead() {
+		return projectsRead;
+	}
+
+	public long getProjectsImported() {
+		return projectsImported;
+	}
+
+	/* Records that failed parsing or validation and were skipped. */
+	public long getProjectsRejected() {
+		return projectsRejected;
+	}
+
+	/* Valid projects whose batch could not be written. */
+	public long getProjectsFailed() {
+		return projectsFailed;
+	}
+
+	public long getMaterials() {
+		return materials;
+	}
+
+	public long getSteps() {
+		return steps;
+	}
+
+	public long getCategoryLinks() {
+		return categoryLinks;
+	}
+
+	/* Project, material, step and project_category rows written. */
+	public long getRowsWritten() {
+		return projectsImported + materials + steps + categoryLinks;
+	}
+
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+	}
+
+	public double getProjectsPerSecond() {
+		return perSecond(projectsImported);
+	}
+
+	public double getRowsPerSecond() {
+		return perSecond(getRowsWritten());
+	}
+
+	/* The first rejections and batch failures, with line numbers where there are some. */
+	public List<String> getErrors() {
+		return errors;
+	}
+
+	public boolean isComplete() {
+		return projectsRejected == 0 && projectsFailed == 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+
+		report.append(String.format("Imported %d of %d projects in %.1f s (%.0f projects/s, %.0f rows/s)",
+				projectsImported, projectsRead + projectsRejected, elapsedNanos / 1e9, getProjectsPerSecond(),
+				getRowsPerSecond()));
+		report.append(String.format("%n  rows: %d materials, %d steps, %d category links", materials, steps,
+				categoryLinks));
+		report.append(String.format("%n  rejected: %d, failed: %d", projectsRejected, projectsFailed));
+
+		for(String error : errors) {
+			report.append(String.format("%n  %s", error));
+		}
+
+		return report.toString();
+	}
+
+	private double perSecond(long count) {
+		return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+	}
+}
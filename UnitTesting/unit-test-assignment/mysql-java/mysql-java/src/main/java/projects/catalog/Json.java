@@ -0,0 +1,301 @@
+package projects.catalog;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Just enough JSON for the catalog files: parse() reads one JSON value from a string, with objects
+ * as LinkedHashMaps, arrays as Lists, numbers as BigDecimals, and strings, booleans and null as
+ * themselves, and quote() writes a string value. The project has no JSON library, and a catalog
+ * line is a small, flat document.
+ */
+final class Json {
+
+	private final String text;
+	private int pos;
+
+	private Json(String text) {
+		this.text = text;
+	}
+
+	/* Parses the whole string as one value. Throws IllegalArgumentException if it is not valid JSON. */
+	static Object parse(String text) {
+		Json json = new Json(text);
+		Object value = json.value();
+
+		json.skipWhitespace();
+
+		if(json.pos < text.length()) {
+			throw json.error("Unexpected text after the value");
+		}
+
+		return value;
+	}
+
+	/* Appends the value as a JSON string, or null. */
+	static void quote(String value, StringBuilder out) {
+		if(value == null) {
+			out.append("null");
+			return;
+		}
+
+		out.append('"');
+
+		for(int index = 0; index < value.length(); index++) {
+			char ch = value.charAt(index);
+
+			switch(ch) {
+				case '"':
+					out.append("\\\"");
+					break;
+
+				case '\\':
+					out.append("\\\\");
+					break;
+
+				case '\n':
+					out.append("\\n");
+					break;
+
+				case '\r':
+					out.append("\\r");
+					break;
+
+				case '\t':
+					out.append("\\t");
+					break;
+
+				default:
+					if(ch < 0x20) {
+						out.append(String.format("\\u%04x", (int)ch));
+					}
+					else {
+						out.append(ch);
+					}
+			}
+		}
+
+		out.append('"');
+	}
+
+	private Object value() {
+		skipWhitespace();
+
+		if(pos >= text.length()) {
+			throw error("Unexpected end of input");
+		}
+
+		char ch = text.charAt(pos);
+
+		switch(ch) {
+			case '{':
+				return object();
+
+			case '[':
+				return array();
+
+			case '"':
+				return string();
+
+			case 't':
+				return literal("true", Boolean.TRUE);
+
+			case 'f':
+				return literal("false", Boolean.FALSE);
+
+			case 'n':
+				return literal("null", null);
+
+			default:
+				if(ch == '-' || (ch >= '0' && ch <= '9')) {
+					return number();
+				}
+
+				throw error("Unexpected character '" + ch + "'");
+		}
+	}
+
+	private Map<String, Object> object() {
+		Map<String, Object> object = new LinkedHashMap<>();
+
+		pos++;
+		skipWhitespace();
+
+		if(peek() == '}') {
+			pos++;
+			return object;
+		}
+
+		while(true) {
+			skipWhitespace();
+
+			if(peek() != '"') {
+				throw error("Expected a field name");
+			}
+
+			String name = string();
+
+			skipWhitespace();
+			expect(':');
+			object.put(name, value());
+			skipWhitespace();
+
+			if(peek() == ',') {
+				pos++;
+			}
+			else {
+				expect('}');
+				return object;
+			}
+		}
+	}
+
+	private List<Object> array() {
+		List<Object> array = new ArrayList<>();
+
+		pos++;
+		skipWhitespace();
+
+		if(peek() == ']') {
+			pos++;
+			return array;
+		}
+
+		while(true) {
+			array.add(value());
+			skipWhitespace();
+
+			if(peek() == ',') {
+				pos++;
+			}
+			else {
+				expect(']');
+				return array;
+			}
+		}
+	}
+
+	private String string() {
+		StringBuilder value = new StringBuilder();
+
+		pos++;
+
+		while(true) {
+			if(pos >= text.length()) {
+				throw error("Unterminated string");
+			}
+
+			char ch = text.charAt(pos++);
+
+			if(ch == '"') {
+				return value.toString();
+			}
+
+			if(ch != '\\') {
+				value.append(ch);
+				continue;
+			}
+
+			if(pos >= text.length()) {
+				throw error("Unterminated string");
+			}
+
+			char escaped = text.charAt(pos++);
+
+			switch(escaped) {
+				case '"':
+				case '\\':
+				case '/':
+					value.append(escaped);
+					break;
+
+				case 'b':
+					value.append('\b');
+					break;
+
+				case 'f':
+					value.append('\f');
+					break;
+
+				case 'n':
+					value.append('\n');
+					break;
+
+				case 'r':
+					value.append('\r');
+					break;
+
+				case 't':
+					value.append('\t');
+					break;
+
+				case 'u':
+					if(pos + 4 > text.length()) {
+						throw error("Incomplete unicode escape");
+					}
+
+					try {
+						value.append((char)Integer.parseInt(text.substring(pos, pos + 4), 16));
+					}
+					catch(NumberFormatException e) {
+						throw error("Invalid unicode escape");
+					}
+
+					pos += 4;
+					break;
+
+				default:
+					throw error("Invalid escape '\\" + escaped + "'");
+			}
+		}
+	}
+
+	private BigDecimal number() {
+		int start = pos;
+
+		while(pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+			pos++;
+		}
+
+		try {
+			return new BigDecimal(text.substring(start, pos));
+		}
+		catch(NumberFormatException e) {
+			throw error("Invalid number '" + text.substring(start, pos) + "'");
+		}
+	}
+
+	private Object literal(String word, Object value) {
+		if(!text.startsWith(word, pos)) {
+			throw error("Unexpected text");
+		}
+
+		pos += word.length();
+		return value;
+	}
+
+	private void expect(char ch) {
+		if(peek() != ch) {
+			throw error("Expected '" + ch + "'");
+		}
+
+		pos++;
+	}
+
+	private char peek() {
+		return pos < text.length() ? text.charAt(pos) : 0;
+	}
+
+	private void skipWhitespace() {
+		while(pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+			pos++;
+		}
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at column " + (pos + 1));
+	}
+}
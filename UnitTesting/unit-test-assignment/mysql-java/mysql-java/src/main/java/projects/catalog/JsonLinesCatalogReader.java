@@ -0,0 +1,111 @@
+package projects.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import projects.entity.Project;
+
+/*
+ * Reads a JSON Lines catalog: one project per line, as a JSON object. Blank lines are skipped.
+ *
+ * {"projectName": "Shelf", "estimatedHours": 4, "actualHours": null, "difficulty": 2,
+ *  "notes": "Pine", "materials": [{"materialName": "Board", "numRequired": 3, "cost": 9.99}],
+ *  "steps": [{"stepText": "Cut"}, {"stepText": "Sand"}], "categories": ["Woodwork"]}
+ *
+ * (on one line). Only projectName is required; steps are numbered in the order given.
+ */
+public class JsonLinesCatalogReader implements CatalogReader {
+	private final BufferedReader reader;
+	private long lineNumber;
+
+	public JsonLinesCatalogReader(Reader reader) {
+		this.reader = reader instanceof BufferedReader ? (BufferedReader)reader : new BufferedReader(reader);
+	}
+
+	@Override
+	public Project next() throws IOException {
+		String line;
+
+		do {
+			line = reader.readLine();
+
+			if(Objects.isNull(line)) {
+				return null;
+			}
+
+			lineNumber++;
+		} while(line.isBlank());
+
+		try {
+			Object value = Json.parse(line);
+
+			if(!(value instanceof Map)) {
+				throw new IllegalArgumentException("Expected a JSON object");
+			}
+
+			return project((Map<?, ?>)value);
+		}
+		catch(IllegalArgumentException e) {
+			throw new CatalogRecordException(lineNumber, e.getMessage());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private static Project project(Map<?, ?> record) {
+		Project project = CatalogRecords.project(CatalogRecords.text("projectName", record.get("projectName")),
+				CatalogRecords.decimal("estimatedHours", record.get("estimatedHours")),
+				CatalogRecords.decimal("actualHours", record.get("actualHours")),
+				CatalogRecords.integer("difficulty", record.get("difficulty")),
+				CatalogRecords.text("notes", record.get("notes")));
+
+		for(Object element : array(record, "materials")) {
+			Map<?, ?> material = object("materials", element);
+
+			project.getMaterials().add(CatalogRecords.material(
+					CatalogRecords.text("materialName", material.get("materialName")),
+					CatalogRecords.integer("numRequired", material.get("numRequired")),
+					CatalogRecords.decimal("cost", material.get("cost"))));
+		}
+
+		for(Object element : array(record, "steps")) {
+			Map<?, ?> step = object("steps", element);
+
+			project.getSteps().add(CatalogRecords.step(CatalogRecords.text("stepText", step.get("stepText"))));
+		}
+
+		for(Object element : array(record, "categories")) {
+			project.getCategories().add(CatalogRecords.category(CatalogRecords.text("categories", element)));
+		}
+
+		return project;
+	}
+
+	private static List<?> array(Map<?, ?> record, String field) {
+		Object value = record.get(field);
+
+		if(Objects.isNull(value)) {
+			return List.of();
+		}
+
+		if(!(value instanceof List)) {
+			throw new IllegalArgumentException(field + " must be an array");
+		}
+
+		return (List<?>)value;
+	}
+
+	private static Map<?, ?> object(String field, Object value) {
+		if(!(value instanceof Map)) {
+			throw new IllegalArgumentException(field + " must hold objects");
+		}
+
+		return (Map<?, ?>)value;
+	}
+}
@@ -0,0 +1,84 @@
+package projects.catalog;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Objects;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/*
+ * Writes the JSON Lines format of JsonLinesCatalogReader: one object per project per line. The
+ * project ID is written too, as "projectId"; the reader ignores it.
+ */
+public class JsonLinesCatalogWriter implements CatalogWriter {
+	private final Writer out;
+	private final StringBuilder line = new StringBuilder(512);
+
+	public JsonLinesCatalogWriter(Writer out) {
+		this.out = out;
+	}
+
+	@Override
+	public void write(Project project) throws IOException {
+		line.setLength(0);
+
+		line.append("{\"projectId\":").append(project.getProjectId());
+		text("projectName", project.getProjectName());
+		number("estimatedHours", project.getEstimatedHours());
+		number("actualHours", project.getActualHours());
+		line.append(",\"difficulty\":").append(project.getDifficulty());
+		text("notes", project.getNotes());
+
+		line.append(",\"materials\":[");
+
+		for(int index = 0; index < project.getMaterials().size(); index++) {
+			Material material = project.getMaterials().get(index);
+
+			line.append(index == 0 ? "{" : ",{");
+			line.append("\"materialName\":");
+			Json.quote(material.getMaterialName(), line);
+			line.append(",\"numRequired\":").append(material.getNumRequired());
+			number("cost", material.getCost());
+			line.append('}');
+		}
+
+		line.append("],\"steps\":[");
+
+		for(int index = 0; index < project.getSteps().size(); index++) {
+			Step step = project.getSteps().get(index);
+
+			line.append(index == 0 ? "{" : ",{");
+			line.append("\"stepText\":");
+			Json.quote(step.getStepText(), line);
+			line.append('}');
+		}
+
+		line.append("],\"categories\":[");
+
+		for(int index = 0; index < project.getCategories().size(); index++) {
+			Category category = project.getCategories().get(index);
+
+			if(index > 0) {
+				line.append(',');
+			}
+
+			Json.quote(category.getCategoryName(), line);
+		}
+
+		line.append("]}\n");
+		out.append(line);
+	}
+
+	private void text(String name, String value) {
+		line.append(",\"").append(name).append("\":");
+		Json.quote(value, line);
+	}
+
+	private void number(String name, BigDecimal value) {
+		line.append(",\"").append(name).append("\":");
+		line.append(Objects.isNull(value) ? "null" : value.toPlainString());
+	}
+}
@@ -0,0 +1,429 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import projects.exception.DbException;
+
+/*
+ * A bounded, thread-safe pool of JDBC connections. Callers borrow a connection with
+ * getConnection() and give it back by closing it, so the DAO code keeps using try-with-resources
+ * exactly as it did with DriverManager. The connection handed out is a thin proxy; closing it
+ * returns the physical connection to the pool instead of closing the socket.
+ *
+ * At most maxSize connections are ever borrowed at once. A borrower that cannot get one within the
+ * borrow timeout gets a DbException. Idle connections above minSize are closed by a background
+ * evictor once they have been idle longer than the idle timeout.
+ *
+ * If the config carries an enabled SlowQueryLog, the prepared statements handed out are traced into
+ * it.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+	/* Opens a new physical connection. Usually a DriverManager call with a fixed URI. */
+	@FunctionalInterface
+	public interface ConnectionFactory {
+		Connection newConnection() throws SQLException;
+	}
+
+	private final ConnectionFactory factory;
+	private final ConnectionPoolConfig config;
+
+	/* Most recently returned connections are at the head so the warmest one is reused first. */
+	private final LinkedBlockingDeque<PhysicalConnection> idle = new LinkedBlockingDeque<>();
+	private final Semaphore permits;
+	private final AtomicInteger totalConnections = new AtomicInteger();
+	private final AtomicInteger waitingThreads = new AtomicInteger();
+	private final AtomicBoolean closed = new AtomicBoolean();
+	private final ScheduledExecutorService evictor;
+
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong destroyedCount = new AtomicLong();
+	private final AtomicLong evictedCount = new AtomicLong();
+	private final AtomicLong validationFailures = new AtomicLong();
+	private final AtomicLong borrowTimeouts = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+	private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+	public ConnectionPool(ConnectionFactory factory, ConnectionPoolConfig config) {
+		if(config.getMinSize() < 0 || config.getMaxSize() < 1
+				|| config.getMinSize() > config.getMaxSize()) {
+			throw new IllegalArgumentException("Invalid pool size: " + config);
+		}
+
+		this.factory = factory;
+		this.config = config;
+		this.permits = new Semaphore(config.getMaxSize(), true);
+
+		fillToMinimum();
+
+		evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-pool-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long interval = config.getEvictionIntervalMillis();
+		evictor.scheduleWithFixedDelay(this::evictIdleConnections, interval, interval,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/*
+	 * Borrows a connection, waiting up to the borrow timeout if every connection is in use. The
+	 * caller must close the returned connection to give it back.
+	 */
+	public Connection getConnection() {
+		if(closed.get()) {
+			throw new DbException("The connection pool has been closed.");
+		}
+
+		long start = System.nanoTime();
+		boolean acquired;
+
+		waitingThreads.incrementAndGet();
+
+		try {
+			acquired = permits.tryAcquire(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrupted while waiting for a database connection.", e);
+		}
+		finally {
+			waitingThreads.decrementAndGet();
+		}
+
+		if(!acquired) {
+			borrowTimeouts.incrementAndGet();
+			throw new DbException("Timed out after " + config.getBorrowTimeoutMillis()
+					+ " ms waiting for a database connection (" + getStats() + ")");
+		}
+
+		totalWaitNanos.addAndGet(System.nanoTime() - start);
+		borrowCount.incrementAndGet();
+
+		try {
+			return wrap(takeIdleOrCreate());
+		}
+		catch(RuntimeException | Error e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	public ConnectionPoolConfig getConfig() {
+		return config;
+	}
+
+	public int getMaxSize() {
+		return config.getMaxSize();
+	}
+
+	public ConnectionPoolStats getStats() {
+		int total = totalConnections.get();
+		int idleCount = idle.size();
+
+		return new ConnectionPoolStats(total, idleCount, config.getMaxSize() - permits.availablePermits(),
+				waitingThreads.get(), borrowCount.get(), createdCount.get(), destroyedCount.get(),
+				evictedCount.get(), validationFailures.get(), borrowTimeouts.get(), totalWaitNanos.get(),
+				statementCacheHits.get(), statementCacheMisses.get(), statementCacheEvictions.get());
+	}
+
+	/*
+	 * Closes every idle connection and stops the evictor. Connections that are still borrowed are
+	 * closed when they are returned.
+	 */
+	@Override
+	public void close() {
+		if(!closed.compareAndSet(false, true)) {
+			return;
+		}
+
+		evictor.shutdownNow();
+
+		PhysicalConnection physical;
+
+		while((physical = idle.pollFirst()) != null) {
+			destroy(physical);
+		}
+	}
+
+	/* Must be called while holding a permit. */
+	private PhysicalConnection takeIdleOrCreate() {
+		while(true) {
+			PhysicalConnection physical = idle.pollFirst();
+
+			if(physical != null) {
+				if(isUsable(physical)) {
+					return physical;
+				}
+
+				validationFailures.incrementAndGet();
+				destroy(physical);
+				continue;
+			}
+
+			if(totalConnections.incrementAndGet() <= config.getMaxSize()) {
+				return create();
+			}
+
+			/*
+			 * Every physical connection exists already and one is on its way back to the idle list
+			 * (we hold a permit, so not all of them can be borrowed). Wait briefly for it.
+			 */
+			totalConnections.decrementAndGet();
+
+			try {
+				physical = idle.pollFirst(10, TimeUnit.MILLISECONDS);
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DbException("Interrupted while waiting for a database connection.", e);
+			}
+
+			if(physical != null) {
+				idle.offerFirst(physical);
+			}
+		}
+	}
+
+	/* The caller must already have counted the new connection in totalConnections. */
+	private PhysicalConnection create() {
+		try {
+			Connection connection = factory.newConnection();
+			StatementCache statements = config.getStatementCacheSize() > 0
+					? new StatementCache(connection, config.getStatementCacheSize(), statementCacheHits,
+							statementCacheMisses, statementCacheEvictions)
+					: null;
+
+			PhysicalConnection physical = new PhysicalConnection(connection, statements);
+			createdCount.incrementAndGet();
+			return physical;
+		}
+		catch(SQLException e) {
+			totalConnections.decrementAndGet();
+			throw new DbException("Unable to open a database connection.", e);
+		}
+	}
+
+	private boolean isUsable(PhysicalConnection physical) {
+		if(!config.isValidateOnBorrow()) {
+			return true;
+		}
+
+		long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - physical.lastReturnedNanos);
+
+		if(idleMillis < config.getValidationIdleThresholdMillis()) {
+			return true;
+		}
+
+		try {
+			return physical.connection.isValid(config.getValidationTimeoutSeconds());
+		}
+		catch(SQLException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * Puts a returned connection back on the idle list. Any transaction the borrower left open is
+	 * rolled back and auto-commit is restored so that the next borrower starts from a clean state.
+	 */
+	private void release(PhysicalConnection physical) {
+		boolean reusable = !closed.get();
+
+		if(physical.statements != null) {
+			physical.statements.reclaim();
+		}
+
+		try {
+			if(physical.connection.isClosed()) {
+				reusable = false;
+			}
+			else if(!physical.connection.getAutoCommit()) {
+				physical.connection.rollback();
+				physical.connection.setAutoCommit(true);
+			}
+		}
+		catch(SQLException e) {
+			reusable = false;
+		}
+
+		if(reusable) {
+			physical.lastReturnedNanos = System.nanoTime();
+			idle.offerFirst(physical);
+
+			if(closed.get() && idle.remove(physical)) {
+				destroy(physical);
+			}
+		}
+		else {
+			destroy(physical);
+		}
+
+		permits.release();
+	}
+
+	private void destroy(PhysicalConnection physical) {
+		totalConnections.decrementAndGet();
+		destroyedCount.incrementAndGet();
+
+		try {
+			physical.connection.close();
+		}
+		catch(SQLException e) {
+			/* The connection is being thrown away. There is nothing useful to do with the error. */
+		}
+	}
+
+	private void evictIdleConnections() {
+		long now = System.nanoTime();
+		long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+
+		/* The oldest connections are at the tail of the deque. */
+		for(Iterator<PhysicalConnection> it = idle.descendingIterator(); it.hasNext();) {
+			PhysicalConnection physical = it.next();
+
+			if(totalConnections.get() <= config.getMinSize()) {
+				break;
+			}
+
+			if(now - physical.lastReturnedNanos >= idleTimeoutNanos && idle.remove(physical)) {
+				evictedCount.incrementAndGet();
+				destroy(physical);
+			}
+		}
+
+		try {
+			fillToMinimum();
+		}
+		catch(DbException e) {
+			/* The database may be down. The next borrow will report the problem to its caller. */
+		}
+	}
+
+	private void fillToMinimum() {
+		while(!closed.get() && totalConnections.get() < config.getMinSize() && permits.tryAcquire()) {
+			try {
+				if(totalConnections.incrementAndGet() > config.getMinSize()) {
+					totalConnections.decrementAndGet();
+					return;
+				}
+
+				PhysicalConnection physical = create();
+				physical.lastReturnedNanos = System.nanoTime();
+				idle.offerLast(physical);
+			}
+			finally {
+				permits.release();
+			}
+		}
+	}
+
+	private Connection wrap(PhysicalConnection physical) {
+		return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] {Connection.class}, new PooledConnectionHandler(physical));
+	}
+
+	private static class PhysicalConnection {
+		private final Connection connection;
+		private final StatementCache statements;
+		private volatile long lastReturnedNanos = System.nanoTime();
+
+		PhysicalConnection(Connection connection, StatementCache statements) {
+			this.connection = connection;
+			this.statements = statements;
+		}
+	}
+
+	/*
+	 * Forwards every call to the physical connection except close(), which returns it to the pool.
+	 * After close() the proxy refuses further use so a stale reference cannot touch a connection
+	 * that another thread has borrowed since.
+	 */
+	private class PooledConnectionHandler implements InvocationHandler {
+		private final PhysicalConnection physical;
+		private final AtomicBoolean returned = new AtomicBoolean();
+
+		PooledConnectionHandler(PhysicalConnection physical) {
+			this.physical = physical;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch(method.getName()) {
+				case "close":
+					if(returned.compareAndSet(false, true)) {
+						release(physical);
+					}
+					return null;
+
+				case "isClosed":
+					return returned.get() || physical.connection.isClosed();
+
+				case "equals":
+					return proxy == args[0];
+
+				case "hashCode":
+					return System.identityHashCode(proxy);
+
+				case "toString":
+					return "Pooled[" + physical.connection + "]";
+
+				default:
+					break;
+			}
+
+			if(returned.get()) {
+				throw new SQLException("The connection has already been returned to the pool.");
+			}
+
+			if(method.getName().equals("prepareStatement")) {
+				PreparedStatement stmt = prepare((Connection)proxy, method, args);
+				SlowQueryLog slowQueries = config.getSlowQueryLog();
+
+				return slowQueries != null && slowQueries.isEnabled() ? slowQueries.trace(stmt, (String)args[0])
+						: stmt;
+			}
+
+			return forward(method, args);
+		}
+
+		private PreparedStatement prepare(Connection owner, Method method, Object[] args) throws Throwable {
+			if(physical.statements != null) {
+				PreparedStatement cached = physical.statements.prepare(owner, args);
+
+				if(cached != null) {
+					return cached;
+				}
+			}
+
+			return (PreparedStatement)forward(method, args);
+		}
+
+		private Object forward(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(physical.connection, args);
+			}
+			catch(InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
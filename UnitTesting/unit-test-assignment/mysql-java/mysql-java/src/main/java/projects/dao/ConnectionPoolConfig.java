@@ -0,0 +1,109 @@
+package projects.dao;
+
+/*
+ * Settings for a ConnectionPool. The defaults are sized for the console application and a local
+ * MySQL server; callers that need something different create a config and change what they need
+ * before handing it to the pool.
+ */
+public class ConnectionPoolConfig {
+	private int minSize = 2;
+	private int maxSize = 10;
+	private long borrowTimeoutMillis = 5_000;
+	private long idleTimeoutMillis = 10 * 60_000;
+	private long evictionIntervalMillis = 30_000;
+	private boolean validateOnBorrow = true;
+	private long validationIdleThresholdMillis = 500;
+	private int validationTimeoutSeconds = 2;
+	private int statementCacheSize = 64;
+	private SlowQueryLog slowQueryLog;
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public void setMinSize(int minSize) {
+		this.minSize = minSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public long getBorrowTimeoutMillis() {
+		return borrowTimeoutMillis;
+	}
+
+	public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+	}
+
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	public long getEvictionIntervalMillis() {
+		return evictionIntervalMillis;
+	}
+
+	public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+		this.evictionIntervalMillis = evictionIntervalMillis;
+	}
+
+	public boolean isValidateOnBorrow() {
+		return validateOnBorrow;
+	}
+
+	public void setValidateOnBorrow(boolean validateOnBorrow) {
+		this.validateOnBorrow = validateOnBorrow;
+	}
+
+	// A connection that went back to the pool less than this long ago is handed out without a ping.
+	public long getValidationIdleThresholdMillis() {
+		return validationIdleThresholdMillis;
+	}
+
+	public void setValidationIdleThresholdMillis(long validationIdleThresholdMillis) {
+		this.validationIdleThresholdMillis = validationIdleThresholdMillis;
+	}
+
+	public int getValidationTimeoutSeconds() {
+		return validationTimeoutSeconds;
+	}
+
+	public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+	}
+
+	// Prepared statements kept open per connection; 0 turns the statement cache off.
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	public void setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	// Statements are traced into this log while it is enabled; null (the default) never traces.
+	public SlowQueryLog getSlowQueryLog() {
+		return slowQueryLog;
+	}
+
+	public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	@Override
+	public String toString() {
+		return "minSize=" + minSize + ", maxSize=" + maxSize + ", borrowTimeoutMillis="
+				+ borrowTimeoutMillis + ", idleTimeoutMillis=" + idleTimeoutMillis
+				+ ", validateOnBorrow=" + validateOnBorrow + ", statementCacheSize=" + statementCacheSize;
+	}
+}
@@ -0,0 +1,118 @@
+package projects.dao;
+
+/*
+ * Point-in-time snapshot of the counters kept by a ConnectionPool. The counts are read one after
+ * another without a lock, so under load they may be off by one or two from each other.
+ */
+public class ConnectionPoolStats {
+	private final int totalConnections;
+	private final int idleConnections;
+	private final int activeConnections;
+	private final int waitingThreads;
+	private final long borrowCount;
+	private final long createdCount;
+	private final long destroyedCount;
+	private final long evictedCount;
+	private final long validationFailures;
+	private final long borrowTimeouts;
+	private final long totalWaitNanos;
+	private final long statementCacheHits;
+	private final long statementCacheMisses;
+	private final long statementCacheEvictions;
+
+	ConnectionPoolStats(int totalConnections, int idleConnections, int activeConnections,
+			int waitingThreads, long borrowCount, long createdCount, long destroyedCount,
+			long evictedCount, long validationFailures, long borrowTimeouts, long totalWaitNanos,
+			long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+		this.totalConnections = totalConnections;
+		this.idleConnections = idleConnections;
+		this.activeConnections = activeConnections;
+		this.waitingThreads = waitingThreads;
+		this.borrowCount = borrowCount;
+		this.createdCount = createdCount;
+		this.destroyedCount = destroyedCount;
+		this.evictedCount = evictedCount;
+		this.validationFailures = validationFailures;
+		this.borrowTimeouts = borrowTimeouts;
+		this.totalWaitNanos = totalWaitNanos;
+		this.statementCacheHits = statementCacheHits;
+		this.statementCacheMisses = statementCacheMisses;
+		this.statementCacheEvictions = statementCacheEvictions;
+	}
+
+	public int getTotalConnections() {
+		return totalConnections;
+	}
+
+	public int getIdleConnections() {
+		return idleConnections;
+	}
+
+	public int getActiveConnections() {
+		return activeConnections;
+	}
+
+	public int getWaitingThreads() {
+		return waitingThreads;
+	}
+
+	public long getBorrowCount() {
+		return borrowCount;
+	}
+
+	public long getCreatedCount() {
+		return createdCount;
+	}
+
+	public long getDestroyedCount() {
+		return destroyedCount;
+	}
+
+	public long getEvictedCount() {
+		return evictedCount;
+	}
+
+	public long getValidationFailures() {
+		return validationFailures;
+	}
+
+	public long getBorrowTimeouts() {
+		return borrowTimeouts;
+	}
+
+	public long getTotalWaitNanos() {
+		return totalWaitNanos;
+	}
+
+	public double getAverageWaitMillis() {
+		return borrowCount == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+	}
+
+	public long getStatementCacheHits() {
+		return statementCacheHits;
+	}
+
+	public long getStatementCacheMisses() {
+		return statementCacheMisses;
+	}
+
+	public long getStatementCacheEvictions() {
+		return statementCacheEvictions;
+	}
+
+	// Share of prepareStatement() calls served from the statement cache.
+	public double getStatementCacheHitRate() {
+		long lookups = statementCacheHits + statementCacheMisses;
+		return lookups == 0 ? 0.0 : (double)statementCacheHits / lookups;
+	}
+
+	@Override
+	public String toString() {
+		return "total=" + totalConnections + ", idle=" + idleConnections + ", active="
+				+ activeConnections + ", waiting=" + waitingThreads + ", borrows=" + borrowCount
+				+ ", created=" + createdCount + ", destroyed=" + destroyedCount + ", evicted="
+				+ evictedCount + ", validationFailures=" + validationFailures + ", timeouts="
+				+ borrowTimeouts + ", avgWaitMillis=" + String.format("%.3f", getAverageWaitMillis())
+				+ ", statementCacheHitRate=" + String.format("%.3f", getStatementCacheHitRate());
+	}
+}
@@ -3,28 +3,39 @@
  */
 package provided.util;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Time;
-import java.sql.Timestamp;
 import java.sql.Types;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import projects.metrics.OperationMetrics;
+import projects.metrics.ProjectMetrics;
 
 /**
  * This class contains utility methods for the DAO class.
  * 
+ * Connections from the pool keep the statements prepared on them in a cache, so preparing the same
+ * SQL again on a connection reuses the statement the database has already parsed. To get the most
+ * from it, build each SQL string once (as a constant) rather than per call, and close statements as
+ * usual: closing a cached statement puts it back in the cache.
+ * 
  * @author Promineo
  *
  */
 public abstract class DaoBase {
+  /* SQL of the helper queries below, built once per table (and column). */
+  private static final Map<String, Map<String, String>> SEQUENCE_SQL = new ConcurrentHashMap<>();
+  private static final String LAST_INSERT_ID_SQL = "SELECT LAST_INSERT_ID()";
+
+  /* Latency of extract(), recorded while {@link ProjectMetrics} is enabled. */
+  private static final OperationMetrics EXTRACT = ProjectMetrics.operation(ProjectMetrics.EXTRACT);
+
   /**
    * This starts a MySQL transaction. Normally MySQL starts a transaction before every request and
    * commits it after each request. By turning auto-commit off, the transaction is only committed
@@ -141,6 +152,9 @@ public abstract class DaoBase {
    * of a child row. For a *real* application, a more sophisticated approach is desired. This method
    * does not allow for entity reordering and does not allow for an entity to be deleted.
    * 
+   * JdbcProjectDao numbers appended steps with {@link projects.dao.SequenceAllocator} instead,
+   * which does allow both.
+   * 
    * @param conn The connection
    * @param id The ID of the parent entity
    * @param tableName The name of the table with the child rows
@@ -150,7 +164,8 @@ public abstract class DaoBase {
    */
   protected Integer getNextSequenceNumber(Connection conn, Integer id, String tableName,
       String idName) throws SQLException {
-    String sql = "SELECT COUNT(*) FROM " + tableName + " WHERE " + idName + " = ?";
+    String sql = SEQUENCE_SQL.computeIfAbsent(tableName, table -> new ConcurrentHashMap<>())
+        .computeIfAbsent(idName, column -> "SELECT COUNT(*) FROM " + tableName + " WHERE " + column + " = ?");
 
     try(PreparedStatement stmt = conn.prepareStatement(sql)) {
       setParameter(stmt, 1, id, Integer.class);
@@ -166,23 +181,25 @@ public abstract class DaoBase {
   }
 
   /**
-   * This returns the integer primary key value of the last row inserted into the given table. It
+   * This returns the integer primary key value of the last row inserted on the connection. It
    * allows the ID to be inserted into the entity object after inserting it into the table.
    * 
-   * The other way of doing this is to call {@link Statement#getGeneratedKeys()}, but this returns a
-   * result set that needs to be parsed for the ID. It's not really any easier than this approach
-   * but should be closer to database-agnostic.
+   * LAST_INSERT_ID() is per connection, not per table, so the query has no FROM clause: selecting
+   * it FROM the table would return the same value once for every row of the table.
+   * 
+   * Prefer preparing the INSERT with {@link Statement#RETURN_GENERATED_KEYS} and reading
+   * {@link Statement#getGeneratedKeys()}: the key comes back with the insert, which saves this
+   * extra query. JdbcProjectDao does that for every insert.
    * 
    * @param conn The connection
-   * @param table The name of the table on which to get the last inserted primary key value
+   * @param table The table the row was inserted into. It is not used by the query and is kept for
+   *        existing callers.
    * @return The primary key value
    * @throws SQLException Thrown if an error occurs
    */
   protected Integer getLastInsertId(Connection conn, String table) throws SQLException {
-    String sql = String.format("SELECT LAST_INSERT_ID() FROM %s", table);
-
-    try(Statement stmt = conn.createStatement()) {
-      try(ResultSet rs = stmt.executeQuery(sql)) {
+    try(PreparedStatement stmt = conn.prepareStatement(LAST_INSERT_ID_SQL)) {
+      try(ResultSet rs = stmt.executeQuery()) {
         if(rs.next()) {
           return rs.getInt(1);
         }
@@ -194,16 +211,18 @@ public abstract class DaoBase {
 
   /**
    * This extracts an object of the given type from a result set. The object must have a
-   * zero-argument constructor. It builds an object from a result set using reflection as follows:
+   * zero-argument constructor. The work is done by a {@link RowMapper}, which is built once per
+   * class type and result set shape and then cached:
    * <ol>
    * <li>The zero-argument constructor is obtained.</li>
-   * <li>An object of the given class type is created.</li>
    * <li>A list of fields is obtained using reflection.</li>
    * <li>The field name is converted from Java naming to SQL naming conventions (camel case to snake
    * case). Obviously, for this to work, the Java name must match the column name. So, if the Java
    * name is numServings, the column name must be num_servings.</li>
-   * <li>The value is assigned to the field in the object.</li>
+   * <li>The column index of each field is looked up in the result set metadata.</li>
    * </ol>
+   * For each row an object of the given class type is created and the column values are assigned
+   * to the fields in the object.
    * 
    * Example: if a query returns values for a recipe, a Recipe object is returned. So:
    * 
@@ -224,6 +243,9 @@ public abstract class DaoBase {
    * Since the result set does not contain a column named "ingredients", the value is left alone and
    * the list initialization is preserved.
    * 
+   * When reading many rows, obtain the mapper once with {@link #rowMapper(ResultSet, Class)} and
+   * call {@link RowMapper#map(ResultSet)} for each row instead.
+   * 
    * @param <T> The Generic for the type of object to create and return.
    * @param rs The result set in which to extract values. The result set must be positioned on the
    *        correct row by the caller.
@@ -231,59 +253,32 @@ public abstract class DaoBase {
    * @return A populated class.
    */
   protected <T> T extract(ResultSet rs, Class<T> classType) {
-    try {
-      /* Obtain the constructor and create an object of the correct type. */
-      Constructor<T> con = classType.getConstructor();
-      T obj = con.newInstance();
-
-      /* Get the list of fields and loop through them. */
-      for(Field field : classType.getDeclaredFields()) {
-        String colName = camelCaseToSnakeCase(field.getName());
-        Class<?> fieldType = field.getType();
-
-        /*
-         * Set the field accessible flag which means that we can populate even private fields
-         * without using the setter.
-         */
-        field.setAccessible(true);
-        Object fieldValue = null;
-
-        try {
-          fieldValue = rs.getObject(colName);
-        }
-        catch(SQLException e) {
-          /*
-           * An exception caught here means that the field name isn't in the result set. Don't take
-           * any action.
-           */
-        }
+    long start = ProjectMetrics.start();
+    T obj = rowMapper(rs, classType).map(rs);
 
-        /*
-         * Only set the value in the object if there is a value with the same name in the result
-         * set. This will preserve instance variables (like lists) that are assigned values when the
-         * object is created.
-         */
-        if(Objects.nonNull(fieldValue)) {
-          /*
-           * Convert the following types: Time -> LocalTime, and Timestamp -> LocalDateTime.
-           */
-          if(fieldValue instanceof Time && fieldType.equals(LocalTime.class)) {
-            fieldValue = ((Time)fieldValue).toLocalTime();
-          }
-          else if(fieldValue instanceof Timestamp && fieldType.equals(LocalDateTime.class)) {
-            fieldValue = ((Timestamp)fieldValue).toLocalDateTime();
-          }
-
-          field.set(obj, fieldValue);
-        }
-      }
-
-      return obj;
+    EXTRACT.record(start, 1);
+    return obj;
+  }
 
-    }
-    catch(Exception e) {
-      throw new DaoException("Unable to create object of type " + classType.getName(), e);
-    }
+  /**
+   * This returns the cached mapper that converts rows of the given result set into objects of the
+   * given class. Obtain it once, before the row loop:
+   * 
+   * <pre>
+   * RowMapper<Recipe> mapper = rowMapper(rs, Recipe.class);
+   * 
+   * while(rs.next()) {
+   *   recipes.add(mapper.map(rs));
+   * }
+   * </pre>
+   * 
+   * @param <T> The type of object to create.
+   * @param rs The result set. Only its metadata is read.
+   * @param classType The class type of the objects to create.
+   * @return The mapper.
+   */
+  protected <T> RowMapper<T> rowMapper(ResultSet rs, Class<T> classType) {
+    return RowMapper.forResultSet(rs, classType);
   }
 
   /**
@@ -292,7 +287,7 @@ public abstract class DaoBase {
    * @param identifier The name in camel case to convert.
    * @return The name converted to snake case.
    */
-  private String camelCaseToSnakeCase(String identifier) {
+  protected static String camelCaseToSnakeCase(String identifier) {
     StringBuilder nameBuilder = new StringBuilder();
 
     for(char ch : identifier.toCharArray()) {
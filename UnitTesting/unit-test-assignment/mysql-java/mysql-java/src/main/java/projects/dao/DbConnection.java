@@ -2,39 +2,217 @@ package projects.dao;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.SQLException;
-
-import projects.exception.DbException;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import projects.metrics.OperationMetrics;
+import projects.metrics.ProjectMetrics;
 
 public class DbConnection {
-	@SuppressWarnings("unused")
 	private static String HOST = "localhost";
-	@SuppressWarnings("unused")
 	private static String PASSWORD = "projects";
-	@SuppressWarnings("unused")
 	private static int PORT = 3306;
-	@SuppressWarnings("unused")
 	private static String SCHEMA = "projects";
-	@SuppressWarnings("unused")
 	private static String USER = "projects";
-	
+
+	private static final Logger LOGGER = Logger.getLogger(DbConnection.class.getName());
+
+	/* Time spent waiting for the pool to hand out a connection; see ProjectMetrics. */
+	private static final OperationMetrics CONNECTION_WAIT = ProjectMetrics.operation(ProjectMetrics.CONNECTION_WAIT);
+
+	/* Off unless -Dprojects.slowQueryMillis is set; see SlowQueryLog. */
+	private static final SlowQueryLog SLOW_QUERIES = SlowQueryLog.fromSystemProperties();
+
+	private static volatile ConnectionPool pool;
+
+	/* Null unless -Dprojects.replicas is set or a router is installed; see getReplicaRouter(). */
+	private static volatile ReplicaRouter replicaRouter;
+	private static volatile boolean replicaRouterLoaded;
+
+	/* True on a thread inside readFromPrimary(). */
+	private static final ThreadLocal<Boolean> PRIMARY_READS = ThreadLocal.withInitial(() -> false);
+
+	/*
+	 * Borrows a connection from the shared pool, the primary. Closing the connection gives it back
+	 * to the pool, so callers keep using try-with-resources as before.
+	 */
 	public static Connection getConnection() {
-		String uri = 
-				String.format("jdbc:mysql://%s:%d/%s?user=%s&password=%s", HOST, PORT, SCHEMA, USER, PASSWORD);
-		
-		System.out.println("Connecting with uri=" + uri);
-		
+		noteWrite();
+		return borrow(null);
+	}
+
+	/*
+	 * Borrows a connection for a read that may see data a little behind the primary. With replicas
+	 * set, this is a read-only connection from one of them, chosen by the ReplicaRouter; otherwise,
+	 * or when the router sends the read back, it comes from the primary as getConnection() does.
+	 * Inside readFromPrimary() it always comes from the primary.
+	 */
+	public static Connection getReadConnection() {
+		return borrow(PRIMARY_READS.get() ? null : getReplicaRouter());
+	}
+
+	/*
+	 * The router for reads, or null when every read goes to the primary. On first use it is built
+	 * from the system properties; see ReplicaRouter.fromSystemProperties(). Replica pools open no
+	 * connections up front, so a replica that is down is only skipped, not fatal.
+	 */
+	public static ReplicaRouter getReplicaRouter() {
+		if(!replicaRouterLoaded) {
+			synchronized(DbConnection.class) {
+				if(!replicaRouterLoaded) {
+					replicaRouter = ReplicaRouter.fromSystemProperties((host, port) -> createPool(host, port, true));
+					replicaRouterLoaded = true;
+				}
+			}
+		}
+
+		return replicaRouter;
+	}
+
+	/* Replaces the router for reads; null sends every read to the primary. The previous router is closed. */
+	public static void setReplicaRouter(ReplicaRouter router) {
+		ReplicaRouter previous;
+
+		synchronized(DbConnection.class) {
+			previous = replicaRouter;
+			replicaRouter = router;
+			replicaRouterLoaded = true;
+		}
+
+		if(Objects.nonNull(previous) && previous != router) {
+			previous.close();
+		}
+	}
+
+	/*
+	 * Runs reads that must see every committed write on the primary, even with replicas set: reads
+	 * whose result is kept, such as the loads that fill ProjectCache, where a lagging replica's copy
+	 * would outlive the write that invalidated the entry. Writes are unaffected.
+	 */
+	public static <T> T readFromPrimary(Supplier<T> reads) {
+		boolean previous = PRIMARY_READS.get();
+		PRIMARY_READS.set(true);
+
+		try {
+			return reads.get();
+		}
+		finally {
+			PRIMARY_READS.set(previous);
+		}
+	}
+
+	/*
+	 * Records that the caller writes to the primary, for the read-your-writes window of the router;
+	 * see ReplicaRouter.Session. getConnection() does this itself; a thread whose write runs on
+	 * another thread's connection, as in GroupCommit, calls it directly.
+	 */
+	static void noteWrite() {
+		if(Objects.nonNull(getReplicaRouter())) {
+			ReplicaRouter.currentSession().noteWrite();
+		}
+	}
+
+	private static Connection borrow(ReplicaRouter router) {
+		long start = ProjectMetrics.start();
+		Connection conn = null;
+
 		try {
-			Connection conn = DriverManager.getConnection(uri);
-			System.out.println("Connection to schema '" +SCHEMA+ "' is successful.");
-			return conn;
-		} catch (SQLException e) {
-			System.out.println("Unable to get connection at " + uri);
-			throw new DbException("Unable to get connection at \" + uri");
-			
-		}
-		
-		
-		
+			if(Objects.nonNull(router)) {
+				conn = router.getReadConnection();
+			}
+
+			if(Objects.isNull(conn)) {
+				conn = getPool().getConnection();
+			}
+		}
+		catch(RuntimeException e) {
+			CONNECTION_WAIT.recordError(start);
+			throw e;
+		}
+
+		CONNECTION_WAIT.record(start);
+		return conn;
+	}
+
+	/*
+	 * Returns the shared pool, creating it against the MySQL schema on first use. Creating it also
+	 * brings the schema up to the latest migration.
+	 */
+	public static ConnectionPool getPool() {
+		ConnectionPool current = pool;
+
+		if(current == null) {
+			synchronized(DbConnection.class) {
+				current = pool;
+
+				if(current == null) {
+					current = createDefaultPool();
+					pool = current;
+				}
+			}
+		}
+
+		return current;
+	}
+
+	/*
+	 * Replaces the shared pool, for instance with one pointing at a test database. The previous pool,
+	 * if any, is closed.
+	 */
+	public static void setPool(ConnectionPool newPool) {
+		ConnectionPool previous;
+
+		synchronized(DbConnection.class) {
+			previous = pool;
+			pool = newPool;
+		}
+
+		if(previous != null && previous != newPool) {
+			previous.close();
+		}
+	}
+
+	/*
+	 * The slow query log of the default pool. Set a threshold on it to start recording, then read it
+	 * with dump().
+	 */
+	public static SlowQueryLog getSlowQueryLog() {
+		return SLOW_QUERIES;
+	}
+
+	/* The primary's pool, with its schema migrated before the first connection is handed out. */
+	private static ConnectionPool createDefaultPool() {
+		ConnectionPool newPool = createPool(HOST, PORT, false);
+
+		try {
+			int applied = SchemaMigrator.migrate(newPool);
+			LOGGER.info("Schema for '" + SCHEMA + "' is up to date; applied " + applied + " migrations");
+		}
+		catch(RuntimeException e) {
+			newPool.close();
+			throw e;
+		}
+
+		return newPool;
+	}
+
+	/*
+	 * A pool for the schema on the given server: the primary, or one of its replicas. A replica pool
+	 * starts empty, so creating it does not fail while the replica is down.
+	 */
+	static ConnectionPool createPool(String host, int port, boolean replica) {
+		String uri =
+				String.format("jdbc:mysql://%s:%d/%s?user=%s&password=%s&rewriteBatchedStatements=true&useCursorFetch=true", host, port, SCHEMA, USER, PASSWORD);
+
+		LOGGER.info("Creating connection pool for schema '" + SCHEMA + "' at " + host + ":" + port);
+
+		ConnectionPoolConfig config = new ConnectionPoolConfig();
+		config.setSlowQueryLog(SLOW_QUERIES);
+
+		if(replica) {
+			config.setMinSize(0);
+		}
+
+		return new ConnectionPool(() -> DriverManager.getConnection(uri), config);
 	}
 }
@@ -0,0 +1,336 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import projects.exception.DbException;
+import projects.metrics.OperationMetrics;
+import projects.metrics.ProjectMetrics;
+
+/*
+ * Merges small write transactions from many threads into one, so they share a single commit - and
+ * the server's log flush - instead of paying one each.
+ *
+ * Callers hand their writes to execute() and wait. The first one to find no group forming becomes
+ * the leader: it waits up to the window for more writes, then runs up to maxGroupSize of the
+ * waiting writes one after another on one connection and commits them together. The others wait
+ * for their own result. Writes that arrive while a group is committing form the next group, which
+ * one of them leads. With the default window of 0, as with MySQL's binlog_group_commit_sync_delay,
+ * a lone writer does not wait at all, and groups grow only as fast as writes pile up behind a
+ * commit.
+ *
+ * If any write of a group fails, or the commit does, the group is rolled back and each write is
+ * run again in a transaction of its own. Every caller gets its own result or exception, just as
+ * without grouping. A write may therefore run twice, so it must only touch the database; set IDs
+ * and the like on entities from its result after execute() returns.
+ *
+ * Each group commit is recorded in ProjectMetrics as "GroupCommit.commit", with the writes in the
+ * group as its rows.
+ */
+public class GroupCommit {
+	public static final int DEFAULT_MAX_GROUP_SIZE = 64;
+
+	private static final OperationMetrics COMMIT = ProjectMetrics.operation("GroupCommit.commit");
+
+	private final long windowNanos;
+	private final int maxGroupSize;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition groupFull = lock.newCondition();
+	private final Condition changed = lock.newCondition();
+
+	/* Guarded by lock: writes waiting for a group, and whether a leader is collecting or committing one. */
+	private final Queue<Request<?>> waiting = new ArrayDeque<>();
+	private boolean leading;
+
+	private final AtomicLong groups = new AtomicLong();
+	private final AtomicLong writes = new AtomicLong();
+	private final AtomicLong fallbacks = new AtomicLong();
+
+	/* A database write run by execute(). */
+	@FunctionalInterface
+	public interface Work<T> {
+		T run(Connection conn) throws SQLException;
+	}
+
+	public GroupCommit() {
+		this(0, TimeUnit.MICROSECONDS, DEFAULT_MAX_GROUP_SIZE);
+	}
+
+	public GroupCommit(long window, TimeUnit unit, int maxGroupSize) {
+		if(window < 0 || maxGroupSize < 1) {
+			throw new IllegalArgumentException(
+					"Need a window >= 0 and maxGroupSize >= 1, got " + window + " and " + maxGroupSize);
+		}
+
+		this.windowNanos = unit.toNanos(window);
+		this.maxGroupSize = maxGroupSize;
+	}
+
+	/*
+	 * Group commit if the system property projects.groupCommit is true, with the window in
+	 * microseconds from projects.groupCommitWindowMicros (default 0); otherwise null, for off.
+	 */
+	public static GroupCommit fromSystemProperties() {
+		if(!Boolean.getBoolean("projects.groupCommit")) {
+			return null;
+		}
+
+		return new GroupCommit(Long.getLong("projects.groupCommitWindowMicros", 0), TimeUnit.MICROSECONDS,
+				DEFAULT_MAX_GROUP_SIZE);
+	}
+
+	/*
+	 * Runs the write in the next group and returns its result once the group has committed. Throws
+	 * what the write threw when run alone, with SQLExceptions wrapped in DbException.
+	 */
+	public <T> T execute(Work<T> work) {
+		Request<T> request = new Request<>(work);
+
+		/* The write may run on the leader's connection; this thread is still the one that wrote. */
+		DbConnection.noteWrite();
+
+		lock.lock();
+
+		try {
+			waiting.add(request);
+
+			if(!leading) {
+				leading = true;
+				request.lead = true;
+			}
+			else if(waiting.size() >= maxGroupSize) {
+				groupFull.signal();
+			}
+
+			while(!request.lead && !request.done) {
+				changed.awaitUninterruptibly();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+
+		if(!request.done) {
+			lead();
+		}
+
+		return request.result();
+	}
+
+	/* Groups committed. */
+	public long getGroupCount() {
+		return groups.get();
+	}
+
+	/* Writes run through execute(). */
+	public long getWriteCount() {
+		return writes.get();
+	}
+
+	/* Writes per group; 1.0 means no grouping happened. */
+	public double getAverageGroupSize() {
+		long count = groups.get();
+		return count == 0 ? 0 : (double)writes.get() / count;
+	}
+
+	/* Groups that were rolled back and run again write by write. */
+	public long getFallbackCount() {
+		return fallbacks.get();
+	}
+
+	/* Collects a group, runs it and hands the lead to the first write left waiting. */
+	private void lead() {
+		List<Request<?>> group = new ArrayList<>();
+
+		lock.lock();
+
+		try {
+			long remaining = windowNanos;
+
+			while(remaining > 0 && waiting.size() < maxGroupSize) {
+				remaining = groupFull.awaitNanos(remaining);
+			}
+
+			while(group.size() < maxGroupSize && !waiting.isEmpty()) {
+				group.add(waiting.poll());
+			}
+		}
+		catch(InterruptedException e) {
+			/* The writes are queued and callers are waiting on them: run the group anyway. */
+			Thread.currentThread().interrupt();
+
+			while(group.size() < maxGroupSize && !waiting.isEmpty()) {
+				group.add(waiting.poll());
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+
+		try {
+			run(group);
+		}
+		finally {
+			lock.lock();
+
+			try {
+				Request<?> next = waiting.peek();
+
+				leading = Objects.nonNull(next);
+
+				if(leading) {
+					next.lead = true;
+				}
+
+				changed.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private void run(List<Request<?>> group) {
+		writes.addAndGet(group.size());
+
+		if(group.size() > 1 && runTogether(group)) {
+			return;
+		}
+
+		if(group.size() > 1) {
+			fallbacks.incrementAndGet();
+		}
+
+		for(Request<?> request : group) {
+			runAlone(request);
+		}
+	}
+
+	/* Runs the group in one transaction. Returns false, with nothing committed, if anything failed. */
+	private boolean runTogether(List<Request<?>> group) {
+		long start = ProjectMetrics.start();
+
+		try(Connection conn = DbConnection.getConnection()) {
+			conn.setAutoCommit(false);
+
+			try {
+				for(Request<?> request : group) {
+					request.runInGroup(conn);
+				}
+
+				conn.commit();
+			}
+			catch(SQLException | RuntimeException e) {
+				conn.rollback();
+				COMMIT.recordError(start);
+				return false;
+			}
+		}
+		catch(SQLException | RuntimeException e) {
+			COMMIT.recordError(start);
+			return false;
+		}
+
+		groups.incrementAndGet();
+		COMMIT.record(start, group.size());
+
+		for(Request<?> request : group) {
+			request.complete();
+		}
+
+		return true;
+	}
+
+	private void runAlone(Request<?> request) {
+		long start = ProjectMetrics.start();
+
+		try(Connection conn = DbConnection.getConnection()) {
+			conn.setAutoCommit(false);
+
+			try {
+				request.runInGroup(conn);
+				conn.commit();
+			}
+			catch(SQLException | RuntimeException e) {
+				conn.rollback();
+				throw e;
+			}
+		}
+		catch(SQLException | RuntimeException e) {
+			COMMIT.recordError(start);
+			request.fail(e);
+			return;
+		}
+
+		groups.incrementAndGet();
+		COMMIT.record(start, 1);
+		request.complete();
+	}
+
+	/*
+	 * One caller's write. The result of a run is held until its transaction commits, then
+	 * published; done and the outcome are written by the leader and read by the caller under lock.
+	 */
+	private class Request<T> {
+		private final Work<T> work;
+		private T value;
+		private T outcome;
+		private RuntimeException failure;
+		private boolean lead;
+		private boolean done;
+
+		Request(Work<T> work) {
+			this.work = work;
+		}
+
+		void runInGroup(Connection conn) throws SQLException {
+			value = work.run(conn);
+		}
+
+		void complete() {
+			finish(value, null);
+		}
+
+		void fail(Exception e) {
+			finish(null, e instanceof RuntimeException ? (RuntimeException)e : new DbException(e));
+		}
+
+		private void finish(T result, RuntimeException e) {
+			lock.lock();
+
+			try {
+				outcome = result;
+				failure = e;
+				done = true;
+				changed.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		T result() {
+			lock.lock();
+
+			try {
+				if(Objects.nonNull(failure)) {
+					throw failure;
+				}
+
+				return outcome;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,598 @@
+package projects.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exception.DbException;
+
+/*
+ * A ProjectDao that keeps the five tables of the schema in memory, for tests, load tests
+ * and benchmarks that should run without a MySQL server.
+ *
+ * Each table is a ConcurrentHashMap keyed by its primary key, with AUTO_INCREMENT modelled by an
+ * AtomicInteger. The project_id columns of material, step and project_category have hash indexes
+ * (project ID to a concurrent set of child IDs), and project_name_id_idx is a sorted set of
+ * (name, ID) keys used by the listings. Deleting a project also drops its children and links, which
+ * could not be reached again anyway.
+ *
+ * Entities are copied on the way in and on the way out, so callers can no more change stored rows
+ * by mutating a returned object than they could with the database. There are no multi-table
+ * transactions: a project row is published only after its children are in place and unpublished
+ * before they are removed, so readers never see a project without its details, but a reader may
+ * see a project that is being deleted.
+ */
+public class InMemoryProjectDao implements ProjectDao {
+	private static final Comparator<ProjectKey> NAME_ORDER =
+			Comparator.comparing((ProjectKey key) -> key.name, NAME_COLLATION).thenComparingInt(key -> key.id);
+
+	/* Tables, keyed by primary key. */
+	private final Map<Integer, Project> projects = new ConcurrentHashMap<>();
+	private final Map<Integer, Material> materials = new ConcurrentHashMap<>();
+	private final Map<Integer, Step> steps = new ConcurrentHashMap<>();
+	private final Map<Integer, Category> categories = new ConcurrentHashMap<>();
+
+	/* AUTO_INCREMENT counters. */
+	private final AtomicInteger projectIds = new AtomicInteger();
+	private final AtomicInteger materialIds = new AtomicInteger();
+	private final AtomicInteger stepIds = new AtomicInteger();
+	private final AtomicInteger categoryIds = new AtomicInteger();
+
+	/* Secondary indexes on project_id, and project_category itself (project ID to category IDs). */
+	private final Map<Integer, Set<Integer>> materialsByProject = new ConcurrentHashMap<>();
+	private final Map<Integer, Set<Integer>> stepsByProject = new ConcurrentHashMap<>();
+	private final Map<Integer, Set<Integer>> categoriesByProject = new ConcurrentHashMap<>();
+
+	/* project_name_id_idx */
+	private final NavigableSet<ProjectKey> projectsByName = new ConcurrentSkipListSet<>(NAME_ORDER);
+
+	/* The last step order handed out per project by insertStep(); the sequence_high_water table. */
+	private final Map<Integer, AtomicInteger> stepOrders = new ConcurrentHashMap<>();
+
+	@Override
+	public Project insertProject(Project project) {
+		Project row = copyRow(project);
+		row.setProjectId(projectIds.incrementAndGet());
+
+		publish(row);
+
+		project.setProjectId(row.getProjectId());
+		project.clearChanges();
+		return project;
+	}
+
+	@Override
+	public Material insertMaterial(Material material) {
+		Integer projectId = material.getProjectId();
+
+		if(!projects.containsKey(projectId)) {
+			throw new DbException("Project with ID=" + projectId + " does not exist.");
+		}
+
+		material.setMaterialId(materialIds.incrementAndGet());
+
+		materials.put(material.getMaterialId(), copy(material));
+		index(materialsByProject, projectId, material.getMaterialId());
+		material.clearChanges();
+
+		return material;
+	}
+
+	@Override
+	public Category insertCategory(Category category) {
+		category.setCategoryId(categoryIds.incrementAndGet());
+		categories.put(category.getCategoryId(), copy(category));
+
+		return category;
+	}
+
+	@Override
+	public List<Project> insertProjects(Collection<Project> projectsToInsert, int batchSize) {
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+
+		/* Categories without an ID are shared by name within a batch, as in the JDBC version. */
+		Map<String, Integer> newCategories = new HashMap<>();
+		int inBatch = 0;
+
+		for(Project project : projectsToInsert) {
+			if(inBatch++ == batchSize) {
+				newCategories.clear();
+				inBatch = 1;
+			}
+
+			Project row = copyRow(project);
+			row.setProjectId(projectIds.incrementAndGet());
+			project.setProjectId(row.getProjectId());
+
+			insertMaterials(project);
+			insertSteps(project);
+			insertCategoryLinks(project, newCategories);
+
+			publish(row);
+			project.clearChanges();
+		}
+
+		return new ArrayList<>(projectsToInsert);
+	}
+
+	@Override
+	public List<Project> fetchAllProjects() {
+		List<Project> result = new ArrayList<>(projects.size());
+
+		for(ProjectKey key : projectsByName) {
+			addRowCopy(result, key.id);
+		}
+
+		return result;
+	}
+
+	@Override
+	public List<Project> fetchProjectsAfter(String afterProjectName, Integer afterProjectId, int limit) {
+		NavigableSet<ProjectKey> tail = Objects.isNull(afterProjectName)
+				? projectsByName
+				: projectsByName.tailSet(
+						new ProjectKey(afterProjectName, Objects.isNull(afterProjectId) ? 0 : afterProjectId), false);
+
+		List<Project> result = new ArrayList<>(limit);
+
+		for(ProjectKey key : tail) {
+			if(result.size() == limit) {
+				break;
+			}
+
+			addRowCopy(result, key.id);
+		}
+
+		return result;
+	}
+
+	@Override
+	public Stream<Project> streamAllProjects() {
+		return projectsByName.stream().map(key -> projects.get(key.id)).filter(Objects::nonNull)
+				.map(InMemoryProjectDao::copyRow);
+	}
+
+	/* The IDs are sorted up front; the details are copied one project at a time. */
+	@Override
+	public Stream<Project> streamProjectsWithDetails(Integer afterProjectId) {
+		int after = Objects.isNull(afterProjectId) ? 0 : afterProjectId;
+
+		return projects.keySet().stream().filter(projectId -> projectId > after).sorted()
+				.map(this::loadWithDetails).filter(Objects::nonNull);
+	}
+
+	@Override
+	public Optional<Project> fetchProjectById(Integer projectId) {
+		return Optional.ofNullable(loadWithDetails(projectId));
+	}
+
+	@Override
+	public List<Project> fetchProjectsWithDetails(int[] projectIds) {
+		List<Project> result = new ArrayList<>(projectIds.length);
+		Set<Integer> seen = new HashSet<>();
+
+		for(int projectId : projectIds) {
+			if(seen.add(projectId)) {
+				Project project = loadWithDetails(projectId);
+
+				if(Objects.nonNull(project)) {
+					result.add(project);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/* Writes the changed fields onto a copy of the stored row, as the JDBC version's UPDATE would. */
+	@Override
+	public boolean modifyProjectDetails(Project project) {
+		if(project.getChangedFields().isEmpty()) {
+			return Objects.nonNull(project.getProjectId()) && projects.containsKey(project.getProjectId());
+		}
+
+		boolean[] modified = new boolean[1];
+
+		projects.computeIfPresent(project.getProjectId(), (id, current) -> {
+			Project row = copyRow(current);
+
+			if(project.isChanged("projectName")) {
+				row.setProjectName(project.getProjectName());
+			}
+
+			if(project.isChanged("estimatedHours")) {
+				row.setEstimatedHours(project.getEstimatedHours());
+			}
+
+			if(project.isChanged("actualHours")) {
+				row.setActualHours(project.getActualHours());
+			}
+
+			if(project.isChanged("difficulty")) {
+				row.setDifficulty(project.getDifficulty());
+			}
+
+			if(project.isChanged("notes")) {
+				row.setNotes(project.getNotes());
+			}
+
+			/* A rename the collation does not see, such as a change of case, keeps its place. */
+			if(NAME_COLLATION.compare(current.getProjectName(), row.getProjectName()) != 0) {
+				projectsByName.add(new ProjectKey(row.getProjectName(), id));
+				projectsByName.remove(new ProjectKey(current.getProjectName(), id));
+			}
+
+			modified[0] = true;
+			return row;
+		});
+
+		if(modified[0]) {
+			project.clearChanges();
+		}
+
+		return modified[0];
+	}
+
+	@Override
+	public boolean modifyMaterial(Material material) {
+		if(material.getChangedFields().isEmpty()) {
+			return Objects.nonNull(material.getMaterialId()) && materials.containsKey(material.getMaterialId());
+		}
+
+		Material updated = materials.computeIfPresent(material.getMaterialId(), (id, current) -> {
+			Material row = copy(current);
+
+			if(material.isChanged("materialName")) {
+				row.setMaterialName(material.getMaterialName());
+			}
+
+			if(material.isChanged("numRequired")) {
+				row.setNumRequired(material.getNumRequired());
+			}
+
+			if(material.isChanged("cost")) {
+				row.setCost(material.getCost());
+			}
+
+			return row;
+		});
+
+		if(Objects.isNull(updated)) {
+			return false;
+		}
+
+		material.clearChanges();
+		return true;
+	}
+
+	@Override
+	public boolean modifyStep(Step step) {
+		if(step.getChangedFields().isEmpty()) {
+			return Objects.nonNull(step.getStepId()) && steps.containsKey(step.getStepId());
+		}
+
+		Step updated = steps.computeIfPresent(step.getStepId(), (id, current) -> {
+			Step row = copy(current);
+
+			if(step.isChanged("stepText")) {
+				row.setStepText(step.getStepText());
+			}
+
+			if(step.isChanged("stepOrder")) {
+				row.setStepOrder(step.getStepOrder());
+			}
+
+			return row;
+		});
+
+		if(Objects.isNull(updated)) {
+			return false;
+		}
+
+		step.clearChanges();
+		return true;
+	}
+
+	@Override
+	public boolean deleteProject(Integer projectId) {
+		Project removed = projects.remove(projectId);
+
+		if(Objects.isNull(removed)) {
+			return false;
+		}
+
+		projectsByName.remove(new ProjectKey(removed.getProjectName(), projectId));
+
+		/* The child rows and links go with the project. */
+		removeAll(materials, materialsByProject.remove(projectId));
+		removeAll(steps, stepsByProject.remove(projectId));
+		categoriesByProject.remove(projectId);
+		stepOrders.remove(projectId);
+
+		return true;
+	}
+
+	@Override
+	public Step insertStep(Step step) {
+		Integer projectId = step.getProjectId();
+
+		if(!projects.containsKey(projectId)) {
+			throw new DbException("Project with ID=" + projectId + " does not exist.");
+		}
+
+		int stepOrder = stepOrders.computeIfAbsent(projectId, id -> new AtomicInteger(maxStepOrder(id)))
+				.incrementAndGet();
+
+		step.setStepId(stepIds.incrementAndGet());
+		step.setStepOrder(stepOrder);
+
+		steps.put(step.getStepId(), copy(step));
+		index(stepsByProject, projectId, step.getStepId());
+		step.clearChanges();
+
+		return step;
+	}
+
+	/* Reorders of one project lock its step index; appends and reads do not. */
+	@Override
+	public boolean reorderSteps(Integer projectId, List<Integer> stepIds) {
+		Set<Integer> projectStepIds = stepsByProject.getOrDefault(projectId, Set.of());
+
+		synchronized(projectStepIds) {
+			if(stepIds.size() != projectStepIds.size() || !projectStepIds.equals(new HashSet<>(stepIds))) {
+				return false;
+			}
+
+			List<Step> rows = new ArrayList<>(stepIds.size());
+			List<Integer> orders = new ArrayList<>(stepIds.size());
+
+			for(Integer stepId : stepIds) {
+				Step row = steps.get(stepId);
+
+				/* The project is being deleted. */
+				if(Objects.isNull(row)) {
+					return false;
+				}
+
+				rows.add(copy(row));
+				orders.add(row.getStepOrder());
+			}
+
+			orders.sort(null);
+
+			for(int index = 0; index < rows.size(); index++) {
+				rows.get(index).setStepOrder(orders.get(index));
+				steps.put(rows.get(index).getStepId(), rows.get(index));
+			}
+
+			return true;
+		}
+	}
+
+	@Override
+	public boolean deleteStep(Integer stepId) {
+		Step row = steps.get(stepId);
+
+		if(Objects.isNull(row)) {
+			return false;
+		}
+
+		Set<Integer> projectStepIds = stepsByProject.get(row.getProjectId());
+
+		/* The project is being deleted along with its steps. */
+		if(Objects.isNull(projectStepIds)) {
+			return Objects.nonNull(steps.remove(stepId));
+		}
+
+		synchronized(projectStepIds) {
+			if(Objects.isNull(steps.remove(stepId))) {
+				return false;
+			}
+
+			projectStepIds.remove(stepId);
+			return true;
+		}
+	}
+
+	private int maxStepOrder(Integer projectId) {
+		int max = 0;
+
+		for(Integer stepId : stepsByProject.getOrDefault(projectId, Set.of())) {
+			Step step = steps.get(stepId);
+
+			if(Objects.nonNull(step)) {
+				max = Math.max(max, step.getStepOrder());
+			}
+		}
+
+		return max;
+	}
+
+	private void publish(Project row) {
+		projects.put(row.getProjectId(), row);
+		projectsByName.add(new ProjectKey(row.getProjectName(), row.getProjectId()));
+	}
+
+	private void insertMaterials(Project project) {
+		for(Material material : project.getMaterials()) {
+			material.setProjectId(project.getProjectId());
+			material.setMaterialId(materialIds.incrementAndGet());
+
+			materials.put(material.getMaterialId(), copy(material));
+			index(materialsByProject, project.getProjectId(), material.getMaterialId());
+			material.clearChanges();
+		}
+	}
+
+	private void insertSteps(Project project) {
+		int order = 1;
+
+		for(Step step : project.getSteps()) {
+			step.setProjectId(project.getProjectId());
+			step.setStepId(stepIds.incrementAndGet());
+
+			if(Objects.isNull(step.getStepOrder())) {
+				step.setStepOrder(order);
+			}
+
+			order = step.getStepOrder() + 1;
+
+			steps.put(step.getStepId(), copy(step));
+			index(stepsByProject, project.getProjectId(), step.getStepId());
+			step.clearChanges();
+		}
+	}
+
+	private void insertCategoryLinks(Project project, Map<String, Integer> newCategories) {
+		for(Category category : project.getCategories()) {
+			if(Objects.isNull(category.getCategoryId())) {
+				category.setCategoryId(newCategories.computeIfAbsent(category.getCategoryName(), name -> {
+					Category row = copy(category);
+					row.setCategoryId(categoryIds.incrementAndGet());
+					categories.put(row.getCategoryId(), row);
+					return row.getCategoryId();
+				}));
+			}
+
+			index(categoriesByProject, project.getProjectId(), category.getCategoryId());
+		}
+	}
+
+	private Project loadWithDetails(Integer projectId) {
+		Project row = projects.get(projectId);
+
+		if(Objects.isNull(row)) {
+			return null;
+		}
+
+		Project project = copyRow(row);
+
+		for(Integer materialId : sortedIds(materialsByProject.get(projectId))) {
+			Material material = materials.get(materialId);
+
+			if(Objects.nonNull(material)) {
+				project.getMaterials().add(copy(material));
+			}
+		}
+
+		List<Step> projectSteps = new ArrayList<>();
+
+		for(Integer stepId : sortedIds(stepsByProject.get(projectId))) {
+			Step step = steps.get(stepId);
+
+			if(Objects.nonNull(step)) {
+				projectSteps.add(copy(step));
+			}
+		}
+
+		projectSteps.sort(Comparator.comparing(Step::getStepOrder).thenComparing(Step::getStepId));
+		project.getSteps().addAll(projectSteps);
+
+		for(Integer categoryId : sortedIds(categoriesByProject.get(projectId))) {
+			Category category = categories.get(categoryId);
+
+			if(Objects.nonNull(category)) {
+				project.getCategories().add(copy(category));
+			}
+		}
+
+		return project;
+	}
+
+	private void addRowCopy(List<Project> result, int projectId) {
+		Project row = projects.get(projectId);
+
+		if(Objects.nonNull(row)) {
+			result.add(copyRow(row));
+		}
+	}
+
+	private static void index(Map<Integer, Set<Integer>> index, Integer projectId, Integer childId) {
+		index.computeIfAbsent(projectId, id -> ConcurrentHashMap.newKeySet()).add(childId);
+	}
+
+	private static <T> void removeAll(Map<Integer, T> table, Set<Integer> ids) {
+		if(Objects.nonNull(ids)) {
+			ids.forEach(table::remove);
+		}
+	}
+
+	private static List<Integer> sortedIds(Set<Integer> ids) {
+		if(Objects.isNull(ids)) {
+			return List.of();
+		}
+
+		List<Integer> sorted = new ArrayList<>(ids);
+		sorted.sort(null);
+		return sorted;
+	}
+
+	/* Copies the columns of the project table, not the child lists. Copies start with no changes. */
+	private static Project copyRow(Project project) {
+		Project copy = new Project();
+		copy.setProjectId(project.getProjectId());
+		copy.setProjectName(project.getProjectName());
+		copy.setEstimatedHours(project.getEstimatedHours());
+		copy.setActualHours(project.getActualHours());
+		copy.setDifficulty(project.getDifficulty());
+		copy.setNotes(project.getNotes());
+		copy.clearChanges();
+		return copy;
+	}
+
+	private static Material copy(Material material) {
+		Material copy = new Material();
+		copy.setMaterialId(material.getMaterialId());
+		copy.setProjectId(material.getProjectId());
+		copy.setMaterialName(material.getMaterialName());
+		copy.setNumRequired(material.getNumRequired());
+		copy.setCost(material.getCost());
+		copy.clearChanges();
+		return copy;
+	}
+
+	private static Step copy(Step step) {
+		Step copy = new Step();
+		copy.setStepId(step.getStepId());
+		copy.setProjectId(step.getProjectId());
+		copy.setStepText(step.getStepText());
+		copy.setStepOrder(step.getStepOrder());
+		copy.clearChanges();
+		return copy;
+	}
+
+	private static Category copy(Category category) {
+		Category copy = new Category();
+		copy.setCategoryId(category.getCategoryId());
+		copy.setCategoryName(category.getCategoryName());
+		return copy;
+	}
+
+	/* Entry of project_name_id_idx. */
+	private static class ProjectKey {
+		private final String name;
+		private final int id;
+
+		ProjectKey(String name, int id) {
+			this.name = name;
+			this.id = id;
+		}
+	}
+}
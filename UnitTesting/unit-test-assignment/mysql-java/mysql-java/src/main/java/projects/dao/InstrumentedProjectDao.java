@@ -0,0 +1,321 @@
+package projects.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.metrics.OperationMetrics;
+import projects.metrics.ProjectMetrics;
+
+/*
+ * A ProjectDao that records the latency, failures and returned rows of every call to the DAO it
+ * wraps in ProjectMetrics, under the name "ProjectDao.<method>". While metrics are off it only
+ * checks the flag and delegates.
+ *
+ * streamAllProjects() and streamProjectsWithDetails() are timed until the stream is returned;
+ * reading the rows is up to the caller.
+ */
+public class InstrumentedProjectDao implements ProjectDao {
+	private final ProjectDao delegate;
+
+	private final OperationMetrics insertProject = operation("insertProject");
+	private final OperationMetrics insertMaterial = operation("insertMaterial");
+	private final OperationMetrics insertCategory = operation("insertCategory");
+	private final OperationMetrics insertProjects = operation("insertProjects");
+	private final OperationMetrics fetchAllProjects = operation("fetchAllProjects");
+	private final OperationMetrics fetchProjectsAfter = operation("fetchProjectsAfter");
+	private final OperationMetrics streamAllProjects = operation("streamAllProjects");
+	private final OperationMetrics streamProjectsWithDetails = operation("streamProjectsWithDetails");
+	private final OperationMetrics fetchProjectById = operation("fetchProjectById");
+	private final OperationMetrics fetchProjectsWithDetails = operation("fetchProjectsWithDetails");
+	private final OperationMetrics modifyProjectDetails = operation("modifyProjectDetails");
+	private final OperationMetrics modifyProjects = operation("modifyProjects");
+	private final OperationMetrics modifyMaterial = operation("modifyMaterial");
+	private final OperationMetrics modifyStep = operation("modifyStep");
+	private final OperationMetrics deleteProject = operation("deleteProject");
+	private final OperationMetrics insertStep = operation("insertStep");
+	private final OperationMetrics reorderSteps = operation("reorderSteps");
+	private final OperationMetrics deleteStep = operation("deleteStep");
+
+	public InstrumentedProjectDao(ProjectDao delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Project insertProject(Project project) {
+		long start = ProjectMetrics.start();
+
+		try {
+			Project result = delegate.insertProject(project);
+			insertProject.record(start, 1);
+			return result;
+		}
+		catch(RuntimeException e) {
+			insertProject.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Material insertMaterial(Material material) {
+		long start = ProjectMetrics.start();
+
+		try {
+			Material result = delegate.insertMaterial(material);
+			insertMaterial.record(start, 1);
+			return result;
+		}
+		catch(RuntimeException e) {
+			insertMaterial.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Category insertCategory(Category category) {
+		long start = ProjectMetrics.start();
+
+		try {
+			Category result = delegate.insertCategory(category);
+			insertCategory.record(start, 1);
+			return result;
+		}
+		catch(RuntimeException e) {
+			insertCategory.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Project> insertProjects(Collection<Project> projects, int batchSize) {
+		long start = ProjectMetrics.start();
+
+		try {
+			List<Project> result = delegate.insertProjects(projects, batchSize);
+			insertProjects.record(start, result.size());
+			return result;
+		}
+		catch(RuntimeException e) {
+			insertProjects.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Project> fetchAllProjects() {
+		long start = ProjectMetrics.start();
+
+		try {
+			List<Project> result = delegate.fetchAllProjects();
+			fetchAllProjects.record(start, result.size());
+			return result;
+		}
+		catch(RuntimeException e) {
+			fetchAllProjects.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Project> fetchProjectsAfter(String afterProjectName, Integer afterProjectId, int limit) {
+		long start = ProjectMetrics.start();
+
+		try {
+			List<Project> result = delegate.fetchProjectsAfter(afterProjectName, afterProjectId, limit);
+			fetchProjectsAfter.record(start, result.size());
+			return result;
+		}
+		catch(RuntimeException e) {
+			fetchProjectsAfter.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Stream<Project> streamAllProjects() {
+		long start = ProjectMetrics.start();
+
+		try {
+			Stream<Project> result = delegate.streamAllProjects();
+			streamAllProjects.record(start);
+			return result;
+		}
+		catch(RuntimeException e) {
+			streamAllProjects.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Stream<Project> streamProjectsWithDetails(Integer afterProjectId) {
+		long start = ProjectMetrics.start();
+
+		try {
+			Stream<Project> result = delegate.streamProjectsWithDetails(afterProjectId);
+			streamProjectsWithDetails.record(start);
+			return result;
+		}
+		catch(RuntimeException e) {
+			streamProjectsWithDetails.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Optional<Project> fetchProjectById(Integer projectId) {
+		long start = ProjectMetrics.start();
+
+		try {
+			Optional<Project> result = delegate.fetchProjectById(projectId);
+			fetchProjectById.record(start, result.isPresent() ? 1 : 0);
+			return result;
+		}
+		catch(RuntimeException e) {
+			fetchProjectById.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Project> fetchProjectsWithDetails(int[] projectIds) {
+		long start = ProjectMetrics.start();
+
+		try {
+			List<Project> result = delegate.fetchProjectsWithDetails(projectIds);
+			fetchProjectsWithDetails.record(start, result.size());
+			return result;
+		}
+		catch(RuntimeException e) {
+			fetchProjectsWithDetails.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean modifyProjectDetails(Project project) {
+		long start = ProjectMetrics.start();
+
+		try {
+			boolean result = delegate.modifyProjectDetails(project);
+			modifyProjectDetails.record(start, result ? 1 : 0);
+			return result;
+		}
+		catch(RuntimeException e) {
+			modifyProjectDetails.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public List<Project> modifyProjects(Collection<Project> projects) {
+		long start = ProjectMetrics.start();
+
+		try {
+			List<Project> missing = delegate.modifyProjects(projects);
+			modifyProjects.record(start, projects.size() - missing.size());
+			return missing;
+		}
+		catch(RuntimeException e) {
+			modifyProjects.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean modifyMaterial(Material material) {
+		long start = ProjectMetrics.start();
+
+		try {
+			boolean result = delegate.modifyMaterial(material);
+			modifyMaterial.record(start, result ? 1 : 0);
+			return result;
+		}
+		catch(RuntimeException e) {
+			modifyMaterial.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean modifyStep(Step step) {
+		long start = ProjectMetrics.start();
+
+		try {
+			boolean result = delegate.modifyStep(step);
+			modifyStep.record(start, result ? 1 : 0);
+			return result;
+		}
+		catch(RuntimeException e) {
+			modifyStep.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean deleteProject(Integer projectId) {
+		long start = ProjectMetrics.start();
+
+		try {
+			boolean result = delegate.deleteProject(projectId);
+			deleteProject.record(start, result ? 1 : 0);
+			return result;
+		}
+		catch(RuntimeException e) {
+			deleteProject.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public Step insertStep(Step step) {
+		long start = ProjectMetrics.start();
+
+		try {
+			Step result = delegate.insertStep(step);
+			insertStep.record(start, 1);
+			return result;
+		}
+		catch(RuntimeException e) {
+			insertStep.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean reorderSteps(Integer projectId, List<Integer> stepIds) {
+		long start = ProjectMetrics.start();
+
+		try {
+			boolean result = delegate.reorderSteps(projectId, stepIds);
+			reorderSteps.record(start, result ? stepIds.size() : 0);
+			return result;
+		}
+		catch(RuntimeException e) {
+			reorderSteps.recordError(start);
+			throw e;
+		}
+	}
+
+	@Override
+	public boolean deleteStep(Integer stepId) {
+		long start = ProjectMetrics.start();
+
+		try {
+			boolean result = delegate.deleteStep(stepId);
+			deleteStep.record(start, result ? 1 : 0);
+			return result;
+		}
+		catch(RuntimeException e) {
+			deleteStep.recordError(start);
+			throw e;
+		}
+	}
+
+	private static OperationMetrics operation(String method) {
+		return ProjectMetrics.operation("ProjectDao." + method);
+	}
+}
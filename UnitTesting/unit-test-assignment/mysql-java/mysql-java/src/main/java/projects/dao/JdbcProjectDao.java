@@ -0,0 +1,1639 @@
+package projects.dao;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.entity.TrackedEntity;
+import projects.exception.DbException;
+import provided.util.DaoBase;
+import provided.util.RowMapper;
+
+
+// @author oscarc257
+
+
+
+/*
+ * The ProjectDao backed by the MySQL schema (see SchemaMigrator), reached through DbConnection.
+ * The fetch and stream methods read through DbConnection.getReadConnection(), so they go to a
+ * replica when replicas are set; everything else goes to the primary. A DAO built for one shard
+ * (see ShardedProjectDao) uses only the pool of that shard instead.
+ */
+public class JdbcProjectDao extends DaoBase implements ProjectDao {
+	private static final String CATEGORY_TABLE = "category";
+	private static final String MATERIAL_TABLE = "material";
+	private static final String PROJECT_TABLE = "project";
+	private static final String PROJECT_CATEGORY_TABLE = "project_category";
+	private static final String STEP_TABLE = "step";
+	private static final int MAX_IN_LIST_SIZE = 512;
+	private static final int STREAM_FETCH_SIZE = 1000;
+
+	/*
+	 * The SQL is fixed per query, so each string is built once here and the statement cache of the
+	 * connection pool can reuse the prepared statement on every call.
+	 */
+	// @formatter:off
+	private static final String INSERT_PROJECT_SQL = ""
+			+ "INSERT INTO " + PROJECT_TABLE + " "
+			+ "(project_name, estimated_hours, actual_hours, difficulty, notes) "
+			+ "VALUES "
+			+ "(?, ?, ?, ?, ?)";
+
+	private static final String INSERT_MATERIAL_SQL = ""
+			+ "INSERT INTO " + MATERIAL_TABLE + " "
+			+ "(project_id, material_name, num_required, cost) "
+			+ "VALUES "
+			+ "(?, ?, ?, ?)";
+
+	private static final String INSERT_STEP_SQL = ""
+			+ "INSERT INTO " + STEP_TABLE + " "
+			+ "(project_id, step_text, step_order) "
+			+ "VALUES "
+			+ "(?, ?, ?)";
+
+	private static final String INSERT_CATEGORY_SQL = ""
+			+ "INSERT INTO " + CATEGORY_TABLE + " "
+			+ "(category_name) "
+			+ "VALUES "
+			+ "(?)";
+
+	/* The inserts above with the key as the last column, for rows whose IDs come from a KeyGenerator. */
+	private static final String INSERT_PROJECT_WITH_KEY_SQL = ""
+			+ "INSERT INTO " + PROJECT_TABLE + " "
+			+ "(project_name, estimated_hours, actual_hours, difficulty, notes, project_id) "
+			+ "VALUES "
+			+ "(?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_MATERIAL_WITH_KEY_SQL = ""
+			+ "INSERT INTO " + MATERIAL_TABLE + " "
+			+ "(project_id, material_name, num_required, cost, material_id) "
+			+ "VALUES "
+			+ "(?, ?, ?, ?, ?)";
+
+	private static final String INSERT_STEP_WITH_KEY_SQL = ""
+			+ "INSERT INTO " + STEP_TABLE + " "
+			+ "(project_id, step_text, step_order, step_id) "
+			+ "VALUES "
+			+ "(?, ?, ?, ?)";
+
+	private static final String INSERT_CATEGORY_WITH_KEY_SQL = ""
+			+ "INSERT INTO " + CATEGORY_TABLE + " "
+			+ "(category_name, category_id) "
+			+ "VALUES "
+			+ "(?, ?)";
+
+	private static final String INSERT_PROJECT_CATEGORY_SQL = ""
+			+ "INSERT INTO " + PROJECT_CATEGORY_TABLE + " "
+			+ "(project_id, category_id) "
+			+ "VALUES "
+			+ "(?, ?)";
+
+	private static final String SELECT_ALL_PROJECTS_SQL =
+			"SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_name, project_id";
+
+	private static final String SELECT_FIRST_PAGE_SQL = ""
+			+ "SELECT * FROM " + PROJECT_TABLE + " "
+			+ "ORDER BY project_name, project_id "
+			+ "LIMIT ?";
+
+	private static final String SELECT_NEXT_PAGE_SQL = ""
+			+ "SELECT * FROM " + PROJECT_TABLE + " "
+			+ "WHERE project_name > ? OR (project_name = ? AND project_id > ?) "
+			+ "ORDER BY project_name, project_id "
+			+ "LIMIT ?";
+
+	private static final String SELECT_PROJECT_SQL = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+
+	private static final String SELECT_MATERIALS_SQL =
+			"SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id = ? ORDER BY material_id";
+
+	private static final String SELECT_STEPS_SQL =
+			"SELECT * FROM " + STEP_TABLE + " WHERE project_id = ? ORDER BY step_order";
+
+	private static final String SELECT_CATEGORIES_SQL = ""
+			+ "SELECT c.* FROM " + CATEGORY_TABLE + " c "
+			+ "JOIN " + PROJECT_CATEGORY_TABLE + " pc USING (category_id) "
+			+ "WHERE project_id = ?";
+
+	/* The cursors merged by streamProjectsWithDetails(), each in project_id order along its index. */
+	private static final String STREAM_PROJECTS_SQL =
+			"SELECT * FROM " + PROJECT_TABLE + " WHERE project_id > ? ORDER BY project_id";
+
+	private static final String STREAM_MATERIALS_SQL =
+			"SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id > ? ORDER BY project_id, material_id";
+
+	private static final String STREAM_STEPS_SQL =
+			"SELECT * FROM " + STEP_TABLE + " WHERE project_id > ? ORDER BY project_id, step_order";
+
+	private static final String STREAM_CATEGORIES_SQL = ""
+			+ "SELECT pc.project_id, c.* FROM " + CATEGORY_TABLE + " c "
+			+ "JOIN " + PROJECT_CATEGORY_TABLE + " pc USING (category_id) "
+			+ "WHERE pc.project_id > ? "
+			+ "ORDER BY pc.project_id, c.category_id";
+
+	private static final String DELETE_PROJECT_SQL = "DELETE FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+
+	private static final String SELECT_MAX_STEP_ORDER_SQL =
+			"SELECT MAX(step_order) FROM " + STEP_TABLE + " WHERE project_id = ?";
+
+	private static final String SELECT_STEP_ORDERS_FOR_UPDATE_SQL = ""
+			+ "SELECT step_id, step_order FROM " + STEP_TABLE + " "
+			+ "WHERE project_id = ? "
+			+ "ORDER BY step_order "
+			+ "FOR UPDATE";
+
+	private static final String UPDATE_STEP_ORDER_SQL =
+			"UPDATE " + STEP_TABLE + " SET step_order = ? WHERE step_id = ?";
+
+	private static final String DELETE_STEP_SQL = "DELETE FROM " + STEP_TABLE + " WHERE step_id = ?";
+	// @formatter:on
+
+	/*
+	 * Step orders for insertStep(), reserved from the sequence_high_water table a block at a time
+	 * instead of counting the project's steps on every insert.
+	 */
+	private final SequenceAllocator stepOrders;
+
+	/* Shares commits between concurrent single-row writes, or null to commit each on its own. */
+	private final GroupCommit groupCommit;
+
+	/* The database of one shard, or null to go through DbConnection. */
+	private final ConnectionPool pool;
+
+	/* Assigns the IDs of new rows, or null to take the keys the database generates. */
+	private final KeyGenerator keyGenerator;
+
+	/*
+	 * The bulk detail queries, indexed by log2 of the IN-list size. IN lists are padded to a power of
+	 * two, so these few strings cover every chunk.
+	 */
+	private static final String[] SELECT_PROJECTS_IN_SQL =
+			new String[Integer.numberOfTrailingZeros(MAX_IN_LIST_SIZE) + 1];
+	private static final String[] SELECT_MATERIALS_IN_SQL = new String[SELECT_PROJECTS_IN_SQL.length];
+	private static final String[] SELECT_STEPS_IN_SQL = new String[SELECT_PROJECTS_IN_SQL.length];
+	private static final String[] SELECT_CATEGORIES_IN_SQL = new String[SELECT_PROJECTS_IN_SQL.length];
+
+	static {
+		for(int shift = 0; shift < SELECT_PROJECTS_IN_SQL.length; shift++) {
+			String in = inList(1 << shift);
+
+			// @formatter:off
+			SELECT_PROJECTS_IN_SQL[shift] = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id IN " + in;
+			SELECT_MATERIALS_IN_SQL[shift] = "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id IN " + in
+					+ " ORDER BY project_id, material_id";
+			SELECT_STEPS_IN_SQL[shift] = "SELECT * FROM " + STEP_TABLE + " WHERE project_id IN " + in
+					+ " ORDER BY project_id, step_order";
+			SELECT_CATEGORIES_IN_SQL[shift] = ""
+					+ "SELECT pc.project_id, c.* FROM " + CATEGORY_TABLE + " c "
+					+ "JOIN " + PROJECT_CATEGORY_TABLE + " pc USING (category_id) "
+					+ "WHERE pc.project_id IN " + in
+					+ " ORDER BY pc.project_id, c.category_id";
+			// @formatter:on
+		}
+	}
+
+	/* Group commit follows the system property projects.groupCommit; see GroupCommit.fromSystemProperties(). */
+	public JdbcProjectDao() {
+		this(GroupCommit.fromSystemProperties());
+	}
+
+	/*
+	 * With a GroupCommit, the single-row inserts, the updates and deleteProject() share commits
+	 * with concurrent calls; null commits each on its own.
+	 */
+	public JdbcProjectDao(GroupCommit groupCommit) {
+		this(groupCommit, null, null);
+	}
+
+	/*
+	 * A DAO for one shard: every call uses a connection from the pool, and new rows get their IDs
+	 * from keys, so that IDs stay unique across shards. An entity that already has an ID is
+	 * inserted under it, which is how a project moves between shards with its IDs.
+	 */
+	public JdbcProjectDao(ConnectionPool pool, KeyGenerator keys) {
+		this(null, Objects.requireNonNull(pool), Objects.requireNonNull(keys));
+	}
+
+	private JdbcProjectDao(GroupCommit groupCommit, ConnectionPool pool, KeyGenerator keys) {
+		this.groupCommit = groupCommit;
+		this.pool = pool;
+		this.keyGenerator = keys;
+
+		stepOrders = new SequenceAllocator(STEP_TABLE + ".step_order", SELECT_MAX_STEP_ORDER_SQL,
+				SequenceAllocator.DEFAULT_BLOCK_SIZE,
+				Objects.isNull(pool) ? DbConnection::getConnection : pool::getConnection);
+	}
+
+	/* Hands out the IDs of new rows per table, for databases that must not pick their own. */
+	@FunctionalInterface
+	public interface KeyGenerator {
+		int nextKey(String table);
+	}
+	
+	
+	@Override
+	public Project insertProject(Project project) {
+		Integer key = assignKey(PROJECT_TABLE, project.getProjectId());
+
+		int projectId = insertRow(INSERT_PROJECT_SQL, INSERT_PROJECT_WITH_KEY_SQL, 6, key, stmt -> {
+			setParameter(stmt, 1, project.getProjectName(), String.class);
+			setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
+			setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
+			setParameter(stmt, 4, project.getDifficulty(), Integer.class);
+			setParameter(stmt, 5, project.getNotes(), String.class);
+		});
+
+		project.setProjectId(projectId);
+		project.clearChanges();
+		return project;
+	}
+
+	@Override
+	public Material insertMaterial(Material material) {
+		Integer key = assignKey(MATERIAL_TABLE, material.getMaterialId());
+
+		int materialId = insertRow(INSERT_MATERIAL_SQL, INSERT_MATERIAL_WITH_KEY_SQL, 5, key, stmt -> {
+			setParameter(stmt, 1, material.getProjectId(), Integer.class);
+			setParameter(stmt, 2, material.getMaterialName(), String.class);
+			setParameter(stmt, 3, material.getNumRequired(), Integer.class);
+			setParameter(stmt, 4, material.getCost(), BigDecimal.class);
+		});
+
+		material.setMaterialId(materialId);
+		material.clearChanges();
+		return material;
+	}
+
+	@Override
+	public Category insertCategory(Category category) {
+		Integer key = assignKey(CATEGORY_TABLE, category.getCategoryId());
+
+		int categoryId = insertRow(INSERT_CATEGORY_SQL, INSERT_CATEGORY_WITH_KEY_SQL, 2, key,
+				stmt -> setParameter(stmt, 1, category.getCategoryName(), String.class));
+
+		category.setCategoryId(categoryId);
+		return category;
+	}
+
+	/*
+	 * The step order is taken before a connection is borrowed: when the allocator has to reserve a
+	 * new block it uses a connection of its own, and holding one here meanwhile could starve the pool.
+	 */
+	@Override
+	public Step insertStep(Step step) {
+		if(Objects.isNull(step.getProjectId())) {
+			throw new IllegalArgumentException("The step has no project ID.");
+		}
+
+		int stepOrder = stepOrders.next(step.getProjectId());
+		Integer key = assignKey(STEP_TABLE, step.getStepId());
+
+		int stepId = insertRow(INSERT_STEP_SQL, INSERT_STEP_WITH_KEY_SQL, 4, key, stmt -> {
+			setParameter(stmt, 1, step.getProjectId(), Integer.class);
+			setParameter(stmt, 2, step.getStepText(), String.class);
+			setParameter(stmt, 3, stepOrder, Integer.class);
+		});
+
+		step.setStepId(stepId);
+		step.setStepOrder(stepOrder);
+		step.clearChanges();
+		return step;
+	}
+
+	/*
+	 * Runs a single-row INSERT and returns the key the database generated for it. The key comes
+	 * back with the INSERT (RETURN_GENERATED_KEYS) rather than from a SELECT LAST_INSERT_ID()
+	 * afterwards, and one statement is atomic on its own, so it runs in auto-commit mode without a
+	 * transaction to start and commit: the insert is a single round trip.
+	 *
+	 * With a key from assignKey(), the row is inserted with keyedSql instead, the key bound as
+	 * parameter keyIndex, and the key is returned.
+	 */
+	private int insertRow(String sql, String keyedSql, int keyIndex, Integer key, ParameterBinder parameters) {
+		return singleStatement(conn -> {
+			try(PreparedStatement stmt = prepareInsert(conn, sql, keyedSql)) {
+				parameters.bind(stmt);
+
+				if(Objects.nonNull(key)) {
+					setParameter(stmt, keyIndex, key, Integer.class);
+					stmt.executeUpdate();
+					return key;
+				}
+
+				stmt.executeUpdate();
+				return readGeneratedKeys(stmt, 1)[0];
+			}
+		});
+	}
+
+	/*
+	 * The ID of a new row when a KeyGenerator assigns them: the ID the entity already has, or the
+	 * next key for the table. Null when the database generates the keys.
+	 */
+	private Integer assignKey(String table, Integer id) {
+		if(Objects.isNull(keyGenerator)) {
+			return null;
+		}
+
+		return Objects.nonNull(id) ? id : keyGenerator.nextKey(table);
+	}
+
+	/* An INSERT that returns its generated keys or, with a KeyGenerator, the keyed variant. */
+	private PreparedStatement prepareInsert(Connection conn, String sql, String keyedSql) throws SQLException {
+		return Objects.isNull(keyGenerator)
+				? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+				: conn.prepareStatement(keyedSql);
+	}
+
+	/* A connection for writes: from the shard's pool, or from the primary. */
+	private Connection writeConnection() {
+		return Objects.isNull(pool) ? DbConnection.getConnection() : pool.getConnection();
+	}
+
+	/* A connection for reads: from the shard's pool, or from a replica if DbConnection has any. */
+	private Connection readConnection() {
+		return Objects.isNull(pool) ? DbConnection.getReadConnection() : pool.getConnection();
+	}
+
+	/*
+	 * Runs a write of one statement in auto-commit mode or, with group commit on, in the
+	 * transaction of the group it joins.
+	 */
+	private <T> T singleStatement(GroupCommit.Work<T> work) {
+		if(Objects.nonNull(groupCommit)) {
+			return groupCommit.execute(work);
+		}
+
+		try(Connection conn = writeConnection()) {
+			return work.run(conn);
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/*
+	 * Runs a write of several statements in a transaction of its own or, with group commit on, in
+	 * the transaction of the group it joins.
+	 */
+	private <T> T inTransaction(GroupCommit.Work<T> work) {
+		if(Objects.nonNull(groupCommit)) {
+			return groupCommit.execute(work);
+		}
+
+		try(Connection conn = writeConnection()) {
+			startTransaction(conn);
+
+			try {
+				T result = work.run(conn);
+				commitTransaction(conn);
+				return result;
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/* Sets the parameters of a statement; see insertRow(). */
+	@FunctionalInterface
+	private interface ParameterBinder {
+		void bind(PreparedStatement stmt) throws SQLException;
+	}
+
+	/*
+	 * Inserts whole project graphs - projects, their materials and steps, any new categories and
+	 * the project_category links - using JDBC batches. Each group of batchSize projects is written
+	 * in one transaction with one batched INSERT per table, and the generated keys are read back
+	 * from the same statements, so a batch costs a handful of round trips no matter how many rows
+	 * it holds. The generated IDs are set on the entities that were passed in.
+	 *
+	 * With a KeyGenerator, IDs are assigned before the INSERTs instead, and entities that already
+	 * have one keep it.
+	 *
+	 * Categories that already have an ID are only linked. Categories without an ID are inserted
+	 * once per batch (matched by name) and then linked. Steps without a step order are numbered
+	 * in list order.
+	 *
+	 * A batch that fails is rolled back, and its entities get back the IDs, project IDs and step
+	 * orders they had before it, so the same graphs can be passed in again. Earlier batches stay
+	 * committed, with their IDs set.
+	 */
+	@Override
+	public List<Project> insertProjects(Collection<Project> projects, int batchSize) {
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+
+		List<Project> all = new ArrayList<>(projects);
+
+		try(Connection conn = writeConnection()) {
+			for(int from = 0; from < all.size(); from += batchSize) {
+				List<Project> batch = all.subList(from, Math.min(from + batchSize, all.size()));
+				List<Runnable> restoreKeys = keysOf(batch);
+
+				startTransaction(conn);
+
+				try {
+					insertProjectBatch(conn, batch);
+					insertMaterialBatch(conn, batch);
+					insertStepBatch(conn, batch);
+					insertCategoryBatch(conn, batch);
+
+					commitTransaction(conn);
+					clearChanges(batch);
+				}
+				catch(Exception e) {
+					rollbackTransaction(conn);
+					restoreKeys.forEach(Runnable::run);
+					throw new DbException(e);
+				}
+			}
+
+			return all;
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/*
+	 * Records the keys that writing the batch sets on its entities. Running the result puts them
+	 * back, as they were before the batch.
+	 */
+	private static List<Runnable> keysOf(List<Project> batch) {
+		List<Runnable> restore = new ArrayList<>();
+
+		for(Project project : batch) {
+			Integer projectId = project.getProjectId();
+			restore.add(() -> project.setProjectId(projectId));
+
+			for(Material material : project.getMaterials()) {
+				Integer materialId = material.getMaterialId();
+				Integer owner = material.getProjectId();
+
+				restore.add(() -> {
+					material.setMaterialId(materialId);
+					material.setProjectId(owner);
+				});
+			}
+
+			for(Step step : project.getSteps()) {
+				Integer stepId = step.getStepId();
+				Integer owner = step.getProjectId();
+				Integer stepOrder = step.getStepOrder();
+
+				restore.add(() -> {
+					step.setStepId(stepId);
+					step.setProjectId(owner);
+					step.setStepOrder(stepOrder);
+				});
+			}
+
+			for(Category category : project.getCategories()) {
+				Integer categoryId = category.getCategoryId();
+				restore.add(() -> category.setCategoryId(categoryId));
+			}
+		}
+
+		return restore;
+	}
+
+	/* The rows now match the entities of the committed batch. */
+	private static void clearChanges(List<Project> batch) {
+		for(Project project : batch) {
+			project.clearChanges();
+			project.getMaterials().forEach(Material::clearChanges);
+			project.getSteps().forEach(Step::clearChanges);
+		}
+	}
+
+	private void insertProjectBatch(Connection conn, List<Project> batch) throws SQLException {
+		try(PreparedStatement stmt = prepareInsert(conn, INSERT_PROJECT_SQL, INSERT_PROJECT_WITH_KEY_SQL)) {
+			for(Project project : batch) {
+				setParameter(stmt, 1, project.getProjectName(), String.class);
+				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
+				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
+				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
+				setParameter(stmt, 5, project.getNotes(), String.class);
+
+				if(Objects.nonNull(keyGenerator)) {
+					project.setProjectId(assignKey(PROJECT_TABLE, project.getProjectId()));
+					setParameter(stmt, 6, project.getProjectId(), Integer.class);
+				}
+
+				stmt.addBatch();
+			}
+
+			stmt.executeBatch();
+
+			if(Objects.nonNull(keyGenerator)) {
+				return;
+			}
+
+			int[] keys = readGeneratedKeys(stmt, batch.size());
+
+			for(int index = 0; index < keys.length; index++) {
+				batch.get(index).setProjectId(keys[index]);
+			}
+		}
+	}
+
+	private void insertMaterialBatch(Connection conn, List<Project> batch) throws SQLException {
+		List<Material> materials = new ArrayList<>();
+
+		try(PreparedStatement stmt = prepareInsert(conn, INSERT_MATERIAL_SQL, INSERT_MATERIAL_WITH_KEY_SQL)) {
+			for(Project project : batch) {
+				for(Material material : project.getMaterials()) {
+					material.setProjectId(project.getProjectId());
+
+					setParameter(stmt, 1, material.getProjectId(), Integer.class);
+					setParameter(stmt, 2, material.getMaterialName(), String.class);
+					setParameter(stmt, 3, material.getNumRequired(), Integer.class);
+					setParameter(stmt, 4, material.getCost(), BigDecimal.class);
+
+					if(Objects.nonNull(keyGenerator)) {
+						material.setMaterialId(assignKey(MATERIAL_TABLE, material.getMaterialId()));
+						setParameter(stmt, 5, material.getMaterialId(), Integer.class);
+					}
+
+					stmt.addBatch();
+
+					materials.add(material);
+				}
+			}
+
+			if(materials.isEmpty()) {
+				return;
+			}
+
+			stmt.executeBatch();
+
+			if(Objects.nonNull(keyGenerator)) {
+				return;
+			}
+
+			int[] keys = readGeneratedKeys(stmt, materials.size());
+
+			for(int index = 0; index < keys.length; index++) {
+				materials.get(index).setMaterialId(keys[index]);
+			}
+		}
+	}
+
+	private void insertStepBatch(Connection conn, List<Project> batch) throws SQLException {
+		List<Step> steps = new ArrayList<>();
+
+		try(PreparedStatement stmt = prepareInsert(conn, INSERT_STEP_SQL, INSERT_STEP_WITH_KEY_SQL)) {
+			for(Project project : batch) {
+				int order = 1;
+
+				for(Step step : project.getSteps()) {
+					step.setProjectId(project.getProjectId());
+
+					if(Objects.isNull(step.getStepOrder())) {
+						step.setStepOrder(order);
+					}
+
+					order = step.getStepOrder() + 1;
+
+					setParameter(stmt, 1, step.getProjectId(), Integer.class);
+					setParameter(stmt, 2, step.getStepText(), String.class);
+					setParameter(stmt, 3, step.getStepOrder(), Integer.class);
+
+					if(Objects.nonNull(keyGenerator)) {
+						step.setStepId(assignKey(STEP_TABLE, step.getStepId()));
+						setParameter(stmt, 4, step.getStepId(), Integer.class);
+					}
+
+					stmt.addBatch();
+
+					steps.add(step);
+				}
+			}
+
+			if(steps.isEmpty()) {
+				return;
+			}
+
+			stmt.executeBatch();
+
+			if(Objects.nonNull(keyGenerator)) {
+				return;
+			}
+
+			int[] keys = readGeneratedKeys(stmt, steps.size());
+
+			for(int index = 0; index < keys.length; index++) {
+				steps.get(index).setStepId(keys[index]);
+			}
+		}
+	}
+
+	private void insertCategoryBatch(Connection conn, List<Project> batch) throws SQLException {
+		/* New categories are shared by name so two projects naming the same one get one row. */
+		Map<String, List<Category>> newCategories = new LinkedHashMap<>();
+
+		for(Project project : batch) {
+			for(Category category : project.getCategories()) {
+				if(Objects.isNull(category.getCategoryId())) {
+					newCategories.computeIfAbsent(category.getCategoryName(), name -> new ArrayList<>())
+							.add(category);
+				}
+			}
+		}
+
+		if(!newCategories.isEmpty()) {
+			try(PreparedStatement stmt = prepareInsert(conn, INSERT_CATEGORY_SQL, INSERT_CATEGORY_WITH_KEY_SQL)) {
+				int[] keys = new int[newCategories.size()];
+				int count = 0;
+
+				for(String name : newCategories.keySet()) {
+					setParameter(stmt, 1, name, String.class);
+
+					if(Objects.nonNull(keyGenerator)) {
+						keys[count] = assignKey(CATEGORY_TABLE, null);
+						setParameter(stmt, 2, keys[count], Integer.class);
+					}
+
+					count++;
+					stmt.addBatch();
+				}
+
+				stmt.executeBatch();
+
+				if(Objects.isNull(keyGenerator)) {
+					keys = readGeneratedKeys(stmt, newCategories.size());
+				}
+
+				int index = 0;
+
+				for(List<Category> sameName : newCategories.values()) {
+					for(Category category : sameName) {
+						category.setCategoryId(keys[index]);
+					}
+
+					index++;
+				}
+			}
+		}
+
+		try(PreparedStatement stmt = conn.prepareStatement(INSERT_PROJECT_CATEGORY_SQL)) {
+			boolean linked = false;
+
+			for(Project project : batch) {
+				int[] linkedIds = new int[project.getCategories().size()];
+				int linkedCount = 0;
+
+				for(Category category : project.getCategories()) {
+					int categoryId = category.getCategoryId();
+
+					if(!contains(linkedIds, linkedCount, categoryId)) {
+						linkedIds[linkedCount++] = categoryId;
+
+						setParameter(stmt, 1, project.getProjectId(), Integer.class);
+						setParameter(stmt, 2, category.getCategoryId(), Integer.class);
+						stmt.addBatch();
+						linked = true;
+					}
+				}
+			}
+
+			if(linked) {
+				stmt.executeBatch();
+			}
+		}
+	}
+
+	/* Linear scan; a project links to a handful of categories at most. */
+	private static boolean contains(int[] values, int count, int value) {
+		for(int index = 0; index < count; index++) {
+			if(values[index] == value) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/* Reads the generated keys of a batched INSERT, checking that there is one per row. */
+	private int[] readGeneratedKeys(PreparedStatement stmt, int expected) throws SQLException {
+		int[] keys = new int[expected];
+		int count = 0;
+
+		try(ResultSet rs = stmt.getGeneratedKeys()) {
+			while(rs.next()) {
+				if(count == expected) {
+					throw new SQLException("More generated keys returned than rows inserted.");
+				}
+
+				keys[count++] = rs.getInt(1);
+			}
+		}
+
+		if(count != expected) {
+			throw new SQLException(
+					"Expected " + expected + " generated keys but the driver returned " + count + ".");
+		}
+
+		return keys;
+	}
+
+//Week 10
+// This method calls the project DAO to retrieve all project rows without accompanying details (materials, steps and categories).
+	// * returns a list of project records.
+	
+	
+	@Override
+	public List<Project> fetchAllProjects() {
+		try(Connection conn = readConnection()) {
+			startTransaction(conn);
+			
+			try(PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_PROJECTS_SQL)) {
+				try(ResultSet rs = stmt.executeQuery()) {
+					List<Project> projects = new ArrayList<>();
+					RowMapper<Project> mapper = rowMapper(rs, Project.class);
+					
+					while(rs.next()) {
+						projects.add(mapper.map(rs));
+						
+						
+					}
+					return projects;
+				}
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+	}
+	}
+
+	/*
+	 * Keyset (seek) pagination over projects in name order, ties broken by ID. Returns up to limit
+	 * projects that sort after (afterProjectName, afterProjectId), or the first projects when
+	 * afterProjectName is null. The (project_name, project_id) index lets the database seek straight
+	 * to the start of the page, so a deep page costs the same as the first one.
+	 */
+	@Override
+	public List<Project> fetchProjectsAfter(String afterProjectName, Integer afterProjectId, int limit) {
+		boolean firstPage = Objects.isNull(afterProjectName);
+
+		try(Connection conn = readConnection()) {
+			startTransaction(conn);
+
+			try(PreparedStatement stmt = conn.prepareStatement(firstPage ? SELECT_FIRST_PAGE_SQL : SELECT_NEXT_PAGE_SQL)) {
+				if(firstPage) {
+					setParameter(stmt, 1, limit, Integer.class);
+				}
+				else {
+					setParameter(stmt, 1, afterProjectName, String.class);
+					setParameter(stmt, 2, afterProjectName, String.class);
+					setParameter(stmt, 3, Objects.isNull(afterProjectId) ? 0 : afterProjectId, Integer.class);
+					setParameter(stmt, 4, limit, Integer.class);
+				}
+
+				try(ResultSet rs = stmt.executeQuery()) {
+					List<Project> projects = new ArrayList<>(limit);
+					RowMapper<Project> mapper = rowMapper(rs, Project.class);
+
+					while(rs.next()) {
+						projects.add(mapper.map(rs));
+					}
+
+					commitTransaction(conn);
+					return projects;
+				}
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/*
+	 * Streams every project row, ordered by name, without details. Rows are read from the driver
+	 * STREAM_FETCH_SIZE at a time as the stream is consumed, so memory use does not depend on the
+	 * size of the table. The stream holds a pooled connection until it is closed: always use it in
+	 * a try-with-resources block.
+	 */
+	@Override
+	public Stream<Project> streamAllProjects() {
+		Connection conn = readConnection();
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			startTransaction(conn);
+
+			stmt = conn.prepareStatement(SELECT_ALL_PROJECTS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			stmt.setFetchSize(STREAM_FETCH_SIZE);
+			rs = stmt.executeQuery();
+
+			ResultSet rows = rs;
+			PreparedStatement query = stmt;
+			RowMapper<Project> mapper = rowMapper(rs, Project.class);
+
+			Spliterator<Project> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+					Spliterator.ORDERED | Spliterator.NONNULL) {
+				@Override
+				public boolean tryAdvance(Consumer<? super Project> action) {
+					try {
+						if(!rows.next()) {
+							return false;
+						}
+
+						action.accept(mapper.map(rows));
+						return true;
+					}
+					catch(SQLException e) {
+						throw new DbException(e);
+					}
+				}
+			};
+
+			return StreamSupport.stream(spliterator, false).onClose(() -> closeStream(conn, query, rows));
+		}
+		catch(Exception e) {
+			try {
+				closeStream(conn, stmt, rs);
+			}
+			catch(DbException closeFailure) {
+				e.addSuppressed(closeFailure);
+			}
+
+			throw new DbException(e);
+		}
+	}
+
+	/* Ends the read transaction and releases the result set, statement and connection. */
+	private void closeStream(Connection conn, PreparedStatement stmt, ResultSet rs) {
+		try(conn; stmt; rs) {
+			if(Objects.nonNull(rs)) {
+				rs.close();
+			}
+
+			commitTransaction(conn);
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/*
+	 * Streams projects with details as a merge join: one cursor per table, each ordered by
+	 * project_id and read STREAM_FETCH_SIZE rows at a time, is advanced in step with the project
+	 * cursor. Each table is read once, in index order, and only the project being built is held in
+	 * memory. The four cursors share one read transaction, so they see the same snapshot. The stream
+	 * holds a pooled connection until it is closed.
+	 */
+	@Override
+	public Stream<Project> streamProjectsWithDetails(Integer afterProjectId) {
+		int after = Objects.isNull(afterProjectId) ? 0 : afterProjectId;
+		Connection conn = readConnection();
+		List<AutoCloseable> cursors = new ArrayList<>();
+
+		try {
+			startTransaction(conn);
+
+			ResultSet projectRows = openCursor(conn, STREAM_PROJECTS_SQL, after, cursors);
+			RowMapper<Project> mapper = rowMapper(projectRows, Project.class);
+			ChildCursor<Material> materialRows = childCursor(openCursor(conn, STREAM_MATERIALS_SQL, after, cursors),
+					Material.class);
+			ChildCursor<Step> stepRows = childCursor(openCursor(conn, STREAM_STEPS_SQL, after, cursors), Step.class);
+			ChildCursor<Category> categoryRows =
+					childCursor(openCursor(conn, STREAM_CATEGORIES_SQL, after, cursors), Category.class);
+
+			Spliterator<Project> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+					Spliterator.ORDERED | Spliterator.NONNULL) {
+				@Override
+				public boolean tryAdvance(Consumer<? super Project> action) {
+					try {
+						if(!projectRows.next()) {
+							return false;
+						}
+
+						Project project = mapper.map(projectRows);
+						int projectId = project.getProjectId();
+
+						materialRows.collect(projectId, project.getMaterials());
+						stepRows.collect(projectId, project.getSteps());
+						categoryRows.collect(projectId, project.getCategories());
+
+						action.accept(project);
+						return true;
+					}
+					catch(SQLException e) {
+						throw new DbException(e);
+					}
+				}
+			};
+
+			return StreamSupport.stream(spliterator, false).onClose(() -> closeCursors(conn, cursors));
+		}
+		catch(Exception e) {
+			try {
+				closeCursors(conn, cursors);
+			}
+			catch(DbException closeFailure) {
+				e.addSuppressed(closeFailure);
+			}
+
+			throw new DbException(e);
+		}
+	}
+
+	/* Runs one of the stream queries; the statement and result set are added to cursors for closing. */
+	private ResultSet openCursor(Connection conn, String sql, int afterProjectId, List<AutoCloseable> cursors)
+			throws SQLException {
+		PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		cursors.add(stmt);
+
+		stmt.setFetchSize(STREAM_FETCH_SIZE);
+		setParameter(stmt, 1, afterProjectId, Integer.class);
+
+		ResultSet rs = stmt.executeQuery();
+		cursors.add(rs);
+		return rs;
+	}
+
+	private <T> ChildCursor<T> childCursor(ResultSet rs, Class<T> classType) throws SQLException {
+		return new ChildCursor<>(rs, rowMapper(rs, classType));
+	}
+
+	/* Closes the result sets and statements, newest first, then ends the read transaction. */
+	private void closeCursors(Connection conn, List<AutoCloseable> cursors) {
+		Exception failure = null;
+
+		for(int index = cursors.size() - 1; index >= 0; index--) {
+			try {
+				cursors.get(index).close();
+			}
+			catch(Exception e) {
+				failure = addFailure(failure, e);
+			}
+		}
+
+		try(conn) {
+			commitTransaction(conn);
+		}
+		catch(SQLException e) {
+			failure = addFailure(failure, e);
+		}
+
+		if(Objects.nonNull(failure)) {
+			throw new DbException(failure);
+		}
+	}
+
+	private static Exception addFailure(Exception failure, Exception e) {
+		if(Objects.isNull(failure)) {
+			return e;
+		}
+
+		failure.addSuppressed(e);
+		return failure;
+	}
+
+	/*
+	 * The rows of a child table, in project_id order, consumed in step with the project cursor. The
+	 * result set is always positioned on the first row not yet handed out.
+	 */
+	private static class ChildCursor<T> {
+		private final ResultSet rs;
+		private final RowMapper<T> mapper;
+		private final int projectIdColumn;
+		private boolean hasRow;
+
+		ChildCursor(ResultSet rs, RowMapper<T> mapper) throws SQLException {
+			this.rs = rs;
+			this.mapper = mapper;
+			this.projectIdColumn = rs.findColumn("project_id");
+			this.hasRow = rs.next();
+		}
+
+		/* Adds the rows of the project to children, skipping rows of projects that sort before it. */
+		void collect(int projectId, List<T> children) throws SQLException {
+			while(hasRow) {
+				int rowProjectId = rs.getInt(projectIdColumn);
+
+				if(rowProjectId > projectId) {
+					return;
+				}
+
+				if(rowProjectId == projectId) {
+					children.add(mapper.map(rs));
+				}
+
+				hasRow = rs.next();
+			}
+		}
+	}
+
+	/*This method calls the project DAO to retrieve all project details, including materials, steps, and categories. 
+	If the project ID is invalid, it throws an exception.
+	*/
+	
+	@Override
+	public Optional<Project> fetchProjectById(Integer projectId) {
+		try(Connection conn = readConnection()) {
+			startTransaction(conn);
+			
+			try {
+				Project project = null;
+				
+				try(PreparedStatement stmt = conn.prepareStatement(SELECT_PROJECT_SQL)) {
+					setParameter(stmt, 1, projectId, Integer.class);
+					
+					try(ResultSet rs = stmt.executeQuery()) {
+						if(rs.next()) { //changes to if or while.
+							project = extract(rs, Project.class);
+					}
+				}
+			}
+			if(Objects.nonNull(project)) {
+				project.getMaterials().addAll(fetchMaterialsForProject(conn, projectId));
+				project.getSteps().addAll(fetchStepsForProject(conn, projectId));
+				project.getCategories().addAll(fetchCategoriesForProject(conn, projectId));
+			}
+				
+				commitTransaction(conn);
+				
+				return Optional.ofNullable(project);
+			}	
+			catch(Exception e) {	
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}	
+	}
+
+
+	/*
+	 * Loads many projects with their materials, steps and categories in four queries per chunk of
+	 * IDs instead of four queries per project. Each table is read once with an IN list and the child
+	 * rows are grouped onto their projects in memory. The IDs are sorted into an int array, so each
+	 * IN-list chunk covers a contiguous ID range and child rows find their project by binary search
+	 * rather than through a boxed hash map.
+	 */
+	@Override
+	public List<Project> fetchProjectsWithDetails(int[] projectIds) {
+		int[] ids = sortedDistinct(projectIds);
+		Project[] projects = new Project[ids.length];
+
+		if(ids.length == 0) {
+			return new ArrayList<>();
+		}
+
+		try(Connection conn = readConnection()) {
+			startTransaction(conn);
+
+			try {
+				for(int from = 0; from < ids.length; from += MAX_IN_LIST_SIZE) {
+					fetchProjectChunk(conn, ids, from, Math.min(from + MAX_IN_LIST_SIZE, ids.length), projects);
+				}
+
+				commitTransaction(conn);
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+
+		List<Project> result = new ArrayList<>(ids.length);
+
+		for(int projectId : projectIds) {
+			int index = Arrays.binarySearch(ids, projectId);
+
+			/* Clearing the slot drops repeated IDs from the result. */
+			if(Objects.nonNull(projects[index])) {
+				result.add(projects[index]);
+				projects[index] = null;
+			}
+		}
+
+		return result;
+	}
+
+	/* Loads the projects whose IDs are ids[from] to ids[to - 1] into the same slots of projects. */
+	private void fetchProjectChunk(Connection conn, int[] ids, int from, int to, Project[] projects)
+			throws SQLException {
+		int shift = Integer.numberOfTrailingZeros(inListSlots(to - from));
+
+		try(PreparedStatement stmt = conn.prepareStatement(SELECT_PROJECTS_IN_SQL[shift])) {
+			setInList(stmt, ids, from, to);
+
+			try(ResultSet rs = stmt.executeQuery()) {
+				RowMapper<Project> mapper = rowMapper(rs, Project.class);
+
+				while(rs.next()) {
+					Project project = mapper.map(rs);
+					projects[Arrays.binarySearch(ids, from, to, project.getProjectId())] = project;
+				}
+			}
+		}
+
+		try(PreparedStatement stmt = conn.prepareStatement(SELECT_MATERIALS_IN_SQL[shift])) {
+			setInList(stmt, ids, from, to);
+
+			try(ResultSet rs = stmt.executeQuery()) {
+				RowMapper<Material> mapper = rowMapper(rs, Material.class);
+
+				while(rs.next()) {
+					Material material = mapper.map(rs);
+					projects[Arrays.binarySearch(ids, from, to, material.getProjectId())].getMaterials()
+							.add(material);
+				}
+			}
+		}
+
+		try(PreparedStatement stmt = conn.prepareStatement(SELECT_STEPS_IN_SQL[shift])) {
+			setInList(stmt, ids, from, to);
+
+			try(ResultSet rs = stmt.executeQuery()) {
+				RowMapper<Step> mapper = rowMapper(rs, Step.class);
+
+				while(rs.next()) {
+					Step step = mapper.map(rs);
+					projects[Arrays.binarySearch(ids, from, to, step.getProjectId())].getSteps().add(step);
+				}
+			}
+		}
+
+		try(PreparedStatement stmt = conn.prepareStatement(SELECT_CATEGORIES_IN_SQL[shift])) {
+			setInList(stmt, ids, from, to);
+
+			try(ResultSet rs = stmt.executeQuery()) {
+				RowMapper<Category> mapper = rowMapper(rs, Category.class);
+
+				while(rs.next()) {
+					Project project = projects[Arrays.binarySearch(ids, from, to, rs.getInt(1))];
+
+					if(Objects.nonNull(project)) {
+						project.getCategories().add(mapper.map(rs));
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Builds "(?, ?, ...)" with slots placeholders. Chunks are padded to a power of two (see
+	 * inListSlots), so IN lists of similar length share one SQL string, one cached statement and
+	 * one server-side plan. The spare slots repeat the last ID.
+	 */
+	private static String inList(int slots) {
+		StringBuilder in = new StringBuilder("(?");
+
+		for(int index = 1; index < slots; index++) {
+			in.append(", ?");
+		}
+
+		return in.append(')').toString();
+	}
+
+	private static int inListSlots(int count) {
+		int slots = Integer.highestOneBit(count);
+
+		if(slots < count) {
+			slots <<= 1;
+		}
+
+		/* Chunks never exceed MAX_IN_LIST_SIZE, which is itself a power of two. */
+		return Math.min(slots, MAX_IN_LIST_SIZE);
+	}
+
+	private void setInList(PreparedStatement stmt, int[] ids, int from, int to) throws SQLException {
+		int slots = inListSlots(to - from);
+
+		for(int index = 0; index < slots; index++) {
+			stmt.setInt(index + 1, ids[Math.min(from + index, to - 1)]);
+		}
+	}
+
+	/* Returns a sorted copy of the IDs with duplicates removed. */
+	private static int[] sortedDistinct(int[] ids) {
+		int[] sorted = ids.clone();
+		Arrays.sort(sorted);
+
+		int count = 0;
+
+		for(int index = 0; index < sorted.length; index++) {
+			if(index == 0 || sorted[index] != sorted[count - 1]) {
+				sorted[count++] = sorted[index];
+			}
+		}
+
+		return Arrays.copyOf(sorted, count);
+	}
+
+	private List<Category> fetchCategoriesForProject(Connection conn, Integer projectId)
+		throws SQLException {
+		
+		try(PreparedStatement stmt = conn.prepareStatement(SELECT_CATEGORIES_SQL)){ 
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()) {
+				List<Category> categories = new ArrayList<>();
+				RowMapper<Category> mapper = rowMapper(rs, Category.class);
+				
+				while(rs.next()) {
+					categories.add(mapper.map(rs));
+				}
+				
+				return categories;
+			}
+		}
+		
+	}
+
+
+	private  List<Step> fetchStepsForProject(Connection conn, Integer projectId)
+			throws SQLException {
+		try(PreparedStatement stmt = conn.prepareStatement(SELECT_STEPS_SQL)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+		try(ResultSet rs = stmt.executeQuery()) {
+			List<Step> steps = new ArrayList<>();
+			RowMapper<Step> mapper = rowMapper(rs, Step.class);
+			
+			while(rs.next()) {
+				steps.add(mapper.map(rs));
+			}
+			
+			return steps;
+		}
+	}
+		
+}
+
+
+	private List<Material> fetchMaterialsForProject(Connection conn, Integer projectId) 
+			throws SQLException {
+		try(PreparedStatement stmt = conn.prepareStatement(SELECT_MATERIALS_SQL)) {
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()) {
+				List<Material> materials = new ArrayList<>();
+				RowMapper<Material> mapper = rowMapper(rs, Material.class);
+				
+				while(rs.next()) {
+					materials.add(mapper.map(rs));
+					
+				}
+			return materials;	
+				
+			}
+		}
+	}
+
+	// Week 11
+	//Method is created to provide updates on current selected project and make changes to rows in tables on SQL. 
+	@Override
+	public boolean modifyProjectDetails(Project project) {
+		return updateChangedColumns(PROJECT_TABLE, "project_id", project.getProjectId(), project,
+				projectColumns(project));
+	}
+
+	/*
+	 * Projects that change the same columns share one UPDATE, so the projects are grouped by their
+	 * SQL and each group runs as one JDBC batch, all in one transaction. A row count of 0 marks a
+	 * missing project; the driver may report SUCCESS_NO_INFO for the others.
+	 */
+	@Override
+	public List<Project> modifyProjects(Collection<Project> projects) {
+		Map<String, List<Project>> bySql = new LinkedHashMap<>();
+		List<Project> unchanged = new ArrayList<>();
+
+		for(Project project : projects) {
+			List<ColumnValue> changed = changedColumns(project, projectColumns(project));
+
+			if(changed.isEmpty()) {
+				unchanged.add(project);
+			}
+			else {
+				bySql.computeIfAbsent(updateSql(PROJECT_TABLE, "project_id", changed), sql -> new ArrayList<>())
+						.add(project);
+			}
+		}
+
+		List<Project> missing = new ArrayList<>();
+
+		if(bySql.isEmpty() && unchanged.isEmpty()) {
+			return missing;
+		}
+
+		List<Project> modified = new ArrayList<>(projects.size());
+
+		try(Connection conn = writeConnection()) {
+			startTransaction(conn);
+
+			try {
+				for(Map.Entry<String, List<Project>> group : bySql.entrySet()) {
+					try(PreparedStatement stmt = conn.prepareStatement(group.getKey())) {
+						for(Project project : group.getValue()) {
+							bindChangedColumns(stmt, changedColumns(project, projectColumns(project)),
+									project.getProjectId());
+							stmt.addBatch();
+						}
+
+						int[] counts = stmt.executeBatch();
+
+						for(int index = 0; index < counts.length; index++) {
+							(counts[index] == 0 ? missing : modified).add(group.getValue().get(index));
+						}
+					}
+				}
+
+				/* Nothing to write for these, but a missing one is still reported. */
+				if(!unchanged.isEmpty()) {
+					try(PreparedStatement stmt = conn.prepareStatement(existsSql(PROJECT_TABLE, "project_id"))) {
+						for(Project project : unchanged) {
+							if(!rowExists(stmt, project.getProjectId())) {
+								missing.add(project);
+							}
+						}
+					}
+				}
+
+				commitTransaction(conn);
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+
+		modified.forEach(Project::clearChanges);
+		return missing;
+	}
+
+	@Override
+	public boolean modifyMaterial(Material material) {
+		return updateChangedColumns(MATERIAL_TABLE, "material_id", material.getMaterialId(), material,
+				new ColumnValue("materialName", material.getMaterialName(), String.class),
+				new ColumnValue("numRequired", material.getNumRequired(), Integer.class),
+				new ColumnValue("cost", material.getCost(), BigDecimal.class));
+	}
+
+	@Override
+	public boolean modifyStep(Step step) {
+		return updateChangedColumns(STEP_TABLE, "step_id", step.getStepId(), step,
+				new ColumnValue("stepText", step.getStepText(), String.class),
+				new ColumnValue("stepOrder", step.getStepOrder(), Integer.class));
+	}
+
+	private static ColumnValue[] projectColumns(Project project) {
+		return new ColumnValue[] {
+				new ColumnValue("projectName", project.getProjectName(), String.class),
+				new ColumnValue("estimatedHours", project.getEstimatedHours(), BigDecimal.class),
+				new ColumnValue("actualHours", project.getActualHours(), BigDecimal.class),
+				new ColumnValue("difficulty", project.getDifficulty(), Integer.class),
+				new ColumnValue("notes", project.getNotes(), String.class) };
+	}
+
+	/*
+	 * Runs UPDATE <table> SET <changed columns> WHERE <idColumn> = ?, setting only the columns whose
+	 * fields the entity reports as changed. Unchanged values - a long notes text, say - are not sent,
+	 * and the other columns keep what concurrent writers put there. Like insertRow(), the single
+	 * statement runs in auto-commit mode, so the row lock is released as soon as the update is done.
+	 * With no changes there is nothing to write, and a SELECT 1 only checks that the row exists.
+	 */
+	private boolean updateChangedColumns(String table, String idColumn, Integer id, TrackedEntity entity,
+			ColumnValue... columns) {
+		List<ColumnValue> changed = changedColumns(entity, columns);
+
+		if(changed.isEmpty()) {
+			/* On the primary, as the UPDATE would be, so a row written a moment ago is found. */
+			try(Connection conn = writeConnection();
+					PreparedStatement stmt = conn.prepareStatement(existsSql(table, idColumn))) {
+				return rowExists(stmt, id);
+			}
+			catch(SQLException e) {
+				throw new DbException(e);
+			}
+		}
+
+		String sql = updateSql(table, idColumn, changed);
+
+		boolean modified = singleStatement(conn -> {
+			try(PreparedStatement stmt = conn.prepareStatement(sql)) {
+				bindChangedColumns(stmt, changed, id);
+				return stmt.executeUpdate() == 1;
+			}
+		});
+
+		if(modified) {
+			entity.clearChanges();
+		}
+
+		return modified;
+	}
+
+	private static String existsSql(String table, String idColumn) {
+		return "SELECT 1 FROM " + table + " WHERE " + idColumn + " = ?";
+	}
+
+	private boolean rowExists(PreparedStatement stmt, Integer id) throws SQLException {
+		setParameter(stmt, 1, id, Integer.class);
+
+		try(ResultSet rs = stmt.executeQuery()) {
+			return rs.next();
+		}
+	}
+
+	private static List<ColumnValue> changedColumns(TrackedEntity entity, ColumnValue... columns) {
+		List<ColumnValue> changed = new ArrayList<>(columns.length);
+
+		for(ColumnValue column : columns) {
+			if(entity.isChanged(column.field)) {
+				changed.add(column);
+			}
+		}
+
+		return changed;
+	}
+
+	/*
+	 * The columns are always listed in the order given, so each set of changes has one SQL string
+	 * and its prepared statement is reused from the statement cache.
+	 */
+	private static String updateSql(String table, String idColumn, List<ColumnValue> changed) {
+		StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+
+		for(int index = 0; index < changed.size(); index++) {
+			sql.append(index == 0 ? "" : ", ").append(camelCaseToSnakeCase(changed.get(index).field)).append(" = ?");
+		}
+
+		return sql.append(" WHERE ").append(idColumn).append(" = ?").toString();
+	}
+
+	private void bindChangedColumns(PreparedStatement stmt, List<ColumnValue> changed, Integer id)
+			throws SQLException {
+		int parameter = 1;
+
+		for(ColumnValue column : changed) {
+			setParameter(stmt, parameter++, column.value, column.type);
+		}
+
+		setParameter(stmt, parameter, id, Integer.class);
+	}
+
+	/* A field of an entity with its value and SQL parameter type; see updateChangedColumns(). */
+	private static class ColumnValue {
+		private final String field;
+		private final Object value;
+		private final Class<?> type;
+
+		ColumnValue(String field, Object value, Class<?> type) {
+			this.field = field;
+			this.value = value;
+			this.type = type;
+		}
+	}
+
+	//Week 11 
+	//Method created to modify delete statement for sql. Created a place holder for WHERE as well for the return statement. 
+	
+	@Override
+	public boolean deleteProject(Integer projectId) {
+		return inTransaction(conn -> {
+			try(PreparedStatement stmt = conn.prepareStatement(DELETE_PROJECT_SQL)) {
+				setParameter(stmt, 1, projectId, Integer.class);
+				
+				boolean deleted = stmt.executeUpdate() == 1;
+				
+				if(deleted) {
+					stepOrders.discard(conn, projectId);
+				}
+				
+				return deleted;
+			}
+		});
+	}
+
+	/*
+	 * The project's step rows are locked while their orders are swapped around, so two reorders of
+	 * one project run one after the other. Steps appended meanwhile are not locked, but their new
+	 * orders are above all of the ones handed out here.
+	 */
+	@Override
+	public boolean reorderSteps(Integer projectId, List<Integer> stepIds) {
+		try(Connection conn = writeConnection()) {
+			startTransaction(conn);
+
+			try {
+				Map<Integer, Integer> currentOrders = new LinkedHashMap<>();
+
+				try(PreparedStatement stmt = conn.prepareStatement(SELECT_STEP_ORDERS_FOR_UPDATE_SQL)) {
+					setParameter(stmt, 1, projectId, Integer.class);
+
+					try(ResultSet rs = stmt.executeQuery()) {
+						while(rs.next()) {
+							currentOrders.put(rs.getInt(1), rs.getInt(2));
+						}
+					}
+				}
+
+				if(!isPermutation(stepIds, currentOrders.keySet())) {
+					rollbackTransaction(conn);
+					return false;
+				}
+
+				/* The orders were read in ascending order; deal them out in the new step order. */
+				Integer[] orders = currentOrders.values().toArray(new Integer[0]);
+
+				try(PreparedStatement stmt = conn.prepareStatement(UPDATE_STEP_ORDER_SQL)) {
+					for(int index = 0; index < orders.length; index++) {
+						setParameter(stmt, 1, orders[index], Integer.class);
+						setParameter(stmt, 2, stepIds.get(index), Integer.class);
+						stmt.addBatch();
+					}
+
+					if(orders.length > 0) {
+						stmt.executeBatch();
+					}
+				}
+
+				commitTransaction(conn);
+				return true;
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/* True if stepIds holds each of the current IDs exactly once and nothing else. */
+	private static boolean isPermutation(List<Integer> stepIds, Collection<Integer> currentIds) {
+		return stepIds.size() == currentIds.size() && new HashSet<>(stepIds).equals(new HashSet<>(currentIds));
+	}
+
+	@Override
+	public boolean deleteStep(Integer stepId) {
+		try(Connection conn = writeConnection()) {
+			startTransaction(conn);
+
+			try(PreparedStatement stmt = conn.prepareStatement(DELETE_STEP_SQL)) {
+				setParameter(stmt, 1, stepId, Integer.class);
+
+				boolean deleted = stmt.executeUpdate() == 1;
+
+				commitTransaction(conn);
+				return deleted;
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+	}
+}
@@ -1,283 +1,157 @@
 package projects.dao;
-import java.math.BigDecimal;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.LinkedList;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import projects.entity.Category;
 import projects.entity.Material;
 import projects.entity.Project;
 import projects.entity.Step;
-import projects.exception.DbException;
-import provided.util.DaoBase;
 
+/*
+ * Storage contract for projects and their materials, steps and categories. JdbcProjectDao talks to
+ * MySQL; InMemoryProjectDao keeps the same tables in memory for tests and benchmarks. Either can be
+ * handed to ProjectService.
+ *
+ * Listings are ordered by project name, ties broken by project ID. Methods that return a project
+ * "with details" fill in its materials, steps and categories; the others leave those lists empty.
+ */
+public interface ProjectDao {
+	int DEFAULT_BATCH_SIZE = 500;
 
-// @author oscarc257
+	/*
+	 * How listings compare project names: as MySQL's default collation (utf8mb4_0900_ai_ci) does,
+	 * ignoring case and accents. Names it finds equal are ordered by project ID. DAOs that sort in
+	 * Java use this, so their listings and fetchProjectsAfter() pages match the database's.
+	 */
+	Comparator<String> NAME_COLLATION = nameCollation();
 
+	/*
+	 * Inserts the project row only and sets its generated ID. Like every insert, this clears the
+	 * changes of the entities written.
+	 */
+	Project insertProject(Project project);
 
+	/* Adds the material to its project (material.getProjectId()) and sets its generated ID. */
+	Material insertMaterial(Material material);
 
-public class ProjectDao extends DaoBase {
-	private static final String CATEGORY_TABLE = "category";
-	private static final String MATERIAL_TABLE = "material";
-	private static final String PROJECT_TABLE = "project";
-	private static final String PROJECT_CATEGORY_TABLE = "project_category";
-	private static final String STEP_TABLE = "step";
-	
-	
-	public Project insertProject(Project project) {
-	
-		// @formatter:off
-		String sql = " "
-			+ "INSERT INTO " + PROJECT_TABLE + " "	
-			+"(project_name, estimated_hours, actual_hours, difficulty, notes) "
-			+ "VALUES "
-			+"(?, ?, ?, ?, ?)";
-		// @formatter:on
-		 //set parameters to execute the returns on the tables. 
-		try(Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
-			
-			try(PreparedStatement stmt = conn.prepareStatement(sql)) {
-				setParameter(stmt, 1, project.getProjectName(), String.class);
-				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
-				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
-				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
-				setParameter(stmt, 5, project.getNotes(), String.class);
-				
-				stmt.executeUpdate();
-				
-				Integer projectId = getLastInsertId(conn, PROJECT_TABLE);
-				commitTransaction(conn);
-				
-				project.setProjectId(projectId);
-				return project;
-		}
-		
-		catch(Exception e) {
-			rollbackTransaction(conn);
-			throw new DbException(e);
-		}
-	}catch(SQLException e) { 
-		throw new DbException(e);	
-		
-		}
-	}
-//Week 10
-// This method calls the project DAO to retrieve all project rows without accompanying details (materials, steps and categories).
-	// * returns a list of project records.
-	
-	
-	public List<Project> fetchAllProjects() {
-		String sql = "SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_name";
-		
-		try(Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
-			
-			try(PreparedStatement stmt = conn.prepareStatement(sql)) {
-				try(ResultSet rs = stmt.executeQuery()) {
-					List<Project> projects = new LinkedList<>();
-					
-					while(rs.next()) {
-						projects.add(extract(rs, Project.class));
-						
-						
-					}
-					return projects;
-				}
-			}
-			catch(Exception e) {
-				rollbackTransaction(conn);
-				throw new DbException(e);
-			}
-		}
-		catch(SQLException e) {
-			throw new DbException(e);
-	}
-	}
+	/* Inserts the category, not linked to any project yet, and sets its generated ID. */
+	Category insertCategory(Category category);
 
-	/*This method calls the project DAO to retrieve all project details, including materials, steps, and categories. 
-	If the project ID is invalid, it throws an exception.
-	*/
-	
-	public Optional<Project> fetchProjectById(Integer projectId) {
-		String sql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
-		
-		try(Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
-			
-			try {
-				Project project = null;
-				
-				try(PreparedStatement stmt = conn.prepareStatement(sql)) {
-					setParameter(stmt, 1, projectId, Integer.class);
-					
-					try(ResultSet rs = stmt.executeQuery()) {
-						if(rs.next()) { //changes to if or while.
-							project = extract(rs, Project.class);
-					}
-				}
-			}
-			if(Objects.nonNull(project));
-				project.getMaterials().addAll(fetchMaterialsForProject(conn, projectId));
-				project.getSteps().addAll(fetchStepsForProject(conn, projectId));
-				project.getCategories().addAll(fetchCategoriesForProject(conn, projectId));
-				
-				
-				commitTransaction(conn);
-				
-				return Optional.ofNullable(project);
-			}	
-			catch(Exception e) {	
-				rollbackTransaction(conn);
-				throw new DbException(e);
-			}
-		}
-		catch(SQLException e) {
-			throw new DbException(e);
-		}	
-	}
+	/*
+	 * Inserts whole project graphs, batchSize projects per transaction, and sets the generated IDs
+	 * on every entity passed in. Categories with an ID are linked; categories without one are
+	 * created (once per batch per name). Steps without a step order are numbered in list order.
+	 */
+	List<Project> insertProjects(Collection<Project> projects, int batchSize);
 
+	List<Project> fetchAllProjects();
 
-	private List<Category> fetchCategoriesForProject(Connection conn, Integer projectId)
-		throws SQLException {
-		
-		// @formatter:off
-		String sql = ""
-				+ "SELECT c.* FROM " + CATEGORY_TABLE + " c "
-				+ "JOIN " + PROJECT_CATEGORY_TABLE + " pc USING (category_id) "
-				+ "WHERE project_id = ?";
-		
-		//@formatter:on
-		
-		try(PreparedStatement stmt = conn.prepareStatement(sql)){ 
-			setParameter(stmt, 1, projectId, Integer.class);
-			
-			try(ResultSet rs = stmt.executeQuery()) {
-				List<Category> categories = new LinkedList<>();
-				
-				while(rs.next()) {
-					categories.add(extract(rs, Category.class));
-				}
-				
-				return categories;
-			}
-		}
-		
-	}
+	/* Up to limit projects sorting after (afterProjectName, afterProjectId); the first ones if the name is null. */
+	List<Project> fetchProjectsAfter(String afterProjectName, Integer afterProjectId, int limit);
 
+	/* Every project row, lazily. The stream must be closed. */
+	Stream<Project> streamAllProjects();
 
-	private  List<Step> fetchStepsForProject(Connection conn, Integer projectId)
-			throws SQLException {
-		String sql = "SELECT * FROM " + STEP_TABLE + " WHERE project_id = ?";
-		
-		try(PreparedStatement stmt = conn.prepareStatement(sql)) {
-			setParameter(stmt, 1, projectId, Integer.class);
-			
-		try(ResultSet rs = stmt.executeQuery()) {
-			List<Step> steps = new LinkedList <>();
-			
-			while(rs.next()) {
-				steps.add(extract(rs, Step.class));
-			}
-			
-			return steps;
+	/* Callback form of streamAllProjects(); closes the stream itself. */
+	default void forEachProject(Consumer<? super Project> action) {
+		try(Stream<Project> projects = streamAllProjects()) {
+			projects.forEach(action);
 		}
 	}
-		
-}
 
+	/*
+	 * Every project with details, in project ID order, starting after afterProjectId (from the first
+	 * project if it is null). Projects are loaded as the stream is consumed, so memory use does not
+	 * depend on the number of projects. The stream must be closed.
+	 */
+	Stream<Project> streamProjectsWithDetails(Integer afterProjectId);
 
-	private List<Material> fetchMaterialsForProject(Connection conn, Integer projectId) 
-			throws SQLException {
-		String sql = "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id = ?";
-		
-		try(PreparedStatement stmt = conn.prepareStatement(sql)) {
-			setParameter(stmt, 1, projectId, Integer.class);
-			
-			try(ResultSet rs = stmt.executeQuery()) {
-				List<Material> materials = new LinkedList<>();
-				
-				while(rs.next()) {
-					materials.add(extract(rs, Material.class));
-					
-				}
-			return materials;	
-				
-			}
-		}
-	}
+	/* The project with details, or empty if there is no such project. */
+	Optional<Project> fetchProjectById(Integer projectId);
 
-	// Week 11
-	//Method is created to provide updates on current selected project and make changes to rows in tables on SQL. 
-	public boolean modifyProjectDetails(Project project) {
-		
-		// @formatter:off
-		String sql = ""
-				+"UPDATE " + PROJECT_TABLE + " SET "
-				+"project_name = ?, "
-				+"estimated_hours = ?, "
-				+"actual_hours = ?, "
-				+"difficulty = ?, "
-				+"notes = ? "
-				+"WHERE project_id = ?";
-		// @formatter:on
-		
-		try(Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
-			
-			try(PreparedStatement stmt = conn.prepareStatement(sql)) {
-				setParameter(stmt, 1, project.getProjectName(), String.class);
-				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
-				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
-				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
-				setParameter(stmt, 5, project.getNotes(), String.class);
-				setParameter(stmt, 6, project.getProjectId(), Integer.class);
-				
-				boolean modified = stmt.executeUpdate() == 1;
-				commitTransaction(conn);
-				
-				return modified;
-			}
-			catch(Exception e) {
-				rollbackTransaction(conn);
-				throw new DbException(e);
+	/*
+	 * Projects with details, in the order the IDs are given. Unknown, null and repeated IDs are
+	 * skipped.
+	 */
+	default List<Project> fetchProjectsWithDetails(Collection<Integer> projectIds) {
+		int[] ids = new int[projectIds.size()];
+		int count = 0;
+
+		for(Integer projectId : projectIds) {
+			if(Objects.nonNull(projectId)) {
+				ids[count++] = projectId;
 			}
 		}
-		catch(SQLException e) {
-			throw new DbException(e);
-		}
+
+		return fetchProjectsWithDetails(Arrays.copyOf(ids, count));
 	}
 
-	//Week 11 
-	//Method created to modify delete statement for sql. Created a place holder for WHERE as well for the return statement. 
-	
-	public boolean deleteProject(Integer projectId) {
-		String sql = "DELETE FROM " + PROJECT_TABLE + " WHERE project_id = ?";
-		
-		try(Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
-			
-			try(PreparedStatement stmt = conn.prepareStatement(sql)) {
-				setParameter(stmt, 1, projectId, Integer.class);
-				
-				boolean deleted = stmt.executeUpdate() == 1;
-				
-				commitTransaction(conn);
-				return deleted;
-			}
-			catch(Exception e) {
-				rollbackTransaction(conn);
-				throw new DbException(e);
+	List<Project> fetchProjectsWithDetails(int[] projectIds);
+
+	/*
+	 * Updates the project row, writing only the columns changed since the project was loaded or
+	 * last written (see TrackedEntity), and clears its changes. Returns false if there is no such
+	 * project. A project without changes is not written at all; the call only checks that the row
+	 * exists.
+	 */
+	boolean modifyProjectDetails(Project project);
+
+	/*
+	 * Updates several project rows as modifyProjectDetails() does, in one transaction where the
+	 * store has transactions, and returns the projects that do not exist. Their changes are kept;
+	 * the others' are cleared.
+	 */
+	default List<Project> modifyProjects(Collection<Project> projects) {
+		List<Project> missing = new ArrayList<>();
+
+		for(Project project : projects) {
+			if(!modifyProjectDetails(project)) {
+				missing.add(project);
 			}
 		}
-		catch(SQLException e) {
-			throw new DbException(e);
-		}
+
+		return missing;
 	}
-			
-}	
 
+	/* Updates the changed columns of the material row, as modifyProjectDetails() does. */
+	boolean modifyMaterial(Material material);
+
+	/* Updates the changed columns of the step row, as modifyProjectDetails() does. */
+	boolean modifyStep(Step step);
+
+	/* Deletes the project. Returns false if there is no such project. */
+	boolean deleteProject(Integer projectId);
+
+	/*
+	 * Appends the step to its project (step.getProjectId()) and sets its generated ID and a step
+	 * order above that of every step already there. Appends to one project may run concurrently;
+	 * no two steps get the same order, though the orders may have gaps.
+	 */
+	Step insertStep(Step step);
+
+	/*
+	 * Puts the project's steps in the order of stepIds by handing out again the step orders they
+	 * already have, lowest first. Returns false, changing nothing, if stepIds are not exactly the
+	 * project's steps.
+	 */
+	boolean reorderSteps(Integer projectId, List<Integer> stepIds);
+
+	/* Deletes the step; the others keep their orders. Returns false if there is no such step. */
+	boolean deleteStep(Integer stepId);
+
+	/* RuleBasedCollator.compare() is synchronized, so the one instance can be shared. */
+	private static Comparator<String> nameCollation() {
+		Collator collator = Collator.getInstance(Locale.ENGLISH);
+		collator.setStrength(Collator.PRIMARY);
+		return collator::compare;
+	}
+}
@@ -0,0 +1,273 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import projects.exception.DbException;
+
+/*
+ * Sends reads to a set of replica pools, so the primary only carries the writes. DbConnection asks
+ * it for a connection in getReadConnection(); a null answer means "read from the primary".
+ *
+ * - Balancing: each read starts at the next replica in turn and takes the least loaded one from
+ *   there, by borrowed connections over pool size. Idle replicas are used round-robin, and a
+ *   replica busy with a long export is passed over until it catches up.
+ * - Read-only: replica connections are marked read-only before they are handed out, so the driver
+ *   runs their transactions as read-only ones and a write sent to a replica by mistake fails.
+ * - Failures: a replica that cannot hand out a connection is skipped for DOWN_RETRY_MILLIS and the
+ *   read goes to the next one; with none left, it goes to the primary.
+ * - Read-your-writes: replicas lag the primary. With a window set, a caller that has written reads
+ *   from the primary until the window has passed since its last write, so it sees its own changes.
+ *   The window should cover the longest write transaction plus the usual replication lag. Without
+ *   one, a read right after a write may not see it.
+ *
+ * A caller is a Session, not a thread. Each thread starts with a session of its own; code that
+ * does a caller's work on another thread, as ProjectRequestExecutor does, runs it in the caller's
+ * session with callInSession(), and code that writes for callers later, as WriteBehindQueue does,
+ * records the write on their sessions with Session.noteWrite().
+ */
+public class ReplicaRouter implements AutoCloseable {
+	public static final long DOWN_RETRY_MILLIS = 5000;
+	public static final long DEFAULT_READ_YOUR_WRITES_MILLIS = 1000;
+
+	private static final Logger LOGGER = Logger.getLogger(ReplicaRouter.class.getName());
+
+	/* The session the calling thread works for; see callInSession(). */
+	private static final ThreadLocal<Session> SESSION = ThreadLocal.withInitial(Session::new);
+
+	private final List<ConnectionPool> replicas;
+	private final long readYourWritesNanos;
+
+	/* Per replica: System.nanoTime() until which it is skipped, or 0 while it is up. */
+	private final AtomicLongArray downUntil;
+	private final AtomicInteger next = new AtomicInteger();
+
+	private final AtomicLong replicaReads = new AtomicLong();
+	private final AtomicLong primaryReads = new AtomicLong();
+	private final AtomicLong failovers = new AtomicLong();
+
+	/* One caller's read-your-writes state, shared by the threads that work for it. */
+	public static final class Session {
+		/* System.nanoTime() of the last write, or 0 if there was none. */
+		private volatile long lastWrite;
+
+		/* Records a write made for this caller, possibly on another thread. */
+		public void noteWrite() {
+			lastWrite = System.nanoTime();
+		}
+	}
+
+	/* Builds the pool for one replica endpoint. */
+	@FunctionalInterface
+	public interface PoolFactory {
+		ConnectionPool newPool(String host, int port);
+	}
+
+	/* Reads may return data older than the thread's own writes. */
+	public ReplicaRouter(List<ConnectionPool> replicas) {
+		this(replicas, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/* Reads follow the thread's writes to the primary for the window after each write; 0 for never. */
+	public ReplicaRouter(List<ConnectionPool> replicas, long readYourWritesWindow, TimeUnit unit) {
+		if(replicas.isEmpty() || readYourWritesWindow < 0) {
+			throw new IllegalArgumentException("Need at least one replica and a window >= 0, got " + replicas.size()
+					+ " replicas and " + readYourWritesWindow);
+		}
+
+		this.replicas = List.copyOf(replicas);
+		this.readYourWritesNanos = unit.toNanos(readYourWritesWindow);
+		this.downUntil = new AtomicLongArray(replicas.size());
+	}
+
+	/*
+	 * Replicas from the system property projects.replicas, a comma-separated list of host:port with
+	 * the same schema and credentials as the primary, and the read-your-writes window in
+	 * milliseconds from projects.readYourWritesMillis (default DEFAULT_READ_YOUR_WRITES_MILLIS; 0
+	 * turns it off). Null if no replicas are set.
+	 */
+	public static ReplicaRouter fromSystemProperties(PoolFactory poolFactory) {
+		String property = System.getProperty("projects.replicas", "").trim();
+
+		if(property.isEmpty()) {
+			return null;
+		}
+
+		List<ConnectionPool> pools = new ArrayList<>();
+
+		for(String endpoint : property.split(",")) {
+			String[] hostAndPort = endpoint.trim().split(":");
+
+			try {
+				pools.add(poolFactory.newPool(hostAndPort[0], hostAndPort.length > 1 ? Integer.parseInt(hostAndPort[1]) : 3306));
+			}
+			catch(NumberFormatException e) {
+				pools.forEach(ConnectionPool::close);
+				throw new IllegalArgumentException("Invalid replica '" + endpoint + "' in projects.replicas", e);
+			}
+		}
+
+		return new ReplicaRouter(pools, Long.getLong("projects.readYourWritesMillis", DEFAULT_READ_YOUR_WRITES_MILLIS), TimeUnit.MILLISECONDS);
+	}
+
+	/*
+	 * A read-only connection from the least loaded replica that is up, or null if the read should go
+	 * to the primary: every replica is down, or the caller wrote within the read-your-writes window.
+	 */
+	Connection getReadConnection() {
+		if(readsOwnWrites()) {
+			primaryReads.incrementAndGet();
+			return null;
+		}
+
+		boolean[] tried = new boolean[replicas.size()];
+
+		for(int attempt = 0; attempt < replicas.size(); attempt++) {
+			int index = leastLoaded(tried);
+
+			if(index < 0) {
+				break;
+			}
+
+			tried[index] = true;
+
+			Connection conn = borrow(index);
+
+			if(Objects.nonNull(conn)) {
+				replicaReads.incrementAndGet();
+				return conn;
+			}
+
+			failovers.incrementAndGet();
+		}
+
+		primaryReads.incrementAndGet();
+		return null;
+	}
+
+	/* The session of the caller the calling thread works for. */
+	public static Session currentSession() {
+		return SESSION.get();
+	}
+
+	/*
+	 * Gives the calling thread a new session, for a thread that serves one caller after another, so
+	 * the previous caller's writes no longer send its reads to the primary.
+	 */
+	public static Session startSession() {
+		Session session = new Session();
+		SESSION.set(session);
+		return session;
+	}
+
+	/*
+	 * Runs the task on the calling thread as part of the session, so its writes and reads count as
+	 * the session's, and then restores the thread's own session.
+	 */
+	public static <T> T callInSession(Session session, Supplier<T> task) {
+		Session previous = SESSION.get();
+		SESSION.set(session);
+
+		try {
+			return task.get();
+		}
+		finally {
+			SESSION.set(previous);
+		}
+	}
+
+	public List<ConnectionPool> getReplicas() {
+		return replicas;
+	}
+
+	/* Reads served by a replica. */
+	public long getReplicaReadCount() {
+		return replicaReads.get();
+	}
+
+	/* Reads sent to the primary, for read-your-writes or because no replica was up. */
+	public long getPrimaryReadCount() {
+		return primaryReads.get();
+	}
+
+	/* Replicas that failed to hand out a connection and were skipped. */
+	public long getFailoverCount() {
+		return failovers.get();
+	}
+
+	/* Closes the replica pools. */
+	@Override
+	public void close() {
+		replicas.forEach(ConnectionPool::close);
+	}
+
+	private boolean readsOwnWrites() {
+		if(readYourWritesNanos == 0) {
+			return false;
+		}
+
+		long lastWrite = SESSION.get().lastWrite;
+		return lastWrite != 0 && System.nanoTime() - lastWrite < readYourWritesNanos;
+	}
+
+	/* Index of the least loaded replica not yet tried and not down, starting from the next in turn; -1 if none. */
+	private int leastLoaded(boolean[] tried) {
+		int size = replicas.size();
+		int start = Math.floorMod(next.getAndIncrement(), size);
+		long now = System.nanoTime();
+		int best = -1;
+		double bestLoad = Double.MAX_VALUE;
+
+		for(int offset = 0; offset < size; offset++) {
+			int index = (start + offset) % size;
+			long down = downUntil.get(index);
+
+			if(tried[index] || (down != 0 && now - down < 0)) {
+				continue;
+			}
+
+			ConnectionPool pool = replicas.get(index);
+			double load = (double)pool.getStats().getActiveConnections() / pool.getMaxSize();
+
+			if(load < bestLoad) {
+				best = index;
+				bestLoad = load;
+			}
+		}
+
+		return best;
+	}
+
+	private Connection borrow(int index) {
+		Connection conn = null;
+
+		try {
+			conn = replicas.get(index).getConnection();
+			conn.setReadOnly(true);
+			downUntil.set(index, 0);
+			return conn;
+		}
+		catch(DbException | SQLException e) {
+			if(Objects.nonNull(conn)) {
+				try {
+					conn.close();
+				}
+				catch(SQLException closeFailure) {
+					e.addSuppressed(closeFailure);
+				}
+			}
+
+			downUntil.set(index, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DOWN_RETRY_MILLIS));
+			LOGGER.warning(() -> "Replica " + index + " is unavailable for " + DOWN_RETRY_MILLIS + " ms: " + e.getMessage());
+			return null;
+		}
+	}
+}
@@ -0,0 +1,257 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import projects.metrics.ProjectMetrics;
+import provided.util.DaoBase.DaoException;
+
+/**
+ * This maps result set rows onto objects of a single class. It does the same job as the reflection
+ * loop that {@link DaoBase} used to run for every row, but does the expensive part only once:
+ * <ol>
+ * <li>The field names are converted to column names and matched against the result set metadata,
+ * so each field knows the column index it is read from.</li>
+ * <li>The constructor and the field writes are turned into {@link MethodHandle}s.</li>
+ * </ol>
+ *
+ * Mapping a row is then a loop over an array of column indexes with no string handling, no name
+ * lookups and no exceptions for columns that are not in the result set.
+ *
+ * Mappers are cached by class type and result set shape (the list of column labels). The cache is
+ * bounded and evicts the least recently used mapper.
+ *
+ * @author Promineo
+ *
+ * @param <T> The type of object created for each row.
+ */
+public class RowMapper<T> {
+  private static final int MAX_CACHED_MAPPERS = 256;
+
+  private static final int CONVERT_NONE = 0;
+  private static final int CONVERT_TIME = 1;
+  private static final int CONVERT_TIMESTAMP = 2;
+
+  @SuppressWarnings("serial")
+  private static final Map<MapperKey, RowMapper<?>> CACHE =
+      Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MapperKey, RowMapper<?>> eldest) {
+          return size() > MAX_CACHED_MAPPERS;
+        }
+      });
+
+  private final Class<T> classType;
+  private final MethodHandle constructor;
+  private final int[] columnIndexes;
+  private final MethodHandle[] setters;
+  private final int[] conversions;
+
+  private RowMapper(Class<T> classType, MethodHandle constructor, int[] columnIndexes,
+      MethodHandle[] setters, int[] conversions) {
+    this.classType = classType;
+    this.constructor = constructor;
+    this.columnIndexes = columnIndexes;
+    this.setters = setters;
+    this.conversions = conversions;
+  }
+
+  /**
+   * Returns the mapper for the given class and the shape of the given result set, building and
+   * caching it if this is the first time the combination has been seen. Call this once per result
+   * set, not once per row.
+   *
+   * @param <T> The type of object to create.
+   * @param rs The result set. Only its metadata is read.
+   * @param classType The class of object to create. It must have a public zero-argument constructor.
+   * @return The mapper.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> RowMapper<T> forResultSet(ResultSet rs, Class<T> classType) {
+    try {
+      ResultSetMetaData meta = rs.getMetaData();
+      String[] labels = new String[meta.getColumnCount()];
+
+      for(int index = 0; index < labels.length; index++) {
+        labels[index] = meta.getColumnLabel(index + 1).toLowerCase();
+      }
+
+      MapperKey key = new MapperKey(classType, labels);
+      RowMapper<T> mapper = (RowMapper<T>)CACHE.get(key);
+
+      if(Objects.isNull(mapper)) {
+        mapper = build(classType, labels);
+        CACHE.put(key, mapper);
+      }
+
+      return mapper;
+    }
+    catch(SQLException e) {
+      throw new DaoException("Unable to read result set metadata for " + classType.getName(), e);
+    }
+  }
+
+  /**
+   * Creates an object from the current row of the result set. Fields without a matching column, or
+   * whose column is null, keep the value assigned when the object was constructed. The row is
+   * counted in {@link ProjectMetrics#getRowsMapped()} while metrics are enabled.
+   *
+   * @param rs The result set, positioned on the row to map.
+   * @return The populated object.
+   */
+  @SuppressWarnings("unchecked")
+  public T map(ResultSet rs) {
+    try {
+      T obj = (T)(Object)constructor.invokeExact();
+
+      for(int index = 0; index < columnIndexes.length; index++) {
+        Object value = rs.getObject(columnIndexes[index]);
+
+        if(Objects.nonNull(value)) {
+          switch(conversions[index]) {
+            case CONVERT_TIME:
+              if(value instanceof Time) {
+                value = ((Time)value).toLocalTime();
+              }
+              break;
+
+            case CONVERT_TIMESTAMP:
+              if(value instanceof Timestamp) {
+                value = ((Timestamp)value).toLocalDateTime();
+              }
+              break;
+
+            default:
+              break;
+          }
+
+          setters[index].invokeExact((Object)obj, value);
+        }
+      }
+
+      ProjectMetrics.rowMapped();
+      return obj;
+    }
+    catch(Throwable e) {
+      throw new DaoException("Unable to create object of type " + classType.getName(), e);
+    }
+  }
+
+  /**
+   * Returns the number of mappers currently cached.
+   */
+  public static int cachedMapperCount() {
+    return CACHE.size();
+  }
+
+  private static <T> RowMapper<T> build(Class<T> classType, String[] labels) {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(classType, MethodHandles.lookup());
+      MethodHandle constructor = lookup.unreflectConstructor(classType.getConstructor())
+          .asType(MethodType.methodType(Object.class));
+
+      /* The first column with a given label wins, as it did with rs.getObject(label). */
+      Map<String, Integer> columns = new HashMap<>();
+
+      for(int index = labels.length - 1; index >= 0; index--) {
+        columns.put(labels[index], index + 1);
+      }
+
+      List<Integer> indexes = new ArrayList<>();
+      List<MethodHandle> setters = new ArrayList<>();
+      List<Integer> conversions = new ArrayList<>();
+
+      for(Field field : classType.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+
+        if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+          continue;
+        }
+
+        Integer column = columns.get(DaoBase.camelCaseToSnakeCase(field.getName()));
+
+        if(Objects.isNull(column)) {
+          continue;
+        }
+
+        Class<?> fieldType = field.getType();
+
+        indexes.add(column);
+        setters.add(lookup.unreflectSetter(field)
+            .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+
+        if(fieldType.equals(LocalTime.class)) {
+          conversions.add(CONVERT_TIME);
+        }
+        else if(fieldType.equals(LocalDateTime.class)) {
+          conversions.add(CONVERT_TIMESTAMP);
+        }
+        else {
+          conversions.add(CONVERT_NONE);
+        }
+      }
+
+      return new RowMapper<>(classType, constructor,
+          indexes.stream().mapToInt(Integer::intValue).toArray(),
+          setters.toArray(new MethodHandle[0]),
+          conversions.stream().mapToInt(Integer::intValue).toArray());
+    }
+    catch(ReflectiveOperationException e) {
+      throw new DaoException("Unable to build a row mapper for " + classType.getName(), e);
+    }
+  }
+
+  /**
+   * Cache key: the class being mapped plus the column labels of the result set.
+   */
+  private static class MapperKey {
+    private final Class<?> classType;
+    private final String[] labels;
+    private final int hash;
+
+    MapperKey(Class<?> classType, String[] labels) {
+      this.classType = classType;
+      this.labels = labels;
+      this.hash = 31 * classType.hashCode() + Arrays.hashCode(labels);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if(this == other) {
+        return true;
+      }
+
+      if(!(other instanceof MapperKey)) {
+        return false;
+      }
+
+      MapperKey key = (MapperKey)other;
+      return classType.equals(key.classType) && Arrays.equals(labels, key.labels);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,375 @@
+package projects.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import projects.exception.DbException;
+
+/*
+ * Brings a database up to the current schema by applying the scripts in db/migration on the
+ * classpath, in version order, and recording each one in the schema_version table.
+ *
+ * Scripts are named V<version>__<description>.sql and listed in MIGRATIONS; a new script must be
+ * added there. A script is a list of statements separated by semicolons, with "--" comment lines.
+ * Applied scripts must not be edited afterwards: their checksum is stored and compared on every
+ * run.
+ *
+ * An empty database is built from V1 up. A database created by the old projects-schema.sql has the
+ * tables but no schema_version table; it is adopted as version 1 (the baseline) and the later
+ * scripts are applied to it. Such databases were often keyed by hand - the application could not
+ * insert without AUTO_INCREMENT, which MySQL only allows on a key - so a statement that adds a
+ * primary key, AUTO_INCREMENT, an index or a foreign key is skipped when the table already has it.
+ * A primary key on other columns than the script's stops the migration instead.
+ *
+ * MySQL commits DDL as it goes, so a script that fails part way is not rolled back. Its version is
+ * not recorded, the error names the failing statement, and the script has to be finished by hand
+ * before migrating again.
+ */
+public class SchemaMigrator {
+	private static final Logger LOGGER = Logger.getLogger(SchemaMigrator.class.getName());
+
+	public static final List<String> MIGRATIONS = List.of(
+			"V1__baseline.sql",
+			"V2__keys_and_indexes.sql",
+			"V3__sequence_high_water.sql");
+
+	private static final String LOCATION = "/db/migration/";
+	private static final String VERSION_TABLE = "schema_version";
+	private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+	// @formatter:off
+	private static final Pattern ADD_PRIMARY_KEY = Pattern.compile(
+			"ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+PRIMARY\\s+KEY\\s*\\(([^)]+)\\)", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern ADD_AUTO_INCREMENT = Pattern.compile(
+			"ALTER\\s+TABLE\\s+(\\w+)\\s+MODIFY\\s+COLUMN\\s+(\\w+)\\s.*AUTO_INCREMENT", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private static final Pattern CREATE_INDEX = Pattern.compile(
+			"CREATE\\s+INDEX\\s+(\\w+)\\s+ON\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern ADD_FOREIGN_KEY = Pattern.compile(
+			"ALTER\\s+TABLE\\s+(\\w+)\\s+ADD\\s+CONSTRAINT\\s+\\w+\\s+FOREIGN\\s+KEY\\s*\\((\\w+)\\)\\s*REFERENCES\\s+(\\w+)",
+			Pattern.CASE_INSENSITIVE);
+	// @formatter:on
+
+	private final List<Migration> migrations = new ArrayList<>();
+
+	public SchemaMigrator() {
+		for(String name : MIGRATIONS) {
+			migrations.add(Migration.load(name));
+		}
+	}
+
+	/*
+	 * Migrates the database behind the pool to the latest version. DbConnection does this when it
+	 * creates its pool, so the application always starts on the current schema.
+	 */
+	public static int migrate(ConnectionPool pool) {
+		try(Connection conn = pool.getConnection()) {
+			return new SchemaMigrator().migrate(conn);
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/* Applies every pending script. Returns the number applied. */
+	public int migrate(Connection conn) {
+		return migrate(conn, latestVersion());
+	}
+
+	/* Applies the pending scripts up to and including targetVersion. Returns the number applied. */
+	public int migrate(Connection conn, int targetVersion) {
+		try {
+			Map<Integer, Long> applied = readAppliedVersions(conn);
+			validate(applied);
+
+			int count = 0;
+
+			for(Migration migration : migrations) {
+				if(migration.version <= targetVersion && !applied.containsKey(migration.version)) {
+					apply(conn, migration);
+					count++;
+				}
+			}
+
+			return count;
+		}
+		catch(SQLException e) {
+			throw new DbException("Unable to migrate the schema", e);
+		}
+	}
+
+	/* The highest version recorded in schema_version, or 0 for an empty database. */
+	public int currentVersion(Connection conn) {
+		try {
+			return readAppliedVersions(conn).keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+		}
+		catch(SQLException e) {
+			throw new DbException("Unable to read the schema version", e);
+		}
+	}
+
+	public int latestVersion() {
+		return migrations.get(migrations.size() - 1).version;
+	}
+
+	/*
+	 * Reads schema_version, creating it first if needed. A database that has the project table but
+	 * no schema_version is recorded as being at the baseline.
+	 */
+	private Map<Integer, Long> readAppliedVersions(Connection conn) throws SQLException {
+		if(!tableExists(conn, VERSION_TABLE)) {
+			boolean existingSchema = tableExists(conn, "project");
+
+			try(Statement stmt = conn.createStatement()) {
+				stmt.execute("CREATE TABLE " + VERSION_TABLE + " ("
+						+ "version INT NOT NULL, "
+						+ "description VARCHAR(128) NOT NULL, "
+						+ "checksum BIGINT NOT NULL, "
+						+ "installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+						+ "PRIMARY KEY (version))");
+			}
+
+			if(existingSchema) {
+				record(conn, migrations.get(0));
+			}
+		}
+
+		Map<Integer, Long> applied = new HashMap<>();
+
+		try(Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM " + VERSION_TABLE)) {
+			while(rs.next()) {
+				applied.put(rs.getInt(1), rs.getLong(2));
+			}
+		}
+
+		return applied;
+	}
+
+	private void validate(Map<Integer, Long> applied) {
+		for(Map.Entry<Integer, Long> entry : applied.entrySet()) {
+			Migration migration = find(entry.getKey());
+
+			if(Objects.isNull(migration)) {
+				throw new DbException("Database is at schema version " + entry.getKey()
+						+ ", which this application does not know. Latest known version is " + latestVersion());
+			}
+
+			if(migration.checksum != entry.getValue()) {
+				throw new DbException(
+						"Migration " + migration.name + " has changed since it was applied to this database");
+			}
+		}
+	}
+
+	private void apply(Connection conn, Migration migration) throws SQLException {
+		try(Statement stmt = conn.createStatement()) {
+			for(int index = 0; index < migration.statements.size(); index++) {
+				try {
+					if(isInPlace(conn, migration.statements.get(index))) {
+						LOGGER.info("Migration " + migration.name + ": statement " + (index + 1) + " is already in place");
+						continue;
+					}
+
+					stmt.execute(migration.statements.get(index));
+				}
+				catch(SQLException e) {
+					throw new DbException("Migration " + migration.name + " failed at statement " + (index + 1)
+							+ ": " + migration.statements.get(index), e);
+				}
+			}
+		}
+
+		record(conn, migration);
+	}
+
+	private void record(Connection conn, Migration migration) throws SQLException {
+		String sql = "INSERT INTO " + VERSION_TABLE + " (version, description, checksum) VALUES (?, ?, ?)";
+
+		try(PreparedStatement stmt = conn.prepareStatement(sql)) {
+			stmt.setInt(1, migration.version);
+			stmt.setString(2, migration.description);
+			stmt.setLong(3, migration.checksum);
+			stmt.executeUpdate();
+		}
+	}
+
+	private Migration find(int version) {
+		for(Migration migration : migrations) {
+			if(migration.version == version) {
+				return migration;
+			}
+		}
+
+		return null;
+	}
+
+	/*
+	 * True if the statement adds a primary key, AUTO_INCREMENT, index or foreign key the table
+	 * already has. A foreign key counts as there if the column already references the same table,
+	 * whatever the constraint is called.
+	 */
+	private static boolean isInPlace(Connection conn, String statement) throws SQLException {
+		DatabaseMetaData meta = conn.getMetaData();
+		Matcher matcher;
+
+		if((matcher = ADD_PRIMARY_KEY.matcher(statement)).lookingAt()) {
+			List<String> wanted = new ArrayList<>();
+
+			for(String column : matcher.group(2).split(",")) {
+				wanted.add(column.trim().toLowerCase());
+			}
+
+			List<String> existing = primaryKey(meta, conn.getCatalog(), matcher.group(1));
+
+			if(existing.isEmpty()) {
+				return false;
+			}
+
+			if(!existing.equals(wanted)) {
+				throw new DbException("Table " + matcher.group(1) + " already has a primary key on " + existing
+						+ ", not " + wanted + "; change it by hand before migrating");
+			}
+
+			return true;
+		}
+
+		if((matcher = ADD_AUTO_INCREMENT.matcher(statement)).lookingAt()) {
+			try(ResultSet rs = meta.getColumns(conn.getCatalog(), null, matcher.group(1), matcher.group(2))) {
+				return rs.next() && "YES".equalsIgnoreCase(rs.getString("IS_AUTOINCREMENT"));
+			}
+		}
+
+		if((matcher = CREATE_INDEX.matcher(statement)).lookingAt()) {
+			try(ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, matcher.group(2), false, false)) {
+				while(rs.next()) {
+					if(matcher.group(1).equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+						return true;
+					}
+				}
+			}
+
+			return false;
+		}
+
+		if((matcher = ADD_FOREIGN_KEY.matcher(statement)).lookingAt()) {
+			try(ResultSet rs = meta.getImportedKeys(conn.getCatalog(), null, matcher.group(1))) {
+				while(rs.next()) {
+					if(matcher.group(2).equalsIgnoreCase(rs.getString("FKCOLUMN_NAME"))
+							&& matcher.group(3).equalsIgnoreCase(rs.getString("PKTABLE_NAME"))) {
+						return true;
+					}
+				}
+			}
+
+			return false;
+		}
+
+		return false;
+	}
+
+	/* The table's primary key columns in key order, lower case; empty if it has none. */
+	private static List<String> primaryKey(DatabaseMetaData meta, String catalog, String table) throws SQLException {
+		Map<Integer, String> columns = new TreeMap<>();
+
+		try(ResultSet rs = meta.getPrimaryKeys(catalog, null, table)) {
+			while(rs.next()) {
+				columns.put(rs.getInt("KEY_SEQ"), rs.getString("COLUMN_NAME").toLowerCase());
+			}
+		}
+
+		return new ArrayList<>(columns.values());
+	}
+
+	private static boolean tableExists(Connection conn, String tableName) throws SQLException {
+		DatabaseMetaData meta = conn.getMetaData();
+
+		try(ResultSet rs = meta.getTables(conn.getCatalog(), null, tableName, new String[] {"TABLE"})) {
+			return rs.next();
+		}
+	}
+
+	/* One script, parsed. */
+	private static class Migration {
+		private final String name;
+		private final int version;
+		private final String description;
+		private final long checksum;
+		private final List<String> statements;
+
+		private Migration(String name, int version, String description, long checksum,
+				List<String> statements) {
+			this.name = name;
+			this.version = version;
+			this.description = description;
+			this.checksum = checksum;
+			this.statements = statements;
+		}
+
+		static Migration load(String name) {
+			Matcher matcher = SCRIPT_NAME.matcher(name);
+
+			if(!matcher.matches()) {
+				throw new DbException("Migration script name " + name + " is not V<version>__<description>.sql");
+			}
+
+			String script;
+
+			try(InputStream in = SchemaMigrator.class.getResourceAsStream(LOCATION + name)) {
+				if(Objects.isNull(in)) {
+					throw new DbException("Migration script " + LOCATION + name + " is not on the classpath");
+				}
+
+				script = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+			}
+			catch(IOException e) {
+				throw new DbException("Unable to read migration script " + name, e);
+			}
+
+			CRC32 crc = new CRC32();
+			crc.update(script.getBytes(StandardCharsets.UTF_8));
+
+			return new Migration(name, Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '),
+					crc.getValue(), split(script));
+		}
+
+		/* Drops comment lines and splits on semicolons. Scripts must not put semicolons in literals. */
+		private static List<String> split(String script) {
+			StringBuilder sql = new StringBuilder();
+
+			for(String line : script.split("\n")) {
+				if(!line.trim().startsWith("--")) {
+					sql.append(line).append('\n');
+				}
+			}
+
+			List<String> statements = new ArrayList<>();
+
+			for(String statement : sql.toString().split(";")) {
+				if(!statement.isBlank()) {
+					statements.add(statement.trim());
+				}
+			}
+
+			return statements;
+		}
+	}
+}
@@ -0,0 +1,273 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import projects.exception.DbException;
+import provided.util.DaoBase;
+
+/*
+ * Hands out increasing ordinals per parent row - step orders per project, for instance - without a
+ * COUNT(*) per insert and without two callers ever getting the same number.
+ *
+ * Numbers are reserved from the database in blocks of blockSize: the sequence_high_water table
+ * keeps, per sequence and parent, the highest number reserved so far, and a reservation raises it
+ * under a row lock in its own transaction. The first reservation for a parent starts above the
+ * largest value already in use, read with seedSql (one parameter: the parent ID).
+ *
+ * Within a block, next() is a single atomic increment. When a block runs out, one caller reserves
+ * the next block and the others wait for it rather than reserving blocks of their own. Several
+ * processes can share a sequence; each reserves its own blocks. Two of them seeding or reserving at
+ * once can deadlock on the row locks; the server rolls one back (SQLState 40001) and that
+ * reservation is run again, up to MAX_DEADLOCK_ATTEMPTS times.
+ *
+ * The numbers are unique and increase within a process, but not gap-free: the unused part of a
+ * block is lost when the process stops, and deleted rows leave holes. Use them for ordering, not
+ * counting.
+ */
+public class SequenceAllocator extends DaoBase {
+	public static final int DEFAULT_BLOCK_SIZE = 50;
+
+	/* Attempts at a reservation that the server keeps picking as a deadlock victim. */
+	public static final int MAX_DEADLOCK_ATTEMPTS = 5;
+
+	// @formatter:off
+	private static final String SELECT_HIGH_WATER_SQL = ""
+			+ "SELECT high_water FROM sequence_high_water "
+			+ "WHERE sequence_name = ? AND parent_id = ? "
+			+ "FOR UPDATE";
+
+	private static final String INSERT_HIGH_WATER_SQL = ""
+			+ "INSERT INTO sequence_high_water "
+			+ "(sequence_name, parent_id, high_water) "
+			+ "VALUES "
+			+ "(?, ?, ?)";
+
+	private static final String UPDATE_HIGH_WATER_SQL = ""
+			+ "UPDATE sequence_high_water SET high_water = ? "
+			+ "WHERE sequence_name = ? AND parent_id = ?";
+
+	private static final String DELETE_HIGH_WATER_SQL = ""
+			+ "DELETE FROM sequence_high_water "
+			+ "WHERE sequence_name = ? AND parent_id = ?";
+	// @formatter:on
+
+	private final String sequenceName;
+	private final String seedSql;
+	private final int blockSize;
+	private final ConnectionPool.ConnectionFactory connections;
+	private final ConcurrentHashMap<Integer, Block> blocks = new ConcurrentHashMap<>();
+
+	/* Reserves blocks on connections borrowed from DbConnection. */
+	public SequenceAllocator(String sequenceName, String seedSql, int blockSize) {
+		this(sequenceName, seedSql, blockSize, DbConnection::getConnection);
+	}
+
+	/*
+	 * Reserves blocks on connections from the given factory, which are closed after each
+	 * reservation. A reservation needs a connection of its own, since it must commit even if the
+	 * caller's transaction rolls back.
+	 */
+	public SequenceAllocator(String sequenceName, String seedSql, int blockSize,
+			ConnectionPool.ConnectionFactory connections) {
+		if(blockSize < 1) {
+			throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+		}
+
+		this.sequenceName = sequenceName;
+		this.seedSql = seedSql;
+		this.blockSize = blockSize;
+		this.connections = connections;
+	}
+
+	/* The next number for the parent. */
+	public int next(int parentId) {
+		/* A parent starts with an empty block of its own, so its first call reserves one. */
+		Block block = blocks.computeIfAbsent(parentId, id -> new Block(0, 0));
+
+		while(true) {
+			int value = block.next.getAndIncrement();
+
+			if(value < block.limit) {
+				return value;
+			}
+
+			block = successor(parentId, block);
+		}
+	}
+
+	/*
+	 * Drops the parent's sequence when the parent is deleted: its row is deleted on the caller's
+	 * connection, in the caller's transaction, and the numbers held in memory are forgotten.
+	 */
+	public void discard(Connection conn, int parentId) throws SQLException {
+		blocks.remove(parentId);
+
+		try(PreparedStatement stmt = conn.prepareStatement(DELETE_HIGH_WATER_SQL)) {
+			setParameter(stmt, 1, sequenceName, String.class);
+			setParameter(stmt, 2, parentId, Integer.class);
+			stmt.executeUpdate();
+		}
+	}
+
+	/*
+	 * Returns the block that follows an exhausted one. The first caller to get here reserves it and
+	 * publishes it; callers arriving meanwhile wait for the same reservation.
+	 */
+	private Block successor(int parentId, Block exhausted) {
+		CompletableFuture<Block> reservation = new CompletableFuture<>();
+		CompletableFuture<Block> existing = exhausted.successor.compareAndExchange(null, reservation);
+
+		if(existing != null) {
+			try {
+				return existing.join();
+			}
+			catch(CompletionException e) {
+				throw e.getCause() instanceof RuntimeException ? (RuntimeException)e.getCause() : e;
+			}
+		}
+
+		try {
+			Block block = reserve(parentId);
+			blocks.replace(parentId, exhausted, block);
+			reservation.complete(block);
+			return block;
+		}
+		catch(RuntimeException e) {
+			/* Let a later caller try again. */
+			exhausted.successor.compareAndSet(reservation, null);
+			reservation.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/* Raises the high-water mark by one block and returns the numbers in between. */
+	private Block reserve(int parentId) {
+		try(Connection conn = connections.newConnection()) {
+			int attempts = 0;
+
+			while(true) {
+				startTransaction(conn);
+				attempts++;
+
+				try {
+					int highWater = readHighWater(conn, parentId);
+					int from;
+
+					if(highWater >= 0) {
+						from = highWater + 1;
+						updateHighWater(conn, parentId, highWater + blockSize);
+					}
+					else {
+						from = readSeed(conn, parentId) + 1;
+
+						if(!insertHighWater(conn, parentId, from - 1 + blockSize)) {
+							/* Another process created the row first. Read it again under the lock. */
+							rollbackTransaction(conn);
+							continue;
+						}
+					}
+
+					commitTransaction(conn);
+					return new Block(from, from + blockSize);
+				}
+				catch(SQLException e) {
+					rollbackTransaction(conn);
+
+					if(isDeadlock(e) && attempts < MAX_DEADLOCK_ATTEMPTS) {
+						/* The server rolled this transaction back to break a deadlock. Run it again. */
+						continue;
+					}
+
+					throw e;
+				}
+				catch(RuntimeException e) {
+					rollbackTransaction(conn);
+					throw e;
+				}
+			}
+		}
+		catch(SQLException e) {
+			throw new DbException("Unable to reserve " + sequenceName + " numbers for parent " + parentId, e);
+		}
+	}
+
+	/* Returns -1 if the parent has no row yet. */
+	private int readHighWater(Connection conn, int parentId) throws SQLException {
+		try(PreparedStatement stmt = conn.prepareStatement(SELECT_HIGH_WATER_SQL)) {
+			setParameter(stmt, 1, sequenceName, String.class);
+			setParameter(stmt, 2, parentId, Integer.class);
+
+			try(ResultSet rs = stmt.executeQuery()) {
+				return rs.next() ? rs.getInt(1) : -1;
+			}
+		}
+	}
+
+	/*
+	 * The largest value in use for the parent, which its first block starts above; runs in the
+	 * reservation's transaction. A subclass can look further than seedSql, for instance at other
+	 * databases whose rows share the sequence.
+	 */
+	protected int readSeed(Connection conn, int parentId) throws SQLException {
+		try(PreparedStatement stmt = conn.prepareStatement(seedSql)) {
+			setParameter(stmt, 1, parentId, Integer.class);
+
+			try(ResultSet rs = stmt.executeQuery()) {
+				/* MAX() of no rows is NULL, which getInt() reads as 0. */
+				return rs.next() ? rs.getInt(1) : 0;
+			}
+		}
+	}
+
+	/* Returns false if the row already exists. */
+	private boolean insertHighWater(Connection conn, int parentId, int highWater) throws SQLException {
+		try(PreparedStatement stmt = conn.prepareStatement(INSERT_HIGH_WATER_SQL)) {
+			setParameter(stmt, 1, sequenceName, String.class);
+			setParameter(stmt, 2, parentId, Integer.class);
+			setParameter(stmt, 3, highWater, Integer.class);
+			stmt.executeUpdate();
+			return true;
+		}
+		catch(SQLException e) {
+			/* SQLState class 23 is an integrity constraint violation: here, the primary key. */
+			if(e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+				return false;
+			}
+
+			throw e;
+		}
+	}
+
+	/* SQLState 40001 is a serialization failure: MySQL's deadlock victim, error 1213. */
+	private static boolean isDeadlock(SQLException e) {
+		return "40001".equals(e.getSQLState());
+	}
+
+	private void updateHighWater(Connection conn, int parentId, int highWater) throws SQLException {
+		try(PreparedStatement stmt = conn.prepareStatement(UPDATE_HIGH_WATER_SQL)) {
+			setParameter(stmt, 1, highWater, Integer.class);
+			setParameter(stmt, 2, sequenceName, String.class);
+			setParameter(stmt, 3, parentId, Integer.class);
+			stmt.executeUpdate();
+		}
+	}
+
+	/* Numbers from next (inclusive) to limit (exclusive). */
+	private static class Block {
+		private final int limit;
+		private final AtomicInteger next;
+		private final AtomicReference<CompletableFuture<Block>> successor = new AtomicReference<>();
+
+		Block(int from, int limit) {
+			this.limit = limit;
+			this.next = new AtomicInteger(from);
+		}
+	}
+}
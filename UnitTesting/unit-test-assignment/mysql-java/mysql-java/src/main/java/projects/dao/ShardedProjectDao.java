@@ -0,0 +1,1054 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exception.DbException;
+
+/*
+ * A ProjectDao over several databases with the same schema, the shards. A project lives on one
+ * shard together with its materials, steps and category links, so every call about one project is
+ * one JdbcProjectDao call on one database.
+ *
+ * - Placement: the shard is picked from the project ID by jump consistent hashing (Guava's
+ *   Hashing.consistentHash). Shards are numbered; adding one moves only the projects the new shard
+ *   takes over, about 1/n of them, and none between the old shards.
+ * - IDs: the shards cannot generate keys, since each would hand out the same ones. Project,
+ *   material, step and category IDs come from sequences kept on the first shard (see
+ *   SequenceAllocator), seeded from the largest IDs on all shards, so they are unique across shards
+ *   and a project's shard is known before it is written.
+ * - Categories are a small reference table: insertCategory() writes one to every shard under the
+ *   same ID, so a project on any shard can link to it, and takes it back off them if a shard fails.
+ * - Lists are scatter-gather: the shards are queried in parallel and their results, each already
+ *   sorted, are merged - by project name for fetchAllProjects(), fetchProjectsAfter() and
+ *   streamAllProjects(), by project ID for streamProjectsWithDetails().
+ * - Rebalancing: addShard() adds a shard while the DAO is in use.
+ *
+ * The shard layout lives in this object. Every process using the shards must use the same list,
+ * and a shard must be added through the process that serves the traffic; see addShard().
+ */
+public class ShardedProjectDao implements ProjectDao, AutoCloseable {
+	private static final Logger LOGGER = Logger.getLogger(ShardedProjectDao.class.getName());
+
+	private static final List<String> KEYED_TABLES = List.of("project", "material", "step", "category");
+
+	// @formatter:off
+	private static final String SELECT_CATEGORIES_SQL = "SELECT category_id, category_name FROM category ORDER BY category_id";
+
+	private static final String SELECT_PROJECT_IDS_SQL = "SELECT project_id FROM project ORDER BY project_id";
+
+	private static final String SELECT_MATERIAL_PROJECT_SQL = "SELECT project_id FROM material WHERE material_id = ?";
+
+	private static final String SELECT_STEP_PROJECT_SQL = "SELECT project_id FROM step WHERE step_id = ?";
+
+	private static final String DELETE_CATEGORY_SQL = "DELETE FROM category WHERE category_id = ?";
+	// @formatter:on
+
+	/* The order the shards sort by name in: their column collation, then project ID. */
+	private static final Comparator<Project> BY_NAME =
+			Comparator.comparing(Project::getProjectName, NAME_COLLATION).thenComparing(Project::getProjectId);
+
+	private static final Comparator<Project> BY_ID = Comparator.comparing(Project::getProjectId);
+
+	private final Map<String, SequenceAllocator> sequences = new HashMap<>();
+	private final JdbcProjectDao.KeyGenerator keys = table -> sequences.get(table).next(0);
+
+	private volatile Layout layout;
+
+	/*
+	 * Calls about a project hold its read lock, so that the layout they route by stays true until
+	 * they are done; addShard() holds the write lock while it moves the project.
+	 */
+	private final Striped<ReadWriteLock> projectLocks = Striped.readWriteLock(256);
+
+	/* Serialises category inserts and addShard(), so every shard gets every category. */
+	private final ReentrantLock categoryLock = new ReentrantLock();
+
+	/*
+	 * Runs the per-shard queries. Each holds a connection, so there are at most as many threads as
+	 * the shards have connections together; further queries wait for a thread, not in a pool.
+	 * addShard() adds the new pool's connections. Idle threads stop after a minute.
+	 */
+	private final ThreadPoolExecutor executor;
+
+	/*
+	 * Shards the projects over the given pools, in this order. Each must already have the latest
+	 * schema (see SchemaMigrator). The first one also holds the ID sequences. The pools stay the
+	 * caller's to close.
+	 */
+	public ShardedProjectDao(List<ConnectionPool> pools) {
+		if(pools.isEmpty()) {
+			throw new IllegalArgumentException("Need at least one shard.");
+		}
+
+		ConnectionPool first = pools.get(0);
+
+		for(String table : KEYED_TABLES) {
+			sequences.put(table, new ShardSequence(table, first));
+		}
+
+		List<Shard> shards = new ArrayList<>();
+		int threads = 0;
+
+		for(ConnectionPool pool : pools) {
+			shards.add(new Shard(pool, keys));
+			threads += pool.getMaxSize();
+		}
+
+		executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "shard-query");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+
+		layout = new Layout(shards, null);
+	}
+
+	/*
+	 * A sharded DAO if the system property projects.shards lists the shards as comma-separated
+	 * host:port, with the schema and credentials of DbConnection; otherwise null. Each shard is
+	 * migrated to the latest schema first, as DbConnection does for its own pool.
+	 */
+	public static ShardedProjectDao fromSystemProperties() {
+		String property = System.getProperty("projects.shards", "").trim();
+
+		if(property.isEmpty()) {
+			return null;
+		}
+
+		List<ConnectionPool> pools = new ArrayList<>();
+
+		for(String endpoint : property.split(",")) {
+			String[] hostAndPort = endpoint.trim().split(":");
+
+			try {
+				pools.add(DbConnection.createPool(hostAndPort[0],
+						hostAndPort.length > 1 ? Integer.parseInt(hostAndPort[1]) : 3306, false));
+			}
+			catch(NumberFormatException e) {
+				pools.forEach(ConnectionPool::close);
+				throw new IllegalArgumentException("Invalid shard '" + endpoint + "' in projects.shards", e);
+			}
+		}
+
+		try {
+			for(ConnectionPool pool : pools) {
+				SchemaMigrator.migrate(pool);
+			}
+		}
+		catch(RuntimeException e) {
+			pools.forEach(ConnectionPool::close);
+			throw e;
+		}
+
+		return new ShardedProjectDao(pools);
+	}
+
+	/* The number of shards, counting one that addShard() is filling. */
+	public int getShardCount() {
+		return layout.shards.size();
+	}
+
+	/* The index of the shard that holds the project. */
+	public int shardOf(int projectId) {
+		Lock lock = projectLocks.get(projectId).readLock();
+		lock.lock();
+
+		try {
+			Layout current = layout;
+			return current.shards.indexOf(current.shardOf(projectId));
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * Adds the pool as the last shard and moves to it the projects it takes over, while the DAO stays
+	 * in use. Returns the number of projects moved.
+	 *
+	 * The new shard is migrated, given a copy of the categories and joins the layout as growing: new
+	 * projects that hash to it are written there at once. Then each old shard is scanned, and each
+	 * project that now hashes to the new shard is copied there with its IDs and deleted from its old
+	 * shard. The move holds the project's lock, which holds off calls about that project for the few
+	 * statements of the move; other projects are not blocked. Lists stay complete while projects
+	 * move: see gather(). Last, the layout switches to the new shard count.
+	 *
+	 * A move is copy-then-delete, so one that fails leaves the project on its old shard. addShard()
+	 * then throws with the layout still growing, which routes every call correctly, and can be
+	 * called again with the same pool to finish. Projects already on the pool, from a run cut short
+	 * in another process, are treated as moved.
+	 */
+	public int addShard(ConnectionPool pool) {
+		categoryLock.lock();
+
+		try {
+			Layout current = layout;
+
+			if(Objects.isNull(current.growing) || current.growing.pool != pool) {
+				if(Objects.nonNull(current.growing)) {
+					throw new IllegalStateException("Another shard is being added; add that one again first.");
+				}
+
+				SchemaMigrator.migrate(pool);
+
+				Shard added = new Shard(pool, keys);
+				List<Shard> shards = new ArrayList<>(current.shards);
+				shards.add(added);
+
+				Layout growing = new Layout(shards, added);
+				growing.moved.addAll(projectIds(added));
+				copyCategories(current.shards.get(0), added);
+
+				/* The maximum first: it may not fall below the core size. */
+				int threads = executor.getMaximumPoolSize() + pool.getMaxSize();
+				executor.setMaximumPoolSize(threads);
+				executor.setCorePoolSize(threads);
+
+				layout = growing;
+			}
+		}
+		finally {
+			categoryLock.unlock();
+		}
+
+		Layout growing = layout;
+		int moved = 0;
+
+		for(Shard source : growing.shards.subList(0, growing.settledCount())) {
+			for(int projectId : projectIds(source)) {
+				if(growing.target(projectId) == growing.growing && move(growing, source, projectId)) {
+					moved++;
+				}
+			}
+		}
+
+		layout = new Layout(growing.shards, null);
+		LOGGER.info("Added shard " + (growing.shards.size() - 1) + " and moved " + moved + " projects to it");
+		return moved;
+	}
+
+	@Override
+	public Project insertProject(Project project) {
+		assignProjectId(project);
+		return onShard(project.getProjectId(), true, shard -> shard.dao.insertProject(project));
+	}
+
+	@Override
+	public Material insertMaterial(Material material) {
+		return onShard(requireProjectId(material.getProjectId(), "material"), false,
+				shard -> shard.dao.insertMaterial(material));
+	}
+
+	/*
+	 * Writes the category to every shard under one ID. Each shard commits on its own, so if one
+	 * fails the category is deleted again from the shards that took it, and a category this call
+	 * numbered gets its ID back to null; a failed delete is added to the exception as suppressed.
+	 */
+	@Override
+	public Category insertCategory(Category category) {
+		categoryLock.lock();
+
+		try {
+			boolean numbered = Objects.isNull(category.getCategoryId());
+
+			if(numbered) {
+				category.setCategoryId(keys.nextKey("category"));
+			}
+
+			List<Shard> written = new ArrayList<>();
+
+			try {
+				for(Shard shard : layout.shards) {
+					shard.dao.insertCategory(category);
+					written.add(shard);
+				}
+			}
+			catch(RuntimeException e) {
+				for(Shard shard : written) {
+					try {
+						shard.deleteCategory(category.getCategoryId());
+					}
+					catch(RuntimeException undo) {
+						e.addSuppressed(undo);
+					}
+				}
+
+				if(numbered) {
+					category.setCategoryId(null);
+				}
+
+				throw e;
+			}
+
+			return category;
+		}
+		finally {
+			categoryLock.unlock();
+		}
+	}
+
+	/*
+	 * New categories are written to every shard first, once per name; then each shard inserts its
+	 * projects in batches of batchSize, the shards in parallel.
+	 */
+	@Override
+	public List<Project> insertProjects(Collection<Project> projects, int batchSize) {
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+
+		List<Project> all = new ArrayList<>(projects);
+		Map<String, Category> newCategories = new HashMap<>();
+
+		for(Project project : all) {
+			assignProjectId(project);
+
+			for(Category category : project.getCategories()) {
+				if(Objects.isNull(category.getCategoryId())) {
+					Category stored = newCategories.computeIfAbsent(category.getCategoryName(), name -> {
+						Category copy = new Category();
+						copy.setCategoryName(name);
+						return insertCategory(copy);
+					});
+
+					category.setCategoryId(stored.getCategoryId());
+				}
+			}
+		}
+
+		onShards(all, true, groups -> {
+			List<Future<List<Project>>> inserts = new ArrayList<>();
+
+			for(Map.Entry<Shard, List<Project>> group : groups.entrySet()) {
+				inserts.add(executor.submit(() -> group.getKey().dao.insertProjects(group.getValue(), batchSize)));
+			}
+
+			inserts.forEach(ShardedProjectDao::join);
+			return null;
+		});
+
+		return all;
+	}
+
+	@Override
+	public List<Project> fetchAllProjects() {
+		return gather(shard -> shard.dao.fetchAllProjects(), BY_NAME, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public List<Project> fetchProjectsAfter(String afterProjectName, Integer afterProjectId, int limit) {
+		return gather(shard -> shard.dao.fetchProjectsAfter(afterProjectName, afterProjectId, limit), BY_NAME, limit);
+	}
+
+	@Override
+	public Stream<Project> streamAllProjects() {
+		return merge(shard -> shard.dao.streamAllProjects(), BY_NAME);
+	}
+
+	@Override
+	public Stream<Project> streamProjectsWithDetails(Integer afterProjectId) {
+		return merge(shard -> shard.dao.streamProjectsWithDetails(afterProjectId), BY_ID);
+	}
+
+	@Override
+	public Optional<Project> fetchProjectById(Integer projectId) {
+		if(Objects.isNull(projectId)) {
+			return Optional.empty();
+		}
+
+		return onShard(projectId, false, shard -> shard.dao.fetchProjectById(projectId));
+	}
+
+	/* Each shard loads its own projects, the shards in parallel; the result is in the order asked for. */
+	@Override
+	public List<Project> fetchProjectsWithDetails(int[] projectIds) {
+		List<Project> wanted = new ArrayList<>(projectIds.length);
+
+		for(int projectId : projectIds) {
+			Project project = new Project();
+			project.setProjectId(projectId);
+			wanted.add(project);
+		}
+
+		Map<Integer, Project> loaded = onShards(wanted, false, groups -> {
+			List<Future<List<Project>>> fetches = new ArrayList<>();
+
+			for(Map.Entry<Shard, List<Project>> group : groups.entrySet()) {
+				int[] shardIds = group.getValue().stream().mapToInt(Project::getProjectId).toArray();
+				fetches.add(executor.submit(() -> group.getKey().dao.fetchProjectsWithDetails(shardIds)));
+			}
+
+			Map<Integer, Project> byId = new HashMap<>();
+
+			for(Future<List<Project>> fetch : fetches) {
+				join(fetch).forEach(project -> byId.put(project.getProjectId(), project));
+			}
+
+			return byId;
+		});
+
+		List<Project> result = new ArrayList<>(loaded.size());
+
+		for(int projectId : projectIds) {
+			Project project = loaded.remove(projectId);
+
+			if(Objects.nonNull(project)) {
+				result.add(project);
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public boolean modifyProjectDetails(Project project) {
+		if(Objects.isNull(project.getProjectId())) {
+			return false;
+		}
+
+		return onShard(project.getProjectId(), false, shard -> shard.dao.modifyProjectDetails(project));
+	}
+
+	@Override
+	public List<Project> modifyProjects(Collection<Project> projects) {
+		List<Project> missing = new ArrayList<>();
+		List<Project> stored = new ArrayList<>();
+
+		for(Project project : projects) {
+			(Objects.isNull(project.getProjectId()) ? missing : stored).add(project);
+		}
+
+		onShards(stored, false, groups -> {
+			for(Map.Entry<Shard, List<Project>> group : groups.entrySet()) {
+				missing.addAll(group.getKey().dao.modifyProjects(group.getValue()));
+			}
+
+			return null;
+		});
+
+		return missing;
+	}
+
+	@Override
+	public boolean modifyMaterial(Material material) {
+		Integer projectId = Objects.nonNull(material.getProjectId()) ? material.getProjectId()
+				: findProject(SELECT_MATERIAL_PROJECT_SQL, material.getMaterialId());
+
+		return Objects.nonNull(projectId) && onShard(projectId, false, shard -> shard.dao.modifyMaterial(material));
+	}
+
+	@Override
+	public boolean modifyStep(Step step) {
+		Integer projectId = Objects.nonNull(step.getProjectId()) ? step.getProjectId()
+				: findProject(SELECT_STEP_PROJECT_SQL, step.getStepId());
+
+		return Objects.nonNull(projectId) && onShard(projectId, false, shard -> shard.dao.modifyStep(step));
+	}
+
+	@Override
+	public boolean deleteProject(Integer projectId) {
+		if(Objects.isNull(projectId)) {
+			return false;
+		}
+
+		return onShard(projectId, false, shard -> shard.dao.deleteProject(projectId));
+	}
+
+	@Override
+	public Step insertStep(Step step) {
+		return onShard(requireProjectId(step.getProjectId(), "step"), false, shard -> shard.dao.insertStep(step));
+	}
+
+	@Override
+	public boolean reorderSteps(Integer projectId, List<Integer> stepIds) {
+		if(Objects.isNull(projectId)) {
+			return false;
+		}
+
+		return onShard(projectId, false, shard -> shard.dao.reorderSteps(projectId, stepIds));
+	}
+
+	/* A step ID does not tell the shard: the step's project is looked up on every shard first. */
+	@Override
+	public boolean deleteStep(Integer stepId) {
+		Integer projectId = findProject(SELECT_STEP_PROJECT_SQL, stepId);
+
+		return Objects.nonNull(projectId) && onShard(projectId, false, shard -> shard.dao.deleteStep(stepId));
+	}
+
+	/* Stops the query threads. The pools are left open. */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	private void assignProjectId(Project project) {
+		if(Objects.isNull(project.getProjectId())) {
+			project.setProjectId(keys.nextKey("project"));
+		}
+	}
+
+	private static int requireProjectId(Integer projectId, String entity) {
+		if(Objects.isNull(projectId)) {
+			throw new IllegalArgumentException("The " + entity + " has no project ID.");
+		}
+
+		return projectId;
+	}
+
+	/*
+	 * Runs the call on the project's shard under the project's read lock. A new project goes where
+	 * it hashes; while a shard is being added, that may be the new shard.
+	 */
+	private <T> T onShard(int projectId, boolean newProject, Function<Shard, T> call) {
+		Lock lock = projectLocks.get(projectId).readLock();
+		lock.lock();
+
+		try {
+			Layout current = layout;
+			return call.apply(newProject ? current.place(projectId) : current.shardOf(projectId));
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/* As onShard() for many projects at once: the call gets the projects grouped by shard. */
+	private <T> T onShards(List<Project> projects, boolean newProjects, Function<Map<Shard, List<Project>>, T> call) {
+		List<Integer> projectIds = new ArrayList<>(projects.size());
+		List<Lock> locked = new ArrayList<>();
+
+		projects.forEach(project -> projectIds.add(project.getProjectId()));
+
+		try {
+			for(ReadWriteLock projectLock : projectLocks.bulkGet(projectIds)) {
+				Lock lock = projectLock.readLock();
+				lock.lock();
+				locked.add(lock);
+			}
+
+			Layout current = layout;
+			Map<Shard, List<Project>> groups = new LinkedHashMap<>();
+
+			for(Project project : projects) {
+				int projectId = project.getProjectId();
+				Shard shard = newProjects ? current.place(projectId) : current.shardOf(projectId);
+				groups.computeIfAbsent(shard, key -> new ArrayList<>()).add(project);
+			}
+
+			return call.apply(groups);
+		}
+		finally {
+			locked.forEach(Lock::unlock);
+		}
+	}
+
+	/*
+	 * Queries the shards in parallel and merges their sorted results, up to limit projects.
+	 *
+	 * While a shard is being added, a project can be on the old shard, the new one or - between the
+	 * copy and the delete of its move - both. The new shard is therefore queried only after the old
+	 * ones have answered: a project gone from its old shard by then was copied before, so the new
+	 * shard returns it. A project returned by both is taken from the new shard.
+	 *
+	 * Moves start only once the layout names the new shard. If the layout changed while the shards
+	 * were queried, a project may have moved past the query, so the query runs again.
+	 */
+	private List<Project> gather(Function<Shard, List<Project>> query, Comparator<Project> order, int limit) {
+		while(true) {
+			Layout current = layout;
+			List<List<Project>> results = query(current, query);
+
+			if(layout == current) {
+				return mergeResults(current, results, order, limit);
+			}
+		}
+	}
+
+	/* Runs the query on every shard of the layout: the old ones in parallel, then a new one. */
+	private List<List<Project>> query(Layout current, Function<Shard, List<Project>> query) {
+		List<Future<List<Project>>> queries = new ArrayList<>();
+
+		for(Shard shard : current.shards.subList(0, current.settledCount())) {
+			queries.add(executor.submit(() -> query.apply(shard)));
+		}
+
+		List<List<Project>> results = new ArrayList<>();
+		queries.forEach(future -> results.add(join(future)));
+
+		if(Objects.nonNull(current.growing)) {
+			results.add(query.apply(current.growing));
+		}
+
+		return results;
+	}
+
+	/* Merges the sorted results of query(), up to limit projects. */
+	private static List<Project> mergeResults(Layout current, List<List<Project>> results,
+			Comparator<Project> order, int limit) {
+		Set<Integer> onNewShard = new HashSet<>();
+
+		if(Objects.nonNull(current.growing)) {
+			results.get(results.size() - 1).forEach(project -> onNewShard.add(project.getProjectId()));
+		}
+
+		List<Iterator<Project>> sources = new ArrayList<>();
+
+		for(int index = 0; index < results.size(); index++) {
+			Iterator<Project> source = results.get(index).iterator();
+			sources.add(index < current.settledCount() && !onNewShard.isEmpty()
+					? filter(source, project -> !onNewShard.contains(project.getProjectId()))
+					: source);
+		}
+
+		List<Project> merged = new ArrayList<>();
+
+		for(Iterator<Project> it = new MergingIterator(sources, order); it.hasNext() && merged.size() < limit;) {
+			merged.add(it.next());
+		}
+
+		return merged;
+	}
+
+	/*
+	 * Opens a stream on every shard and merges them lazily in the given order. The old shards' streams
+	 * are opened before the new one's, as in gather(); projects moved before the new shard's stream
+	 * was opened are skipped on the old shards. A project moved while the streams are open may still
+	 * be returned twice, next to each other, and the repeat is skipped by ID - unless it was renamed
+	 * on its new shard in between. As in gather(), the streams are opened again if the layout changed
+	 * while they were being opened.
+	 */
+	private Stream<Project> merge(Function<Shard, Stream<Project>> open, Comparator<Project> order) {
+		Layout current;
+		List<Stream<Project>> streams = new ArrayList<>();
+
+		try {
+			while(true) {
+				current = layout;
+
+				for(Shard shard : current.shards.subList(0, current.settledCount())) {
+					streams.add(open.apply(shard));
+				}
+
+				if(Objects.nonNull(current.growing)) {
+					streams.add(open.apply(current.growing));
+				}
+
+				if(layout == current) {
+					break;
+				}
+
+				closeAll(streams);
+				streams.clear();
+			}
+
+			Set<Integer> moved = Objects.isNull(current.growing) ? Set.of() : Set.copyOf(current.moved);
+			int settled = current.settledCount();
+			List<Iterator<Project>> sources = new ArrayList<>();
+
+			for(int index = 0; index < streams.size(); index++) {
+				Iterator<Project> source = streams.get(index).iterator();
+				sources.add(index < settled && !moved.isEmpty()
+						? filter(source, project -> !moved.contains(project.getProjectId()))
+						: source);
+			}
+
+			Iterator<Project> merged = new MergingIterator(sources, order);
+
+			return StreamSupport
+					.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+					.onClose(() -> closeAll(streams));
+		}
+		catch(RuntimeException e) {
+			try {
+				closeAll(streams);
+			}
+			catch(RuntimeException closeFailure) {
+				e.addSuppressed(closeFailure);
+			}
+
+			throw e;
+		}
+	}
+
+	private static void closeAll(List<Stream<Project>> streams) {
+		RuntimeException failure = null;
+
+		for(Stream<Project> stream : streams) {
+			try {
+				stream.close();
+			}
+			catch(RuntimeException e) {
+				if(Objects.isNull(failure)) {
+					failure = e;
+				}
+				else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+
+		if(Objects.nonNull(failure)) {
+			throw failure;
+		}
+	}
+
+	/* Moves one project to the new shard under its write lock; false if it was gone meanwhile. */
+	private boolean move(Layout growing, Shard source, int projectId) {
+		Lock lock = projectLocks.get(projectId).writeLock();
+		lock.lock();
+
+		try {
+			Optional<Project> project = source.dao.fetchProjectById(projectId);
+
+			if(project.isEmpty()) {
+				return false;
+			}
+
+			/* A copy left by a move cut short is replaced: the old shard has the current data. */
+			growing.growing.dao.deleteProject(projectId);
+			growing.growing.dao.insertProjects(List.of(project.get()), 1);
+			growing.moved.add(projectId);
+			source.dao.deleteProject(projectId);
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/* Gives the new shard the categories it does not have yet, with their IDs. */
+	private void copyCategories(Shard from, Shard to) {
+		Set<Integer> present = new HashSet<>();
+
+		for(Category category : categories(to)) {
+			present.add(category.getCategoryId());
+		}
+
+		for(Category category : categories(from)) {
+			if(!present.contains(category.getCategoryId())) {
+				to.dao.insertCategory(category);
+			}
+		}
+	}
+
+	private static List<Category> categories(Shard shard) {
+		List<Category> categories = new ArrayList<>();
+
+		try(Connection conn = shard.pool.getConnection();
+				PreparedStatement stmt = conn.prepareStatement(SELECT_CATEGORIES_SQL);
+				ResultSet rs = stmt.executeQuery()) {
+			while(rs.next()) {
+				Category category = new Category();
+				category.setCategoryId(rs.getInt(1));
+				category.setCategoryName(rs.getString(2));
+				categories.add(category);
+			}
+
+			return categories;
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	private static List<Integer> projectIds(Shard shard) {
+		List<Integer> ids = new ArrayList<>();
+
+		try(Connection conn = shard.pool.getConnection();
+				PreparedStatement stmt = conn.prepareStatement(SELECT_PROJECT_IDS_SQL);
+				ResultSet rs = stmt.executeQuery()) {
+			while(rs.next()) {
+				ids.add(rs.getInt(1));
+			}
+
+			return ids;
+		}
+		catch(SQLException e) {
+			throw new DbException(e);
+		}
+	}
+
+	/*
+	 * The project that owns a material or step, looked up on the shards in parallel; null if none
+	 * has it. A new shard is asked after the old ones, and a miss during a layout change is looked up
+	 * again, as in gather().
+	 */
+	private Integer findProject(String sql, Integer childId) {
+		if(Objects.isNull(childId)) {
+			return null;
+		}
+
+		while(true) {
+			Layout current = layout;
+			List<Future<Integer>> lookups = new ArrayList<>();
+
+			for(Shard shard : current.shards.subList(0, current.settledCount())) {
+				lookups.add(executor.submit(() -> shard.findOwner(sql, childId)));
+			}
+
+			Integer projectId = null;
+
+			for(Future<Integer> lookup : lookups) {
+				Integer owner = join(lookup);
+				projectId = Objects.isNull(projectId) ? owner : projectId;
+			}
+
+			if(Objects.isNull(projectId) && Objects.nonNull(current.growing)) {
+				projectId = current.growing.findOwner(sql, childId);
+			}
+
+			/* Not found while the layout changed: the child may have moved past the lookups. */
+			if(Objects.nonNull(projectId) || layout == current) {
+				return projectId;
+			}
+		}
+	}
+
+	private static <T> T join(Future<T> future) {
+		try {
+			return future.get();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrupted while waiting for a shard.", e);
+		}
+		catch(ExecutionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException)e.getCause() : new DbException(e.getCause());
+		}
+	}
+
+	private static Iterator<Project> filter(Iterator<Project> source, Predicate<Project> keep) {
+		return new Iterator<>() {
+			private Project next;
+
+			@Override
+			public boolean hasNext() {
+				while(Objects.isNull(next) && source.hasNext()) {
+					Project candidate = source.next();
+
+					if(keep.test(candidate)) {
+						next = candidate;
+					}
+				}
+
+				return Objects.nonNull(next);
+			}
+
+			@Override
+			public Project next() {
+				if(!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				Project result = next;
+				next = null;
+				return result;
+			}
+		};
+	}
+
+	/*
+	 * A k-way merge of sorted iterators: a heap holds the next project of each, so a project costs
+	 * log(shards) comparisons. A project equal by ID to the one just returned is skipped.
+	 */
+	private static class MergingIterator implements Iterator<Project> {
+		private final PriorityQueue<Head> heads;
+		private Integer lastId;
+
+		MergingIterator(List<Iterator<Project>> sources, Comparator<Project> order) {
+			heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> order.compare(a.project, b.project));
+
+			for(Iterator<Project> source : sources) {
+				advance(source);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while(!heads.isEmpty() && heads.peek().project.getProjectId().equals(lastId)) {
+				advance(heads.poll().source);
+			}
+
+			return !heads.isEmpty();
+		}
+
+		@Override
+		public Project next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			Head head = heads.poll();
+			lastId = head.project.getProjectId();
+			advance(head.source);
+			return head.project;
+		}
+
+		private void advance(Iterator<Project> source) {
+			if(source.hasNext()) {
+				heads.add(new Head(source.next(), source));
+			}
+		}
+
+		private static class Head {
+			private final Project project;
+			private final Iterator<Project> source;
+
+			Head(Project project, Iterator<Project> source) {
+				this.project = project;
+				this.source = source;
+			}
+		}
+	}
+
+	/* One database and the DAO bound to it. */
+	private static class Shard {
+		private final ConnectionPool pool;
+		private final JdbcProjectDao dao;
+
+		Shard(ConnectionPool pool, JdbcProjectDao.KeyGenerator keys) {
+			this.pool = pool;
+			this.dao = new JdbcProjectDao(pool, keys);
+		}
+
+		/* The project_id of the child row found by sql, or null if this shard has none. */
+		Integer findOwner(String sql, int childId) {
+			try(Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+				stmt.setInt(1, childId);
+
+				try(ResultSet rs = stmt.executeQuery()) {
+					return rs.next() ? rs.getInt(1) : null;
+				}
+			}
+			catch(SQLException e) {
+				throw new DbException(e);
+			}
+		}
+
+		void deleteCategory(int categoryId) {
+			try(Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement(DELETE_CATEGORY_SQL)) {
+				stmt.setInt(1, categoryId);
+				stmt.executeUpdate();
+			}
+			catch(SQLException e) {
+				throw new DbException(e);
+			}
+		}
+	}
+
+	/*
+	 * The ID sequence of a table, kept on the first shard. Its first block starts above the largest ID
+	 * on any shard, not just the first: shards that already hold rows, copied in or left from another
+	 * layout, must not be handed their own IDs again.
+	 */
+	private class ShardSequence extends SequenceAllocator {
+		private final ConnectionPool first;
+
+		ShardSequence(String table, ConnectionPool first) {
+			super(table + "." + table + "_id",
+					"SELECT MAX(" + table + "_id) FROM " + table + " WHERE " + table + "_id > ?",
+					SequenceAllocator.DEFAULT_BLOCK_SIZE, first::getConnection);
+			this.first = first;
+		}
+
+		@Override
+		protected int readSeed(Connection conn, int parentId) throws SQLException {
+			int seed = super.readSeed(conn, parentId);
+
+			for(Shard shard : layout.shards) {
+				if(shard.pool != first) {
+					try(Connection other = shard.pool.getConnection()) {
+						seed = Math.max(seed, super.readSeed(other, parentId));
+					}
+				}
+			}
+
+			return seed;
+		}
+	}
+
+	/*
+	 * Where projects live. Without a growing shard, a project is on the shard it hashes to among all
+	 * of them. While addShard() fills the last shard, the growing one, a project is there if it was
+	 * moved or created there, and otherwise on the shard it hashes to among the others.
+	 */
+	private static class Layout {
+		private final List<Shard> shards;
+		private final Shard growing;
+		private final Set<Integer> moved = ConcurrentHashMap.newKeySet();
+
+		Layout(List<Shard> shards, Shard growing) {
+			this.shards = List.copyOf(shards);
+			this.growing = growing;
+		}
+
+		/* The shards projects hashed to before the growing one was added. */
+		int settledCount() {
+			return Objects.isNull(growing) ? shards.size() : shards.size() - 1;
+		}
+
+		/* The shard the project hashes to once every shard, growing or not, is counted. */
+		Shard target(int projectId) {
+			return shards.get(Hashing.consistentHash(projectId, shards.size()));
+		}
+
+		Shard shardOf(int projectId) {
+			if(Objects.nonNull(growing) && moved.contains(projectId)) {
+				return growing;
+			}
+
+			return shards.get(Hashing.consistentHash(projectId, settledCount()));
+		}
+
+		/* The shard for a new project, recorded as moved if that is the growing one. */
+		Shard place(int projectId) {
+			Shard shard = target(projectId);
+
+			if(shard == growing) {
+				moved.add(projectId);
+			}
+
+			return shard;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package projects.dao;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One statement captured by a SlowQueryLog: its SQL, the parameters bound to it, when it ran, how
+ * long it took and how many rows it returned or changed.
+ *
+ * For a query the time runs from the execute call until its result set is closed, so it includes
+ * reading the rows. For a batch the parameters are those of the last row added.
+ */
+public class SlowQuery {
+	private final String sql;
+	private final List<Object> parameters;
+	private final Instant startedAt;
+	private final long elapsedNanos;
+	private final long rows;
+	private final String threadName;
+
+	SlowQuery(String sql, Object[] parameters, Instant startedAt, long elapsedNanos, long rows,
+			String threadName) {
+		this.sql = sql;
+		this.parameters = Collections.unmodifiableList(Arrays.asList(parameters));
+		this.startedAt = startedAt;
+		this.elapsedNanos = elapsedNanos;
+		this.rows = rows;
+		this.threadName = threadName;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	/* The parameter values in placeholder order; unbound placeholders are null. */
+	public List<Object> getParameters() {
+		return parameters;
+	}
+
+	public Instant getStartedAt() {
+		return startedAt;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+	}
+
+	/*
+	 * Rows read from the result set, or the update count of an INSERT, UPDATE or DELETE. -1 if the
+	 * statement failed.
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	public String getThreadName() {
+		return threadName;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s [%s] %.3f ms, %d rows: %s %s", startedAt, threadName, elapsedNanos / 1e6,
+				rows, sql, parameters);
+	}
+}
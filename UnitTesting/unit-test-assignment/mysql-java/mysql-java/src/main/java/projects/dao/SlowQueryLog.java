@@ -0,0 +1,397 @@
+package projects.dao;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/*
+ * Records the statements that take at least a threshold to run, with their SQL, bound parameters,
+ * elapsed time and row count, so a slow call such as fetchProjectById can be traced to the query
+ * that made it slow.
+ *
+ * The log is off until a threshold is set. A ConnectionPool whose config carries the log wraps the
+ * statements it hands out while the log is on (see trace()), so the DAO code is unchanged and every
+ * parameter bound through DaoBase.setParameter() or directly on the statement is captured. While it
+ * is off, statements are handed out unwrapped and cost nothing extra.
+ *
+ * Slow statements go into a fixed-size ring buffer that keeps the most recent ones: recording is
+ * one atomic increment and one array write, with no lock. dump() copies the buffer. streamTo() also
+ * appends every slow statement to a rolling set of files; that write happens on the thread that ran
+ * the statement, which has just spent at least the threshold in the database anyway.
+ */
+public class SlowQueryLog {
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/* The threshold while the log is off. */
+	private static final long OFF = -1;
+
+	private static final Object[] NO_PARAMETERS = new Object[0];
+
+	private final AtomicReferenceArray<Slot> slots;
+	private final int mask;
+	private final AtomicLong written = new AtomicLong();
+
+	private volatile long thresholdNanos = OFF;
+	private volatile long clearedAt;
+	private volatile Handler sink;
+
+	/* Keeps the most recent capacity slow statements, rounded up to a power of two. */
+	public SlowQueryLog(int capacity) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+
+		int size = Integer.highestOneBit(capacity);
+
+		if(size < capacity) {
+			size <<= 1;
+		}
+
+		slots = new AtomicReferenceArray<>(size);
+		mask = size - 1;
+	}
+
+	/*
+	 * A log with the default capacity and the threshold, in milliseconds, of the system property
+	 * projects.slowQueryMillis. Without the property the log is off.
+	 */
+	public static SlowQueryLog fromSystemProperties() {
+		SlowQueryLog log = new SlowQueryLog(DEFAULT_CAPACITY);
+		Long millis = Long.getLong("projects.slowQueryMillis");
+
+		if(Objects.nonNull(millis)) {
+			log.setThreshold(millis, TimeUnit.MILLISECONDS);
+		}
+
+		return log;
+	}
+
+	public boolean isEnabled() {
+		return thresholdNanos != OFF;
+	}
+
+	/* Turns the log on. Statements taking at least the threshold are recorded; 0 records them all. */
+	public void setThreshold(long threshold, TimeUnit unit) {
+		if(threshold < 0) {
+			throw new IllegalArgumentException("Threshold must not be negative: " + threshold);
+		}
+
+		thresholdNanos = unit.toNanos(threshold);
+	}
+
+	/* Turns the log off. Statements already wrapped stop recording; the buffer is kept. */
+	public void disable() {
+		thresholdNanos = OFF;
+	}
+
+	public int getCapacity() {
+		return slots.length();
+	}
+
+	/* Slow statements recorded since the log was created, including those no longer buffered. */
+	public long getRecordedCount() {
+		return written.get();
+	}
+
+	/*
+	 * The buffered slow statements, oldest first. Entries overwritten while the copy is taken are
+	 * left out.
+	 */
+	public List<SlowQuery> dump() {
+		long end = written.get();
+		long begin = Math.max(clearedAt, end - slots.length());
+		List<SlowQuery> queries = new ArrayList<>((int)(end - begin));
+
+		for(long sequence = begin; sequence < end; sequence++) {
+			Slot slot = slots.get(slotOf(sequence));
+
+			if(Objects.nonNull(slot) && slot.sequence == sequence) {
+				queries.add(slot.query);
+			}
+		}
+
+		return queries;
+	}
+
+	/* Empties the buffer. The recorded count keeps counting. */
+	public void clear() {
+		clearedAt = written.get();
+	}
+
+	/*
+	 * Also appends each slow statement, one line each, to files named by the FileHandler pattern
+	 * (for example "logs/slow-queries-%g.log"). A file is rolled over after limitBytes, and count
+	 * files are kept. Replaces any earlier stream.
+	 */
+	public synchronized void streamTo(String pattern, int limitBytes, int count) throws IOException {
+		FileHandler handler = new FileHandler(pattern, limitBytes, count, true);
+
+		handler.setFormatter(new Formatter() {
+			@Override
+			public String format(LogRecord record) {
+				return record.getMessage() + System.lineSeparator();
+			}
+		});
+
+		stopStreaming();
+		sink = handler;
+	}
+
+	public synchronized void stopStreaming() {
+		Handler current = sink;
+		sink = null;
+
+		if(Objects.nonNull(current)) {
+			current.close();
+		}
+	}
+
+	/*
+	 * Wraps a statement so that its executions are timed and the slow ones recorded. The caller
+	 * uses and closes the wrapper like the statement itself.
+	 */
+	public PreparedStatement trace(PreparedStatement statement, String sql) {
+		return (PreparedStatement)Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] {PreparedStatement.class}, new TracingStatementHandler(statement, sql));
+	}
+
+	void record(String sql, Object[] parameters, Instant startedAt, long startNanos, long rows) {
+		long elapsed = System.nanoTime() - startNanos;
+		long threshold = thresholdNanos;
+
+		if(threshold == OFF || elapsed < threshold) {
+			return;
+		}
+
+		SlowQuery query = new SlowQuery(sql, parameters.clone(), startedAt, elapsed, rows,
+				Thread.currentThread().getName());
+		long sequence = written.getAndIncrement();
+
+		slots.set(slotOf(sequence), new Slot(sequence, query));
+
+		Handler current = sink;
+
+		if(Objects.nonNull(current)) {
+			current.publish(new LogRecord(Level.INFO, query.toString()));
+		}
+	}
+
+	private int slotOf(long sequence) {
+		return (int)(sequence & mask);
+	}
+
+	private static class Slot {
+		private final long sequence;
+		private final SlowQuery query;
+
+		Slot(long sequence, SlowQuery query) {
+			this.sequence = sequence;
+			this.query = query;
+		}
+	}
+
+	/*
+	 * Captures the parameters set on a statement and times its executions. A query is timed until
+	 * its result set (or, failing that, the statement) is closed, and counts the rows read. Updates
+	 * and batches are timed until they return and count the rows changed. A statement that throws is
+	 * recorded with -1 rows.
+	 *
+	 * A statement is used by one thread at a time, so the handler needs no locking.
+	 */
+	private class TracingStatementHandler implements InvocationHandler {
+		private final PreparedStatement statement;
+		private final String sql;
+		private Object[] parameters = NO_PARAMETERS;
+
+		/* The query whose result set is still open, if any. */
+		private boolean querying;
+		private Instant startedAt;
+		private long startNanos;
+		private long rows;
+
+		TracingStatementHandler(PreparedStatement statement, String sql) {
+			this.statement = statement;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+
+			if(method.getDeclaringClass() == PreparedStatement.class && name.startsWith("set")
+					&& Objects.nonNull(args) && args.length >= 2 && args[0] instanceof Integer) {
+				bind((Integer)args[0], name.equals("setNull") ? null : args[1]);
+			}
+
+			switch(name) {
+				case "clearParameters":
+					Arrays.fill(parameters, null);
+					break;
+
+				case "executeQuery":
+					return executeQuery(method, args);
+
+				case "executeUpdate":
+				case "executeLargeUpdate":
+				case "executeBatch":
+				case "executeLargeBatch":
+				case "execute":
+					return executeUpdate(method, args);
+
+				case "close":
+					endQuery();
+					break;
+
+				case "equals":
+					return proxy == args[0];
+
+				case "hashCode":
+					return System.identityHashCode(proxy);
+
+				case "toString":
+					return "Traced[" + statement + "]";
+
+				default:
+					break;
+			}
+
+			return forward(statement, method, args);
+		}
+
+		private void bind(int index, Object value) {
+			if(index < 1) {
+				return;
+			}
+
+			if(index > parameters.length) {
+				parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+			}
+
+			parameters[index - 1] = value;
+		}
+
+		private Object executeQuery(Method method, Object[] args) throws Throwable {
+			endQuery();
+			start();
+
+			ResultSet rs;
+
+			try {
+				rs = (ResultSet)forward(statement, method, args);
+			}
+			catch(Throwable e) {
+				record(sql, parameters, startedAt, startNanos, -1);
+				throw e;
+			}
+
+			querying = true;
+
+			return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+					(resultProxy, resultMethod, resultArgs) -> {
+						switch(resultMethod.getName()) {
+							case "next":
+								boolean more = (Boolean)forward(rs, resultMethod, resultArgs);
+
+								if(more) {
+									rows++;
+								}
+
+								return more;
+
+							case "close":
+								Object result = forward(rs, resultMethod, resultArgs);
+								endQuery();
+								return result;
+
+							case "equals":
+								return resultProxy == resultArgs[0];
+
+							case "hashCode":
+								return System.identityHashCode(resultProxy);
+
+							default:
+								return forward(rs, resultMethod, resultArgs);
+						}
+					});
+		}
+
+		private Object executeUpdate(Method method, Object[] args) throws Throwable {
+			endQuery();
+			start();
+
+			Object result;
+
+			try {
+				result = forward(statement, method, args);
+			}
+			catch(Throwable e) {
+				record(sql, parameters, startedAt, startNanos, -1);
+				throw e;
+			}
+
+			record(sql, parameters, startedAt, startNanos, rowsChanged(result));
+			return result;
+		}
+
+		private void start() {
+			startedAt = Instant.now();
+			startNanos = System.nanoTime();
+			rows = 0;
+		}
+
+		private void endQuery() {
+			if(querying) {
+				querying = false;
+				record(sql, parameters, startedAt, startNanos, rows);
+			}
+		}
+
+		/* The update count of executeUpdate(), the sum of a batch, or 0 for execute(). */
+		private long rowsChanged(Object result) {
+			if(result instanceof Number) {
+				return ((Number)result).longValue();
+			}
+
+			long changed = 0;
+
+			if(result instanceof int[]) {
+				for(int count : (int[])result) {
+					changed += Math.max(count, 0);
+				}
+			}
+			else if(result instanceof long[]) {
+				for(long count : (long[])result) {
+					changed += Math.max(count, 0);
+				}
+			}
+
+			return changed;
+		}
+	}
+
+	private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch(InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,331 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * The prepared statements of one physical connection, kept open between uses so that a query run
+ * again on the same connection skips the prepare (parse and plan) step. ConnectionPool creates one
+ * per connection and routes the prepareStatement() calls of its connection proxy here, so DAO code
+ * keeps preparing and closing statements as usual.
+ *
+ * Statements are keyed by SQL plus the prepare options, and the cache holds at most maxSize of
+ * them, evicting the least recently used. Closing a statement handed out by the cache clears its
+ * parameters and batch, restores the fetch size, max rows and query timeout it was prepared with,
+ * and puts it back, so settings made for one use - a streaming fetch size, say - do not carry over. If the same statement is still open when it is asked for
+ * again (nested use of one query), the second caller gets an uncached statement.
+ *
+ * A connection is used by one borrower at a time, so there is little contention; the methods are
+ * synchronized because the pool also reclaims statements when the connection comes back.
+ */
+class StatementCache {
+	private final Connection connection;
+	private final int maxSize;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+	private final AtomicLong evictions;
+
+	/* Access-ordered: iteration starts at the least recently used statement. */
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	StatementCache(Connection connection, int maxSize, AtomicLong hits, AtomicLong misses,
+			AtomicLong evictions) {
+		this.connection = connection;
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+	}
+
+	/*
+	 * Handles Connection.prepareStatement(sql), (sql, autoGeneratedKeys) and (sql, resultSetType,
+	 * resultSetConcurrency). Returns null for the other overloads, which the caller runs uncached.
+	 */
+	PreparedStatement prepare(Connection owner, Object[] args) throws SQLException {
+		Key key;
+
+		switch(args.length) {
+			case 1:
+				key = new Key((String)args[0], Statement.NO_GENERATED_KEYS, ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY);
+				break;
+
+			case 2:
+				if(!(args[1] instanceof Integer)) {
+					return null;
+				}
+
+				key = new Key((String)args[0], (Integer)args[1], ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY);
+				break;
+
+			case 3:
+				key = new Key((String)args[0], Statement.NO_GENERATED_KEYS, (Integer)args[1], (Integer)args[2]);
+				break;
+
+			default:
+				return null;
+		}
+
+		Entry entry = checkOut(key);
+
+		if(Objects.isNull(entry)) {
+			return null;
+		}
+
+		return (PreparedStatement)Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] {PreparedStatement.class}, new CachedStatementHandler(owner, entry));
+	}
+
+	/*
+	 * Called when the connection goes back to the pool. Statements the borrower left open are
+	 * closed and dropped, since they may still have a result set open.
+	 */
+	synchronized void reclaim() {
+		for(Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+			Entry entry = it.next();
+
+			if(entry.inUse) {
+				it.remove();
+				entry.inUse = false;
+				entry.removed = true;
+				closeQuietly(entry.statement);
+			}
+		}
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	/* Returns the cached statement marked in use, or null if it is already in use. */
+	private synchronized Entry checkOut(Key key) throws SQLException {
+		Entry entry = entries.get(key);
+
+		if(Objects.nonNull(entry)) {
+			if(entry.inUse) {
+				misses.incrementAndGet();
+				return null;
+			}
+
+			hits.incrementAndGet();
+			entry.inUse = true;
+			return entry;
+		}
+
+		misses.incrementAndGet();
+		PreparedStatement statement = prepare(key);
+
+		try {
+			entry = new Entry(statement);
+		}
+		catch(SQLException e) {
+			closeQuietly(statement);
+			throw e;
+		}
+
+		entry.inUse = true;
+		entries.put(key, entry);
+		evictOverflow();
+
+		return entry;
+	}
+
+	private PreparedStatement prepare(Key key) throws SQLException {
+		if(key.resultSetType != ResultSet.TYPE_FORWARD_ONLY
+				|| key.resultSetConcurrency != ResultSet.CONCUR_READ_ONLY) {
+			return connection.prepareStatement(key.sql, key.resultSetType, key.resultSetConcurrency);
+		}
+
+		return connection.prepareStatement(key.sql, key.autoGeneratedKeys);
+	}
+
+	/* Drops the least recently used statements that are not in use until the cache fits. */
+	private void evictOverflow() {
+		for(Iterator<Entry> it = entries.values().iterator(); it.hasNext() && entries.size() > maxSize;) {
+			Entry entry = it.next();
+
+			if(!entry.inUse) {
+				it.remove();
+				entry.removed = true;
+				evictions.incrementAndGet();
+				closeQuietly(entry.statement);
+			}
+		}
+	}
+
+	private synchronized void checkIn(Entry entry) {
+		if(entry.removed) {
+			return;
+		}
+
+		boolean reusable;
+
+		try {
+			entry.statement.clearParameters();
+			entry.statement.clearBatch();
+			entry.statement.clearWarnings();
+			entry.restoreSettings();
+			reusable = true;
+		}
+		catch(SQLException e) {
+			reusable = false;
+		}
+
+		entry.inUse = false;
+
+		if(reusable) {
+			evictOverflow();
+		}
+		else {
+			entries.values().remove(entry);
+			entry.removed = true;
+			closeQuietly(entry.statement);
+		}
+	}
+
+	private static void closeQuietly(Statement stmt) {
+		try {
+			stmt.close();
+		}
+		catch(SQLException e) {
+			/* The statement is being thrown away. There is nothing useful to do with the error. */
+		}
+	}
+
+	private static class Key {
+		private final String sql;
+		private final int autoGeneratedKeys;
+		private final int resultSetType;
+		private final int resultSetConcurrency;
+		private final int hash;
+
+		Key(String sql, int autoGeneratedKeys, int resultSetType, int resultSetConcurrency) {
+			this.sql = sql;
+			this.autoGeneratedKeys = autoGeneratedKeys;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+			this.hash = 31 * (31 * (31 * sql.hashCode() + autoGeneratedKeys) + resultSetType)
+					+ resultSetConcurrency;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(this == other) {
+				return true;
+			}
+
+			if(!(other instanceof Key)) {
+				return false;
+			}
+
+			Key key = (Key)other;
+			return autoGeneratedKeys == key.autoGeneratedKeys && resultSetType == key.resultSetType
+					&& resultSetConcurrency == key.resultSetConcurrency && sql.equals(key.sql);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private static class Entry {
+		private final PreparedStatement statement;
+		private final int fetchSize;
+		private final int maxRows;
+		private final int queryTimeout;
+		private boolean inUse;
+		private boolean removed;
+
+		/* Notes the statement's settings as prepared, which restoreSettings() goes back to. */
+		Entry(PreparedStatement statement) throws SQLException {
+			this.statement = statement;
+			this.fetchSize = statement.getFetchSize();
+			this.maxRows = statement.getMaxRows();
+			this.queryTimeout = statement.getQueryTimeout();
+		}
+
+		/* Max rows first: a driver may refuse a fetch size above the max rows still set. */
+		void restoreSettings() throws SQLException {
+			if(statement.getMaxRows() != maxRows) {
+				statement.setMaxRows(maxRows);
+			}
+
+			if(statement.getFetchSize() != fetchSize) {
+				statement.setFetchSize(fetchSize);
+			}
+
+			if(statement.getQueryTimeout() != queryTimeout) {
+				statement.setQueryTimeout(queryTimeout);
+			}
+		}
+	}
+
+	/*
+	 * Forwards every call to the cached statement except close(), which puts it back in the cache.
+	 * After close() the handle refuses further use, like a closed statement would.
+	 */
+	private class CachedStatementHandler implements InvocationHandler {
+		private final Connection owner;
+		private final Entry entry;
+		private boolean closed;
+
+		CachedStatementHandler(Connection owner, Entry entry) {
+			this.owner = owner;
+			this.entry = entry;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch(method.getName()) {
+				case "close":
+					if(!closed) {
+						closed = true;
+						checkIn(entry);
+					}
+					return null;
+
+				case "isClosed":
+					return closed || entry.statement.isClosed();
+
+				case "getConnection":
+					return owner;
+
+				case "equals":
+					return proxy == args[0];
+
+				case "hashCode":
+					return System.identityHashCode(proxy);
+
+				case "toString":
+					return "Cached[" + entry.statement + "]";
+
+				default:
+					break;
+			}
+
+			if(closed) {
+				throw new SQLException("The statement has been closed.");
+			}
+
+			try {
+				return method.invoke(entry.statement, args);
+			}
+			catch(InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
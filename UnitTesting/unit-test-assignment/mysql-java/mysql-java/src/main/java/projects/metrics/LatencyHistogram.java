@@ -0,0 +1,110 @@
+package projects.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * A concurrent latency histogram in the style of HdrHistogram: values (nanoseconds) are counted in
+ * log-linear buckets, 32 per power of two, so any recorded value is known to within about 3% and
+ * the whole range of a long fits in a fixed array of under 2,000 counters. Recording is a few
+ * shifts and one atomic increment, with no allocation and no lock.
+ *
+ * Values below 32 get a bucket each. Above that, a value is bucketed by its highest set bit plus
+ * the five bits below it.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/* Records one value. Negative values count as zero. */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+
+		counts.incrementAndGet(bucketOf(value));
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/*
+	 * Copies the counters. Values recorded while the copy is taken may be in some of the totals and
+	 * not others.
+	 */
+	public LatencySnapshot snapshot() {
+		long[] copy = new long[BUCKETS];
+		long total = 0;
+
+		for(int bucket = 0; bucket < BUCKETS; bucket++) {
+			copy[bucket] = counts.get(bucket);
+			total += copy[bucket];
+		}
+
+		long highest = max.get();
+
+		return new LatencySnapshot(count.sum(), total == 0 ? 0 : sum.sum() / (double)total,
+				valueAt(copy, total, 0.50, highest), valueAt(copy, total, 0.90, highest),
+				valueAt(copy, total, 0.99, highest), valueAt(copy, total, 0.999, highest), highest);
+	}
+
+	public void reset() {
+		for(int bucket = 0; bucket < BUCKETS; bucket++) {
+			counts.set(bucket, 0);
+		}
+
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	static int bucketOf(long value) {
+		if(value < SUB_BUCKETS) {
+			return (int)value;
+		}
+
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		int shift = highestBit - SUB_BUCKET_BITS;
+		int subBucket = (int)(value >>> shift) & (SUB_BUCKETS - 1);
+
+		return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+	}
+
+	/* The largest value that falls in the bucket. */
+	static long highestValueIn(int bucket) {
+		if(bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+
+		int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+		long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+		long lowest = (1L << (shift + SUB_BUCKET_BITS)) | (subBucket << shift);
+
+		return lowest + (1L << shift) - 1;
+	}
+
+	/* The value at the quantile, reported as the top of its bucket but never above the maximum. */
+	private static long valueAt(long[] counts, long total, double quantile, long highest) {
+		if(total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long)Math.ceil(quantile * total));
+		long seen = 0;
+
+		for(int bucket = 0; bucket < counts.length; bucket++) {
+			seen += counts[bucket];
+
+			if(seen >= rank) {
+				return Math.min(highestValueIn(bucket), highest);
+			}
+		}
+
+		return highest;
+	}
+}
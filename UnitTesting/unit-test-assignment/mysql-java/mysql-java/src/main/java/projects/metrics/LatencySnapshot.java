@@ -0,0 +1,63 @@
+package projects.metrics;
+
+/*
+ * The state of a LatencyHistogram at one point in time. Latencies are kept in nanoseconds and
+ * reported in microseconds, which read better in logs and JMX consoles.
+ */
+public class LatencySnapshot {
+	private final long count;
+	private final double mean;
+	private final long p50;
+	private final long p90;
+	private final long p99;
+	private final long p999;
+	private final long max;
+
+	LatencySnapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+		this.count = count;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.p999 = p999;
+		this.max = max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMeanMicros() {
+		return mean / 1_000;
+	}
+
+	public double getP50Micros() {
+		return micros(p50);
+	}
+
+	public double getP90Micros() {
+		return micros(p90);
+	}
+
+	public double getP99Micros() {
+		return micros(p99);
+	}
+
+	public double getP999Micros() {
+		return micros(p999);
+	}
+
+	public double getMaxMicros() {
+		return micros(max);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus", count,
+				getMeanMicros(), getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+	}
+
+	private static double micros(long nanos) {
+		return nanos / 1_000.0;
+	}
+}
@@ -0,0 +1,70 @@
+package projects.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+ * Logs ProjectMetrics every period to the java.util.logging logger "projects.metrics", at INFO:
+ * one line per operation that was called during the period, with the calls and rows of the period
+ * and the latency percentiles since the start (or the last reset), then the rows mapped per second
+ * over the period. Runs on a daemon thread until closed.
+ */
+public class MetricsReporter implements AutoCloseable {
+	private static final Logger LOGGER = Logger.getLogger("projects.metrics");
+
+	private final ScheduledExecutorService scheduler;
+	private final Map<String, OperationSnapshot> previous = new HashMap<>();
+	private long previousRows = ProjectMetrics.getRowsMapped();
+	private long previousNanos = System.nanoTime();
+
+	public MetricsReporter(long period, TimeUnit unit) {
+		scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "metrics-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		scheduler.scheduleAtFixedRate(this::report, period, period, unit);
+	}
+
+	/* Logs one report now. Reports are also logged on the schedule. */
+	public synchronized void report() {
+		try {
+			for(OperationSnapshot current : ProjectMetrics.snapshot().values()) {
+				OperationSnapshot before = previous.put(current.getName(), current);
+				long calls = current.getCount() - (before == null ? 0 : before.getCount());
+
+				if(calls > 0) {
+					long rows = current.getRows() - (before == null ? 0 : before.getRows());
+					long errors = current.getErrors() - (before == null ? 0 : before.getErrors());
+
+					LOGGER.info(String.format("%s: calls=%d errors=%d rows=%d | %s", current.getName(), calls, errors,
+							rows, current.getLatency()));
+				}
+			}
+
+			long now = System.nanoTime();
+			long rows = ProjectMetrics.getRowsMapped();
+
+			LOGGER.info(String.format("rows mapped: %d (%.0f/s)", rows - previousRows,
+					(rows - previousRows) * 1e9 / Math.max(1, now - previousNanos)));
+
+			previousRows = rows;
+			previousNanos = now;
+		}
+		catch(RuntimeException e) {
+			/* A failed report must not cancel the schedule. */
+			LOGGER.log(Level.WARNING, "Unable to report metrics", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+}
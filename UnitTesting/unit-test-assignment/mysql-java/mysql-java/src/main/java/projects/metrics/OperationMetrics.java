@@ -0,0 +1,55 @@
+package projects.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Call count, latency, failures and rows for one instrumented operation. Callers take a start time
+ * from ProjectMetrics.start() and pass it back when the call ends; while metrics are off the start
+ * time is ProjectMetrics.OFF and recording does nothing.
+ */
+public class OperationMetrics {
+	private final String name;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+
+	OperationMetrics(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void record(long startNanos) {
+		if(startNanos != ProjectMetrics.OFF) {
+			latency.record(System.nanoTime() - startNanos);
+		}
+	}
+
+	/* Records a call that returned the given number of rows. */
+	public void record(long startNanos, int rowCount) {
+		if(startNanos != ProjectMetrics.OFF) {
+			latency.record(System.nanoTime() - startNanos);
+			rows.add(rowCount);
+		}
+	}
+
+	/* Records a call that ended with an exception. Its latency counts like any other. */
+	public void recordError(long startNanos) {
+		if(startNanos != ProjectMetrics.OFF) {
+			latency.record(System.nanoTime() - startNanos);
+			errors.increment();
+		}
+	}
+
+	public OperationSnapshot snapshot() {
+		return new OperationSnapshot(name, latency.snapshot(), errors.sum(), rows.sum());
+	}
+
+	void reset() {
+		latency.reset();
+		errors.reset();
+		rows.reset();
+	}
+}
@@ -0,0 +1,42 @@
+package projects.metrics;
+
+/* The metrics of one operation at one point in time; see OperationMetrics. */
+public class OperationSnapshot {
+	private final String name;
+	private final LatencySnapshot latency;
+	private final long errors;
+	private final long rows;
+
+	OperationSnapshot(String name, LatencySnapshot latency, long errors, long rows) {
+		this.name = name;
+		this.latency = latency;
+		this.errors = errors;
+		this.rows = rows;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCount() {
+		return latency.getCount();
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	/* Rows returned by the calls, for the operations that return rows. */
+	public long getRows() {
+		return rows;
+	}
+
+	public LatencySnapshot getLatency() {
+		return latency;
+	}
+
+	@Override
+	public String toString() {
+		return name + ": " + latency + " errors=" + errors + " rows=" + rows;
+	}
+}
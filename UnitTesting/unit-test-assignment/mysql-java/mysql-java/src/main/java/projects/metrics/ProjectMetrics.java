@@ -0,0 +1,136 @@
+package projects.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+ * The process-wide metrics of the DAO and service layers: one OperationMetrics per instrumented
+ * operation (InstrumentedProjectDao methods, DaoBase.extract(), connection borrows) and a count of
+ * rows mapped onto entities.
+ *
+ * Metrics are off unless the system property projects.metrics is true or setEnabled(true) is
+ * called. While they are off, an instrumented call costs one volatile read. While they are on, it
+ * adds two System.nanoTime() calls and a few atomic increments, well under 1% of a query that goes
+ * to the database.
+ *
+ * The numbers are read through snapshot(), the MXBean registered by registerMBean(), or a
+ * MetricsReporter that logs them periodically.
+ */
+public final class ProjectMetrics {
+	/* The start time handed out while metrics are off. */
+	public static final long OFF = Long.MIN_VALUE;
+
+	public static final String CONNECTION_WAIT = "pool.getConnection";
+	public static final String EXTRACT = "DaoBase.extract";
+
+	private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+	private static volatile boolean enabled = Boolean.getBoolean("projects.metrics");
+
+	private static final Map<String, OperationMetrics> OPERATIONS = new ConcurrentHashMap<>();
+	private static final LongAdder ROWS_MAPPED = new LongAdder();
+
+	/* The rows-per-second window, advanced when the rate is read. */
+	private static long windowStartNanos = System.nanoTime();
+	private static long windowStartRows;
+	private static double rowsPerSecond;
+
+	private ProjectMetrics() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	/* The start time of a call to be recorded, or OFF if metrics are off. */
+	public static long start() {
+		return enabled ? System.nanoTime() : OFF;
+	}
+
+	/* The metrics of the named operation, created on first use. Look them up once and keep them. */
+	public static OperationMetrics operation(String name) {
+		return OPERATIONS.computeIfAbsent(name, OperationMetrics::new);
+	}
+
+	/* Counts one row mapped onto an entity. Called per row, so it only touches a striped counter. */
+	public static void rowMapped() {
+		if(enabled) {
+			ROWS_MAPPED.increment();
+		}
+	}
+
+	public static long getRowsMapped() {
+		return ROWS_MAPPED.sum();
+	}
+
+	/*
+	 * Rows mapped per second over the last window of at least five seconds. The window moves when
+	 * the rate is read, so the first read after a quiet period covers the whole period.
+	 */
+	public static synchronized double getRowsMappedPerSecond() {
+		long now = System.nanoTime();
+		long elapsed = now - windowStartNanos;
+
+		if(elapsed >= RATE_WINDOW_NANOS) {
+			long rows = ROWS_MAPPED.sum();
+
+			rowsPerSecond = (rows - windowStartRows) * 1e9 / elapsed;
+			windowStartNanos = now;
+			windowStartRows = rows;
+		}
+
+		return rowsPerSecond;
+	}
+
+	/* Every operation recorded so far, by name. */
+	public static Map<String, OperationSnapshot> snapshot() {
+		Map<String, OperationSnapshot> snapshots = new TreeMap<>();
+
+		for(OperationMetrics metrics : OPERATIONS.values()) {
+			snapshots.put(metrics.getName(), metrics.snapshot());
+		}
+
+		return snapshots;
+	}
+
+	/* Clears every counter. Operations stay registered. */
+	public static synchronized void reset() {
+		OPERATIONS.values().forEach(OperationMetrics::reset);
+		ROWS_MAPPED.reset();
+
+		windowStartNanos = System.nanoTime();
+		windowStartRows = 0;
+		rowsPerSecond = 0;
+	}
+
+	/*
+	 * Registers the metrics with the platform MBean server as projects:type=ProjectMetrics. Calling
+	 * it again does nothing.
+	 */
+	public static synchronized ObjectName registerMBean() {
+		try {
+			ObjectName name = new ObjectName(ProjectMetricsMXBean.OBJECT_NAME);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+			if(!server.isRegistered(name)) {
+				server.registerMBean(new ProjectMetricsBean(), name);
+			}
+
+			return name;
+		}
+		catch(JMException e) {
+			throw new IllegalStateException("Unable to register the project metrics MBean", e);
+		}
+	}
+}
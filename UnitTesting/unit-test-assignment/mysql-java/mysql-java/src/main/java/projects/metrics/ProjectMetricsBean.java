@@ -0,0 +1,42 @@
+package projects.metrics;
+
+import java.util.Map;
+
+/* The MXBean registered by ProjectMetrics.registerMBean(). */
+class ProjectMetricsBean implements ProjectMetricsMXBean {
+
+	@Override
+	public boolean isEnabled() {
+		return ProjectMetrics.isEnabled();
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		ProjectMetrics.setEnabled(enabled);
+	}
+
+	@Override
+	public Map<String, OperationSnapshot> getOperations() {
+		return ProjectMetrics.snapshot();
+	}
+
+	@Override
+	public LatencySnapshot getConnectionWait() {
+		return ProjectMetrics.operation(ProjectMetrics.CONNECTION_WAIT).snapshot().getLatency();
+	}
+
+	@Override
+	public long getRowsMapped() {
+		return ProjectMetrics.getRowsMapped();
+	}
+
+	@Override
+	public double getRowsMappedPerSecond() {
+		return ProjectMetrics.getRowsMappedPerSecond();
+	}
+
+	@Override
+	public void reset() {
+		ProjectMetrics.reset();
+	}
+}
@@ -0,0 +1,25 @@
+package projects.metrics;
+
+import java.util.Map;
+
+/*
+ * JMX view of ProjectMetrics. Each operation appears in Operations with its call count, errors,
+ * rows and latency percentiles in microseconds.
+ */
+public interface ProjectMetricsMXBean {
+	String OBJECT_NAME = "projects:type=ProjectMetrics";
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	Map<String, OperationSnapshot> getOperations();
+
+	LatencySnapshot getConnectionWait();
+
+	long getRowsMapped();
+
+	double getRowsMappedPerSecond();
+
+	void reset();
+}
@@ -0,0 +1,131 @@
+package projects.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import projects.entity.Project;
+
+/*
+ * Non-blocking facade over ProjectService. Each method starts the call on a ProjectRequestExecutor
+ * and returns at once with a CompletableFuture, so a caller can overlap several database round
+ * trips and combine the results with the CompletableFuture methods.
+ *
+ * Failures complete the future exceptionally with the exception ProjectService would have thrown
+ * (DbException, NoSuchElementException, ...), wrapped in a CompletionException by join().
+ *
+ * Dependent stages added with the plain methods (thenApply, thenCompose, ...) run on the thread
+ * that completes the previous stage, which is one of the executor's threads. Stages added with the
+ * *Async methods and no executor run on the common fork/join pool; pass executor() to keep
+ * database work on the bounded executor. Starting a new call from inside a stage is fine, but
+ * blocking there on another call's result can use up the executor's concurrency.
+ */
+public class AsyncProjectService implements AutoCloseable {
+	private final ProjectService projectService;
+	private final ProjectRequestExecutor executor;
+	private final boolean ownsExecutor;
+
+	/* Runs on a new ProjectRequestExecutor sized from the shared connection pool. */
+	public AsyncProjectService(ProjectService projectService) {
+		this(projectService, new ProjectRequestExecutor(projectService), true);
+	}
+
+	/* Runs on the given executor, which stays open when this service is closed. */
+	public AsyncProjectService(ProjectService projectService, ProjectRequestExecutor executor) {
+		this(projectService, executor, false);
+	}
+
+	private AsyncProjectService(ProjectService projectService, ProjectRequestExecutor executor,
+			boolean ownsExecutor) {
+		this.projectService = projectService;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	public CompletableFuture<Project> addProjectAsync(Project project) {
+		return call(() -> projectService.addProject(project));
+	}
+
+	public CompletableFuture<List<Project>> addProjectsAsync(Collection<Project> projects) {
+		return call(() -> projectService.addProjects(projects));
+	}
+
+	public CompletableFuture<List<Project>> fetchAllProjectsAsync() {
+		return call(projectService::fetchAllProjects);
+	}
+
+	public CompletableFuture<ProjectPage> fetchProjectPageAsync(String continuationToken, int pageSize) {
+		return call(() -> projectService.fetchProjectPage(continuationToken, pageSize));
+	}
+
+	public CompletableFuture<Project> fetchProjectByIdAsync(Integer projectId) {
+		return call(() -> projectService.fetchProjectById(projectId));
+	}
+
+	/*
+	 * Fetches each project with its details as a separate call, all in parallel, and completes with
+	 * the projects in the order of the IDs once every call has finished. If any call fails the
+	 * result fails with that call's exception.
+	 *
+	 * For large lists ProjectService.fetchProjectsWithDetails(), which uses a few bulk queries, is
+	 * usually cheaper; see fetchProjectsWithDetailsAsync().
+	 */
+	public CompletableFuture<List<Project>> fetchProjectsByIdAsync(Collection<Integer> projectIds) {
+		List<CompletableFuture<Project>> fetches = new ArrayList<>(projectIds.size());
+
+		for(Integer projectId : projectIds) {
+			fetches.add(fetchProjectByIdAsync(projectId));
+		}
+
+		return CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+			List<Project> projects = new ArrayList<>(fetches.size());
+			fetches.forEach(fetch -> projects.add(fetch.join()));
+			return projects;
+		});
+	}
+
+	public CompletableFuture<List<Project>> fetchProjectsWithDetailsAsync(Collection<Integer> projectIds) {
+		return call(() -> projectService.fetchProjectsWithDetails(projectIds));
+	}
+
+	public CompletableFuture<Void> modifyProjectDetailsAsync(Project project) {
+		return run(() -> projectService.modifyProjectDetails(project));
+	}
+
+	public CompletableFuture<Void> deleteProjectAsync(Integer projectId) {
+		return run(() -> projectService.deleteProject(projectId));
+	}
+
+	/* The executor the calls run on, for use with the *Async methods of CompletableFuture. */
+	public Executor executor() {
+		return executor;
+	}
+
+	/* Waits for outstanding calls and shuts the executor down if this service created it. */
+	@Override
+	public void close() {
+		if(ownsExecutor) {
+			executor.close();
+		}
+	}
+
+	private <T> CompletableFuture<T> call(Supplier<T> request) {
+		try {
+			return CompletableFuture.supplyAsync(request, executor);
+		}
+		catch(RejectedExecutionException e) {
+			/* No request slot came free in time: report it through the future like any other failure. */
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private CompletableFuture<Void> run(Runnable request) {
+		return call(() -> {
+			request.run();
+			return null;
+		});
+	}
+}
@@ -0,0 +1,109 @@
+package projects.service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import projects.entity.Project;
+
+/*
+ * Read-through cache of fully loaded projects (with materials, steps and categories), keyed by
+ * project ID. It is bounded by weight - one unit for the project plus one per child row - and
+ * evicts the least recently used projects first. Entries can also expire a fixed time after they
+ * were loaded.
+ *
+ * Cached projects are shared between callers and must be treated as read-only. Writes go through
+ * ProjectService, which invalidates the entry.
+ */
+public class ProjectCache {
+	public static final long DEFAULT_MAXIMUM_WEIGHT = 10_000;
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+	private final Cache<Integer, Project> cache;
+
+	/*
+	 * Bumped by every invalidation. A load that started before an invalidation does not store its
+	 * result, since it may have read the row before the write that caused the invalidation. put()
+	 * and the invalidate methods synchronize so the check and the store cannot interleave with one.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	public ProjectCache() {
+		this(DEFAULT_MAXIMUM_WEIGHT, DEFAULT_TIME_TO_LIVE);
+	}
+
+	/* A null or zero time to live means entries only leave the cache by eviction or invalidation. */
+	public ProjectCache(long maximumWeight, Duration timeToLive) {
+		CacheBuilder<Integer, Project> builder = CacheBuilder.newBuilder()
+				.maximumWeight(maximumWeight)
+				.weigher((Integer id, Project project) -> 1 + project.getMaterials().size()
+						+ project.getSteps().size() + project.getCategories().size())
+				.recordStats();
+
+		if(Objects.nonNull(timeToLive) && !timeToLive.isZero()) {
+			builder.expireAfterWrite(timeToLive);
+		}
+
+		cache = builder.build();
+	}
+
+	/* A cache that never holds anything; every lookup goes to the loader. */
+	public static ProjectCache disabled() {
+		return new ProjectCache(0, null);
+	}
+
+	/* Returns the cached project, or loads it and caches it if it exists. */
+	public Optional<Project> get(Integer projectId, Function<Integer, Optional<Project>> loader) {
+		Project project = cache.getIfPresent(projectId);
+
+		if(Objects.nonNull(project)) {
+			return Optional.of(project);
+		}
+
+		long loadGeneration = generation.get();
+		Optional<Project> loaded = loader.apply(projectId);
+
+		loaded.ifPresent(value -> put(value, loadGeneration));
+		return loaded;
+	}
+
+	/* Returns the cached project without loading it, counting a hit or a miss. */
+	public Project getIfPresent(Integer projectId) {
+		return cache.getIfPresent(projectId);
+	}
+
+	/* The generation to pass to put() for a load that is about to start. */
+	public long currentGeneration() {
+		return generation.get();
+	}
+
+	/* Caches a loaded project unless there has been an invalidation since the load started. */
+	public synchronized void put(Project project, long loadGeneration) {
+		if(generation.get() == loadGeneration) {
+			cache.put(project.getProjectId(), project);
+		}
+	}
+
+	public synchronized void invalidate(Integer projectId) {
+		generation.incrementAndGet();
+		cache.invalidate(projectId);
+	}
+
+	public synchronized void invalidateAll() {
+		generation.incrementAndGet();
+		cache.invalidateAll();
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	/* Hit, miss and eviction counts since the cache was created. */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+}
@@ -0,0 +1,59 @@
+package projects.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import projects.entity.Project;
+
+/*
+ * One page of a keyset-paginated project listing. The continuation token encodes the sort key
+ * (project name and ID) of the last project on the page; passing it back fetches the projects that
+ * sort after it. The token is null on the last page.
+ */
+public class ProjectPage {
+	private final List<Project> projects;
+	private final String continuationToken;
+
+	ProjectPage(List<Project> projects, String continuationToken) {
+		this.projects = projects;
+		this.continuationToken = continuationToken;
+	}
+
+	public List<Project> getProjects() {
+		return projects;
+	}
+
+	public String getContinuationToken() {
+		return continuationToken;
+	}
+
+	public boolean hasNextPage() {
+		return Objects.nonNull(continuationToken);
+	}
+
+	static String encodeToken(Project last) {
+		String key = last.getProjectId() + ":" + last.getProjectName();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/* The sort key of the last project on a page, as carried by its continuation token. */
+	record Key(Integer projectId, String projectName) {}
+
+	static Key decodeToken(String token) {
+		try {
+			String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int colon = key.indexOf(':');
+
+			return new Key(Integer.valueOf(key.substring(0, colon)), key.substring(colon + 1));
+		}
+		catch(IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "projects=" + projects.size() + ", continuationToken=" + continuationToken;
+	}
+}
@@ -0,0 +1,264 @@
+package projects.service;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import projects.dao.DbConnection;
+import projects.dao.ReplicaRouter;
+import projects.entity.Project;
+
+/*
+ * Runs ProjectService calls concurrently, one task per request.
+ *
+ * On Java 21 and later each task gets its own virtual thread, so hundreds of requests can be in
+ * flight without hundreds of platform threads. On older runtimes, or when virtual threads are
+ * turned off, a fixed pool of platform threads the size of the concurrency limit runs the tasks.
+ *
+ * Two limits apply:
+ * - Concurrency: at most maxConcurrent tasks run service code at once. This is meant to match the
+ *   connection pool, so a task that starts always finds a connection instead of waiting in the
+ *   pool and failing with its borrow timeout. Tasks over the limit park on a semaphore.
+ * - Admission: at most maxPending tasks may be submitted and not yet finished. Past that,
+ *   execute() and the submit methods block the caller until a task finishes, or throw
+ *   RejectedExecutionException after the admission timeout.
+ */
+public class ProjectRequestExecutor implements Executor, AutoCloseable {
+	public static final int DEFAULT_PENDING_PER_CONNECTION = 32;
+	public static final long DEFAULT_ADMISSION_TIMEOUT_MILLIS = 30_000;
+
+	private final ProjectService projectService;
+	private final ExecutorService executor;
+	private final boolean virtualThreads;
+	private final int maxConcurrent;
+	private final int maxPending;
+	private final long admissionTimeoutMillis;
+	private final Semaphore running;
+	private final Semaphore admitted;
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger peakActive = new AtomicInteger();
+
+	/*
+	 * Sizes the executor from the shared connection pool: one running task per connection and
+	 * DEFAULT_PENDING_PER_CONNECTION admitted tasks per connection. Uses virtual threads when the
+	 * runtime has them.
+	 */
+	public ProjectRequestExecutor(ProjectService projectService) {
+		this(projectService, DbConnection.getPool().getMaxSize(),
+				DbConnection.getPool().getMaxSize() * DEFAULT_PENDING_PER_CONNECTION, true,
+				DEFAULT_ADMISSION_TIMEOUT_MILLIS);
+	}
+
+	public ProjectRequestExecutor(ProjectService projectService, int maxConcurrent, int maxPending,
+			boolean useVirtualThreads, long admissionTimeoutMillis) {
+		if(maxConcurrent < 1 || maxPending < maxConcurrent) {
+			throw new IllegalArgumentException(
+					"Need 1 <= maxConcurrent <= maxPending, got " + maxConcurrent + " and " + maxPending);
+		}
+
+		this.projectService = projectService;
+		this.maxConcurrent = maxConcurrent;
+		this.maxPending = maxPending;
+		this.admissionTimeoutMillis = admissionTimeoutMillis;
+		this.running = new Semaphore(maxConcurrent, true);
+		this.admitted = new Semaphore(maxPending, true);
+
+		ExecutorService virtual = useVirtualThreads ? newVirtualThreadExecutor() : null;
+		this.virtualThreads = Objects.nonNull(virtual);
+		this.executor = virtualThreads ? virtual : Executors.newFixedThreadPool(maxConcurrent, platformThreads());
+	}
+
+	// Adds a project row; see ProjectService.addProject().
+	public Future<Project> addProject(Project project) {
+		return submit(() -> projectService.addProject(project));
+	}
+
+	public Future<List<Project>> fetchAllProjects() {
+		return submit(projectService::fetchAllProjects);
+	}
+
+	public Future<Project> fetchProjectById(Integer projectId) {
+		return submit(() -> projectService.fetchProjectById(projectId));
+	}
+
+	public Future<Void> modifyProjectDetails(Project project) {
+		return submit(() -> {
+			projectService.modifyProjectDetails(project);
+			return null;
+		});
+	}
+
+	public Future<Void> deleteProject(Integer projectId) {
+		return submit(() -> {
+			projectService.deleteProject(projectId);
+			return null;
+		});
+	}
+
+	/*
+	 * Runs any call against the service, subject to both limits. The future completes once the
+	 * request's slot is free again, so a caller that saw every future finish sees no pending tasks.
+	 */
+	public <T> Future<T> submit(Callable<T> request) {
+		CompletableFuture<T> outcome = new CompletableFuture<>();
+		CompletableFuture<T> result = new CompletableFuture<>();
+
+		dispatch(() -> {
+			try {
+				outcome.complete(request.call());
+			}
+			catch(Throwable e) {
+				outcome.completeExceptionally(e);
+			}
+		}, () -> outcome.whenComplete((value, e) -> {
+			if(Objects.isNull(e)) {
+				result.complete(value);
+			}
+			else {
+				result.completeExceptionally(e);
+			}
+		}));
+
+		return result;
+	}
+
+	/*
+	 * Blocks while maxPending tasks are outstanding. The task runs in the caller's read-your-writes
+	 * session (see ReplicaRouter), so reads after the caller's writes see them even on another thread.
+	 */
+	@Override
+	public void execute(Runnable task) {
+		dispatch(task, () -> {});
+	}
+
+	public boolean isUsingVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	public int getMaxPending() {
+		return maxPending;
+	}
+
+	// Tasks submitted and not yet finished, running or waiting.
+	public int getPendingCount() {
+		return maxPending - admitted.availablePermits();
+	}
+
+	// Tasks running service code right now.
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	// The most tasks that have run service code at the same time.
+	public int getPeakActiveCount() {
+		return peakActive.get();
+	}
+
+	/* Stops taking tasks and waits for the submitted ones to finish. */
+	@Override
+	public void close() {
+		executor.shutdown();
+
+		try {
+			while(!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				/* Keep waiting: abandoning tasks would leave their futures incomplete. */
+			}
+		}
+		catch(InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/* Runs the task subject to both limits, then afterRelease once its slot is free. */
+	private void dispatch(Runnable task, Runnable afterRelease) {
+		admit();
+
+		ReplicaRouter.Session session = ReplicaRouter.currentSession();
+
+		try {
+			executor.execute(() -> {
+				try {
+					ReplicaRouter.callInSession(session, () -> {
+						runLimited(task);
+						return null;
+					});
+				}
+				finally {
+					admitted.release();
+					afterRelease.run();
+				}
+			});
+		}
+		catch(RejectedExecutionException e) {
+			admitted.release();
+			throw e;
+		}
+	}
+
+	private void admit() {
+		try {
+			if(!admitted.tryAcquire(admissionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new RejectedExecutionException("Timed out after " + admissionTimeoutMillis
+						+ "ms waiting for one of " + maxPending + " request slots");
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for a request slot", e);
+		}
+	}
+
+	private void runLimited(Runnable task) {
+		running.acquireUninterruptibly();
+
+		try {
+			int now = active.incrementAndGet();
+			peakActive.accumulateAndGet(now, Math::max);
+
+			task.run();
+		}
+		finally {
+			active.decrementAndGet();
+			running.release();
+		}
+	}
+
+	/*
+	 * Executors.newVirtualThreadPerTaskExecutor() exists from Java 21. The module compiles for 17,
+	 * so it is looked up at run time; null means it is not there.
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)factory.invoke(null);
+		}
+		catch(ReflectiveOperationException | UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	private static ThreadFactory platformThreads() {
+		AtomicInteger count = new AtomicInteger();
+
+		return task -> {
+			Thread thread = new Thread(task, "project-request-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
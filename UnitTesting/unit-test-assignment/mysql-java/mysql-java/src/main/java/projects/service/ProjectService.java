@@ -1,49 +1,303 @@
 package projects.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import com.google.common.cache.CacheStats;
+import com.google.common.primitives.ImmutableIntArray;
+import projects.dao.DbConnection;
+import projects.dao.InstrumentedProjectDao;
+import projects.dao.JdbcProjectDao;
 import projects.dao.ProjectDao;
+import projects.dao.ShardedProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
 import projects.entity.Project;
+import projects.entity.Step;
 import projects.exception.DbException;
 
 
 public class ProjectService {
-	private ProjectDao projectDao = new ProjectDao();
+	private final ProjectDao projectDao;
+	private final ProjectCache projectCache;
+	
+	public ProjectService() {
+		this(new ProjectCache());
+	}
+	
+	// Pass ProjectCache.disabled() to always read from the database.
+	// DAO calls are timed in ProjectMetrics while metrics are enabled.
+	// -Dprojects.shards=host:port,... spreads the projects over several databases; see ShardedProjectDao.
+	public ProjectService(ProjectCache projectCache) {
+		this(new InstrumentedProjectDao(defaultDao()), projectCache);
+	}
+	
+	private static ProjectDao defaultDao() {
+		ProjectDao sharded = ShardedProjectDao.fromSystemProperties();
+		return Objects.isNull(sharded) ? new JdbcProjectDao() : sharded;
+	}
+	
+	// Pass an InMemoryProjectDao to run without a MySQL server.
+	public ProjectService(ProjectDao projectDao, ProjectCache projectCache) {
+		this.projectDao = projectDao;
+		this.projectCache = projectCache;
+	}
 	
 	// code to ask DAO class to insert a project row.
 	public Project addProject(Project project) {
 		return projectDao.insertProject(project);
 	}
 	
+	// Bulk load: inserts the projects with their materials, steps and categories in JDBC batches.
+	public List<Project> addProjects(Collection<Project> projects) {
+		return addProjects(projects, ProjectDao.DEFAULT_BATCH_SIZE);
+	}
+	
+	// Same as addProjects(projects) but with the number of projects written per transaction given.
+	public List<Project> addProjects(Collection<Project> projects, int batchSize) {
+		return projectDao.insertProjects(projects, batchSize);
+	}
+	
 	// Week 10
 //Method calls for the project DAO to retrieve all project rows without any details and returns a list of the projects records.
 	public List<Project> fetchAllProjects() {
 		return projectDao.fetchAllProjects();
 	}
 
+	/*
+	 * Returns the page of projects that follows (afterProjectName, afterProjectId) in name order, or
+	 * the first page when afterProjectName is null. The page carries a continuation token for the
+	 * next page.
+	 */
+	public ProjectPage fetchProjectPage(String afterProjectName, Integer afterProjectId, int pageSize) {
+		if(pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		}
+
+		/* One extra row tells us whether another page follows without a COUNT query. */
+		List<Project> projects = projectDao.fetchProjectsAfter(afterProjectName, afterProjectId, pageSize + 1);
+		String token = null;
+
+		if(projects.size() > pageSize) {
+			projects.remove(pageSize);
+			token = ProjectPage.encodeToken(projects.get(pageSize - 1));
+		}
+
+		return new ProjectPage(projects, token);
+	}
+	
+	// Returns the page after the one that produced the token; a null token gives the first page.
+	public ProjectPage fetchProjectPage(String continuationToken, int pageSize) {
+		if(Objects.isNull(continuationToken)) {
+			return fetchProjectPage(null, null, pageSize);
+		}
+
+		ProjectPage.Key key = ProjectPage.decodeToken(continuationToken);
+		return fetchProjectPage(key.projectName(), key.projectId(), pageSize);
+	}
+
+	// Streams all project rows without details. The caller must close the stream (try-with-resources).
+	public Stream<Project> streamAllProjects() {
+		return projectDao.streamAllProjects();
+	}
+	
+	// Streams projects with details in project ID order, after afterProjectId (null for all). Bypasses the cache.
+	public Stream<Project> streamProjectsWithDetails(Integer afterProjectId) {
+		return projectDao.streamProjectsWithDetails(afterProjectId);
+	}
+	
+	// Hands each project row to the action without holding the whole table in memory.
+	public void forEachProject(Consumer<? super Project> action) {
+		projectDao.forEachProject(action);
+	}
+
 	//Method calls for project details, and if the project ID is invalid will throw an exception.
 	
+	// Hot projects are served from the project cache; see ProjectCache.
+	// Loads that fill the cache read from the primary: a lagging replica's copy would stay cached after the write.
 	public Project fetchProjectById(Integer projectId) {
-		return projectDao.fetchProjectById(projectId).orElseThrow(() -> new NoSuchElementException(
+		return projectCache.get(projectId, id -> DbConnection.readFromPrimary(() -> projectDao.fetchProjectById(id)))
+				.orElseThrow(() -> new NoSuchElementException(
 				"Project with project ID=" + projectId + "does not exist."));
 	}
 	
+	// Loads several projects with their materials, steps and categories in a few bulk queries.
+	// Projects already in the cache are not read again; the rest are loaded together, from the primary, and cached.
+	// Unknown, null and repeated IDs are skipped.
+	public List<Project> fetchProjectsWithDetails(Collection<Integer> projectIds) {
+		Map<Integer, Project> found = new HashMap<>();
+		ImmutableIntArray.Builder missing = ImmutableIntArray.builder(projectIds.size());
+		
+		for(Integer projectId : projectIds) {
+			if(Objects.isNull(projectId)) {
+				continue;
+			}
+			
+			Project cached = projectCache.getIfPresent(projectId);
+			
+			if(Objects.nonNull(cached)) {
+				found.put(projectId, cached);
+			}
+			else {
+				missing.add(projectId);
+			}
+		}
+		
+		int[] missingIds = missing.build().toArray();
+		
+		if(missingIds.length > 0) {
+			long loadGeneration = projectCache.currentGeneration();
+			
+			for(Project project : DbConnection.readFromPrimary(() -> projectDao.fetchProjectsWithDetails(missingIds))) {
+				projectCache.put(project, loadGeneration);
+				found.put(project.getProjectId(), project);
+			}
+		}
+		
+		List<Project> projects = new ArrayList<>(found.size());
+		
+		for(Integer projectId : projectIds) {
+			/* Removing the entry drops repeated IDs from the result. */
+			Project project = found.remove(projectId);
+			
+			if(Objects.nonNull(project)) {
+				projects.add(project);
+			}
+		}
+		
+		return projects;
+	}
+	
+	// Hit, miss and eviction statistics of the project cache.
+	public CacheStats getCacheStats() {
+		return projectCache.stats();
+	}
+	
 	//Week 11
 	// Project object is passed as a parameter. The DAO method returns a boolean that indicates whether the UPDATE operation was successful. 
 	// If false, throws a Db Exception that project does not exist. 
 	
+	// Only the fields changed since the project was loaded are written; one with no changes is not written at all.
+	// The cached copy is dropped after the write, so a read racing the write cannot re-cache the old row.
 	public void modifyProjectDetails(Project project) {
-		if(!projectDao.modifyProjectDetails(project)) {
-			throw new DbException("Project with ID=" + project.getProjectId() + " does not exist.");
+		try {
+			if(!projectDao.modifyProjectDetails(project)) {
+				throw new DbException("Project with ID=" + project.getProjectId() + " does not exist.");
+			}
+		}
+		finally {
+			projectCache.invalidate(project.getProjectId());
 		}
 		
 	}
 
+	// Writes the changes of several projects in one transaction and returns the projects that do not exist.
+	public List<Project> modifyProjects(Collection<Project> projects) {
+		try {
+			return projectDao.modifyProjects(projects);
+		}
+		finally {
+			for(Project project : projects) {
+				if(Objects.nonNull(project.getProjectId())) {
+					projectCache.invalidate(project.getProjectId());
+				}
+			}
+		}
+	}
+
 	public void deleteProject(Integer projectId) {
-		if(!projectDao.deleteProject(projectId)) {
-			throw new DbException("Project with ID=" + projectId + "does not excist.");
+		try {
+			if(!projectDao.deleteProject(projectId)) {
+				throw new DbException("Project with ID=" + projectId + "does not excist.");
+			}
+		}
+		finally {
+			projectCache.invalidate(projectId);
+		}
+		
+	}
+
+	// Adds a material to the project.
+	public Material addMaterial(Integer projectId, Material material) {
+		material.setProjectId(projectId);
+		
+		try {
+			return projectDao.insertMaterial(material);
+		}
+		finally {
+			projectCache.invalidate(projectId);
+		}
+	}
+	
+	// Writes the changed fields of a material of the project; the project ID is only used to drop the cached project.
+	public void modifyMaterial(Integer projectId, Material material) {
+		try {
+			if(!projectDao.modifyMaterial(material)) {
+				throw new DbException("Material with ID=" + material.getMaterialId() + " does not exist.");
+			}
 		}
+		finally {
+			projectCache.invalidate(projectId);
+		}
+	}
+	
+	// Inserts a category row; projects link to it when they are added with it.
+	public Category addCategory(Category category) {
+		return projectDao.insertCategory(category);
+	}
+	
+	// Appends a step to the project; the step order is allocated, so concurrent appends never collide.
+	public Step addStep(Integer projectId, Step step) {
+		step.setProjectId(projectId);
 		
+		try {
+			return projectDao.insertStep(step);
+		}
+		finally {
+			projectCache.invalidate(projectId);
+		}
+	}
+	
+	// Writes the changed fields of a step of the project; the project ID is only used to drop the cached project.
+	public void modifyStep(Integer projectId, Step step) {
+		try {
+			if(!projectDao.modifyStep(step)) {
+				throw new DbException("Step with ID=" + step.getStepId() + " does not exist.");
+			}
+		}
+		finally {
+			projectCache.invalidate(projectId);
+		}
+	}
+	
+	// Puts the project's steps in the order of the step IDs, which must name every step of the project once.
+	public void reorderSteps(Integer projectId, List<Integer> stepIds) {
+		try {
+			if(!projectDao.reorderSteps(projectId, stepIds)) {
+				throw new DbException("Steps " + stepIds + " are not the steps of project with ID=" + projectId + ".");
+			}
+		}
+		finally {
+			projectCache.invalidate(projectId);
+		}
+	}
+	
+	// The project ID is only used to drop the cached project.
+	public void deleteStep(Integer projectId, Integer stepId) {
+		try {
+			if(!projectDao.deleteStep(stepId)) {
+				throw new DbException("Step with ID=" + stepId + " does not exist.");
+			}
+		}
+		finally {
+			projectCache.invalidate(projectId);
+		}
 	}
 	
 	
@@ -0,0 +1,446 @@
+package projects.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import projects.dao.ReplicaRouter;
+import projects.entity.Project;
+import projects.exception.DbException;
+import projects.metrics.OperationMetrics;
+import projects.metrics.ProjectMetrics;
+
+/*
+ * Opt-in write-behind for project edits that come faster than they are worth writing one at a
+ * time, such as tooling that updates the actual hours of the same projects many times a minute.
+ *
+ * modifyProjectDetails() only records the changed fields of the project (see TrackedEntity) under
+ * its ID and returns. Further edits of a project that is still waiting are merged into it, the
+ * newest value of each field winning, so ten edits of one project become one UPDATE. A flusher
+ * thread writes the waiting projects with ProjectService.modifyProjects(), batchSize projects per
+ * transaction, as soon as batchSize projects are waiting or flushInterval after the last flush.
+ *
+ * - Memory: at most maxPending projects wait, counting those being written. Past that,
+ *   modifyProjectDetails() blocks until a flush makes room.
+ * - Shutdown: close() writes whatever is waiting. A queue not closed by the time the JVM exits is
+ *   closed by a shutdown hook.
+ * - Failures: a batch that fails is retried project by project. Projects that still fail go back
+ *   in the queue, under any newer edits, for the next flush. Projects deleted in the meantime are
+ *   dropped.
+ * - Metrics: each flush is recorded in ProjectMetrics as "WriteBehind.flush", with the projects
+ *   written as its rows, and getCoalescingRatio() gives the edits per project written.
+ *
+ * Reads do not see waiting edits: ProjectService returns the stored project until the flush. The
+ * flush counts as a write of every caller whose edits it wrote, for the read-your-writes window of
+ * ReplicaRouter.
+ */
+public class WriteBehindQueue implements AutoCloseable {
+	public static final int DEFAULT_BATCH_SIZE = 100;
+	public static final int DEFAULT_MAX_PENDING = 10_000;
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+	private static final Logger LOGGER = Logger.getLogger(WriteBehindQueue.class.getName());
+	private static final OperationMetrics FLUSH = ProjectMetrics.operation("WriteBehind.flush");
+
+	private final ProjectService projectService;
+	private final int batchSize;
+	private final int maxPending;
+	private final long flushIntervalNanos;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition flushNeeded = lock.newCondition();
+	private final Condition room = lock.newCondition();
+
+	/* Guarded by lock: the merged edits per project ID, oldest first, and the projects being written. */
+	private Map<Integer, Project> pending = new LinkedHashMap<>();
+	private Set<ReplicaRouter.Session> pendingSessions = new HashSet<>();
+	private int inFlight;
+	private boolean closed;
+
+	/* One flush at a time, so the edits of a project reach the database in the order they were made. */
+	private final Object flushLock = new Object();
+
+	private final Thread flusher;
+	private final Thread shutdownHook;
+
+	private final AtomicLong editsQueued = new AtomicLong();
+	private final AtomicLong projectsWritten = new AtomicLong();
+	private final AtomicLong projectsDropped = new AtomicLong();
+	private final AtomicLong failedWrites = new AtomicLong();
+
+	public WriteBehindQueue(ProjectService projectService) {
+		this(projectService, DEFAULT_BATCH_SIZE, DEFAULT_MAX_PENDING, DEFAULT_FLUSH_INTERVAL_MILLIS,
+				TimeUnit.MILLISECONDS);
+	}
+
+	public WriteBehindQueue(ProjectService projectService, int batchSize, int maxPending, long flushInterval,
+			TimeUnit unit) {
+		if(batchSize < 1 || maxPending < batchSize || flushInterval <= 0) {
+			throw new IllegalArgumentException("Need 1 <= batchSize <= maxPending and a positive flush interval, got "
+					+ batchSize + ", " + maxPending + " and " + flushInterval);
+		}
+
+		this.projectService = projectService;
+		this.batchSize = batchSize;
+		this.maxPending = maxPending;
+		this.flushIntervalNanos = unit.toNanos(flushInterval);
+
+		flusher = new Thread(this::runFlusher, "write-behind-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+
+		shutdownHook = new Thread(this::closeOnShutdown, "write-behind-shutdown");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/*
+	 * Queues the changed fields of the project and clears them on the project, which may be edited
+	 * and passed in again. Blocks while maxPending projects are waiting. A project without changes
+	 * is ignored.
+	 */
+	public void modifyProjectDetails(Project project) {
+		Integer projectId = project.getProjectId();
+
+		if(Objects.isNull(projectId)) {
+			throw new IllegalArgumentException("The project has no ID.");
+		}
+
+		if(project.getChangedFields().isEmpty()) {
+			return;
+		}
+
+		lock.lock();
+
+		try {
+			Project waiting = pending.get(projectId);
+
+			while(Objects.isNull(waiting) && pending.size() + inFlight >= maxPending) {
+				checkOpen();
+				flushNeeded.signal();
+				room.awaitUninterruptibly();
+				waiting = pending.get(projectId);
+			}
+
+			checkOpen();
+
+			if(Objects.isNull(waiting)) {
+				waiting = new Project();
+				waiting.setProjectId(projectId);
+				pending.put(projectId, waiting);
+			}
+
+			copyChanges(project, waiting, true);
+			pendingSessions.add(ReplicaRouter.currentSession());
+			editsQueued.incrementAndGet();
+
+			if(pending.size() >= batchSize) {
+				flushNeeded.signal();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+
+		project.clearChanges();
+	}
+
+	/* Writes every waiting project now, on the calling thread. */
+	public void flush() {
+		synchronized(flushLock) {
+			Set<ReplicaRouter.Session> sessions = new HashSet<>();
+			List<Project> projects = drain(sessions);
+
+			if(projects.isEmpty()) {
+				return;
+			}
+
+			long start = ProjectMetrics.start();
+			List<Project> failed = new ArrayList<>();
+			int written = 0;
+
+			try {
+				for(int from = 0; from < projects.size(); from += batchSize) {
+					written += write(projects.subList(from, Math.min(from + batchSize, projects.size())), failed);
+				}
+			}
+			finally {
+				requeue(projects.size(), failed, sessions);
+				sessions.forEach(ReplicaRouter.Session::noteWrite);
+			}
+
+			projectsWritten.addAndGet(written);
+			FLUSH.record(start, written);
+
+			if(!failed.isEmpty()) {
+				LOGGER.warning(() -> failed.size() + " project updates failed and will be retried at the next flush");
+			}
+		}
+	}
+
+	/* Projects with edits waiting to be written, including those being written. */
+	public int getPendingCount() {
+		lock.lock();
+
+		try {
+			return pending.size() + inFlight;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/* Calls to modifyProjectDetails() that queued changes. */
+	public long getEditsQueued() {
+		return editsQueued.get();
+	}
+
+	/* Project rows updated by flushes. */
+	public long getProjectsWritten() {
+		return projectsWritten.get();
+	}
+
+	/* Edits per project row written; 3.0 means two of every three edits were merged into a later one. */
+	public double getCoalescingRatio() {
+		long written = projectsWritten.get();
+		return written == 0 ? 0 : (double)editsQueued.get() / written;
+	}
+
+	/* Projects whose edits were dropped because the project had been deleted. */
+	public long getProjectsDropped() {
+		return projectsDropped.get();
+	}
+
+	/* Project writes that failed and were queued again. */
+	public long getFailedWrites() {
+		return failedWrites.get();
+	}
+
+	/*
+	 * Stops the flusher and writes what is waiting. Edits queued after this are rejected. Throws
+	 * DbException if some projects could still not be written; their edits are lost.
+	 */
+	@Override
+	public void close() {
+		lock.lock();
+
+		try {
+			if(closed) {
+				return;
+			}
+
+			closed = true;
+			flushNeeded.signalAll();
+			room.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+
+		boolean interrupted = false;
+
+		while(flusher.isAlive()) {
+			try {
+				flusher.join();
+			}
+			catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		}
+		catch(IllegalStateException e) {
+			/* Already shutting down; this is the hook. */
+		}
+
+		flush();
+
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		int lost = getPendingCount();
+
+		if(lost > 0) {
+			throw new DbException(lost + " queued project updates could not be written.");
+		}
+	}
+
+	private void closeOnShutdown() {
+		try {
+			close();
+		}
+		catch(RuntimeException e) {
+			LOGGER.log(Level.SEVERE, "Write-behind queue failed to flush at shutdown", e);
+		}
+	}
+
+	private void runFlusher() {
+		while(true) {
+			lock.lock();
+
+			try {
+				long waitNanos = flushIntervalNanos;
+
+				while(!closed && pending.size() < batchSize && waitNanos > 0) {
+					waitNanos = flushNeeded.awaitNanos(waitNanos);
+				}
+
+				if(closed) {
+					return;
+				}
+			}
+			catch(InterruptedException e) {
+				return;
+			}
+			finally {
+				lock.unlock();
+			}
+
+			try {
+				flush();
+			}
+			catch(RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Write-behind flush failed", e);
+			}
+		}
+	}
+
+	/*
+	 * Takes every waiting project, and adds the sessions that edited them to sessions. The projects
+	 * stay counted against maxPending until requeue().
+	 */
+	private List<Project> drain(Set<ReplicaRouter.Session> sessions) {
+		lock.lock();
+
+		try {
+			List<Project> projects = new ArrayList<>(pending.values());
+
+			sessions.addAll(pendingSessions);
+			pending = new LinkedHashMap<>();
+			pendingSessions = new HashSet<>();
+			inFlight += projects.size();
+			return projects;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/* Writes one batch and returns the number of projects written; those that fail are added to failed. */
+	private int write(List<Project> batch, List<Project> failed) {
+		try {
+			return batch.size() - dropMissing(projectService.modifyProjects(batch));
+		}
+		catch(RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Write-behind batch of " + batch.size() + " projects failed; retrying one by one", e);
+		}
+
+		int written = 0;
+
+		for(Project project : batch) {
+			try {
+				written += 1 - dropMissing(projectService.modifyProjects(List.of(project)));
+			}
+			catch(RuntimeException e) {
+				failed.add(project);
+				failedWrites.incrementAndGet();
+			}
+		}
+
+		return written;
+	}
+
+	private int dropMissing(List<Project> missing) {
+		if(!missing.isEmpty()) {
+			projectsDropped.addAndGet(missing.size());
+			LOGGER.fine(() -> "Dropped edits of " + missing.size() + " deleted projects");
+		}
+
+		return missing.size();
+	}
+
+	/*
+	 * Ends a flush: puts the failed projects back under any newer edits and frees their room. The
+	 * sessions of the flush stay pending with them, since which session made which edit is not kept.
+	 */
+	private void requeue(int flushed, List<Project> failed, Set<ReplicaRouter.Session> sessions) {
+		lock.lock();
+
+		try {
+			for(Project project : failed) {
+				Project newer = pending.get(project.getProjectId());
+
+				if(Objects.isNull(newer)) {
+					pending.put(project.getProjectId(), project);
+				}
+				else {
+					copyChanges(project, newer, false);
+				}
+			}
+
+			if(!failed.isEmpty()) {
+				pendingSessions.addAll(sessions);
+			}
+
+			inFlight -= flushed;
+			room.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/* Copies the changed fields of source onto target; with overwrite false, fields target has changed are kept. */
+	private static void copyChanges(Project source, Project target, boolean overwrite) {
+		for(String field : source.getChangedFields()) {
+			if(!overwrite && target.isChanged(field)) {
+				continue;
+			}
+
+			switch(field) {
+				case "projectName":
+					target.setProjectName(source.getProjectName());
+					break;
+
+				case "estimatedHours":
+					target.setEstimatedHours(source.getEstimatedHours());
+					break;
+
+				case "actualHours":
+					target.setActualHours(source.getActualHours());
+					break;
+
+				case "difficulty":
+					target.setDifficulty(source.getDifficulty());
+					break;
+
+				case "notes":
+					target.setNotes(source.getNotes());
+					break;
+
+				default:
+					throw new IllegalArgumentException("Unknown project field " + field);
+			}
+
+			/* Setting a value equal to the one already there records nothing, but it is still a change. */
+			target.markChanged(field);
+		}
+	}
+
+	private void checkOpen() {
+		if(closed) {
+			throw new IllegalStateException("The write-behind queue is closed.");
+		}
+	}
+}
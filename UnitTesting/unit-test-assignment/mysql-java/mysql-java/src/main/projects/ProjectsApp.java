@@ -1,10 +1,24 @@
 package projects;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import projects.catalog.CatalogExporter;
+import projects.catalog.CatalogImporter;
+import projects.catalog.ExportReport;
+import projects.catalog.ImportReport;
+import projects.dao.InMemoryProjectDao;
+import projects.dao.InstrumentedProjectDao;
 import projects.entity.Project;
 import projects.exception.DbException;
+import projects.metrics.MetricsReporter;
+import projects.metrics.ProjectMetrics;
+import projects.service.ProjectCache;
 import projects.service.ProjectService;
 
 /* Menu driven application that will accept user input from the console. It allows to perform CRUD operations 
@@ -16,10 +30,10 @@ import projects.service.ProjectService;
 
 //
 public class ProjectsApp {
-	
+	private static final Logger LOGGER = Logger.getLogger(ProjectsApp.class.getName());
 	
 	private Scanner scanner = new Scanner(System.in);
-	private ProjectService projectService = new ProjectService();
+	private ProjectService projectService;
 	private Project curProject;
 	// @formatter:off
 		private List<String> operations = List.of(
@@ -30,12 +44,92 @@ public class ProjectsApp {
 				"5) Delete a project"
 			); 			
 	// @formatter:on
+
+	public ProjectsApp(boolean inMemory) {
+		projectService = inMemory
+				? new ProjectService(new InstrumentedProjectDao(new InMemoryProjectDao()), new ProjectCache())
+				: new ProjectService();
+	}
 	
 	
 	
 	public static void main(String[] args) {
-		new ProjectsApp().processUserSelections();
+		// --in-memory runs the app against InMemoryProjectDao instead of MySQL.
+		boolean inMemory = List.of(args).contains("--in-memory");
+		
+		// --metrics records call latencies, shows them over JMX and logs them every minute until the app exits.
+		MetricsReporter metricsReporter = null;
+		
+		if(List.of(args).contains("--metrics")) {
+			ProjectMetrics.setEnabled(true);
+			ProjectMetrics.registerMBean();
+			metricsReporter = new MetricsReporter(1, TimeUnit.MINUTES);
+		}
 		
+		try {
+			run(args, inMemory);
+		}
+		finally {
+			if(Objects.nonNull(metricsReporter)) {
+				metricsReporter.close();
+			}
+		}
+	}
+	
+	// Runs the import, the export or the menu, as the arguments ask.
+	private static void run(String[] args, boolean inMemory) {
+		// --import <file> loads a .csv or .jsonl project catalog and exits instead of showing the menu.
+		int importAt = List.of(args).indexOf("--import");
+		
+		if(importAt >= 0) {
+			if(importAt + 1 >= args.length) {
+				System.out.println("Usage: --import <catalog.csv | catalog.jsonl>");
+				return;
+			}
+			
+			new ProjectsApp(inMemory).importCatalog(Path.of(args[importAt + 1]));
+			return;
+		}
+		
+		// --export <file> writes the whole catalog as .csv or .jsonl, resuming from a checkpoint if one is left.
+		int exportAt = List.of(args).indexOf("--export");
+		
+		if(exportAt >= 0) {
+			if(exportAt + 1 >= args.length) {
+				System.out.println("Usage: --export <catalog.csv | catalog.jsonl>");
+				return;
+			}
+			
+			new ProjectsApp(inMemory).exportCatalog(Path.of(args[exportAt + 1]));
+			return;
+		}
+		
+		new ProjectsApp(inMemory).processUserSelections();
+		
+	}
+	
+	// Bulk loads the catalog and prints the import report.
+	private void importCatalog(Path file) {
+		try {
+			ImportReport report = new CatalogImporter(projectService).importFile(file);
+			System.out.println(report);
+		}
+		catch(IOException | IllegalArgumentException | DbException e) {
+			System.out.println("\nError: unable to import " + file + ": " + e.getMessage());
+			LOGGER.log(Level.WARNING, "Import failed", e);
+		}
+	}
+	
+	// Writes the catalog to the file and prints the export report.
+	private void exportCatalog(Path file) {
+		try {
+			ExportReport report = new CatalogExporter(projectService).exportFile(file);
+			System.out.println(report);
+		}
+		catch(IOException | IllegalArgumentException | DbException e) {
+			System.out.println("\nError: unable to export " + file + ": " + e.getMessage());
+			LOGGER.log(Level.WARNING, "Export failed", e);
+		}
 	}
 
 	
@@ -76,7 +170,7 @@ public class ProjectsApp {
 			
 			catch(Exception e) {
 				System.out.println("\nError: " + e + "Try again.");
-				e.printStackTrace();
+				LOGGER.log(Level.WARNING, "Menu operation failed", e);
 			}
 		}
 		
@@ -116,16 +210,37 @@ private void updateProjectDetails() {
 	   
 	   String notes = getStringInput("Enter the project notes [" + curProject.getNotes() + "]");
 	   
+	   // Start from the current values, then apply what was entered. The setters record only values
+	   // that differ, so only those columns are updated - or none, skipping the write.
 	   Project project = new Project();
 	   
 	   project.setProjectId(curProject.getProjectId());
-	   project.setProjectName(Objects.isNull(projectName) ? curProject.getProjectName() : projectName);
+	   project.setProjectName(curProject.getProjectName());
+	   project.setEstimatedHours(curProject.getEstimatedHours());
+	   project.setActualHours(curProject.getActualHours());
+	   project.setDifficulty(curProject.getDifficulty());
+	   project.setNotes(curProject.getNotes());
+	   project.clearChanges();
+	   
+	   if(Objects.nonNull(projectName)) {
+		   project.setProjectName(projectName);
+	   }
+	   
+	   if(Objects.nonNull(estimatedHours)) {
+		   project.setEstimatedHours(estimatedHours);
+	   }
 	   
-	   project.setEstimatedHours(Objects.isNull(estimatedHours) ? curProject.getEstimatedHours() : estimatedHours);
+	   if(Objects.nonNull(actualHours)) {
+		   project.setActualHours(actualHours);
+	   }
 	   
-	   project.setActualHours(Objects.isNull(actualHours) ? curProject.getActualHours() : actualHours);
-	   project.setDifficulty(Objects.isNull(difficulty) ? curProject.getProjectName() : projectName);
-	   project.setNotes(Objects.isNull(notes) ? curProject.getNotes() : notes);
+	   if(Objects.nonNull(difficulty)) {
+		   project.setDifficulty(difficulty);
+	   }
+	   
+	   if(Objects.nonNull(notes)) {
+		   project.setNotes(notes);
+	   }
 	   
 	   projectService.modifyProjectDetails(project);
 	   
@@ -155,11 +270,9 @@ private void selectProject() {
 
 
 private void listProjects() {
-		List<Project> projects = projectService.fetchAllProjects();
-		
 		System.out.println("\nProjects:");
 		
-		projects.forEach(project -> System.out
+		projectService.forEachProject(project -> System.out
 				.println("  " + project.getProjectId() + ": " + project.getProjectName()));
 		
 	
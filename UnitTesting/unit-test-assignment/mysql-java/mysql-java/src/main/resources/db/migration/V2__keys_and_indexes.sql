@@ -0,0 +1,42 @@
+-- Primary keys with AUTO_INCREMENT, an index on every project_id lookup, and foreign keys that
+-- delete a project's materials, steps and category links with it.
+
+ALTER TABLE project ADD PRIMARY KEY (project_id);
+ALTER TABLE project MODIFY COLUMN project_id INT NOT NULL AUTO_INCREMENT;
+
+ALTER TABLE material ADD PRIMARY KEY (material_id);
+ALTER TABLE material MODIFY COLUMN material_id INT NOT NULL AUTO_INCREMENT;
+
+ALTER TABLE step ADD PRIMARY KEY (step_id);
+ALTER TABLE step MODIFY COLUMN step_id INT NOT NULL AUTO_INCREMENT;
+
+ALTER TABLE category ADD PRIMARY KEY (category_id);
+ALTER TABLE category MODIFY COLUMN category_id INT NOT NULL AUTO_INCREMENT;
+
+-- A project links to a category once. The key also serves the project_id lookups of the join.
+ALTER TABLE project_category ADD PRIMARY KEY (project_id, category_id);
+
+-- Keyset pagination of the project list: ORDER BY project_name, project_id. Not part of the
+-- baseline, so databases adopted at version 1 get it too.
+CREATE INDEX project_name_id_idx ON project (project_name, project_id);
+
+-- Material lookups by project, in material_id order.
+CREATE INDEX material_project_idx ON material (project_id, material_id);
+
+-- Step lookups by project in step order, and the COUNT(*) behind step numbering.
+CREATE INDEX step_project_order_idx ON step (project_id, step_order);
+
+-- Finding the projects of a category, and checking the category foreign key on delete.
+CREATE INDEX project_category_category_idx ON project_category (category_id, project_id);
+
+ALTER TABLE material ADD CONSTRAINT material_project_fk
+	FOREIGN KEY (project_id) REFERENCES project (project_id) ON DELETE CASCADE;
+
+ALTER TABLE step ADD CONSTRAINT step_project_fk
+	FOREIGN KEY (project_id) REFERENCES project (project_id) ON DELETE CASCADE;
+
+ALTER TABLE project_category ADD CONSTRAINT project_category_project_fk
+	FOREIGN KEY (project_id) REFERENCES project (project_id) ON DELETE CASCADE;
+
+ALTER TABLE project_category ADD CONSTRAINT project_category_category_fk
+	FOREIGN KEY (category_id) REFERENCES category (category_id) ON DELETE CASCADE;
@@ -0,0 +1,9 @@
+-- Per-parent sequences handed out in blocks by SequenceAllocator (step orders per project). Each
+-- row holds the highest number reserved so far for one parent; numbers above it are free.
+
+CREATE TABLE sequence_high_water (
+	sequence_name VARCHAR(64) NOT NULL,
+	parent_id INT NOT NULL,
+	high_water INT NOT NULL,
+	PRIMARY KEY (sequence_name, parent_id)
+);
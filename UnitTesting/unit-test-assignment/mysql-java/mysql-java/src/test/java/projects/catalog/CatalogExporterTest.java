@@ -0,0 +1,91 @@
+package projects.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import projects.dao.InMemoryProjectDao;
+import projects.entity.Project;
+import projects.service.ProjectCache;
+import projects.service.ProjectService;
+
+class CatalogExporterTest {
+
+	@TempDir
+	Path dir;
+
+	private ProjectService projectService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		projectService = new ProjectService(new InMemoryProjectDao(), ProjectCache.disabled());
+
+		StringBuilder csv = new StringBuilder();
+
+		for(int i = 1; i <= 12; i++) {
+			csv.append("project,Project ").append(i).append(",1.5,,2,\"Line one, \"\"quoted\"\"\nline \u00e9\"\n");
+			csv.append("material,Board,2,3.10\nstep,Cut\nstep,Sand\ncategory,Craft ").append(i % 3).append('\n');
+		}
+
+		new CatalogImporter(projectService).importFrom(new CsvCatalogReader(new StringReader(csv.toString())));
+	}
+
+	@Test
+	void assertThatExportsReadBackAsTheSameCatalog() throws IOException {
+		for(String name : new String[] { "catalog.csv", "catalog.jsonl" }) {
+			// Given: an export of the catalog
+			Path file = dir.resolve(name);
+			ExportReport report = new CatalogExporter(projectService, 5).exportFile(file);
+
+			assertThat(report.getProjects()).isEqualTo(12);
+			assertThat(report.getBytesWritten()).isEqualTo(Files.size(file));
+			assertThat(CatalogExporter.checkpointFor(file)).doesNotExist();
+
+			// When: it is imported into an empty store
+			ProjectService copy = new ProjectService(new InMemoryProjectDao(), ProjectCache.disabled());
+			ImportReport imported = new CatalogImporter(copy).importFile(file);
+
+			// Then: every project comes back with its details
+			assertThat(imported.isComplete()).isTrue();
+			assertThat(imported.getRowsWritten()).isEqualTo(12 * 5);
+
+			Project project = copy.fetchProjectById(copy.fetchAllProjects().get(0).getProjectId());
+			assertThat(project.getNotes()).isEqualTo("Line one, \"quoted\"\nline \u00e9");
+			assertThat(project.getMaterials().get(0).getCost()).isEqualByComparingTo("3.10");
+		}
+	}
+
+	@Test
+	void assertThatAnInterruptedExportResumesFromItsCheckpoint() throws IOException {
+		// Given: a complete export, and the same file cut off after a checkpoint at project 5
+		Path file = dir.resolve("catalog.jsonl");
+		new CatalogExporter(projectService).exportFile(file);
+
+		byte[] complete = Files.readAllBytes(file);
+		String text = new String(complete, StandardCharsets.UTF_8);
+		int cut = 0;
+
+		for(int line = 0; line < 5; line++) {
+			cut = text.indexOf('\n', cut) + 1;
+		}
+
+		int offset = text.substring(0, cut).getBytes(StandardCharsets.UTF_8).length;
+		Files.write(file, Arrays.copyOf(complete, offset + 10));
+		Files.writeString(CatalogExporter.checkpointFor(file), "projectId=5\noffset=" + offset + "\n");
+
+		// When: the export is run again
+		ExportReport report = new CatalogExporter(projectService).exportFile(file);
+
+		// Then: it replaces the partial tail and writes only the remaining projects
+		assertThat(report.getResumedAfterProjectId()).isEqualTo(5);
+		assertThat(report.getProjects()).isEqualTo(7);
+		assertThat(Files.readAllBytes(file)).isEqualTo(complete);
+		assertThat(CatalogExporter.checkpointFor(file)).doesNotExist();
+	}
+}
@@ -0,0 +1,99 @@
+package projects.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.dao.InMemoryProjectDao;
+import projects.entity.Category;
+import projects.entity.Project;
+import projects.service.ProjectCache;
+import projects.service.ProjectService;
+
+class CatalogImporterTest {
+
+	private ProjectService projectService;
+
+	@BeforeEach
+	void setUp() {
+		projectService = new ProjectService(new InMemoryProjectDao(), ProjectCache.disabled());
+	}
+
+	@Test
+	void assertThatCsvGraphsAreImportedAndBadRecordsRejected() throws IOException {
+		// Given: a CSV catalog with a header, a quoted multi-line note and two invalid projects
+		String csv = String.join("\n",
+				"type,name,estimated hours,actual hours,difficulty,notes",
+				"project,Shelf,4,,2,\"Pine, \"\"knotty\"\"",
+				"sanded\"",
+				"material,Board,3,9.99",
+				"step,Cut",
+				"step,Sand",
+				"category,Woodwork",
+				"project,Bad,lots",
+				"material,Glue,1,2.00",
+				"project,Stool",
+				"step,Glue",
+				"category,Woodwork",
+				"project,Bench",
+				"material,Plank,-1,5");
+
+		// When: it is imported by two writers, one project per batch
+		ImportReport report = new CatalogImporter(projectService, 2, 1)
+				.importFrom(new CsvCatalogReader(new StringReader(csv)));
+
+		// Then: the valid projects are stored with their details and the others are reported
+		assertThat(report.getProjectsImported()).isEqualTo(2);
+		assertThat(report.getProjectsRejected()).isEqualTo(2);
+		assertThat(report.getSteps()).isEqualTo(3);
+		assertThat(report.getErrors()).hasSize(2);
+		assertThat(report.getErrors().get(0)).startsWith("Line 8:");
+
+		Project shelf = fetchByName("Shelf");
+		assertThat(shelf.getNotes()).isEqualTo("Pine, \"knotty\"\nsanded");
+		assertThat(shelf.getMaterials()).extracting("materialName").containsExactly("Board");
+		assertThat(shelf.getSteps()).extracting("stepText").containsExactly("Cut", "Sand");
+
+		Category shelfCategory = shelf.getCategories().get(0);
+		Category stoolCategory = fetchByName("Stool").getCategories().get(0);
+		assertThat(stoolCategory.getCategoryId()).isEqualTo(shelfCategory.getCategoryId());
+	}
+
+	@Test
+	void assertThatJsonLinesAreImported() throws IOException {
+		// Given: a JSON Lines catalog with one malformed and one invalid line
+		String jsonLines = String.join("\n",
+				"{\"projectName\": \"Kite\", \"difficulty\": 2, \"materials\": [{\"materialName\": \"Paper\", "
+						+ "\"numRequired\": 1, \"cost\": 1.5}], \"steps\": [{\"stepText\": \"Fold \\u00e9\"}], "
+						+ "\"categories\": [\"Toys\"]}",
+				"{\"projectName\": ",
+				"",
+				"{\"projectName\": \"Top\", \"difficulty\": 2.5}");
+
+		// When: it is imported
+		ImportReport report = new CatalogImporter(projectService)
+				.importFrom(new JsonLinesCatalogReader(new StringReader(jsonLines)));
+
+		// Then: the valid project is stored and the other lines are reported by line number
+		assertThat(report.getProjectsImported()).isEqualTo(1);
+		assertThat(report.getRowsWritten()).isEqualTo(4);
+		assertThat(report.getErrors()).hasSize(2);
+		assertThat(report.getErrors().get(1)).startsWith("Line 4:");
+
+		Project kite = fetchByName("Kite");
+		assertThat(kite.getMaterials().get(0).getCost()).isEqualByComparingTo("1.50");
+		assertThat(kite.getSteps().get(0).getStepText()).isEqualTo("Fold \u00e9");
+		assertThat(kite.getCategories()).extracting("categoryName").containsExactly("Toys");
+	}
+
+	private Project fetchByName(String name) {
+		List<Project> matches = projectService.fetchAllProjects().stream()
+				.filter(project -> project.getProjectName().equals(name)).collect(Collectors.toList());
+
+		assertThat(matches).hasSize(1);
+		return projectService.fetchProjectById(matches.get(0).getProjectId());
+	}
+}
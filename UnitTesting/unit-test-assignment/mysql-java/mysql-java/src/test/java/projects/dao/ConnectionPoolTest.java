@@ -0,0 +1,236 @@
+package projects.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.exception.DbException;
+
+class ConnectionPoolTest {
+
+	private AtomicInteger opened;
+	private ConnectionPoolConfig config;
+	private ConnectionPool pool;
+
+	@BeforeEach
+	void setUp() {
+		opened = new AtomicInteger();
+		config = new ConnectionPoolConfig();
+		config.setMinSize(1);
+		config.setMaxSize(2);
+		config.setBorrowTimeoutMillis(200);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if(pool != null) {
+			pool.close();
+		}
+	}
+
+	private ConnectionPool newPool() {
+		return new ConnectionPool(() -> {
+			opened.incrementAndGet();
+			return DriverManager.getConnection("jdbc:h2:mem:pool_test;DB_CLOSE_DELAY=-1");
+		}, config);
+	}
+
+	@Test
+	void assertThatClosedConnectionsAreReused() throws SQLException {
+		// Given: a pool pre-filled with its minimum size
+		pool = newPool();
+		assertThat(opened.get()).isEqualTo(1);
+
+		// When: a connection is borrowed and returned several times
+		for(int i = 0; i < 5; i++) {
+			try(Connection conn = pool.getConnection()) {
+				assertThat(conn.isValid(1)).isTrue();
+			}
+		}
+
+		// Then: the same physical connection served every borrow
+		assertThat(opened.get()).isEqualTo(1);
+		assertThat(pool.getStats().getBorrowCount()).isEqualTo(5);
+		assertThat(pool.getStats().getIdleConnections()).isEqualTo(1);
+	}
+
+	@Test
+	void assertThatBorrowTimesOutWhenPoolIsExhausted() throws SQLException {
+		// Given: every connection in the pool is borrowed
+		pool = newPool();
+
+		try(Connection first = pool.getConnection(); Connection second = pool.getConnection()) {
+			assertThat(first).isNotSameAs(second);
+
+			// When/Then: a third borrower times out
+			assertThatThrownBy(() -> pool.getConnection()).isInstanceOf(DbException.class)
+					.hasMessageContaining("Timed out");
+		}
+
+		assertThat(pool.getStats().getBorrowTimeouts()).isEqualTo(1);
+		assertThat(pool.getStats().getTotalConnections()).isEqualTo(2);
+	}
+
+	@Test
+	void assertThatReturnedConnectionCannotBeUsed() throws SQLException {
+		// Given: a connection that has been given back to the pool
+		pool = newPool();
+		Connection conn = pool.getConnection();
+		conn.close();
+
+		// Then: the stale reference is closed and refuses work
+		assertThat(conn.isClosed()).isTrue();
+		assertThatThrownBy(() -> conn.createStatement()).isInstanceOf(SQLException.class);
+	}
+
+	@Test
+	void assertThatOpenTransactionIsRolledBackOnReturn() throws SQLException {
+		// Given: a borrower that leaves a transaction open
+		pool = newPool();
+
+		try(Connection conn = pool.getConnection()) {
+			conn.createStatement().execute("CREATE TABLE IF NOT EXISTS pool_rollback (id INT)");
+			conn.setAutoCommit(false);
+			conn.createStatement().execute("INSERT INTO pool_rollback VALUES (1)");
+		}
+
+		// Then: the next borrower sees auto-commit restored and no uncommitted rows
+		try(Connection conn = pool.getConnection()) {
+			assertThat(conn.getAutoCommit()).isTrue();
+
+			var rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM pool_rollback");
+			rs.next();
+			assertThat(rs.getInt(1)).isZero();
+		}
+	}
+
+	@Test
+	void assertThatIdleConnectionsAboveMinimumAreEvicted() throws Exception {
+		// Given: a pool that evicts quickly and has grown to its maximum
+		config.setIdleTimeoutMillis(10);
+		config.setEvictionIntervalMillis(20);
+		pool = newPool();
+
+		try(Connection first = pool.getConnection(); Connection second = pool.getConnection()) {
+			assertThat(first).isNotSameAs(second);
+			assertThat(pool.getStats().getTotalConnections()).isEqualTo(2);
+		}
+
+		// When: the connections sit idle past the timeout
+		Thread.sleep(200);
+
+		// Then: the pool shrinks back to its minimum size
+		assertThat(pool.getStats().getTotalConnections()).isEqualTo(1);
+		assertThat(pool.getStats().getEvictedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void assertThatPreparedStatementsAreReusedAcrossBorrows() throws SQLException {
+		// Given: a pool with one connection
+		config.setMaxSize(1);
+		pool = newPool();
+		PreparedStatement first;
+
+		// When: the same SQL is prepared, run and closed on two borrows
+		try(Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement("SELECT ?")) {
+			stmt.setInt(1, 1);
+			stmt.executeQuery().close();
+			first = stmt;
+		}
+
+		try(Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement("SELECT ?")) {
+			stmt.setInt(1, 2);
+
+			try(ResultSet rs = stmt.executeQuery()) {
+				rs.next();
+				assertThat(rs.getInt(1)).isEqualTo(2);
+			}
+
+			// Then: the second prepare is a hit and the earlier handle stays closed
+			assertThat(first.isClosed()).isTrue();
+			assertThat(stmt.isClosed()).isFalse();
+		}
+
+		assertThat(pool.getStats().getStatementCacheHits()).isEqualTo(1);
+		assertThat(pool.getStats().getStatementCacheMisses()).isEqualTo(1);
+	}
+
+	@Test
+	void assertThatReusedStatementsStartWithTheirPreparedSettings() throws SQLException {
+		// Given: a pool with one connection and a statement tuned for one use, as a stream is
+		config.setMaxSize(1);
+		pool = newPool();
+		int fetchSize;
+		int maxRows;
+		int queryTimeout;
+
+		try(Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement("SELECT 1")) {
+			fetchSize = stmt.getFetchSize();
+			maxRows = stmt.getMaxRows();
+			queryTimeout = stmt.getQueryTimeout();
+
+			stmt.setFetchSize(1000);
+			stmt.setMaxRows(5);
+			stmt.setQueryTimeout(30);
+		}
+
+		// When: the same SQL is prepared again from the cache
+		try(Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement("SELECT 1")) {
+			// Then: it has the settings it was prepared with, not the last caller's
+			assertThat(stmt.getFetchSize()).isEqualTo(fetchSize);
+			assertThat(stmt.getMaxRows()).isEqualTo(maxRows);
+			assertThat(stmt.getQueryTimeout()).isEqualTo(queryTimeout);
+		}
+
+		assertThat(pool.getStats().getStatementCacheHits()).isEqualTo(1);
+	}
+
+	@Test
+	void assertThatStatementCacheEvictsLeastRecentlyUsed() throws SQLException {
+		// Given: a statement cache of two per connection
+		config.setMaxSize(1);
+		config.setStatementCacheSize(2);
+		pool = newPool();
+
+		try(Connection conn = pool.getConnection()) {
+			// When: three statements are used, then the first two again
+			for(String sql : List.of("SELECT 1", "SELECT 2", "SELECT 3", "SELECT 2", "SELECT 1")) {
+				conn.prepareStatement(sql).close();
+			}
+		}
+
+		// Then: "SELECT 1" was evicted by "SELECT 3", so only "SELECT 2" hit
+		assertThat(pool.getStats().getStatementCacheHits()).isEqualTo(1);
+		assertThat(pool.getStats().getStatementCacheEvictions()).isEqualTo(2);
+	}
+
+	@Test
+	void assertThatNestedUseOfOneStatementGetsSeparateStatements() throws SQLException {
+		// Given: a statement that is still open
+		pool = newPool();
+
+		try(Connection conn = pool.getConnection();
+				PreparedStatement outer = conn.prepareStatement("SELECT ?");
+				PreparedStatement inner = conn.prepareStatement("SELECT ?")) {
+			// When: both are bound and run
+			outer.setInt(1, 10);
+			inner.setInt(1, 20);
+
+			// Then: they do not share parameters
+			try(ResultSet a = outer.executeQuery(); ResultSet b = inner.executeQuery()) {
+				a.next();
+				b.next();
+				assertThat(a.getInt(1)).isEqualTo(10);
+				assertThat(b.getInt(1)).isEqualTo(20);
+			}
+		}
+	}
+}
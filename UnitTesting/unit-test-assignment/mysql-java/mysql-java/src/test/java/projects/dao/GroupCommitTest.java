@@ -0,0 +1,111 @@
+package projects.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Test;
+import projects.entity.Project;
+import projects.exception.DbException;
+
+/*
+ * The DAO contract with group commit on, plus the grouping itself: concurrent writes share commits
+ * and a failing write does not take the others down with it.
+ */
+class GroupCommitTest extends ProjectDaoContractTest {
+	private static final int WRITERS = 8;
+
+	private GroupCommit groupCommit;
+
+	@Override
+	protected ProjectDao createDao() throws SQLException {
+		TestDatabase.install("group_commit_test");
+
+		/* Long enough for every writer to join the first group. */
+		groupCommit = new GroupCommit(50, TimeUnit.MILLISECONDS, WRITERS);
+		return new JdbcProjectDao(groupCommit);
+	}
+
+	@Test
+	void assertThatConcurrentWritesShareCommits() throws Exception {
+		// Given/When: writers inserting projects at the same moment
+		List<Future<Object>> inserts = insertConcurrently(index -> "Project " + index);
+
+		// Then: every insert got its own ID, with fewer commits than inserts
+		List<Integer> ids = new ArrayList<>();
+
+		for(Future<Object> insert : inserts) {
+			ids.add(((Project)insert.get()).getProjectId());
+		}
+
+		assertThat(ids).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(projectDao.fetchAllProjects()).hasSize(WRITERS);
+		assertThat(groupCommit.getWriteCount()).isEqualTo(WRITERS);
+		assertThat(groupCommit.getAverageGroupSize()).isGreaterThan(1.0);
+	}
+
+	@Test
+	void assertThatAFailingWriteFailsAlone() throws Exception {
+		// Given/When: concurrent inserts, one of them without the required project name
+		List<Future<Object>> inserts = insertConcurrently(index -> index == 3 ? null : "Project " + index);
+
+		// Then: only that insert fails, and the others are stored
+		for(int index = 0; index < WRITERS; index++) {
+			Object result = inserts.get(index).get();
+
+			if(index == 3) {
+				assertThat(result).isInstanceOf(DbException.class);
+			}
+			else {
+				assertThat(((Project)result).getProjectId()).isNotNull();
+			}
+		}
+
+		assertThat(projectDao.fetchAllProjects()).hasSize(WRITERS - 1);
+	}
+
+	/* Starts WRITERS inserts together; each future holds the project or the exception thrown. */
+	private List<Future<Object>> insertConcurrently(IntFunction<String> names)
+			throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Object>> inserts = new ArrayList<>();
+
+		try {
+			for(int index = 0; index < WRITERS; index++) {
+				Project project = new Project();
+				project.setProjectName(names.apply(index));
+
+				inserts.add(executor.submit(() -> {
+					start.await();
+
+					try {
+						return projectDao.insertProject(project);
+					}
+					catch(DbException e) {
+						return e;
+					}
+				}));
+			}
+
+			start.countDown();
+
+			for(Future<Object> insert : inserts) {
+				insert.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+
+		return inserts;
+	}
+}
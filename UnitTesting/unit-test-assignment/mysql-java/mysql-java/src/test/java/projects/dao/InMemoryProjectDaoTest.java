@@ -0,0 +1,46 @@
+package projects.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import projects.entity.Project;
+
+class InMemoryProjectDaoTest extends ProjectDaoContractTest {
+
+	@Override
+	protected ProjectDao createDao() {
+		return new InMemoryProjectDao();
+	}
+
+	@Test
+	void assertThatStoredRowsAreIsolatedFromCallers() {
+		// Given: a stored project
+		Project project = newProject("Original", "A");
+		projectDao.insertProjects(List.of(project), 10);
+
+		// When: both the inserted object and a fetched copy are changed
+		project.setProjectName("Changed by caller");
+		Project fetched = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+		fetched.getSteps().clear();
+
+		// Then: the stored project is unaffected
+		Project stored = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+		assertThat(stored.getProjectName()).isEqualTo("Original");
+		assertThat(stored.getSteps()).hasSize(3);
+	}
+
+	@Test
+	void assertThatNamesSortLikeTheColumnCollation() {
+		// Given: projects whose names differ in case
+		projectDao.insertProjects(List.of(newProject("cherry", "A"), newProject("Banana", "A"), newProject("apple", "A")), 10);
+		Project banana = projectDao.fetchAllProjects().get(1);
+
+		// When: one is renamed in case only
+		banana.setProjectName("banana");
+		projectDao.modifyProjectDetails(banana);
+
+		// Then: the listing ignores case, as MySQL does, and still has each project once
+		assertThat(projectDao.fetchAllProjects()).extracting(Project::getProjectName)
+				.containsExactly("apple", "banana", "cherry");
+	}
+}
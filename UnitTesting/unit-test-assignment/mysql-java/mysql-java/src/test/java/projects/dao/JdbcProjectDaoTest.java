@@ -0,0 +1,65 @@
+package projects.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import projects.entity.Category;
+import projects.entity.Project;
+import projects.exception.DbException;
+
+class JdbcProjectDaoTest extends ProjectDaoContractTest {
+
+	private ConnectionPool pool;
+
+	@Override
+	protected ProjectDao createDao() throws SQLException {
+		pool = TestDatabase.install("jdbc_project_dao_test");
+		return new JdbcProjectDao();
+	}
+
+	@Test
+	void assertThatStreamReleasesConnectionWhenClosed() {
+		// Given: a few stored projects
+		projectDao.insertProjects(List.of(newProject("Alpha", "A"), newProject("Bravo", "A")), 10);
+
+		// When: the projects are streamed
+		try(Stream<Project> projects = projectDao.streamAllProjects()) {
+			assertThat(pool.getStats().getActiveConnections()).isEqualTo(1);
+			assertThat(projects.count()).isEqualTo(2);
+		}
+
+		// Then: the connection is back in the pool
+		assertThat(pool.getStats().getActiveConnections()).isZero();
+	}
+
+	@Test
+	void assertThatAFailedBatchCanBeInsertedAgain() {
+		// Given: a graph with a new category and a link to a category that does not exist
+		Project project = newProject("Retried", "Fresh");
+		Category missing = new Category();
+		missing.setCategoryId(9999);
+		missing.setCategoryName("Missing");
+		project.getCategories().add(missing);
+
+		// When: the insert fails on the link, after the other rows of the batch were written
+		assertThatThrownBy(() -> projectDao.insertProjects(List.of(project), 10)).isInstanceOf(DbException.class);
+
+		// Then: the graph has no IDs from the rolled-back batch
+		assertThat(project.getProjectId()).isNull();
+		assertThat(project.getMaterials()).allSatisfy(material -> assertThat(material.getMaterialId()).isNull());
+		assertThat(project.getSteps()).allSatisfy(step -> assertThat(step.getStepId()).isNull());
+		assertThat(project.getCategories().get(0).getCategoryId()).isNull();
+
+		// And when: the bad link is dropped and the same graph inserted again
+		project.getCategories().remove(missing);
+		projectDao.insertProjects(List.of(project), 10);
+
+		// Then: it is stored with its new category
+		Project stored = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+		assertThat(stored.getCategories()).extracting(Category::getCategoryName).containsExactly("Fresh");
+		assertThat(stored.getSteps()).hasSameSizeAs(project.getSteps());
+	}
+}
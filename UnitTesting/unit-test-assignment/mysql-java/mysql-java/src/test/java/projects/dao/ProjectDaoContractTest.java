@@ -0,0 +1,462 @@
+package projects.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/*
+ * Behaviour every ProjectDao must share. Each implementation has a subclass that supplies a fresh,
+ * empty store.
+ */
+abstract class ProjectDaoContractTest {
+
+	protected ProjectDao projectDao;
+
+	protected abstract ProjectDao createDao() throws SQLException;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		projectDao = createDao();
+	}
+
+	static Project newProject(String name, String categoryName) {
+		Project project = new Project();
+		project.setProjectName(name);
+		project.setEstimatedHours(new BigDecimal("2.50"));
+		project.setDifficulty(3);
+
+		Material material = new Material();
+		material.setMaterialName(name + " board");
+		material.setNumRequired(2);
+		material.setCost(new BigDecimal("9.99"));
+		project.getMaterials().add(material);
+
+		for(String text : List.of("Cut", "Sand", "Finish")) {
+			Step step = new Step();
+			step.setStepText(text);
+			project.getSteps().add(step);
+		}
+
+		Category category = new Category();
+		category.setCategoryName(categoryName);
+		project.getCategories().add(category);
+
+		return project;
+	}
+
+	@Test
+	void assertThatBatchInsertWritesWholeProjectGraphs() {
+		// Given: more projects than fit in one batch, sharing a new category
+		List<Project> projects = new ArrayList<>();
+
+		for(int i = 0; i < 5; i++) {
+			projects.add(newProject("Project " + i, i % 2 == 0 ? "Woodworking" : "Garden"));
+		}
+
+		// When: the projects are inserted two per batch
+		projectDao.insertProjects(projects, 2);
+
+		// Then: every entity received its generated ID
+		assertThat(projects).extracting(Project::getProjectId).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(projects.get(0).getMaterials().get(0).getMaterialId()).isNotNull();
+		assertThat(projects.get(0).getSteps()).extracting(Step::getStepOrder).containsExactly(1, 2, 3);
+
+		// And: the graph reads back from the database
+		Project stored = projectDao.fetchProjectById(projects.get(4).getProjectId()).orElseThrow();
+		assertThat(stored.getProjectName()).isEqualTo("Project 4");
+		assertThat(stored.getMaterials()).extracting(Material::getMaterialName).containsExactly("Project 4 board");
+		assertThat(stored.getSteps()).hasSize(3);
+		assertThat(stored.getCategories()).extracting(Category::getCategoryName).containsExactly("Woodworking");
+	}
+
+	@Test
+	void assertThatNewCategoriesAreInsertedOncePerBatch() {
+		// Given: two projects naming the same new category
+		Project first = newProject("First", "Metal");
+		Project second = newProject("Second", "Metal");
+
+		// When: they are inserted in one batch
+		projectDao.insertProjects(List.of(first, second), 10);
+
+		// Then: both link to the same category row
+		assertThat(first.getCategories().get(0).getCategoryId())
+				.isEqualTo(second.getCategories().get(0).getCategoryId());
+	}
+
+	@Test
+	void assertThatGraphFetchMatchesPerProjectFetch() {
+		// Given: several stored projects
+		List<Project> projects = new ArrayList<>();
+
+		for(int i = 0; i < 7; i++) {
+			projects.add(newProject("Graph " + i, "Craft " + (i % 3)));
+		}
+
+		projectDao.insertProjects(projects, 100);
+
+		List<Integer> ids = new ArrayList<>();
+		projects.forEach(project -> ids.add(project.getProjectId()));
+		ids.add(-1);
+
+		// When: the details are loaded in bulk, in reverse order
+		List<Integer> reversed = new ArrayList<>(ids);
+		Collections.reverse(reversed);
+		List<Project> loaded = projectDao.fetchProjectsWithDetails(reversed);
+
+		// Then: the unknown ID is skipped, the order is kept and the children match
+		assertThat(loaded).hasSize(7);
+		assertThat(loaded.get(0).getProjectName()).isEqualTo("Graph 6");
+
+		for(Project bulk : loaded) {
+			Project single = projectDao.fetchProjectById(bulk.getProjectId()).orElseThrow();
+
+			assertThat(bulk.getMaterials()).extracting(Material::getMaterialId)
+					.containsExactlyElementsOf(single.getMaterials().stream().map(Material::getMaterialId).toList());
+			assertThat(bulk.getSteps()).extracting(Step::getStepText).containsExactly("Cut", "Sand", "Finish");
+			assertThat(bulk.getCategories()).extracting(Category::getCategoryName)
+					.containsExactlyElementsOf(single.getCategories().stream().map(Category::getCategoryName).toList());
+		}
+	}
+
+	@Test
+	void assertThatStreamedGraphsFollowIdOrderFromTheStartPoint() {
+		// Given: stored projects, one of them without any children
+		List<Project> projects = new ArrayList<>();
+
+		for(int i = 0; i < 6; i++) {
+			projects.add(newProject("Stream " + i, "Craft " + (i % 2)));
+		}
+
+		Project bare = projects.get(3);
+		bare.getMaterials().clear();
+		bare.getSteps().clear();
+		bare.getCategories().clear();
+
+		projectDao.insertProjects(projects, 100);
+
+		// When: the projects after the first one are streamed
+		List<Project> streamed;
+
+		try(Stream<Project> stream = projectDao.streamProjectsWithDetails(projects.get(0).getProjectId())) {
+			streamed = stream.toList();
+		}
+
+		// Then: the rest come back in ID order, each with its own children
+		assertThat(streamed).extracting(Project::getProjectId).containsExactlyElementsOf(
+				projects.subList(1, 6).stream().map(Project::getProjectId).sorted().toList());
+
+		for(Project project : streamed) {
+			Project single = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+
+			assertThat(project.getMaterials()).extracting(Material::getMaterialName)
+					.containsExactlyElementsOf(single.getMaterials().stream().map(Material::getMaterialName).toList());
+			assertThat(project.getSteps()).extracting(Step::getStepText)
+					.containsExactlyElementsOf(single.getSteps().stream().map(Step::getStepText).toList());
+			assertThat(project.getCategories()).extracting(Category::getCategoryName)
+					.containsExactlyElementsOf(single.getCategories().stream().map(Category::getCategoryName).toList());
+		}
+
+		assertThat(streamed.get(2).getSteps()).isEmpty();
+	}
+
+	@Test
+	void assertThatMissingProjectIsEmpty() {
+		// When/Then: an unknown ID gives an empty Optional rather than an error
+		assertThat(projectDao.fetchProjectById(12345)).isEmpty();
+	}
+
+	@Test
+	void assertThatListingsAreInNameOrder() {
+		// Given: stored projects inserted out of name order
+		projectDao.insertProjects(List.of(newProject("Charlie", "A"), newProject("Alpha", "A"),
+				newProject("Bravo", "A")), 10);
+
+		// When: the projects are listed, streamed and paged
+		List<String> listed = projectDao.fetchAllProjects().stream().map(Project::getProjectName).toList();
+		List<String> streamed;
+
+		try(Stream<Project> projects = projectDao.streamAllProjects()) {
+			streamed = projects.map(Project::getProjectName).toList();
+		}
+
+		Project alpha = projectDao.fetchAllProjects().get(0);
+		List<String> afterAlpha = projectDao.fetchProjectsAfter(alpha.getProjectName(), alpha.getProjectId(), 1)
+				.stream().map(Project::getProjectName).toList();
+
+		// Then: every form is ordered by name
+		assertThat(listed).containsExactly("Alpha", "Bravo", "Charlie");
+		assertThat(streamed).isEqualTo(listed);
+		assertThat(afterAlpha).containsExactly("Bravo");
+	}
+
+	@Test
+	void assertThatMixedCaseNamesListAndPageInCollationOrder() {
+		// Given: names that differ in case, two of them only in case, inserted out of order
+		List<String> names = List.of("grape", "Banana", "apple", "Honeydew", "cherry", "APPLE", "Fig", "Date", "elder");
+		List<Project> projects = new ArrayList<>();
+
+		for(String name : names) {
+			projects.add(newProject(name, "A"));
+		}
+
+		projectDao.insertProjects(projects, 10);
+
+		// When: the projects are listed, streamed and paged three at a time
+		List<Project> listed = projectDao.fetchAllProjects();
+		List<String> streamed;
+
+		try(Stream<Project> stream = projectDao.streamAllProjects()) {
+			streamed = stream.map(Project::getProjectName).toList();
+		}
+
+		List<String> paged = new ArrayList<>();
+		List<Project> page = projectDao.fetchProjectsAfter(null, null, 3);
+
+		while(!page.isEmpty()) {
+			page.forEach(project -> paged.add(project.getProjectName()));
+
+			Project last = page.get(page.size() - 1);
+			page = projectDao.fetchProjectsAfter(last.getProjectName(), last.getProjectId(), 3);
+		}
+
+		// Then: every form ignores case, as the column collation does, and breaks the tie by ID
+		List<String> expected = List.of("apple", "APPLE", "Banana", "cherry", "Date", "elder", "Fig", "grape", "Honeydew");
+
+		assertThat(listed).extracting(Project::getProjectName).containsExactlyElementsOf(expected);
+		assertThat(streamed).containsExactlyElementsOf(expected);
+		assertThat(paged).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	void assertThatModifyAndDeleteReportMissingProjects() {
+		// Given: one stored project
+		Project project = newProject("Before", "A");
+		projectDao.insertProjects(List.of(project), 10);
+
+		// When: it is renamed, then deleted twice
+		project.setProjectName("After");
+		boolean modified = projectDao.modifyProjectDetails(project);
+		String storedName = projectDao.fetchProjectById(project.getProjectId()).orElseThrow().getProjectName();
+		boolean deleted = projectDao.deleteProject(project.getProjectId());
+		boolean deletedAgain = projectDao.deleteProject(project.getProjectId());
+
+		// Then: only the calls that found the project report success
+		assertThat(modified).isTrue();
+		assertThat(storedName).isEqualTo("After");
+		assertThat(deleted).isTrue();
+		assertThat(deletedAgain).isFalse();
+		project.setNotes("Gone");
+		assertThat(projectDao.modifyProjectDetails(project)).isFalse();
+		assertThat(projectDao.fetchProjectById(project.getProjectId())).isEmpty();
+
+		// And: an edit that changes nothing also finds the project gone, alone or in a batch
+		Project unchanged = new Project();
+		unchanged.setProjectId(project.getProjectId());
+		assertThat(projectDao.modifyProjectDetails(unchanged)).isFalse();
+		assertThat(projectDao.modifyProjects(List.of(unchanged))).containsExactly(unchanged);
+	}
+
+	@Test
+	void assertThatUpdatesWriteOnlyChangedColumns() {
+		// Given: one stored project, loaded twice
+		Project project = newProject("Shared", "A");
+		projectDao.insertProjects(List.of(project), 10);
+
+		Project first = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+		Project second = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+
+		// When: each copy changes a different column and is written, the second one last
+		first.setNotes("From the first");
+		second.setActualHours(new BigDecimal("3.25"));
+		second.setEstimatedHours(new BigDecimal("2.5"));
+
+		boolean firstModified = projectDao.modifyProjectDetails(first);
+		boolean secondModified = projectDao.modifyProjectDetails(second);
+
+		// Then: neither overwrote the other's change, and the equal decimal was not a change
+		Project stored = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+		assertThat(firstModified).isTrue();
+		assertThat(secondModified).isTrue();
+		assertThat(stored.getNotes()).isEqualTo("From the first");
+		assertThat(stored.getActualHours()).isEqualByComparingTo("3.25");
+		assertThat(stored.getProjectName()).isEqualTo("Shared");
+		assertThat(first.getChangedFields()).isEmpty();
+		assertThat(second.getChangedFields()).isEmpty();
+		assertThat(projectDao.modifyProjectDetails(stored)).isTrue();
+	}
+
+	@Test
+	void assertThatBatchedUpdatesReportMissingProjects() {
+		// Given: three stored projects, one of them deleted
+		List<Project> projects = List.of(newProject("One", "A"), newProject("Two", "A"), newProject("Three", "A"));
+		projectDao.insertProjects(projects, 10);
+		projectDao.deleteProject(projects.get(2).getProjectId());
+
+		// When: they are updated together, changing different columns
+		projects.get(0).setActualHours(new BigDecimal("1.25"));
+		projects.get(1).setNotes("Second");
+		projects.get(2).setActualHours(new BigDecimal("3.75"));
+
+		List<Project> missing = projectDao.modifyProjects(projects);
+
+		// Then: the stored projects are updated and the deleted one is reported
+		assertThat(missing).containsExactly(projects.get(2));
+		assertThat(projectDao.fetchProjectById(projects.get(0).getProjectId()).orElseThrow().getActualHours())
+				.isEqualByComparingTo("1.25");
+		assertThat(projectDao.fetchProjectById(projects.get(1).getProjectId()).orElseThrow().getNotes())
+				.isEqualTo("Second");
+		assertThat(projects.get(0).getChangedFields()).isEmpty();
+		assertThat(projects.get(2).getChangedFields()).containsExactly("actualHours");
+	}
+
+	@Test
+	void assertThatMaterialAndStepUpdatesWriteChangedColumns() {
+		// Given: a stored project with a material and steps
+		Project project = newProject("Parts", "A");
+		projectDao.insertProjects(List.of(project), 10);
+
+		Project loaded = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+		Material material = loaded.getMaterials().get(0);
+		Step step = loaded.getSteps().get(1);
+
+		// When: the material cost and the step text are changed
+		material.setCost(new BigDecimal("12.50"));
+		step.setStepText("Sand twice");
+
+		boolean materialModified = projectDao.modifyMaterial(material);
+		boolean stepModified = projectDao.modifyStep(step);
+
+		// Then: those columns change and the others keep their values
+		Project stored = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+		assertThat(materialModified).isTrue();
+		assertThat(stepModified).isTrue();
+		assertThat(stored.getMaterials().get(0).getCost()).isEqualByComparingTo("12.50");
+		assertThat(stored.getMaterials().get(0).getMaterialName()).isEqualTo("Parts board");
+		assertThat(stored.getSteps()).extracting(Step::getStepText).containsExactly("Cut", "Sand twice", "Finish");
+
+		// And: a missing row is reported, whether or not there is something to write
+		Step missing = new Step();
+		missing.setStepId(-1);
+		missing.setStepText("Nowhere");
+		assertThat(projectDao.modifyStep(missing)).isFalse();
+		missing.clearChanges();
+		assertThat(projectDao.modifyStep(missing)).isFalse();
+		assertThat(projectDao.modifyStep(stored.getSteps().get(0))).isTrue();
+	}
+
+	@Test
+	void assertThatSingleInsertsSetGeneratedIds() {
+		// Given: a project inserted on its own
+		Project project = new Project();
+		project.setProjectName("Single");
+		projectDao.insertProject(project);
+
+		// When: a material, a category and a step are inserted one at a time
+		Material material = new Material();
+		material.setProjectId(project.getProjectId());
+		material.setMaterialName("Glue");
+		material.setNumRequired(1);
+		projectDao.insertMaterial(material);
+
+		Category category = new Category();
+		category.setCategoryName("Repairs");
+		projectDao.insertCategory(category);
+
+		Step step = new Step();
+		step.setProjectId(project.getProjectId());
+		step.setStepText("Clamp");
+		projectDao.insertStep(step);
+
+		// Then: each has its generated ID, and the project reads back with its children
+		assertThat(project.getProjectId()).isNotNull();
+		assertThat(material.getMaterialId()).isNotNull();
+		assertThat(category.getCategoryId()).isNotNull();
+		assertThat(step.getStepId()).isNotNull();
+
+		Project stored = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+		assertThat(stored.getMaterials()).extracting(Material::getMaterialId).containsExactly(material.getMaterialId());
+		assertThat(stored.getSteps()).extracting(Step::getStepId).containsExactly(step.getStepId());
+	}
+
+	@Test
+	void assertThatStepsAppendReorderAndDelete() {
+		// Given: a stored project with steps 1, 2 and 3
+		Project project = newProject("Steps", "A");
+		projectDao.insertProjects(List.of(project), 10);
+		List<Integer> stepIds = new ArrayList<>(project.getSteps().stream().map(Step::getStepId).toList());
+
+		// When: a step is appended, the first is deleted and the rest are reversed
+		Step appended = new Step();
+		appended.setProjectId(project.getProjectId());
+		appended.setStepText("Wax");
+		projectDao.insertStep(appended);
+
+		boolean deleted = projectDao.deleteStep(stepIds.remove(0));
+		stepIds.add(appended.getStepId());
+		Collections.reverse(stepIds);
+		boolean reordered = projectDao.reorderSteps(project.getProjectId(), stepIds);
+
+		// Then: the appended step went last, and the steps read back in the new order
+		assertThat(appended.getStepOrder()).isGreaterThan(3);
+		assertThat(deleted).isTrue();
+		assertThat(reordered).isTrue();
+		assertThat(projectDao.fetchProjectById(project.getProjectId()).orElseThrow().getSteps())
+				.extracting(Step::getStepText).containsExactly("Wax", "Finish", "Sand");
+
+		// And: a list that is not exactly the project's steps is refused
+		assertThat(projectDao.reorderSteps(project.getProjectId(), stepIds.subList(0, 2))).isFalse();
+		assertThat(projectDao.deleteStep(-1)).isFalse();
+	}
+
+	@Test
+	void assertThatConcurrentAppendsGetDistinctOrders() throws Exception {
+		// Given: a stored project with three steps
+		Project project = newProject("Busy", "A");
+		projectDao.insertProjects(List.of(project), 10);
+
+		// When: eight threads append steps to it at once
+		ExecutorService threads = Executors.newFixedThreadPool(8);
+		List<Future<Step>> appends = new ArrayList<>();
+
+		try {
+			for(int i = 0; i < 400; i++) {
+				String text = "Appended " + i;
+
+				appends.add(threads.submit(() -> {
+					Step step = new Step();
+					step.setProjectId(project.getProjectId());
+					step.setStepText(text);
+					return projectDao.insertStep(step);
+				}));
+			}
+
+			for(Future<Step> append : appends) {
+				append.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			threads.shutdownNow();
+		}
+
+		// Then: every step has its own order, all above the original steps
+		List<Step> steps = projectDao.fetchProjectById(project.getProjectId()).orElseThrow().getSteps();
+
+		assertThat(steps).hasSize(403);
+		assertThat(steps).extracting(Step::getStepOrder).doesNotHaveDuplicates();
+		assertThat(steps.subList(3, steps.size())).allSatisfy(step -> assertThat(step.getStepOrder()).isGreaterThan(3));
+	}
+}
@@ -0,0 +1,224 @@
+package projects.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.entity.Project;
+import projects.service.ProjectCache;
+import projects.service.ProjectRequestExecutor;
+import projects.service.ProjectService;
+import projects.service.WriteBehindQueue;
+
+/*
+ * Three embedded databases stand in for a primary and two replicas. Nothing replicates between
+ * them: each replica is seeded with a project of its own, so a read shows where it was served.
+ */
+class ReplicaRouterTest {
+
+	private ConnectionPool primary;
+	private ConnectionPool replicaA;
+	private ConnectionPool replicaB;
+	private JdbcProjectDao projectDao;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		primary = TestDatabase.install("replica_router_primary");
+		replicaA = TestDatabase.open("replica_router_a", replicaConfig());
+		replicaB = TestDatabase.open("replica_router_b", replicaConfig());
+
+		seed(replicaA, "On A");
+		seed(replicaB, "On B");
+
+		projectDao = new JdbcProjectDao(null);
+
+		/* Writes of earlier tests on this thread must not count. */
+		ReplicaRouter.startSession();
+	}
+
+	@AfterEach
+	void tearDown() {
+		DbConnection.setReplicaRouter(null);
+	}
+
+	@Test
+	void assertThatReadsRotateOverReplicasAndWritesGoToThePrimary() throws SQLException {
+		// Given: a router over both replicas
+		DbConnection.setReplicaRouter(new ReplicaRouter(List.of(replicaA, replicaB)));
+
+		// When: a project is written and the projects are read twice
+		projectDao.insertProject(ProjectDaoContractTest.newProject("Written", "Replicas"));
+
+		List<String> reads = new ArrayList<>();
+		reads.add(names(projectDao.fetchAllProjects()));
+		reads.add(names(projectDao.fetchAllProjects()));
+
+		// Then: the write reached the primary only, and each replica served one read
+		assertThat(reads).containsExactlyInAnyOrder("On A", "On B");
+		assertThat(primaryProjectNames()).containsExactly("Written");
+		assertThat(DbConnection.getReplicaRouter().getReplicaReadCount()).isEqualTo(2);
+	}
+
+	@Test
+	void assertThatABusyReplicaIsPassedOver() throws SQLException {
+		// Given: a router over both replicas, one of which is busy with a long read
+		DbConnection.setReplicaRouter(new ReplicaRouter(List.of(replicaA, replicaB)));
+
+		try(Connection busy = DbConnection.getReadConnection()) {
+			String idle = projectNames(busy).equals(List.of("On A")) ? "On B" : "On A";
+
+			// When: more reads come in
+			// Then: they all go to the idle replica
+			for(int i = 0; i < 3; i++) {
+				assertThat(names(projectDao.fetchAllProjects())).isEqualTo(idle);
+			}
+		}
+	}
+
+	@Test
+	void assertThatReadYourWritesReadsFromThePrimaryAfterAWrite() {
+		// Given: a router that keeps a writer's reads on the primary for a minute
+		DbConnection.setReplicaRouter(new ReplicaRouter(List.of(replicaA, replicaB), 1, TimeUnit.MINUTES));
+
+		// When: a project is written
+		projectDao.insertProject(ProjectDaoContractTest.newProject("Mine", "Replicas"));
+
+		// Then: the writer sees it, while a caller that has not written still reads a replica
+		assertThat(names(projectDao.fetchAllProjects())).isEqualTo("Mine");
+		assertThat(asAnotherCaller(() -> names(projectDao.fetchAllProjects()))).isIn("On A", "On B");
+		assertThat(DbConnection.getReplicaRouter().getPrimaryReadCount()).isEqualTo(1);
+	}
+
+	@Test
+	void assertThatReadsFailOverWhenReplicasAreDown() {
+		// Given: a router whose second replica is down
+		DbConnection.setReplicaRouter(new ReplicaRouter(List.of(replicaA, replicaB)));
+		replicaB.close();
+
+		// When/Then: reads go to the replica that is up
+		for(int i = 0; i < 3; i++) {
+			assertThat(names(projectDao.fetchAllProjects())).isEqualTo("On A");
+		}
+
+		// When/Then: with both down, reads go to the primary
+		replicaA.close();
+		projectDao.insertProject(ProjectDaoContractTest.newProject("Primary", "Replicas"));
+
+		assertThat(names(projectDao.fetchAllProjects())).isEqualTo("Primary");
+		assertThat(DbConnection.getReplicaRouter().getFailoverCount()).isPositive();
+	}
+
+	@Test
+	void assertThatCacheFillsReadFromThePrimary() {
+		// Given: a router over both replicas, no read-your-writes window, and a project on the primary
+		// with the same ID as the replicas' seeded ones
+		DbConnection.setReplicaRouter(new ReplicaRouter(List.of(replicaA, replicaB)));
+		ProjectService projectService = new ProjectService(projectDao, ProjectCache.disabled());
+
+		Project written = projectDao.insertProject(ProjectDaoContractTest.newProject("Written", "Replicas"));
+
+		// When/Then: loads through the project cache see the primary's row
+		for(int i = 0; i < 2; i++) {
+			assertThat(projectService.fetchProjectById(written.getProjectId()).getProjectName()).isEqualTo("Written");
+		}
+
+		assertThat(DbConnection.getReplicaRouter().getReplicaReadCount()).isZero();
+	}
+
+	@Test
+	void assertThatRequestsOnOtherThreadsReadTheCallersWrites() throws Exception {
+		// Given: a router that keeps a caller's reads on the primary for a minute, and an executor
+		DbConnection.setReplicaRouter(new ReplicaRouter(List.of(replicaA, replicaB), 1, TimeUnit.MINUTES));
+		ProjectService projectService = new ProjectService(projectDao, ProjectCache.disabled());
+
+		try(ProjectRequestExecutor executor = new ProjectRequestExecutor(projectService, 2, 4, false, 1000)) {
+			// When: the caller writes through the executor, whose thread does the write
+			executor.addProject(ProjectDaoContractTest.newProject("Mine", "Replicas")).get();
+
+			// Then: the caller's reads see it, on its own thread and on the executor's
+			assertThat(names(projectService.fetchAllProjects())).isEqualTo("Mine");
+			assertThat(names(executor.fetchAllProjects().get())).isEqualTo("Mine");
+
+			// And: another caller still reads a replica
+			assertThat(asAnotherCaller(() -> names(projectDao.fetchAllProjects()))).isIn("On A", "On B");
+		}
+	}
+
+	@Test
+	void assertThatAWriteBehindFlushCountsAsTheEditorsWrite() throws Exception {
+		// Given: a router with a window, and a project written by someone else
+		DbConnection.setReplicaRouter(new ReplicaRouter(List.of(replicaA, replicaB), 1, TimeUnit.MINUTES));
+		ProjectService projectService = new ProjectService(projectDao, ProjectCache.disabled());
+
+		Project stored = asAnotherCaller(() -> projectDao.insertProject(ProjectDaoContractTest.newProject("Queued", "Replicas")));
+
+		try(WriteBehindQueue queue = new WriteBehindQueue(projectService, 10, 10, 1, TimeUnit.MINUTES)) {
+			// When: the caller queues an edit, which another thread flushes
+			Project edit = new Project();
+			edit.setProjectId(stored.getProjectId());
+			edit.setActualHours(BigDecimal.ONE);
+			queue.modifyProjectDetails(edit);
+
+			assertThat(names(projectDao.fetchAllProjects())).isIn("On A", "On B");
+
+			Thread flusher = new Thread(queue::flush);
+			flusher.start();
+			flusher.join();
+
+			// Then: the caller's reads go to the primary, where the edit is
+			assertThat(projectDao.fetchAllProjects()).singleElement()
+					.satisfies(project -> assertThat(project.getActualHours()).isEqualByComparingTo(BigDecimal.ONE));
+		}
+	}
+
+	private static ConnectionPoolConfig replicaConfig() {
+		ConnectionPoolConfig config = new ConnectionPoolConfig();
+		config.setMinSize(0);
+		config.setMaxSize(2);
+		return config;
+	}
+
+	private static void seed(ConnectionPool replica, String projectName) throws SQLException {
+		try(Connection conn = replica.getConnection();
+				PreparedStatement stmt = conn.prepareStatement("INSERT INTO project (project_name) VALUES (?)")) {
+			stmt.setString(1, projectName);
+			stmt.executeUpdate();
+		}
+	}
+
+	private List<String> primaryProjectNames() throws SQLException {
+		try(Connection conn = primary.getConnection()) {
+			return projectNames(conn);
+		}
+	}
+
+	private static List<String> projectNames(Connection conn) throws SQLException {
+		List<String> names = new ArrayList<>();
+
+		try(PreparedStatement stmt = conn.prepareStatement("SELECT project_name FROM project");
+				ResultSet rs = stmt.executeQuery()) {
+			while(rs.next()) {
+				names.add(rs.getString(1));
+			}
+		}
+
+		return names;
+	}
+
+	private static <T> T asAnotherCaller(Supplier<T> call) {
+		return ReplicaRouter.callInSession(new ReplicaRouter.Session(), call);
+	}
+
+	private static String names(List<Project> projects) {
+		return String.join(",", projects.stream().map(Project::getProjectName).toList());
+	}
+}
@@ -0,0 +1,144 @@
+package projects.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.entity.Project;
+
+class SchemaMigratorTest {
+
+	private Connection conn;
+	private SchemaMigrator migrator;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		conn = DriverManager.getConnection(TestDatabase.url("schema_migrator_test"));
+
+		try(Statement stmt = conn.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+
+		migrator = new SchemaMigrator();
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		conn.close();
+	}
+
+	@Test
+	void assertThatEmptyDatabaseIsMigratedOnce() {
+		// When: an empty database is migrated twice
+		int first = migrator.migrate(conn);
+		int second = migrator.migrate(conn);
+
+		// Then: every script runs the first time and none the second
+		assertThat(first).isEqualTo(SchemaMigrator.MIGRATIONS.size());
+		assertThat(second).isZero();
+		assertThat(migrator.currentVersion(conn)).isEqualTo(migrator.latestVersion());
+	}
+
+	@Test
+	void assertThatExistingSchemaIsAdoptedAsBaseline() throws SQLException {
+		// Given: the tables as the old projects-schema.sql created them, with a row in place
+		migrator.migrate(conn, 1);
+		assertThat(indexExists("project_name_id_idx")).isFalse();
+
+		try(Statement stmt = conn.createStatement()) {
+			stmt.execute("DROP TABLE schema_version");
+			stmt.execute("INSERT INTO project (project_id, project_name) VALUES (7, 'Existing')");
+		}
+
+		// When: the database is migrated
+		int applied = migrator.migrate(conn);
+
+		// Then: only the later scripts run, they add the pagination index and the existing row survives
+		assertThat(applied).isEqualTo(SchemaMigrator.MIGRATIONS.size() - 1);
+		assertThat(indexExists("project_name_id_idx")).isTrue();
+
+		try(Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT project_name FROM project WHERE project_id = 7")) {
+			assertThat(rs.next()).isTrue();
+			assertThat(rs.getString(1)).isEqualTo("Existing");
+		}
+	}
+
+	@Test
+	void assertThatAKeyedExistingSchemaIsAdopted() throws SQLException {
+		// Given: the old tables as keyed by hand to run the application: primary keys with
+		// AUTO_INCREMENT and a foreign key under a name of its own
+		migrator.migrate(conn, 1);
+
+		try(Statement stmt = conn.createStatement()) {
+			stmt.execute("DROP TABLE schema_version");
+
+			for(String table : List.of("project", "material", "step", "category")) {
+				stmt.execute("ALTER TABLE " + table + " ADD PRIMARY KEY (" + table + "_id)");
+				stmt.execute("ALTER TABLE " + table + " MODIFY COLUMN " + table + "_id INT NOT NULL AUTO_INCREMENT");
+			}
+
+			stmt.execute("ALTER TABLE material ADD CONSTRAINT fk_material_project "
+					+ "FOREIGN KEY (project_id) REFERENCES project (project_id)");
+			stmt.execute("INSERT INTO project (project_name) VALUES ('Existing')");
+		}
+
+		// When: the database is migrated
+		int applied = migrator.migrate(conn);
+
+		// Then: the later scripts run around the keys already there, without a second foreign key
+		assertThat(applied).isEqualTo(SchemaMigrator.MIGRATIONS.size() - 1);
+		assertThat(migrator.currentVersion(conn)).isEqualTo(migrator.latestVersion());
+		assertThat(indexExists("project_name_id_idx")).isTrue();
+
+		int materialToProject = 0;
+
+		try(ResultSet rs = conn.getMetaData().getImportedKeys(conn.getCatalog(), null, "material")) {
+			while(rs.next()) {
+				materialToProject += "project".equalsIgnoreCase(rs.getString("PKTABLE_NAME")) ? 1 : 0;
+			}
+		}
+
+		assertThat(materialToProject).isEqualTo(1);
+	}
+
+	@Test
+	void assertThatDeletingProjectCascadesToChildRows() throws SQLException {
+		// Given: a project with children in the migrated schema
+		TestDatabase.install("schema_migrator_cascade_test");
+		JdbcProjectDao projectDao = new JdbcProjectDao();
+		Project project = ProjectDaoContractTest.newProject("Cascade", "A");
+		projectDao.insertProjects(List.of(project), 10);
+
+		// When: the project is deleted
+		projectDao.deleteProject(project.getProjectId());
+
+		// Then: its materials, steps and category links are gone too
+		try(Connection db = DbConnection.getConnection(); Statement stmt = db.createStatement()) {
+			for(String table : List.of("material", "step", "project_category")) {
+				try(ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+					rs.next();
+					assertThat(rs.getInt(1)).as(table).isZero();
+				}
+			}
+		}
+	}
+
+	private boolean indexExists(String indexName) throws SQLException {
+		try(ResultSet rs = conn.getMetaData().getIndexInfo(conn.getCatalog(), null, "project", false, false)) {
+			while(rs.next()) {
+				if(indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+}
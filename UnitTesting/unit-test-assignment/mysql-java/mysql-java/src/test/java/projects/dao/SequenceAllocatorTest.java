@@ -0,0 +1,126 @@
+package projects.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.entity.Project;
+
+class SequenceAllocatorTest {
+
+	private static final String SEED_SQL = "SELECT MAX(step_order) FROM step WHERE project_id = ?";
+
+	private Project project;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		TestDatabase.install("sequence_allocator_test");
+
+		/* A project whose three steps already hold orders 1 to 3. */
+		project = ProjectDaoContractTest.newProject("Sequenced", "A");
+		new JdbcProjectDao().insertProjects(List.of(project), 10);
+	}
+
+	@Test
+	void assertThatSmallBlocksNeverHandOutANumberTwice() throws Exception {
+		// Given: an allocator that has to reserve a new block every four numbers
+		SequenceAllocator allocator = new SequenceAllocator("test", SEED_SQL, 4);
+		Set<Integer> seen = ConcurrentHashMap.newKeySet();
+
+		// When: many threads draw numbers at once
+		ExecutorService threads = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> draws = new ArrayList<>();
+
+		try {
+			for(int i = 0; i < 1_000; i++) {
+				draws.add(threads.submit(() -> seen.add(allocator.next(project.getProjectId()))));
+			}
+
+			// Then: every number is new and above the existing step orders
+			for(Future<Boolean> draw : draws) {
+				assertThat(draw.get(30, TimeUnit.SECONDS)).isTrue();
+			}
+		}
+		finally {
+			threads.shutdownNow();
+		}
+
+		assertThat(seen).hasSize(1_000).allSatisfy(value -> assertThat(value).isGreaterThan(3));
+	}
+
+	@Test
+	void assertThatANewAllocatorStartsAboveTheHighWaterMark() {
+		// Given: an allocator that reserved a block and used part of it
+		SequenceAllocator first = new SequenceAllocator("test", SEED_SQL, 10);
+		int used = first.next(project.getProjectId());
+
+		// When: another allocator, as in a restarted or second process, draws from the same sequence
+		int next = new SequenceAllocator("test", SEED_SQL, 10).next(project.getProjectId());
+
+		// Then: it skips the whole block the first one holds
+		assertThat(used).isEqualTo(4);
+		assertThat(next).isEqualTo(14);
+		assertThat(first.next(project.getProjectId())).isEqualTo(5);
+	}
+
+	@Test
+	void assertThatADeadlockedReservationIsRunAgain() {
+		// Given: an allocator whose first two reservations are picked as deadlock victims
+		AtomicInteger deadlocks = new AtomicInteger(2);
+		SequenceAllocator allocator = new SequenceAllocator("test", SEED_SQL, 10,
+				() -> deadlockingHighWaterReads(DbConnection.getConnection(), deadlocks));
+
+		// When: a number is drawn
+		int value = allocator.next(project.getProjectId());
+
+		// Then: the third attempt reserved the block
+		assertThat(value).isEqualTo(4);
+		assertThat(deadlocks).hasValue(0);
+	}
+
+	/* Wraps the connection so its SELECT ... FOR UPDATE fails with MySQL's deadlock error while deadlocks lasts. */
+	private static Connection deadlockingHighWaterReads(Connection conn, AtomicInteger deadlocks) {
+		return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+				(proxy, method, args) -> {
+					Object result = invoke(conn, method, args);
+
+					if(!method.getName().equals("prepareStatement") || !((String)args[0]).endsWith("FOR UPDATE")) {
+						return result;
+					}
+
+					PreparedStatement stmt = (PreparedStatement)result;
+
+					return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+							new Class<?>[] {PreparedStatement.class}, (stmtProxy, stmtMethod, stmtArgs) -> {
+								if(stmtMethod.getName().equals("executeQuery") && deadlocks.getAndUpdate(left -> Math.max(left - 1, 0)) > 0) {
+									throw new SQLException("Deadlock found when trying to get lock", "40001", 1213);
+								}
+
+								return invoke(stmt, stmtMethod, stmtArgs);
+							});
+				});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch(InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package projects.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.exception.DbException;
+
+/*
+ * The DAO contract over three embedded databases as shards, plus placement and adding a shard.
+ */
+class ShardedProjectDaoTest extends ProjectDaoContractTest {
+	private static final int SHARDS = 3;
+
+	private final List<ConnectionPool> pools = new ArrayList<>();
+	private ShardedProjectDao shardedDao;
+
+	@Override
+	protected ProjectDao createDao() throws SQLException {
+		for(int index = 0; index < SHARDS; index++) {
+			pools.add(openShard("sharded_dao_test_" + index));
+		}
+
+		shardedDao = new ShardedProjectDao(pools);
+		return shardedDao;
+	}
+
+	@AfterEach
+	void tearDown() {
+		shardedDao.close();
+		pools.forEach(ConnectionPool::close);
+	}
+
+	@Test
+	void assertThatProjectsSpreadOverShardsWithTheirChildren() throws SQLException {
+		// Given/When: projects with materials and steps
+		projectDao.insertProjects(projectsWithChildren("Spread", 60), 10);
+
+		// Then: every shard holds some projects, each project is on the shard it hashes to, and no
+		// child row is on a shard without its project
+		for(int index = 0; index < SHARDS; index++) {
+			List<Integer> ids = queryInts(pools.get(index), "SELECT project_id FROM project");
+
+			assertThat(ids).isNotEmpty();
+
+			for(int projectId : ids) {
+				assertThat(shardedDao.shardOf(projectId)).isEqualTo(index);
+			}
+
+			assertThat(queryInts(pools.get(index), "SELECT COUNT(*) FROM material m "
+					+ "LEFT JOIN project p ON p.project_id = m.project_id WHERE p.project_id IS NULL")).containsExactly(0);
+			assertThat(queryInts(pools.get(index), "SELECT COUNT(*) FROM step s "
+					+ "LEFT JOIN project p ON p.project_id = s.project_id WHERE p.project_id IS NULL")).containsExactly(0);
+		}
+	}
+
+	@Test
+	void assertThatNewIdsStartAboveTheLargestOnAnyShard() throws SQLException {
+		// Given: a project already on the last shard, with an ID above anything on the first
+		update(pools.get(SHARDS - 1), "INSERT INTO project (project_id, project_name) VALUES (5000, 'Left over')");
+
+		// When: a project is added through the DAO
+		Project added = projectDao.insertProject(newProject("After", "Craft"));
+
+		// Then: its ID is past the one on the other shard
+		assertThat(added.getProjectId()).isGreaterThan(5000);
+	}
+
+	@Test
+	void assertThatACategoryRejectedByOneShardIsTakenOffTheOthers() throws SQLException {
+		// Given: the last shard already holds a category under the ID about to be used
+		update(pools.get(SHARDS - 1), "INSERT INTO category (category_id, category_name) VALUES (7000, 'Taken')");
+
+		Category category = new Category();
+		category.setCategoryId(7000);
+		category.setCategoryName("Woodwork");
+
+		// When: the category is written to every shard
+		assertThatThrownBy(() -> projectDao.insertCategory(category)).isInstanceOf(DbException.class);
+
+		// Then: the shards that took it before the failure no longer have it
+		for(int index = 0; index < SHARDS - 1; index++) {
+			assertThat(queryInts(pools.get(index), "SELECT COUNT(*) FROM category")).containsExactly(0);
+		}
+
+		assertThat(queryInts(pools.get(SHARDS - 1), "SELECT COUNT(*) FROM category")).containsExactly(1);
+	}
+
+	@Test
+	void assertThatAddingAShardMovesOnlyTheProjectsItTakesOver() throws SQLException {
+		// Given: projects spread over the shards
+		List<Project> projects = projectsWithChildren("Grow", 90);
+		projectDao.insertProjects(projects, 25);
+
+		Map<Integer, Integer> before = new HashMap<>();
+		projects.forEach(project -> before.put(project.getProjectId(), shardedDao.shardOf(project.getProjectId())));
+
+		// When: a fourth shard is added
+		ConnectionPool added = openShard("sharded_dao_test_" + SHARDS);
+		pools.add(added);
+
+		int moved = shardedDao.addShard(added);
+
+		// Then: the projects on the new shard are the ones moved, the others stayed where they were
+		List<Integer> onNewShard = queryInts(added, "SELECT project_id FROM project");
+
+		assertThat(moved).isPositive().isEqualTo(onNewShard.size());
+
+		for(Project project : projects) {
+			int shard = shardedDao.shardOf(project.getProjectId());
+
+			assertThat(shard).isIn(before.get(project.getProjectId()), SHARDS);
+			assertThat(onNewShard.contains(project.getProjectId())).isEqualTo(shard == SHARDS);
+		}
+
+		// And: every project reads back whole, and the list is complete and in name order
+		for(Project project : projects) {
+			Project stored = projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+
+			assertThat(stored.getMaterials()).extracting(Material::getMaterialId)
+					.containsExactlyElementsOf(project.getMaterials().stream().map(Material::getMaterialId).toList());
+			assertThat(stored.getSteps()).hasSameSizeAs(project.getSteps());
+			assertThat(stored.getCategories()).hasSameSizeAs(project.getCategories());
+		}
+
+		assertThat(projectDao.fetchAllProjects()).hasSize(projects.size())
+				.isSortedAccordingTo(Comparator.comparing(Project::getProjectName).thenComparing(Project::getProjectId));
+
+		try(Stream<Project> stream = projectDao.streamProjectsWithDetails(null)) {
+			assertThat(stream.map(Project::getProjectId).toList()).hasSize(projects.size()).isSorted();
+		}
+	}
+
+	@Test
+	void assertThatCallsKeepWorkingWhileAShardIsAdded() throws Exception {
+		// Given: projects spread over the shards
+		List<Project> projects = projectsWithChildren("Online", 120);
+		projectDao.insertProjects(projects, 40);
+
+		ConnectionPool added = openShard("sharded_dao_test_" + SHARDS);
+		pools.add(added);
+
+		// When: projects are listed and updated while a shard is added
+		AtomicBoolean adding = new AtomicBoolean(true);
+		CompletableFuture<Integer> addShard = CompletableFuture.supplyAsync(() -> {
+			try {
+				return shardedDao.addShard(added);
+			}
+			finally {
+				adding.set(false);
+			}
+		});
+
+		int round = 0;
+
+		while(adding.get() || round == 0) {
+			assertThat(projectDao.fetchAllProjects()).hasSize(projects.size());
+
+			for(Project project : projects) {
+				project.setActualHours(new BigDecimal(round + ".00"));
+				assertThat(projectDao.modifyProjectDetails(project)).isTrue();
+			}
+
+			round++;
+		}
+
+		addShard.get();
+
+		// Then: no project was lost and the last update of each one stuck
+		BigDecimal last = new BigDecimal((round - 1) + ".00");
+
+		assertThat(projectDao.fetchAllProjects()).hasSize(projects.size())
+				.allSatisfy(project -> assertThat(project.getActualHours()).isEqualByComparingTo(last));
+	}
+
+	private static ConnectionPool openShard(String name) throws SQLException {
+		ConnectionPoolConfig config = new ConnectionPoolConfig();
+		config.setMinSize(1);
+		config.setMaxSize(4);
+
+		return TestDatabase.open(name, config);
+	}
+
+	private static List<Project> projectsWithChildren(String prefix, int count) {
+		List<Project> projects = new ArrayList<>();
+
+		for(int index = 0; index < count; index++) {
+			Project project = newProject(prefix + " " + index, "Craft " + (index % 4));
+
+			Material material = new Material();
+			material.setMaterialName("Board");
+			material.setNumRequired(index + 1);
+			project.getMaterials().add(material);
+
+			projects.add(project);
+		}
+
+		return projects;
+	}
+
+	private static void update(ConnectionPool pool, String sql) throws SQLException {
+		try(Connection conn = pool.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+			stmt.executeUpdate();
+		}
+	}
+
+	private static List<Integer> queryInts(ConnectionPool pool, String sql) throws SQLException {
+		List<Integer> values = new ArrayList<>();
+
+		try(Connection conn = pool.getConnection();
+				PreparedStatement stmt = conn.prepareStatement(sql);
+				ResultSet rs = stmt.executeQuery()) {
+			while(rs.next()) {
+				values.add(rs.getInt(1));
+			}
+		}
+
+		return values;
+	}
+}
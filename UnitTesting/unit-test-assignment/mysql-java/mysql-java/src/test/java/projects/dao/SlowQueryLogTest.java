@@ -0,0 +1,93 @@
+package projects.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.entity.Project;
+
+class SlowQueryLogTest {
+
+	private SlowQueryLog slowQueries;
+	private ConnectionPool pool;
+	private ProjectDao projectDao;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		slowQueries = new SlowQueryLog(16);
+
+		ConnectionPoolConfig config = new ConnectionPoolConfig();
+		config.setMinSize(1);
+		config.setMaxSize(2);
+		config.setSlowQueryLog(slowQueries);
+
+		pool = TestDatabase.install("slow_query_log_test", config);
+		projectDao = new JdbcProjectDao();
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	void assertThatEachQueryOfAProjectFetchIsCaptured() {
+		// Given: a stored project and a log that records every statement
+		Project project = projectDao.insertProjects(
+				List.of(ProjectDaoContractTest.newProject("Shelf", "Woodwork")), 10).get(0);
+		slowQueries.setThreshold(0, TimeUnit.MILLISECONDS);
+
+		// When: the project is fetched with its details
+		projectDao.fetchProjectById(project.getProjectId());
+
+		// Then: the four queries are logged with their parameter and row counts
+		List<SlowQuery> queries = slowQueries.dump();
+
+		assertThat(queries).hasSize(4);
+		assertThat(queries).allSatisfy(query -> {
+			assertThat(query.getParameters()).containsExactly(project.getProjectId());
+			assertThat(query.getElapsedNanos()).isGreaterThanOrEqualTo(0);
+		});
+		assertThat(queries.stream().map(SlowQuery::getRows).collect(Collectors.toList()))
+				.containsExactly(1L, 1L, 3L, 1L);
+		assertThat(queries.get(2).getSql()).contains("FROM step");
+	}
+
+	@Test
+	void assertThatNothingIsCapturedWhileDisabled() {
+		// Given: a log without a threshold
+
+		// When: statements run
+		projectDao.insertProjects(List.of(ProjectDaoContractTest.newProject("Quiet", "Woodwork")), 10);
+		projectDao.fetchAllProjects();
+
+		// Then: nothing was recorded
+		assertThat(slowQueries.getRecordedCount()).isZero();
+		assertThat(slowQueries.dump()).isEmpty();
+	}
+
+	@Test
+	void assertThatTheRingBufferKeepsTheMostRecentQueries() {
+		// Given: a log holding four entries
+		SlowQueryLog log = new SlowQueryLog(4);
+		log.setThreshold(0, TimeUnit.NANOSECONDS);
+
+		// When: six statements are recorded
+		for(int index = 0; index < 6; index++) {
+			log.record("SELECT " + index, new Object[] {index}, Instant.now(), System.nanoTime(), index);
+		}
+
+		// Then: the last four remain, oldest first
+		assertThat(log.getRecordedCount()).isEqualTo(6);
+		assertThat(log.dump().stream().map(SlowQuery::getSql).collect(Collectors.toList()))
+				.containsExactly("SELECT 2", "SELECT 3", "SELECT 4", "SELECT 5");
+
+		log.clear();
+		assertThat(log.dump()).isEmpty();
+	}
+}
@@ -0,0 +1,56 @@
+package projects.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+ * Points DbConnection at a fresh in-memory H2 database running in MySQL mode, so DAO tests run
+ * without a MySQL server.
+ */
+public class TestDatabase {
+
+	public static String url(String name) {
+		return "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	}
+
+	/*
+	 * Empties the named database, migrates it to the latest schema and makes it the pool behind
+	 * DbConnection.
+	 */
+	public static ConnectionPool install(String name) throws SQLException {
+		ConnectionPoolConfig config = new ConnectionPoolConfig();
+		config.setMinSize(1);
+		config.setMaxSize(4);
+
+		return install(name, config);
+	}
+
+	/* As install(name), with a pool built from the given config. */
+	public static ConnectionPool install(String name, ConnectionPoolConfig config) throws SQLException {
+		ConnectionPool pool = open(name, config);
+		DbConnection.setPool(pool);
+		return pool;
+	}
+
+	/*
+	 * Empties the named database, migrates it to the latest schema and returns a pool for it without
+	 * touching DbConnection, for instance to stand in for a replica. Strings compare as
+	 * ProjectDao.NAME_COLLATION does, ignoring case and accents like MySQL's default collation.
+	 */
+	public static ConnectionPool open(String name, ConnectionPoolConfig config) throws SQLException {
+		String url = url(name);
+
+		try(Connection conn = DriverManager.getConnection(url)) {
+			try(Statement stmt = conn.createStatement()) {
+				stmt.execute("DROP ALL OBJECTS");
+				stmt.execute("SET COLLATION ENGLISH STRENGTH PRIMARY");
+			}
+
+			new SchemaMigrator().migrate(conn);
+		}
+
+		return new ConnectionPool(() -> DriverManager.getConnection(url), config);
+	}
+}
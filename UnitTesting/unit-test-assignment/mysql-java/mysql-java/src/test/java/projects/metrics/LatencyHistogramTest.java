@@ -0,0 +1,39 @@
+package projects.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+	@Test
+	void assertThatBucketsHoldTheirValuesWithinThreePercent() {
+		// Given/When/Then: every value lands in a bucket whose top is at most about 3% above it
+		for(long value : new long[] {0, 1, 31, 32, 63, 64, 1_000, 123_456, 987_654_321L, Long.MAX_VALUE}) {
+			long top = LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(value));
+
+			assertThat(top).isGreaterThanOrEqualTo(value);
+			assertThat((double)(top - value)).isLessThanOrEqualTo(value / 32.0);
+		}
+	}
+
+	@Test
+	void assertThatPercentilesFollowTheRecordedValues() {
+		// Given: the latencies 1 to 1000 microseconds
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for(int micros = 1; micros <= 1_000; micros++) {
+			histogram.record(micros * 1_000L);
+		}
+
+		// When: a snapshot is taken
+		LatencySnapshot snapshot = histogram.snapshot();
+
+		// Then: the percentiles are within the bucket precision
+		assertThat(snapshot.getCount()).isEqualTo(1_000);
+		assertThat(snapshot.getMeanMicros()).isCloseTo(500.5, within(0.01));
+		assertThat(snapshot.getP50Micros()).isCloseTo(500, within(500 * 0.035));
+		assertThat(snapshot.getP99Micros()).isCloseTo(990, within(990 * 0.035));
+		assertThat(snapshot.getMaxMicros()).isEqualTo(1_000);
+	}
+}
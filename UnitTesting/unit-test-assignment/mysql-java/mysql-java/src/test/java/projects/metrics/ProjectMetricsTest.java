@@ -0,0 +1,95 @@
+package projects.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.dao.InMemoryProjectDao;
+import projects.dao.InstrumentedProjectDao;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exception.DbException;
+
+class ProjectMetricsTest {
+
+	private ProjectDao projectDao;
+
+	@BeforeEach
+	void setUp() {
+		ProjectMetrics.reset();
+		projectDao = new InstrumentedProjectDao(new InMemoryProjectDao());
+	}
+
+	@AfterEach
+	void tearDown() {
+		ProjectMetrics.setEnabled(false);
+		ProjectMetrics.reset();
+	}
+
+	@Test
+	void assertThatNothingIsRecordedWhileDisabled() {
+		// Given: metrics switched off
+		ProjectMetrics.setEnabled(false);
+
+		// When: the DAO is called
+		projectDao.insertProject(newProject("Quiet"));
+		projectDao.fetchAllProjects();
+
+		// Then: no call was counted
+		assertThat(ProjectMetrics.snapshot().get("ProjectDao.fetchAllProjects").getCount()).isZero();
+	}
+
+	@Test
+	void assertThatCallsRowsAndErrorsAreRecorded() {
+		// Given: metrics switched on and two stored projects
+		ProjectMetrics.setEnabled(true);
+		projectDao.insertProject(newProject("One"));
+		projectDao.insertProject(newProject("Two"));
+
+		// When: the projects are listed twice and a step is added to a missing project
+		projectDao.fetchAllProjects();
+		projectDao.fetchAllProjects();
+
+		Step step = new Step();
+		step.setProjectId(-1);
+		assertThatThrownBy(() -> projectDao.insertStep(step)).isInstanceOf(DbException.class);
+
+		// Then: the listing has two calls and four rows, and the failed insert an error
+		OperationSnapshot listing = ProjectMetrics.snapshot().get("ProjectDao.fetchAllProjects");
+		assertThat(listing.getCount()).isEqualTo(2);
+		assertThat(listing.getRows()).isEqualTo(4);
+		assertThat(listing.getLatency().getMaxMicros()).isGreaterThan(0);
+		assertThat(ProjectMetrics.snapshot().get("ProjectDao.insertStep").getErrors()).isEqualTo(1);
+	}
+
+	@Test
+	void assertThatMetricsAreReadableOverJmx() throws Exception {
+		// Given: a recorded call and the registered MXBean
+		ProjectMetrics.setEnabled(true);
+		projectDao.insertProjects(List.of(newProject("Jmx")), 10);
+		ObjectName name = ProjectMetrics.registerMBean();
+
+		// When: the attributes are read through the MBean server
+		TabularData operations =
+				(TabularData)ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Operations");
+		CompositeData insert =
+				(CompositeData)operations.get(new Object[] {"ProjectDao.insertProjects"}).get("value");
+
+		// Then: the operation carries its count and latency
+		assertThat(insert.get("count")).isEqualTo(1L);
+		assertThat(((CompositeData)insert.get("latency")).get("count")).isEqualTo(1L);
+	}
+
+	private static Project newProject(String name) {
+		Project project = new Project();
+		project.setProjectName(name);
+		return project;
+	}
+}
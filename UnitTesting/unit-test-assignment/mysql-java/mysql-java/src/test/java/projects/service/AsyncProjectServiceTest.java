@@ -0,0 +1,82 @@
+package projects.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.dao.InMemoryProjectDao;
+import projects.entity.Project;
+
+class AsyncProjectServiceTest {
+
+	private ProjectRequestExecutor executor;
+	private AsyncProjectService asyncService;
+
+	@BeforeEach
+	void setUp() {
+		ProjectService projectService = new ProjectService(new InMemoryProjectDao(), new ProjectCache());
+		executor = new ProjectRequestExecutor(projectService, 4, 64, true, 5_000);
+		asyncService = new AsyncProjectService(projectService, executor);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.close();
+	}
+
+	@Test
+	void assertThatParallelFetchesJoinInIdOrder() {
+		// Given: projects added in parallel
+		List<CompletableFuture<Project>> adds = new ArrayList<>();
+
+		for(String name : List.of("Alpha", "Bravo", "Charlie", "Delta")) {
+			adds.add(asyncService.addProjectAsync(ProjectServiceTest.newProject(name)));
+		}
+
+		List<Integer> ids = new ArrayList<>();
+		adds.forEach(add -> ids.add(add.join().getProjectId()));
+
+		// When: they are fetched in parallel, in reverse order
+		List<Integer> reversed = new ArrayList<>(ids);
+		Collections.reverse(reversed);
+		List<Project> projects = asyncService.fetchProjectsByIdAsync(reversed).join();
+
+		// Then: the joined result follows the requested order
+		assertThat(projects).extracting(Project::getProjectName).containsExactly("Delta", "Charlie", "Bravo", "Alpha");
+	}
+
+	@Test
+	void assertThatCallsCompose() {
+		// Given/When: an add, followed by a rename, followed by a fetch, as one chain
+		Project project = ProjectServiceTest.newProject("Draft");
+
+		String name = asyncService.addProjectAsync(project)
+				.thenCompose(added -> {
+					added.setProjectName("Final");
+					return asyncService.modifyProjectDetailsAsync(added).thenApply(done -> added.getProjectId());
+				})
+				.thenCompose(asyncService::fetchProjectByIdAsync)
+				.thenApply(Project::getProjectName)
+				.join();
+
+		// Then: the fetch sees the rename
+		assertThat(name).isEqualTo("Final");
+	}
+
+	@Test
+	void assertThatFailuresCompleteExceptionally() {
+		// When: a project that does not exist is fetched
+		CompletableFuture<Project> fetch = asyncService.fetchProjectByIdAsync(404);
+
+		// Then: the service's exception is the cause
+		assertThatThrownBy(fetch::join).isInstanceOf(CompletionException.class)
+				.hasCauseInstanceOf(NoSuchElementException.class);
+	}
+}
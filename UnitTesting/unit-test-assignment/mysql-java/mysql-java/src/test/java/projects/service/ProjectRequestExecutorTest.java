@@ -0,0 +1,90 @@
+package projects.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.dao.InMemoryProjectDao;
+import projects.entity.Project;
+
+class ProjectRequestExecutorTest {
+
+	private ProjectService projectService;
+	private ProjectRequestExecutor executor;
+
+	@BeforeEach
+	void setUp() {
+		projectService = new ProjectService(new InMemoryProjectDao(), ProjectCache.disabled());
+	}
+
+	@AfterEach
+	void tearDown() {
+		if(executor != null) {
+			executor.close();
+		}
+	}
+
+	@Test
+	void assertThatManyRequestsRunWithinTheConcurrencyLimit() throws Exception {
+		// Given: an executor allowing four running requests and plenty of pending ones
+		executor = new ProjectRequestExecutor(projectService, 4, 500, true, 5_000);
+
+		// When: hundreds of adds and fetches are submitted at once
+		List<Future<Project>> adds = new ArrayList<>();
+
+		for(int i = 0; i < 300; i++) {
+			adds.add(executor.addProject(ProjectServiceTest.newProject("Concurrent " + i)));
+		}
+
+		List<Future<Project>> fetches = new ArrayList<>();
+
+		for(Future<Project> add : adds) {
+			fetches.add(executor.fetchProjectById(add.get(5, TimeUnit.SECONDS).getProjectId()));
+		}
+
+		// Then: every request completes and no more than four ever ran together
+		for(Future<Project> fetch : fetches) {
+			assertThat(fetch.get(5, TimeUnit.SECONDS).getProjectName()).startsWith("Concurrent");
+		}
+
+		assertThat(executor.getPeakActiveCount()).isBetween(1, 4);
+		assertThat(executor.getPendingCount()).isZero();
+	}
+
+	@Test
+	void assertThatSubmitBlocksAndThenRejectsWhenFull() throws Exception {
+		// Given: an executor with two request slots, both taken by requests that wait on a latch
+		executor = new ProjectRequestExecutor(projectService, 1, 2, false, 100);
+		CountDownLatch release = new CountDownLatch(1);
+
+		executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+		executor.submit(() -> release.await(5, TimeUnit.SECONDS));
+
+		// When/Then: a third request waits out the admission timeout and is rejected
+		assertThatThrownBy(() -> executor.fetchAllProjects()).isInstanceOf(RejectedExecutionException.class);
+
+		release.countDown();
+		assertThat(executor.fetchAllProjects().get(5, TimeUnit.SECONDS)).isEmpty();
+	}
+
+	@Test
+	void assertThatServiceErrorsCompleteTheFuture() {
+		// Given: an executor on platform threads
+		executor = new ProjectRequestExecutor(projectService, 2, 4, false, 1_000);
+
+		// When: a request fails inside the service
+		Future<Void> delete = executor.deleteProject(999);
+
+		// Then: the failure is reported through the future
+		assertThatThrownBy(() -> delete.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+				.hasMessageContaining("999");
+	}
+}
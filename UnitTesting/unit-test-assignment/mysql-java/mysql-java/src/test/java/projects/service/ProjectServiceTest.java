@@ -0,0 +1,123 @@
+package projects.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.dao.TestDatabase;
+import projects.entity.Project;
+
+class ProjectServiceTest {
+
+	private ProjectService projectService;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		TestDatabase.install("project_service_test");
+		projectService = new ProjectService();
+	}
+
+	static Project newProject(String name) {
+		Project project = new Project();
+		project.setProjectName(name);
+		return project;
+	}
+
+	@Test
+	void assertThatPagesWalkTheListingInNameOrder() {
+		// Given: projects with duplicate names so the ID tie-breaker matters
+		List<Project> projects = new ArrayList<>();
+
+		for(String name : List.of("Delta", "Alpha", "Charlie", "Bravo", "Alpha", "Echo", "Bravo")) {
+			projects.add(newProject(name));
+		}
+
+		projectService.addProjects(projects);
+
+		// When: the listing is read three projects at a time
+		List<String> seen = new ArrayList<>();
+		String token = null;
+		int pages = 0;
+
+		do {
+			ProjectPage page = projectService.fetchProjectPage(token, 3);
+			page.getProjects().forEach(project -> seen.add(project.getProjectName()));
+			token = page.getContinuationToken();
+			pages++;
+		} while(token != null);
+
+		// Then: every project appears once, in the same order as the full listing
+		assertThat(pages).isEqualTo(3);
+		assertThat(seen).containsExactly("Alpha", "Alpha", "Bravo", "Bravo", "Charlie", "Delta", "Echo");
+		assertThat(seen).containsExactlyElementsOf(
+				projectService.fetchAllProjects().stream().map(Project::getProjectName).toList());
+	}
+
+	@Test
+	void assertThatLastFullPageHasNoToken() {
+		// Given: exactly one page of projects
+		projectService.addProjects(List.of(newProject("One"), newProject("Two")));
+
+		// When: a page of that size is read
+		ProjectPage page = projectService.fetchProjectPage(null, null, 2);
+
+		// Then: no further page is advertised
+		assertThat(page.getProjects()).hasSize(2);
+		assertThat(page.hasNextPage()).isFalse();
+	}
+
+	@Test
+	void assertThatGarbageTokenIsRejected() {
+		assertThatThrownBy(() -> projectService.fetchProjectPage("not-a-token", 10))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void assertThatRepeatedFetchIsServedFromCache() {
+		// Given: a stored project
+		Project project = projectService.addProject(newProject("Cached"));
+
+		// When: it is fetched twice
+		Project first = projectService.fetchProjectById(project.getProjectId());
+		Project second = projectService.fetchProjectById(project.getProjectId());
+
+		// Then: the second fetch is a cache hit returning the same graph
+		assertThat(second).isSameAs(first);
+		assertThat(projectService.getCacheStats().hitCount()).isEqualTo(1);
+		assertThat(projectService.getCacheStats().missCount()).isEqualTo(1);
+	}
+
+	@Test
+	void assertThatBulkFetchSkipsNullIds() {
+		// Given: two stored projects, one of them in the cache
+		Project cached = projectService.addProject(newProject("Cached"));
+		Project stored = projectService.addProject(newProject("Stored"));
+		projectService.fetchProjectById(cached.getProjectId());
+
+		// When: the projects are fetched with a null among the IDs
+		List<Project> projects = projectService.fetchProjectsWithDetails(
+				Arrays.asList(stored.getProjectId(), null, cached.getProjectId()));
+
+		// Then: the null is skipped and the others come back in order
+		assertThat(projects).extracting(Project::getProjectName).containsExactly("Stored", "Cached");
+	}
+
+	@Test
+	void assertThatModifyInvalidatesCachedProject() {
+		// Given: a cached project
+		Project project = projectService.addProject(newProject("Before"));
+		projectService.fetchProjectById(project.getProjectId());
+
+		// When: it is modified
+		Project changed = newProject("After");
+		changed.setProjectId(project.getProjectId());
+		projectService.modifyProjectDetails(changed);
+
+		// Then: the next fetch reads the new row
+		assertThat(projectService.fetchProjectById(project.getProjectId()).getProjectName()).isEqualTo("After");
+	}
+}
@@ -0,0 +1,107 @@
+package projects.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.dao.InMemoryProjectDao;
+import projects.entity.Project;
+
+class WriteBehindQueueTest {
+
+	private ProjectService projectService;
+	private WriteBehindQueue queue;
+
+	@BeforeEach
+	void setUp() {
+		projectService = new ProjectService(new InMemoryProjectDao(), ProjectCache.disabled());
+	}
+
+	@AfterEach
+	void tearDown() {
+		queue.close();
+	}
+
+	@Test
+	void assertThatRepeatedEditsAreCoalesced() {
+		// Given: a queue that only flushes when asked, and a stored project
+		queue = new WriteBehindQueue(projectService, 10, 100, 1, TimeUnit.HOURS);
+		Integer projectId = projectService.addProject(ProjectServiceTest.newProject("Logged")).getProjectId();
+
+		// When: the actual hours are edited three times and the notes once
+		for(String hours : new String[] { "1.00", "2.00", "3.00" }) {
+			Project edit = hoursEdit(projectId, hours);
+
+			if(hours.equals("2.00")) {
+				edit.setNotes("Halfway");
+			}
+
+			queue.modifyProjectDetails(edit);
+		}
+
+		Project beforeFlush = projectService.fetchProjectById(projectId);
+		queue.flush();
+
+		// Then: nothing was written before the flush, and one write carried the latest values
+		Project stored = projectService.fetchProjectById(projectId);
+		assertThat(beforeFlush.getActualHours()).isNull();
+		assertThat(stored.getActualHours()).isEqualByComparingTo("3.00");
+		assertThat(stored.getNotes()).isEqualTo("Halfway");
+		assertThat(queue.getProjectsWritten()).isEqualTo(1);
+		assertThat(queue.getCoalescingRatio()).isEqualTo(3.0);
+		assertThat(queue.getPendingCount()).isZero();
+	}
+
+	@Test
+	void assertThatAFullBatchIsFlushedWithoutWaitingForTheInterval() throws InterruptedException {
+		// Given: a queue flushing every two projects or every hour
+		queue = new WriteBehindQueue(projectService, 2, 4, 1, TimeUnit.HOURS);
+		Integer first = projectService.addProject(ProjectServiceTest.newProject("First")).getProjectId();
+		Integer second = projectService.addProject(ProjectServiceTest.newProject("Second")).getProjectId();
+
+		// When: both projects are edited
+		queue.modifyProjectDetails(hoursEdit(first, "4.00"));
+		queue.modifyProjectDetails(hoursEdit(second, "5.00"));
+
+		// Then: the flusher writes them on its own
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+		while(queue.getProjectsWritten() < 2 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(queue.getProjectsWritten()).isEqualTo(2);
+		assertThat(projectService.fetchProjectById(second).getActualHours()).isEqualByComparingTo("5.00");
+	}
+
+	@Test
+	void assertThatCloseFlushesAndDeletedProjectsAreDropped() {
+		// Given: edits of a stored project and of one deleted before the flush
+		queue = new WriteBehindQueue(projectService, 10, 100, 1, TimeUnit.HOURS);
+		Integer kept = projectService.addProject(ProjectServiceTest.newProject("Kept")).getProjectId();
+		Integer deleted = projectService.addProject(ProjectServiceTest.newProject("Deleted")).getProjectId();
+
+		queue.modifyProjectDetails(hoursEdit(kept, "6.00"));
+		queue.modifyProjectDetails(hoursEdit(deleted, "7.00"));
+		projectService.deleteProject(deleted);
+
+		// When: the queue is closed
+		queue.close();
+
+		// Then: the waiting edit was written, the other dropped, and later edits are refused
+		assertThat(projectService.fetchProjectById(kept).getActualHours()).isEqualByComparingTo("6.00");
+		assertThat(queue.getProjectsDropped()).isEqualTo(1);
+		assertThatThrownBy(() -> queue.modifyProjectDetails(hoursEdit(kept, "8.00")))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private static Project hoursEdit(Integer projectId, String hours) {
+		Project edit = new Project();
+		edit.setProjectId(projectId);
+		edit.setActualHours(new BigDecimal(hours));
+		return edit;
+	}
+}
@@ -0,0 +1,90 @@
+package provided.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import projects.entity.Project;
+
+class RowMapperTest {
+
+	private Connection conn;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		conn = DriverManager.getConnection("jdbc:h2:mem:row_mapper_test");
+
+		try(Statement stmt = conn.createStatement()) {
+			stmt.execute("CREATE TABLE project (project_id INT, project_name VARCHAR(128), "
+					+ "estimated_hours DECIMAL(7,2), actual_hours DECIMAL(7,2), difficulty INT, notes TEXT, "
+					+ "extra_column INT)");
+			stmt.execute("INSERT INTO project VALUES (1, 'Shelf', 4.50, NULL, 2, 'pine', 99)");
+			stmt.execute("INSERT INTO project VALUES (2, 'Bench', NULL, 3.00, NULL, NULL, 99)");
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		conn.close();
+	}
+
+	@Test
+	void assertThatRowsAreMappedOntoFields() throws SQLException {
+		// Given: a result set with every project column plus one the entity does not have
+		List<Project> projects = new ArrayList<>();
+
+		try(Statement stmt = conn.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT * FROM project ORDER BY project_id")) {
+			// When: the rows are mapped with one mapper
+			RowMapper<Project> mapper = RowMapper.forResultSet(rs, Project.class);
+
+			while(rs.next()) {
+				projects.add(mapper.map(rs));
+			}
+		}
+
+		// Then: the columns land in the matching fields and null columns are left alone
+		assertThat(projects).hasSize(2);
+		assertThat(projects.get(0).getProjectId()).isEqualTo(1);
+		assertThat(projects.get(0).getProjectName()).isEqualTo("Shelf");
+		assertThat(projects.get(0).getEstimatedHours()).isEqualByComparingTo(new BigDecimal("4.50"));
+		assertThat(projects.get(0).getActualHours()).isNull();
+		assertThat(projects.get(0).getDifficulty()).isEqualTo(2);
+		assertThat(projects.get(1).getNotes()).isNull();
+		assertThat(projects.get(1).getMaterials()).isNotNull().isEmpty();
+	}
+
+	@Test
+	void assertThatMapperIsCachedPerResultSetShape() throws SQLException {
+		// Given: two queries with the same columns and one with fewer columns
+		RowMapper<Project> first;
+		RowMapper<Project> second;
+		RowMapper<Project> narrow;
+
+		try(Statement stmt = conn.createStatement()) {
+			try(ResultSet rs = stmt.executeQuery("SELECT * FROM project")) {
+				first = RowMapper.forResultSet(rs, Project.class);
+			}
+
+			try(ResultSet rs = stmt.executeQuery("SELECT * FROM project WHERE project_id = 2")) {
+				second = RowMapper.forResultSet(rs, Project.class);
+			}
+
+			try(ResultSet rs = stmt.executeQuery("SELECT project_id FROM project")) {
+				narrow = RowMapper.forResultSet(rs, Project.class);
+			}
+		}
+
+		// Then: the same shape shares a mapper and a different shape gets its own
+		assertThat(second).isSameAs(first);
+		assertThat(narrow).isNotSameAs(first);
+	}
+}